@@ -0,0 +1,110 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackState;
+import org.sosy_lab.cpachecker.cpa.location.LocationState;
+import org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+
+/**
+ * Benchmarks for {@link AbstractStates#extractStateByType(AbstractState, Class)} on the ARG states
+ * of a typical value analysis of a program from <code>test/programs</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AbstractStatesBenchmark {
+
+  @Param(BenchmarkFixtures.DEFAULT_PROGRAM)
+  private String program;
+
+  @Param("1000")
+  private int states;
+
+  private AbstractState[] argStates;
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration config =
+        BenchmarkFixtures.configuration(
+            "cpa", "cpa.arg.ARGCPA",
+            "ARGCPA.cpa", "cpa.composite.CompositeCPA",
+            "CompositeCPA.cpas",
+                "cpa.location.LocationCPA, cpa.callstack.CallstackCPA,"
+                    + " cpa.functionpointer.FunctionPointerCPA, cpa.value.ValueAnalysisCPA");
+    CFA cfa = BenchmarkFixtures.parseProgram(config, program);
+    argStates =
+        BenchmarkFixtures.exploreStates(BenchmarkFixtures.buildCPA(config, cfa), cfa, states)
+            .keySet()
+            .toArray(new AbstractState[0]);
+  }
+
+  private void extractAll(Class<? extends AbstractState> pType, Blackhole pBlackhole) {
+    for (AbstractState state : argStates) {
+      pBlackhole.consume(AbstractStates.extractStateByType(state, pType));
+    }
+  }
+
+  @Benchmark
+  public void extractLocation(Blackhole pBlackhole) {
+    extractAll(LocationState.class, pBlackhole);
+  }
+
+  @Benchmark
+  public void extractCallstack(Blackhole pBlackhole) {
+    extractAll(CallstackState.class, pBlackhole);
+  }
+
+  @Benchmark
+  public void extractValue(Blackhole pBlackhole) {
+    extractAll(ValueAnalysisState.class, pBlackhole);
+  }
+
+  /** worst case: the type is not present and the whole state tree is searched */
+  @Benchmark
+  public void extractMissing(Blackhole pBlackhole) {
+    extractAll(PredicateAbstractState.class, pBlackhole);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPABuilder;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+/**
+ * Reproducible inputs for the benchmarks. All fixtures are created from programs in
+ * <code>test/programs</code> (relative to the CPAchecker directory) and do not depend on the
+ * order in which benchmarks are executed.
+ */
+final class BenchmarkFixtures {
+
+  /** Default program for benchmarks that need a CFA. */
+  static final String DEFAULT_PROGRAM = "test/programs/simple/SynchronousSimulator.c";
+
+  private BenchmarkFixtures() {}
+
+  /**
+   * Create a configuration for benchmarks, with output files disabled and a solver that does not
+   * need native libraries.
+   */
+  static Configuration configuration(String... pOptions) throws InvalidConfigurationException {
+    assert pOptions.length % 2 == 0;
+    ConfigurationBuilder builder =
+        TestDataTools.configurationForTest().setOption("solver.solver", "SMTINTERPOL");
+    for (int i = 0; i < pOptions.length; i += 2) {
+      builder.setOption(pOptions[i], pOptions[i + 1]);
+    }
+    return builder.build();
+  }
+
+  static LogManager logger() {
+    return LogManager.createNullLogManager();
+  }
+
+  static CFA parseProgram(Configuration pConfig, String pProgram) throws Exception {
+    CFACreator creator = new CFACreator(pConfig, logger(), ShutdownNotifier.createDummy());
+    return creator.parseFileAndCreateCFA(ImmutableList.of(pProgram));
+  }
+
+  /**
+   * Return the edges of a path through the CFA, starting at the main function and following
+   * always the first leaving edge, until the path has the given length or no edge is left.
+   */
+  static List<CFAEdge> followFirstEdges(CFA pCfa, int pMaxLength) {
+    List<CFAEdge> path = new ArrayList<>(pMaxLength);
+    CFANode node = pCfa.getMainFunction();
+    while (path.size() < pMaxLength && node.getNumLeavingEdges() > 0) {
+      CFAEdge edge = node.getLeavingEdge(0);
+      path.add(edge);
+      node = edge.getSuccessor();
+    }
+    return path;
+  }
+
+  static ConfigurableProgramAnalysis buildCPA(Configuration pConfig, CFA pCfa) throws Exception {
+    ReachedSetFactory reachedSetFactory = new ReachedSetFactory(pConfig, logger());
+    return new CPABuilder(pConfig, logger(), ShutdownNotifier.createDummy(), reachedSetFactory)
+        .buildCPAs(pCfa, Specification.alwaysSatisfied(), new AggregatedReachedSets());
+  }
+
+  /**
+   * Explore the state space of the given CPA in BFS order (without merging or coverage) and
+   * return the first states that are found together with their precision.
+   */
+  static Map<AbstractState, Precision> exploreStates(
+      ConfigurableProgramAnalysis pCpa, CFA pCfa, int pMaxStates) throws Exception {
+    CFANode mainEntry = pCfa.getMainFunction();
+    StateSpacePartition partition = StateSpacePartition.getDefaultPartition();
+    Precision precision = pCpa.getInitialPrecision(mainEntry, partition);
+
+    Map<AbstractState, Precision> states = new LinkedHashMap<>();
+    Deque<AbstractState> waitlist = new ArrayDeque<>();
+    AbstractState initialState = pCpa.getInitialState(mainEntry, partition);
+    states.put(initialState, precision);
+    waitlist.add(initialState);
+
+    while (!waitlist.isEmpty() && states.size() < pMaxStates) {
+      AbstractState state = waitlist.poll();
+      for (AbstractState successor :
+          pCpa.getTransferRelation().getAbstractSuccessors(state, precision)) {
+        if (states.size() < pMaxStates && states.put(successor, precision) == null) {
+          waitlist.add(successor);
+        }
+      }
+    }
+    return states;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+
+/**
+ * Benchmark for {@link PathFormulaManagerImpl#makeAnd(PathFormula, CFAEdge)}, which converts the
+ * edges of a path through a program from <code>test/programs</code> into a path formula.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathFormulaManagerBenchmark {
+
+  @Param(BenchmarkFixtures.DEFAULT_PROGRAM)
+  private String program;
+
+  @Param("200")
+  private int pathLength;
+
+  private Solver solver;
+  private PathFormulaManager pfmgr;
+  private List<CFAEdge> path;
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration config = BenchmarkFixtures.configuration();
+    CFA cfa = BenchmarkFixtures.parseProgram(config, program);
+    solver = Solver.create(config, BenchmarkFixtures.logger(), ShutdownNotifier.createDummy());
+    pfmgr =
+        new PathFormulaManagerImpl(
+            solver.getFormulaManager(),
+            config,
+            BenchmarkFixtures.logger(),
+            ShutdownNotifier.createDummy(),
+            cfa,
+            AnalysisDirection.FORWARD);
+    path = BenchmarkFixtures.followFirstEdges(cfa, pathLength);
+  }
+
+  @TearDown
+  public void tearDown() {
+    solver.close();
+  }
+
+  @Benchmark
+  public PathFormula makeAndAlongPath() throws Exception {
+    PathFormula pf = pfmgr.makeEmptyPathFormula();
+    for (CFAEdge edge : path) {
+      pf = pfmgr.makeAnd(pf, edge);
+    }
+    return pf;
+  }
+}
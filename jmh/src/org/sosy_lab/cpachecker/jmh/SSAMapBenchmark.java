@@ -0,0 +1,98 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap.SSAMapBuilder;
+
+/** Benchmarks for lookup, update, and merge of {@link SSAMap}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SSAMapBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int variables;
+
+  private SSAMap ssa;
+  private SSAMap otherSsa;
+  private String[] names;
+  private int next = 0;
+
+  @Setup
+  public void setup() {
+    names = new String[variables];
+    SSAMapBuilder builder = SSAMap.emptySSAMap().builder();
+    for (int i = 0; i < variables; i++) {
+      names[i] = "main::var" + i;
+      builder.setIndex(names[i], CNumericTypes.INT, 1 + i % 5);
+    }
+    ssa = builder.build();
+
+    // a map that differs in every tenth variable, as after a branch of the program
+    builder = ssa.builder();
+    for (int i = 0; i < variables; i += 10) {
+      builder.setIndex(names[i], CNumericTypes.INT, ssa.getIndex(names[i]) + 1);
+    }
+    otherSsa = builder.build();
+  }
+
+  private String nextName() {
+    next = (next + 1) % names.length;
+    return names[next];
+  }
+
+  @Benchmark
+  public int getIndex() {
+    return ssa.getIndex(nextName());
+  }
+
+  @Benchmark
+  public SSAMap incrementIndex() {
+    String name = nextName();
+    return ssa.builder().setIndex(name, CNumericTypes.INT, ssa.getIndex(name) + 1).build();
+  }
+
+  @Benchmark
+  public SSAMap merge() {
+    return SSAMap.merge(ssa, otherSsa, MapsDifference.ignoreMapsDifference());
+  }
+}
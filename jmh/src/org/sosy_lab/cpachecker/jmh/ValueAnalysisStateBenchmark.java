@@ -0,0 +1,103 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/** Benchmarks for {@link ValueAnalysisState#isLessOrEqual(ValueAnalysisState)}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValueAnalysisStateBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int variables;
+
+  private ValueAnalysisState state;
+  private ValueAnalysisState equalState;
+  private ValueAnalysisState smallerState;
+  private ValueAnalysisState differentState;
+
+  @Setup
+  public void setup() {
+    state = createState(variables, -1);
+    equalState = createState(variables, -1);
+    smallerState = createState(variables / 2, -1);
+    differentState = createState(variables, variables - 1);
+  }
+
+  /**
+   * Create a state that assigns i to the variable var_i for the given number of variables,
+   * except for the variable with the given index.
+   */
+  private static ValueAnalysisState createState(int pVariables, int pDifferentIndex) {
+    ValueAnalysisState result = new ValueAnalysisState(MachineModel.LINUX64);
+    for (int i = 0; i < pVariables; i++) {
+      result.assignConstant(
+          MemoryLocation.valueOf("main", "var" + i),
+          new NumericValue(i == pDifferentIndex ? -i : i),
+          CNumericTypes.INT);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public boolean lessOrEqualIdentical() {
+    return state.isLessOrEqual(state);
+  }
+
+  @Benchmark
+  public boolean lessOrEqualEqual() {
+    return state.isLessOrEqual(equalState);
+  }
+
+  @Benchmark
+  public boolean lessOrEqualSmaller() {
+    return state.isLessOrEqual(smallerState);
+  }
+
+  @Benchmark
+  public boolean lessOrEqualDifferentValue() {
+    return state.isLessOrEqual(differentState);
+  }
+}
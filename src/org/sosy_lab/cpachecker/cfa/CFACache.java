@@ -0,0 +1,198 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAchecker;
+import org.sosy_lab.cpachecker.exceptions.CParserException;
+
+/**
+ * Disk-backed cache of fully created CFAs that can be shared across several runs of CPAchecker
+ * (e.g., for running several configurations on the same program).
+ *
+ * <p>Each CFA is stored in its own file in the cache directory. The name of the file is a hash over
+ * the version of CPAchecker, the names and contents of the source files, and the options that
+ * influence the creation of the CFA, so changing any of them leads to a new entry. If the files are
+ * preprocessed before parsing, the output of the preprocessor is hashed instead of the contents of
+ * the files, such that changes to included headers are noticed as well. The CFA is
+ * stored in the binary format of Java serialization, including its loop structure and variable
+ * classification. Entries are written to a temporary file first and then moved to their final
+ * name, so that concurrent runs never read incomplete entries. Entries that cannot be read are
+ * ignored.
+ */
+class CFACache {
+
+  /** Options that influence the creation of the CFA, given as prefixes of their names. */
+  private static final ImmutableList<String> RELEVANT_OPTIONS =
+      ImmutableList.of(
+          "analysis.entryFunction",
+          "analysis.functionPointer",
+          "analysis.interprocedural",
+          "analysis.machineModel",
+          "analysis.matchAssignedFunctionPointers",
+          "analysis.summaryEdges",
+          "analysis.useGlobalVars",
+          "analysis.useLoopStructure",
+          "cfa.",
+          "java.",
+          "language",
+          "liveVar.",
+          "parser.");
+
+  /** Options that match {@link #RELEVANT_OPTIONS} but do not influence the created CFA. */
+  private static final ImmutableList<String> IRRELEVANT_OPTIONS =
+      ImmutableList.of("cfa.cacheDirectory", "cfa.callgraph.", "cfa.export", "cfa.file");
+
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n').omitEmptyStrings();
+
+  private final Path directory;
+  private final Configuration config;
+  private final LogManager logger;
+  private final @Nullable CPreprocessor preprocessor;
+
+  /**
+   * Create a cache in the given directory.
+   *
+   * @param pPreprocessor The preprocessor that is run on the source files before parsing, if any.
+   */
+  CFACache(
+      Path pDirectory,
+      Configuration pConfig,
+      LogManager pLogger,
+      @Nullable CPreprocessor pPreprocessor) {
+    directory = checkNotNull(pDirectory);
+    config = pConfig;
+    logger = pLogger;
+    preprocessor = pPreprocessor;
+  }
+
+  /** Compute the key of the CFA for the given source files and the current configuration. */
+  String computeKey(List<String> pSourceFiles)
+      throws IOException, CParserException, InterruptedException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(CPAchecker.getCPAcheckerVersion(), StandardCharsets.UTF_8);
+    for (String sourceFile : pSourceFiles) {
+      hasher.putString(sourceFile, StandardCharsets.UTF_8);
+      if (preprocessor != null) {
+        // the result of the preprocessor also covers the included files
+        hasher.putString(preprocessor.preprocess(sourceFile), StandardCharsets.UTF_8);
+      } else {
+        Path path = Paths.get(sourceFile);
+        hasher.putBytes(MoreFiles.asByteSource(path).hash(Hashing.sha256()).asBytes());
+      }
+    }
+
+    // the options are sorted such that the key does not depend on their order
+    TreeSet<String> options = new TreeSet<>();
+    for (String option : LINE_SPLITTER.split(config.asPropertiesString())) {
+      if (RELEVANT_OPTIONS.stream().anyMatch(option::startsWith)
+          && IRRELEVANT_OPTIONS.stream().noneMatch(option::startsWith)) {
+        options.add(option.trim());
+      }
+    }
+    for (String option : options) {
+      hasher.putString(option, StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  private Path getFile(String pKey) {
+    return directory.resolve(pKey + ".cfa");
+  }
+
+  /**
+   * Read the CFA with the given key from the cache.
+   *
+   * @return The CFA, or null if there is no valid entry for this key.
+   */
+  @Nullable ImmutableCFA load(String pKey) {
+    Path file = getFile(pKey);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      ImmutableCFA cfa = (ImmutableCFA) in.readObject();
+      logger.log(Level.FINE, "Read CFA from", file);
+      return cfa;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not read CFA from cache, creating it from the program");
+      return null;
+    }
+  }
+
+  /** Write the given CFA to the cache. Failures are logged and otherwise ignored. */
+  void store(String pKey, ImmutableCFA pCfa) {
+    if (pCfa.getLiveVariables().isPresent()) {
+      // the live variables cannot be serialized and depend on the global declarations,
+      // which are not available anymore when the CFA is read from the cache
+      logger.log(Level.FINE, "Not writing CFA to cache because it contains live variables");
+      return;
+    }
+
+    try {
+      Files.createDirectories(directory);
+      Path tmpFile = Files.createTempFile(directory, pKey, ".tmp");
+      try {
+        try (ObjectOutputStream out =
+            new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+          out.writeObject(pCfa);
+        }
+        Files.move(
+            tmpFile,
+            getFile(pKey),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+      logger.log(Level.FINE, "Wrote CFA to", getFile(pKey));
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write CFA to cache");
+    }
+  }
+}
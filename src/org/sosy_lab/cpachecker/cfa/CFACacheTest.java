@@ -0,0 +1,134 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class CFACacheTest {
+
+  private static final String PROGRAM =
+      "int main() { int x = 0; while (x < 10) { x++; } return x; }";
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private Configuration config;
+  private CFACache cache;
+  private Path programFile;
+  private List<String> sourceFiles;
+
+  @Before
+  public void init() throws Exception {
+    config = TestDataTools.configurationForTest().build();
+    cache = new CFACache(tempFolder.newFolder("cache").toPath(), config, logger, null);
+    programFile = tempFolder.newFile("program.c").toPath();
+    Files.write(programFile, PROGRAM.getBytes(StandardCharsets.US_ASCII));
+    sourceFiles = ImmutableList.of(programFile.toString());
+  }
+
+  private ImmutableCFA createCFA() throws Exception {
+    CFACreator creator = new CFACreator(config, logger, ShutdownNotifier.createDummy());
+    return (ImmutableCFA) creator.parseFileAndCreateCFA(sourceFiles);
+  }
+
+  /** Describes all edges of the given CFA with their nodes, in the order of the nodes. */
+  private static List<String> describeEdges(CFA pCfa) {
+    List<String> edges = new ArrayList<>();
+    for (CFANode node : pCfa.getAllNodes()) {
+      for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+        edges.add(edge.getPredecessor() + " -> " + edge.getSuccessor() + ": " + edge);
+      }
+    }
+    return edges;
+  }
+
+  @Test
+  public void roundtrip() throws Exception {
+    ImmutableCFA cfa = createCFA();
+    String key = cache.computeKey(sourceFiles);
+    assertThat(cache.load(key)).isNull();
+
+    cache.store(key, cfa);
+    ImmutableCFA loaded = cache.load(key);
+    assertThat(loaded).isNotNull();
+
+    assertThat(loaded.getFileNames()).containsExactlyElementsIn(cfa.getFileNames()).inOrder();
+    assertThat(loaded.getLanguage()).isEqualTo(cfa.getLanguage());
+    assertThat(loaded.getMachineModel()).isEqualTo(cfa.getMachineModel());
+    assertThat(loaded.getAllFunctionNames()).isEqualTo(cfa.getAllFunctionNames());
+    assertThat(loaded.getMainFunction().getNodeNumber())
+        .isEqualTo(cfa.getMainFunction().getNodeNumber());
+    assertThat(describeEdges(loaded)).containsExactlyElementsIn(describeEdges(cfa)).inOrder();
+    assertThat(loaded.getLoopStructure()).isPresent();
+    assertThat(loaded.getLoopStructure().get().getCount())
+        .isEqualTo(cfa.getLoopStructure().get().getCount());
+    assertThat(loaded.getVarClassification().isPresent())
+        .isEqualTo(cfa.getVarClassification().isPresent());
+  }
+
+  @Test
+  public void keyDependsOnProgram() throws Exception {
+    String key = cache.computeKey(sourceFiles);
+    assertThat(cache.computeKey(sourceFiles)).isEqualTo(key);
+
+    Files.write(programFile, "int main() { return 0; }".getBytes(StandardCharsets.US_ASCII));
+    assertThat(cache.computeKey(sourceFiles)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void keyDependsOnRelevantOptions() throws Exception {
+    String key = cache.computeKey(sourceFiles);
+
+    Configuration exportConfig =
+        TestDataTools.configurationForTest().setOption("cfa.exportPerFunction", "false").build();
+    CFACache exportCache = new CFACache(tempFolder.getRoot().toPath(), exportConfig, logger, null);
+    assertThat(exportCache.computeKey(sourceFiles)).isEqualTo(key);
+
+    Configuration simplifyConfig =
+        TestDataTools.configurationForTest().setOption("cfa.simplifyCfa", "false").build();
+    CFACache simplifyCache =
+        new CFACache(tempFolder.getRoot().toPath(), simplifyConfig, logger, null);
+    assertThat(simplifyCache.computeKey(sourceFiles)).isNotEqualTo(key);
+  }
+}
@@ -220,12 +220,20 @@ public class CFACreator {
       description="This option enables the computation of a classification of CFA nodes.")
 private boolean classifyNodes = false;
 
+  @Option(secure=true, name="cfa.cacheDirectory",
+      description="Directory with a cache of created CFAs that is shared between runs. "
+          + "If the CFA for the same program files and CFA-related options is found there, "
+          + "parsing and post-processing are skipped, otherwise the created CFA is added.")
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path cacheDirectory = null;
+
   @Option(secure=true, description="C, Java, or LLVM IR?")
   private Language language = Language.C;
 
   private final LogManager logger;
   private final Parser parser;
   private final ShutdownNotifier shutdownNotifier;
+  private final @Nullable CFACache cache;
 
   private static class CFACreatorStatistics implements Statistics {
 
@@ -237,6 +245,8 @@ private boolean classifyNodes = false;
     private final Timer processingTime = new Timer();
     private final Timer variableClassificationTime = new Timer();
     private final Timer exportTime = new Timer();
+    private final Timer cacheTime = new Timer();
+    private boolean loadedFromCache = false;
     private @Nullable VariableClassificationStatistics varClassificationStats;
 
     @Override
@@ -248,6 +258,10 @@ private boolean classifyNodes = false;
     public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
       out.println("  Time for loading parser:    " + parserInstantiationTime);
       out.println("  Time for CFA construction:  " + totalTime);
+      if (cacheTime.getNumberOfIntervals() > 0) {
+        out.println("    Time for CFA cache:       " + cacheTime
+            + (loadedFromCache ? " (CFA read from cache)" : " (CFA not in cache)"));
+      }
       out.println("    Time for parsing file(s): " + parsingTime);
       out.println("    Time for AST to CFA:      " + conversionTime);
       out.println("    Time for CFA sanity check:" + checkTime);
@@ -282,6 +296,7 @@ private boolean classifyNodes = false;
     this.config = config;
     this.logger = logger;
     this.shutdownNotifier = pShutdownNotifier;
+    CPreprocessor preprocessor = null;
 
     stats.parserInstantiationTime.start();
 
@@ -298,7 +313,7 @@ private boolean classifyNodes = false;
               config, logger, outerParser, readLineDirectives || usePreprocessor);
 
       if (usePreprocessor) {
-        CPreprocessor preprocessor = new CPreprocessor(config, logger);
+        preprocessor = new CPreprocessor(config, logger);
         outerParser = new CParserWithPreprocessor(outerParser, preprocessor);
       }
 
@@ -318,6 +333,11 @@ private boolean classifyNodes = false;
     stats.conversionTime = parser.getCFAConstructionTime();
 
     stats.parserInstantiationTime.stop();
+
+    cache =
+        cacheDirectory != null
+            ? new CFACache(cacheDirectory, config, logger, preprocessor)
+            : null;
   }
 
   /**
@@ -361,6 +381,22 @@ private boolean classifyNodes = false;
 
     stats.totalTime.start();
     try {
+      String cacheKey = null;
+      if (cache != null) {
+        stats.cacheTime.start();
+        try {
+          cacheKey = cache.computeKey(sourceFiles);
+          ImmutableCFA cachedCFA = cache.load(cacheKey);
+          if (cachedCFA != null) {
+            stats.loadedFromCache = true;
+            exportCFAAsyncIfRequested(cachedCFA);
+            return cachedCFA;
+          }
+        } finally {
+          stats.cacheTime.stop();
+        }
+      }
+
       // FIRST, parse file(s) and create CFAs for each function
       logger.log(Level.FINE, "Starting parsing of file(s)");
 
@@ -381,14 +417,24 @@ private boolean classifyNodes = false;
         throw new AssertionError();
       }
 
-      return createCFA(c, mainFunction);
+      ImmutableCFA cfa = createCFA(c, mainFunction);
+
+      if (cache != null) {
+        stats.cacheTime.start();
+        try {
+          cache.store(cacheKey, cfa);
+        } finally {
+          stats.cacheTime.stop();
+        }
+      }
+      return cfa;
 
     } finally {
       stats.totalTime.stop();
     }
   }
 
-  private CFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
+  private ImmutableCFA createCFA(ParseResult pParseResult, FunctionEntryNode pMainFunction) throws InvalidConfigurationException, InterruptedException, ParserException {
 
     FunctionEntryNode mainFunction = pMainFunction;
 
@@ -492,10 +538,7 @@ private boolean classifyNodes = false;
     assert CFACheck.check(mainFunction, null);
     stats.checkTime.stop();
 
-    if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
-        || ((exportFunctionCallsFile != null) && exportFunctionCalls)) {
-      exportCFAAsync(immutableCFA);
-    }
+    exportCFAAsyncIfRequested(immutableCFA);
 
     logger.log(Level.FINE, "DONE, CFA for", immutableCFA.getNumberOfFunctions(), "functions created.");
 
@@ -876,6 +919,13 @@ v.addInitializer(initializer);
     }
   }
 
+  private void exportCFAAsyncIfRequested(final CFA cfa) {
+    if (((exportCfaFile != null) && (exportCfa || exportCfaPerFunction))
+        || ((exportFunctionCallsFile != null) && exportFunctionCalls)) {
+      exportCFAAsync(cfa);
+    }
+  }
+
   private void exportCFAAsync(final CFA cfa) {
     // Execute asynchronously, this may take several seconds for large programs on slow disks.
     // This is safe because we don't modify the CFA from this point on.
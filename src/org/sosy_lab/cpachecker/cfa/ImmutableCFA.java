@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cfa;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
@@ -32,9 +33,11 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -63,7 +66,8 @@ class ImmutableCFA implements CFA, Serializable {
   private final @Nullable LoopStructure loopStructure;
   private final @Nullable VariableClassification varClassification;
   private final @Nullable LiveVariables liveVariables;
-  private final ImmutableList<Path> fileNames;
+  // Path is not serializable, the names are written as strings by writeObject
+  private transient ImmutableList<Path> fileNames;
   private final Language language;
 
   ImmutableCFA(
@@ -189,6 +193,8 @@ class ImmutableCFA implements CFA, Serializable {
     // write default stuff
     s.defaultWriteObject();
 
+    s.writeObject(new ArrayList<>(Lists.transform(fileNames, Path::toString)));
+
     // we have to keep the order of edges 'AS IS'
     final List<CFAEdge> enteringEdges = new ArrayList<>();
     for (CFANode node : allNodes) {
@@ -211,6 +217,9 @@ class ImmutableCFA implements CFA, Serializable {
     // read default stuff
     s.defaultReadObject();
 
+    fileNames =
+        ((List<String>) s.readObject()).stream().map(Paths::get).collect(toImmutableList());
+
     // read entering edges, we have to keep the order of edges 'AS IS'
     for (CFAEdge edge : (List<CFAEdge>) s.readObject()) {
       edge.getSuccessor().addEnteringEdge(edge);
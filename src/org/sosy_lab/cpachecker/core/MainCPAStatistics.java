@@ -39,6 +39,7 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Writer;
@@ -74,12 +75,15 @@ import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.ForwardingReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.MultiLevelPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.cpa.bam.AbstractBAMCPA;
 import org.sosy_lab.cpachecker.util.coverage.CoverageCollector;
 import org.sosy_lab.cpachecker.util.coverage.CoverageData;
@@ -484,18 +488,41 @@ class MainCPAStatistics implements Statistics {
 
     if (reached instanceof PartitionedReachedSet) {
       PartitionedReachedSet p = (PartitionedReachedSet)reached;
-      int partitions = p.getNumberOfPartitions();
-      out.println("  Number of partitions:          " + partitions);
-      out.println("    Avg size of partitions:      " + reachedSize / partitions);
-      Map.Entry<Object, Collection<AbstractState>> maxPartition = p.getMaxPartition();
-      out.print  ("    Max size of partitions:      " + maxPartition.getValue().size());
-      if (maxPartition.getValue().size() > 1) {
-        out.println(" (with key " + maxPartition.getKey() + ")");
-      } else {
-        out.println();
-      }
+      printPartitionStatistics(out, reachedSize, p.getNumberOfPartitions(), p.getMaxPartition());
+    } else if (reached instanceof MultiLevelPartitionedReachedSet) {
+      MultiLevelPartitionedReachedSet p = (MultiLevelPartitionedReachedSet) reached;
+      printPartitionStatistics(out, reachedSize, p.getNumberOfPartitions(), p.getMaxPartition());
     }
     out.println("  Number of target states:       " + from(reached).filter(IS_TARGET_STATE).size());
+
+    Set<Precision> precisions = Sets.newIdentityHashSet();
+    precisions.addAll(reached.getPrecisions());
+    out.println("  Number of distinct precisions: " + precisions.size());
+
+    long argEdgeBytes = 0;
+    int argStates = 0;
+    for (ARGState state : from(reached).filter(ARGState.class)) {
+      argEdgeBytes += state.getEdgeStorageSize();
+      argStates++;
+    }
+    if (argStates > 0) {
+      out.println("  ARG edge bytes per state:      " + argEdgeBytes / argStates);
+    }
+  }
+
+  private static void printPartitionStatistics(
+      PrintStream out,
+      int reachedSize,
+      int partitions,
+      Map.Entry<Object, Collection<AbstractState>> maxPartition) {
+    out.println("  Number of partitions:          " + partitions);
+    out.println("    Avg size of partitions:      " + reachedSize / partitions);
+    out.print  ("    Max size of partitions:      " + maxPartition.getValue().size());
+    if (maxPartition.getValue().size() > 1) {
+      out.println(" (with key " + maxPartition.getKey() + ")");
+    } else {
+      out.println();
+    }
   }
 
   private void printCfaStatistics(PrintStream out) {
@@ -24,18 +24,32 @@
 package org.sosy_lab.cpachecker.core.algorithm;
 
 import com.google.common.base.Functions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.ClassOption;
 import org.sosy_lab.common.configuration.Configuration;
@@ -48,8 +62,10 @@ import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithThreadSafeTransferRelation;
 import org.sosy_lab.cpachecker.core.interfaces.ForcedCovering;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult;
@@ -58,6 +74,8 @@ import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.reachedset.ForwardingReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.MultiLevelPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PseudoPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -70,6 +88,8 @@ import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
 import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
@@ -83,6 +103,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     private Timer stopTimer          = new Timer();
     private Timer addTimer           = new Timer();
     private Timer forcedCoveringTimer = new Timer();
+    private ThreadSafeTimerContainer workerTransferTimer =
+        new ThreadSafeTimerContainer("Time for transfer relation in worker threads");
 
     private int   countIterations   = 0;
     private int   maxWaitlistSize   = 0;
@@ -92,6 +114,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     private int   countMerge        = 0;
     private int   countStop         = 0;
     private int   countBreak        = 0;
+    private int   maxFrontierSize   = 0;
+    private int   maxRunningPartitions = 0;
 
     private Map<String, AbstractStatValue> reachedSetStatistics = new HashMap<>();
 
@@ -115,6 +139,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       for (AbstractStatValue c : reachedSetStatistics.values()) {
         w.put(c);
       }
+      for (AbstractStatValue c : getPartitionStatistics(pReached).values()) {
+        w.put(c);
+      }
       out.println("Number of computed successors:   " + countSuccessors);
       out.println("Max successors for one state:    " + maxSuccessors);
       out.println("Number of times merged:          " + countMerge);
@@ -128,6 +155,11 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       }
       out.println("  Time for precision adjustment:  " + precisionTimer);
       out.println("  Time for transfer relation:     " + transferTimer);
+      if (maxRunningPartitions > 0) {
+        out.println("    Max states in progress:       " + maxFrontierSize);
+        out.println("    Max partitions in parallel:   " + maxRunningPartitions);
+        out.println("    Time in worker threads:       " + workerTransferTimer.prettyFormat());
+      }
       if (mergeTimer.getNumberOfIntervals() > 0) {
         out.println("  Time for merge operator:        " + mergeTimer);
       }
@@ -135,6 +167,25 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       out.println("  Time for adding to reached set: " + addTimer);
 
     }
+
+    /**
+     * Returns the statistics about the partitions of the final reached set. These are not
+     * accumulated after each call of {@link CPAAlgorithm#run(ReachedSet)} like the other
+     * statistics of the reached set, because they describe its current content.
+     */
+    private static Map<String, ? extends AbstractStatValue> getPartitionStatistics(
+        UnmodifiableReachedSet pReached) {
+      UnmodifiableReachedSet reached = pReached;
+      while (reached instanceof ForwardingReachedSet) {
+        reached = ((ForwardingReachedSet) reached).getDelegate();
+      }
+      if (reached instanceof PartitionedReachedSet) {
+        return ((PartitionedReachedSet) reached).getPartitionStatistics();
+      } else if (reached instanceof MultiLevelPartitionedReachedSet) {
+        return ((MultiLevelPartitionedReachedSet) reached).getPartitionStatistics();
+      }
+      return ImmutableMap.of();
+    }
   }
 
   @Options(prefix = "cpa")
@@ -152,6 +203,29 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         + " Useful for incomplete analysis with no counterexample checking.")
     private boolean reportFalseAsUnknown = false;
 
+    @Option(
+      secure = true,
+      description =
+          "Number of worker threads that compute abstract successors in parallel. "
+              + "With a value larger than 1, states are taken from the waitlist and grouped "
+              + "by their partition key, and the successors of states with different keys "
+              + "are computed concurrently, while states with the same key are processed "
+              + "one after the other. Precision adjustment, stop and adding to the reached set "
+              + "are still done sequentially. This requires a CPA with a thread-safe "
+              + "transfer relation and is only used for configurations with merge-sep.",
+      name = "parallel.workers"
+    )
+    private int parallelWorkers = 1;
+
+    @Option(
+      secure = true,
+      description =
+          "Maximal number of states that are taken from the waitlist for the worker threads "
+              + "and not yet completely handled (0 for twice the number of workers).",
+      name = "parallel.frontierSize"
+    )
+    private int parallelFrontierSize = 0;
+
     private final ForcedCovering forcedCovering;
 
     private final ConfigurableProgramAnalysis cpa;
@@ -172,11 +246,51 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         forcedCovering = null;
       }
 
+      if (parallelWorkers < 1) {
+        throw new InvalidConfigurationException(
+            "Option cpa.parallel.workers needs to be a positive number.");
+      }
+      if (parallelFrontierSize < 0) {
+        throw new InvalidConfigurationException(
+            "Option cpa.parallel.frontierSize may not be negative.");
+      }
+      if (parallelWorkers > 1) {
+        if (!(cpa instanceof ConfigurableProgramAnalysisWithThreadSafeTransferRelation)
+            || !((ConfigurableProgramAnalysisWithThreadSafeTransferRelation) cpa)
+                .hasThreadSafeTransferRelation()) {
+          throw new InvalidConfigurationException(
+              "Parallel successor computation (option cpa.parallel.workers) is not supported "
+                  + "because the transfer relation of "
+                  + cpa.getClass().getSimpleName()
+                  + " or one of its components is not thread-safe.");
+        }
+        if (forcedCovering != null) {
+          throw new InvalidConfigurationException(
+              "Parallel successor computation cannot be combined with forced covering.");
+        }
+        if (cpa.getMergeOperator() != MergeSepOperator.getInstance()) {
+          logger.log(
+              Level.WARNING,
+              "Parallel successor computation is only supported with merge-sep,",
+              "using sequential CPA algorithm.");
+          parallelWorkers = 1;
+        }
+      }
+      if (parallelFrontierSize == 0) {
+        parallelFrontierSize = 2 * parallelWorkers;
+      }
     }
 
     @Override
     public CPAAlgorithm newInstance() {
-      return new CPAAlgorithm(cpa, logger, shutdownNotifier, forcedCovering, reportFalseAsUnknown);
+      return new CPAAlgorithm(
+          cpa,
+          logger,
+          shutdownNotifier,
+          forcedCovering,
+          reportFalseAsUnknown,
+          parallelWorkers,
+          parallelFrontierSize);
     }
   }
 
@@ -202,10 +316,22 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
 
   private final AlgorithmStatus status;
 
+  /** Number of worker threads for successor computation, 1 means sequential analysis. */
+  private final int parallelWorkers;
+
+  /** Maximal number of states that are taken from the waitlist for the worker threads. */
+  private final int parallelFrontierSize;
+
+  /** The timer of each worker thread, created when the worker computes its first successors. */
+  private final ThreadLocal<TimerWrapper> workerTransferTimer =
+      ThreadLocal.withInitial(() -> stats.workerTransferTimer.getNewTimer());
+
   private CPAAlgorithm(ConfigurableProgramAnalysis cpa, LogManager logger,
       ShutdownNotifier pShutdownNotifier,
       ForcedCovering pForcedCovering,
-      boolean pIsImprecise) {
+      boolean pIsImprecise,
+      int pParallelWorkers,
+      int pParallelFrontierSize) {
 
     transferRelation = cpa.getTransferRelation();
     mergeOperator = cpa.getMergeOperator();
@@ -215,12 +341,17 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     this.shutdownNotifier = pShutdownNotifier;
     this.forcedCovering = pForcedCovering;
     status = AlgorithmStatus.SOUND_AND_PRECISE.withPrecise(!pIsImprecise);
+    parallelWorkers = pParallelWorkers;
+    parallelFrontierSize = pParallelFrontierSize;
   }
 
   @Override
   public AlgorithmStatus run(final ReachedSet reachedSet) throws CPAException, InterruptedException {
     stats.totalTimer.start();
     try {
+      if (parallelWorkers > 1) {
+        return runParallel(reachedSet);
+      }
       return run0(reachedSet);
     } finally {
       stats.totalTimer.stopIfRunning();
@@ -237,6 +368,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         reachedSetStats = ((PartitionedReachedSet) reachedSet).getStatistics();
       } else if (reachedSet instanceof PseudoPartitionedReachedSet) {
         reachedSetStats = ((PseudoPartitionedReachedSet) reachedSet).getStatistics();
+      } else if (reachedSet instanceof MultiLevelPartitionedReachedSet) {
+        reachedSetStats = ((MultiLevelPartitionedReachedSet) reachedSet).getStatistics();
       } else {
         reachedSetStats = null;
       }
@@ -305,6 +438,226 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     return status;
   }
 
+  /**
+   * Variant of {@link #run0(ReachedSet)} that computes the successors of several states
+   * concurrently in worker threads. States are taken from the waitlist into a {@link
+   * PartitionedWaitlist}, which groups them by their partition key (cf. {@link
+   * Partitionable#getPartitionKey()}) and hands at most one state per partition to the workers at
+   * a time. All operations on the reached set (precision adjustment, merge, stop, and add) are
+   * executed in this thread as soon as the successors of a state are available, so states of one
+   * partition are handled strictly one after the other and in waitlist order. The order in which
+   * states of different partitions are handled depends on the timing of the transfer relation, so
+   * the order of states in the reached set (and everything else that depends on this timing, e.g.,
+   * ids of new states) may differ between runs and from {@link #run0(ReachedSet)}.
+   */
+  private AlgorithmStatus runParallel(final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            parallelWorkers,
+            new ThreadFactoryBuilder()
+                .setNameFormat("CPAAlgorithm-worker-%d")
+                .setDaemon(true)
+                .build());
+    CompletionService<SuccessorComputation> finished = new ExecutorCompletionService<>(workers);
+    PartitionedWaitlist waitlist = new PartitionedWaitlist();
+    // the computation whose successors are currently handled in this thread
+    SuccessorComputation current = null;
+    try {
+      while (reachedSet.hasWaitingState() || !waitlist.isEmpty()) {
+        shutdownNotifier.shutdownIfNecessary();
+
+        stats.chooseTimer.start();
+        while (waitlist.size() < parallelFrontierSize && reachedSet.hasWaitingState()) {
+          int size = reachedSet.getWaitlist().size();
+          if (size >= stats.maxWaitlistSize) {
+            stats.maxWaitlistSize = size;
+          }
+          stats.countWaitlistSize += size;
+          AbstractState state = reachedSet.popFromWaitlist();
+          waitlist.add(state, reachedSet.getPrecision(state));
+        }
+        for (SuccessorComputation computation : waitlist.startIdlePartitions()) {
+          computation.future = finished.submit(computation);
+        }
+        stats.maxFrontierSize = Math.max(stats.maxFrontierSize, waitlist.size());
+        stats.maxRunningPartitions =
+            Math.max(stats.maxRunningPartitions, waitlist.getNumberOfRunningPartitions());
+        stats.chooseTimer.stop();
+
+        stats.transferTimer.start();
+        try {
+          current = Futures.getUnchecked(finished.take());
+        } finally {
+          stats.transferTimer.stop();
+        }
+        waitlist.finish(current);
+        stats.countIterations++;
+
+        AbstractState state = current.state;
+        Precision precision = current.precision;
+        logger.log(Level.ALL, "Current state is", state, "with precision", precision);
+        Throwable failure = current.failure;
+        if (failure != null) {
+          Throwables.propagateIfPossible(failure, CPAException.class, InterruptedException.class);
+          throw new UnexpectedCheckedException("transfer relation", failure);
+        }
+
+        boolean stop = handleSuccessors(state, precision, current.successors, reachedSet);
+        // handleSuccessors has already re-added the current state if necessary
+        current = null;
+        if (stop) {
+          // Prec operator requested break
+          return status;
+        }
+      }
+    } finally {
+      workers.shutdownNow();
+      // We might have been interrupted by an exception or a break, so all states that were
+      // taken from the waitlist and not completely handled need to be re-added to the waitlist,
+      // there might be unhandled successors left that otherwise would be forgotten
+      // (which would be unsound).
+      if (current != null) {
+        reachedSet.reAddToWaitlist(current.state);
+      }
+      for (AbstractState state : waitlist.clear()) {
+        reachedSet.reAddToWaitlist(state);
+      }
+    }
+
+    return status;
+  }
+
+  /**
+   * The states that were taken from the waitlist of the reached set for the parallel successor
+   * computation, grouped by their partition key. For each partition, at most one state is
+   * <i>running</i>, i.e., its successors are computed by a worker thread or handled by the main
+   * thread. The other states of a partition are kept in waitlist order until the running state is
+   * finished. This class is used only by the main thread.
+   */
+  private class PartitionedWaitlist {
+
+    /** The pending states for each partition that has a running or a pending state. */
+    private final Map<Object, Deque<SuccessorComputation>> partitions = new LinkedHashMap<>();
+
+    /** The running state for each partition that has one. */
+    private final Map<Object, SuccessorComputation> running = new HashMap<>();
+
+    private int size = 0;
+
+    /** Returns the number of running and pending states. */
+    int size() {
+      return size;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    int getNumberOfRunningPartitions() {
+      return running.size();
+    }
+
+    void add(AbstractState pState, Precision pPrecision) {
+      Object key =
+          pState instanceof Partitionable ? ((Partitionable) pState).getPartitionKey() : null;
+      partitions
+          .computeIfAbsent(key, k -> new ArrayDeque<>())
+          .addLast(new SuccessorComputation(key, pState, pPrecision));
+      size++;
+    }
+
+    /**
+     * Mark the first pending state of each partition without a running state as running.
+     *
+     * @return the computations for the new running states
+     */
+    List<SuccessorComputation> startIdlePartitions() {
+      List<SuccessorComputation> started = new ArrayList<>();
+      for (Entry<Object, Deque<SuccessorComputation>> partition : partitions.entrySet()) {
+        Object key = partition.getKey();
+        if (!running.containsKey(key) && !partition.getValue().isEmpty()) {
+          SuccessorComputation computation = partition.getValue().removeFirst();
+          running.put(key, computation);
+          started.add(computation);
+        }
+      }
+      return started;
+    }
+
+    /** Remove the given running state, its partition may start its next state afterwards. */
+    void finish(SuccessorComputation pComputation) {
+      Object key = pComputation.partitionKey;
+      SuccessorComputation removed = running.remove(key);
+      assert removed == pComputation;
+      if (partitions.get(key).isEmpty()) {
+        partitions.remove(key);
+      }
+      size--;
+    }
+
+    /**
+     * Cancel all running computations and remove all states.
+     *
+     * @return the removed states, in the order in which they were taken from the waitlist within
+     *     each partition
+     */
+    List<AbstractState> clear() {
+      List<AbstractState> states = new ArrayList<>(size);
+      for (Entry<Object, Deque<SuccessorComputation>> partition : partitions.entrySet()) {
+        SuccessorComputation computation = running.get(partition.getKey());
+        if (computation != null) {
+          computation.future.cancel(true);
+          states.add(computation.state);
+        }
+        for (SuccessorComputation pending : partition.getValue()) {
+          states.add(pending.state);
+        }
+      }
+      partitions.clear();
+      running.clear();
+      size = 0;
+      return states;
+    }
+  }
+
+  /**
+   * Task for a worker thread that computes the abstract successors of one state. The result or
+   * the failure is stored in the task itself, such that the main thread knows which state it
+   * belongs to.
+   */
+  private class SuccessorComputation implements Callable<SuccessorComputation> {
+
+    private final @Nullable Object partitionKey;
+    private final AbstractState state;
+    private final Precision precision;
+
+    private Future<SuccessorComputation> future;
+    private volatile Collection<? extends AbstractState> successors;
+    private volatile Throwable failure;
+
+    private SuccessorComputation(
+        @Nullable Object pPartitionKey, AbstractState pState, Precision pPrecision) {
+      partitionKey = pPartitionKey;
+      state = pState;
+      precision = pPrecision;
+    }
+
+    @Override
+    public SuccessorComputation call() {
+      TimerWrapper timer = workerTransferTimer.get();
+      timer.start();
+      try {
+        successors = transferRelation.getAbstractSuccessors(state, precision);
+      } catch (Exception | Error e) {
+        failure = e;
+      } finally {
+        timer.stop();
+      }
+      return this;
+    }
+  }
+
   /**
    * Handle one state from the waitlist, i.e., produce successors etc.
    * @param state The abstract state that was taken out of the waitlist
@@ -341,6 +694,26 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     // TODO When we have a nice way to mark the analysis result as incomplete,
     // we could continue analysis on a CPATransferException with the next state from waitlist.
 
+    return handleSuccessors(state, precision, successors, reachedSet);
+  }
+
+  /**
+   * Handle the already computed successors of one state from the waitlist, i.e., apply precision
+   * adjustment, merge, and stop, and add them to the reached set.
+   *
+   * @param state The abstract state that was taken out of the waitlist
+   * @param precision The precision for this abstract state.
+   * @param successors The abstract successors of the state.
+   * @param reachedSet The reached set.
+   * @return true if analysis should terminate, false if analysis should continue with next state
+   */
+  private boolean handleSuccessors(
+      final AbstractState state,
+      final Precision precision,
+      final Collection<? extends AbstractState> successors,
+      final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+
     int numSuccessors = successors.size();
     logger.log(Level.FINER, "Current state has", numSuccessors, "successors");
     stats.countSuccessors += numSuccessors;
@@ -374,7 +747,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         stats.stopTimer.start();
         boolean stop;
         try {
-          stop = stopOperator.stop(successor, reachedSet.getReached(successor), successorPrecision);
+          stop =
+              stopOperator.stop(
+                  successor, reachedSet.getCoverageCandidates(successor), successorPrecision);
         } finally {
           stats.stopTimer.stop();
         }
@@ -451,7 +826,9 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
       stats.stopTimer.start();
       boolean stop;
       try {
-        stop = stopOperator.stop(successor, reached, successorPrecision);
+        stop =
+            stopOperator.stop(
+                successor, reachedSet.getCoverageCandidates(successor), successorPrecision);
       } finally {
         stats.stopTimer.stop();
       }
@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.core.algorithm.bmc;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.FluentIterable.from;
 import static org.sosy_lab.cpachecker.util.AbstractStates.IS_TARGET_STATE;
@@ -32,10 +33,13 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -45,6 +49,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -55,8 +60,15 @@ import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import javax.annotation.Nullable;
+import org.sosy_lab.common.Classes.UnexpectedCheckedException;
 import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
@@ -163,6 +175,27 @@ abstract class AbstractBMCAlgorithm
   )
   private boolean usePropertyDirection = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Keep the formulas of previous unrollings on the solver stack and check the reachability"
+            + " of target states under an assumption, such that the solver can reuse its state"
+            + " when the bound is increased (requires a solver that supports assumptions)."
+  )
+  private boolean incremental = false;
+
+  @Option(
+    secure = true,
+    description =
+        "Check the step case of k-induction in a separate thread (with its own solver) while the"
+            + " base case for the same k is checked by bounded model checking."
+            + " Not used together with bmc.usePropertyDirection."
+  )
+  private boolean parallelInduction = false;
+
+  /** Counter for the activation literals of the unrollings checked incrementally. */
+  private int unrollingCounter = 0;
+
   protected final BMCStatistics stats;
   private final Algorithm algorithm;
   private final ConfigurableProgramAnalysis cpa;
@@ -179,6 +212,7 @@ abstract class AbstractBMCAlgorithm
   private final Solver solver;
 
   protected final LogManager logger;
+  private final Configuration config;
   private final ReachedSetFactory reachedSetFactory;
   private final CFA cfa;
   private final Specification specification;
@@ -217,6 +251,7 @@ abstract class AbstractBMCAlgorithm
     algorithm = pAlgorithm;
     cpa = pCPA;
     logger = pLogger;
+    config = pConfig;
     reachedSetFactory = pReachedSetFactory;
     cfa = pCFA;
     specification = checkNotNull(pSpecification);
@@ -343,11 +378,20 @@ abstract class AbstractBMCAlgorithm
     try (ProverEnvironmentWithFallback prover =
             new ProverEnvironmentWithFallback(solver, ProverOptions.GENERATE_MODELS);
         @SuppressWarnings("resource")
-            KInductionProver kInductionProver = createInductionProver()) {
+            KInductionProver kInductionProver = createInductionProver();
+        // has its own induction prover and stops the step case when it is closed
+        ParallelStepCase parallelStepCase =
+            induction && parallelInduction && !usePropertyDirection
+                ? new ParallelStepCase()
+                : null) {
       invariantGeneratorHeadStart.waitForInvariantGenerator();
 
       do {
         shutdownNotifier.shutdownIfNecessary();
+        if (parallelStepCase != null) {
+          // the result of the step case of the previous iteration was not needed
+          parallelStepCase.discard();
+        }
 
         logger.log(Level.INFO, "Creating formula for program");
         stats.bmcPreparation.start();
@@ -368,6 +412,14 @@ abstract class AbstractBMCAlgorithm
           return AlgorithmStatus.SOUND_AND_PRECISE;
         }
 
+        if (parallelStepCase != null
+            && status.isSound()
+            && candidateGenerator.hasCandidatesAvailable()) {
+          // speculatively check the step case while the base case is checked below
+          parallelStepCase.start(reachedSet, candidateGenerator);
+        }
+        Set<CandidateInvariant> refutedCandidates = new HashSet<>();
+
         // Perform a bounded model check on each candidate invariant
         Iterator<CandidateInvariant> candidateInvariantIterator = candidateGenerator.iterator();
         while (candidateInvariantIterator.hasNext()) {
@@ -381,6 +433,7 @@ abstract class AbstractBMCAlgorithm
               return AlgorithmStatus.UNSOUND_AND_PRECISE;
             }
             candidateInvariantIterator.remove();
+            refutedCandidates.add(candidateInvariant);
           }
 
           if (invariantGenerator.isProgramSafe()) {
@@ -411,8 +464,19 @@ abstract class AbstractBMCAlgorithm
                 ctiBlockingClauses.clear();
               }
             }
-            sound =
-                checkStepCase(reachedSet, candidateGenerator, kInductionProver, ctiBlockingClauses);
+            if (parallelStepCase != null && parallelStepCase.isRunning()) {
+              sound =
+                  finishParallelStepCase(
+                      parallelStepCase,
+                      reachedSet,
+                      candidateGenerator,
+                      ctiBlockingClauses,
+                      refutedCandidates);
+            } else {
+              sound =
+                  checkStepCase(
+                      reachedSet, candidateGenerator, kInductionProver, ctiBlockingClauses);
+            }
           }
           if (invariantGenerator.isProgramSafe()
               || (sound && !candidateGenerator.produceMoreCandidates())) {
@@ -446,6 +510,38 @@ abstract class AbstractBMCAlgorithm
 
     Set<CandidateInvariant> candidates =
         FluentIterable.concat(pCtiBlockingClauses, candidateGenerator).filter(isApplicable).toSet();
+
+    List<CandidateInvariant> newlyConfirmedCandidates = new ArrayList<>();
+    boolean sound =
+        checkStepCase(
+            k,
+            checkedKeys,
+            candidates,
+            kInductionProver,
+            pCtiBlockingClauses,
+            confirmedCandidates,
+            newlyConfirmedCandidates);
+    candidateGenerator.confirmCandidates(newlyConfirmedCandidates);
+    return sound;
+  }
+
+  /**
+   * Check the step case for the given candidates.
+   *
+   * @param pConfirmedCandidates the candidates that are already known to hold and can be assumed;
+   *     successfully checked candidates are added.
+   * @param pNewlyConfirmedCandidates the list to which successfully checked candidates are added.
+   * @return whether the step case succeeded for the safety property.
+   */
+  private boolean checkStepCase(
+      int k,
+      Set<Object> checkedKeys,
+      Set<CandidateInvariant> candidates,
+      KInductionProver kInductionProver,
+      Set<Obligation> pCtiBlockingClauses,
+      Set<CandidateInvariant> pConfirmedCandidates,
+      List<CandidateInvariant> pNewlyConfirmedCandidates)
+      throws InterruptedException, CPAException, SolverException {
     Set<SymbolicCandiateInvariant> checked = new HashSet<>();
 
     shutdownNotifier.shutdownIfNecessary();
@@ -471,7 +567,7 @@ abstract class AbstractBMCAlgorithm
 
       InductionResult<CandidateInvariant> inductionResult =
           kInductionProver.check(
-              Iterables.concat(confirmedCandidates, Collections.singleton(candidate)),
+              Iterables.concat(pConfirmedCandidates, Collections.singleton(candidate)),
               k,
               candidate,
               checkedKeys,
@@ -479,9 +575,10 @@ abstract class AbstractBMCAlgorithm
               lifting);
       if (inductionResult.isSuccessful()) {
         Iterables.addAll(
-            confirmedCandidates,
+            pConfirmedCandidates,
             CandidateInvariantCombination.getConjunctiveParts(candidate));
-        candidateGenerator.confirmCandidates(
+        Iterables.addAll(
+            pNewlyConfirmedCandidates,
             CandidateInvariantCombination.getConjunctiveParts(candidate));
         if (candidate == TargetLocationCandidateInvariant.INSTANCE) {
           sound = true;
@@ -496,7 +593,7 @@ abstract class AbstractBMCAlgorithm
           for (SymbolicCandiateInvariant weakening : weakenings) {
             inductionResult =
                 kInductionProver.check(
-                    Iterables.concat(confirmedCandidates, Collections.singleton(weakening)),
+                    Iterables.concat(pConfirmedCandidates, Collections.singleton(weakening)),
                     k,
                     weakening,
                     checkedKeys,
@@ -504,9 +601,10 @@ abstract class AbstractBMCAlgorithm
                     lifting);
             if (inductionResult.isSuccessful()) {
               Iterables.addAll(
-                  confirmedCandidates,
+                  pConfirmedCandidates,
                   CandidateInvariantCombination.getConjunctiveParts(weakening));
-              candidateGenerator.confirmCandidates(
+              Iterables.addAll(
+                  pNewlyConfirmedCandidates,
                   CandidateInvariantCombination.getConjunctiveParts(weakening));
               break;
             }
@@ -532,6 +630,214 @@ abstract class AbstractBMCAlgorithm
     return sound;
   }
 
+  /**
+   * Wait for the step case that was started in parallel to the base case and use its result. If
+   * the step case confirmed a candidate that was refuted by the base case in the meantime, its
+   * result is discarded and the step case is checked again sequentially.
+   */
+  private boolean finishParallelStepCase(
+      ParallelStepCase pParallelStepCase,
+      ReachedSet pReachedSet,
+      CandidateGenerator pCandidateGenerator,
+      Set<Obligation> pCtiBlockingClauses,
+      Set<CandidateInvariant> pRefutedCandidates)
+      throws InterruptedException, CPAException, SolverException {
+    StepCaseResult result = pParallelStepCase.await();
+
+    Set<CandidateInvariant> refutedParts =
+        ImmutableSet.copyOf(CandidateInvariantCombination.getConjunctiveParts(pRefutedCandidates));
+    if (!Collections.disjoint(result.confirmedCandidates, refutedParts)) {
+      logger.log(
+          Level.FINE,
+          "Step case assumed candidates that were refuted by the base case, checking it again");
+      return checkStepCase(
+          pReachedSet, pCandidateGenerator, pParallelStepCase.getProver(), pCtiBlockingClauses);
+    }
+
+    confirmedCandidates.addAll(result.confirmedCandidates);
+    pCandidateGenerator.confirmCandidates(result.confirmedCandidates);
+    return result.sound;
+  }
+
+  /** The result of a step case that was checked in parallel to the base case. */
+  private static final class StepCaseResult {
+
+    private final boolean sound;
+
+    private final List<CandidateInvariant> confirmedCandidates;
+
+    private StepCaseResult(boolean pSound, List<CandidateInvariant> pConfirmedCandidates) {
+      sound = pSound;
+      confirmedCandidates = pConfirmedCandidates;
+    }
+  }
+
+  /**
+   * Checks the step case of k-induction in a separate thread, such that it can run while the base
+   * case for the same k is checked by bounded model checking. The step case uses its own CPA and
+   * solver (those of its own {@link KInductionProver}), everything that is shared with the base
+   * case is copied before the thread is started. Candidates that are confirmed by the step case are
+   * only made available to the rest of the analysis in {@link #finishParallelStepCase}.
+   *
+   * <p>A step case whose result is not needed is stopped via its own {@link ShutdownManager}. As
+   * shutdown requests cannot be revoked, the CPA and prover of a stopped step case are replaced by
+   * new ones for the next step case.
+   */
+  private final class ParallelStepCase implements AutoCloseable {
+
+    /** How long to wait for a step case to react to a shutdown request. */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService executor =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("k-induction-step-case-%d")
+                .build());
+
+    private @Nullable Future<StepCaseResult> running = null;
+
+    // created lazily and replaced after the step case was stopped
+    private @Nullable ShutdownManager shutdownManager = null;
+    private @Nullable KInductionProver prover = null;
+
+    /**
+     * Returns the prover of the step case. Must not be called while a step case is running.
+     */
+    private KInductionProver getProver() throws CPAException {
+      checkState(running == null);
+      if (prover == null) {
+        shutdownManager = ShutdownManager.createWithParent(shutdownNotifier);
+        ShutdownNotifier stepCaseShutdownNotifier = shutdownManager.getNotifier();
+        LogManager stepCaseLogger = logger.withComponentName("ParallelInductionStepCase");
+        ConfigurableProgramAnalysis stepCaseCPA;
+        Algorithm stepCaseAlgorithm;
+        try {
+          stepCaseCPA =
+              new CPABuilder(config, stepCaseLogger, stepCaseShutdownNotifier, reachedSetFactory)
+                  .buildCPAs(cfa, specification, new AggregatedReachedSets());
+          stepCaseAlgorithm =
+              CPAAlgorithm.create(stepCaseCPA, stepCaseLogger, config, stepCaseShutdownNotifier);
+        } catch (InvalidConfigurationException e) {
+          // the same configuration was already used successfully in the constructor
+          throw new CPAException("Could not create CPA for step case of k-induction", e);
+        }
+        prover =
+            new KInductionProver(
+                cfa,
+                logger,
+                stepCaseAlgorithm,
+                stepCaseCPA,
+                invariantGenerator,
+                stats,
+                reachedSetFactory,
+                stepCaseShutdownNotifier,
+                getLoopHeads(),
+                false);
+      }
+      return prover;
+    }
+
+    private void start(ReachedSet pReachedSet, CandidateGenerator pCandidateGenerator)
+        throws CPAException {
+      final KInductionProver kInductionProver = getProver();
+
+      final int k = CPAs.retrieveCPA(cpa, LoopIterationBounding.class).getMaxLoopIterations();
+      final Set<Object> checkedKeys = getCheckedKeys(pReachedSet);
+      final Set<CandidateInvariant> candidates =
+          from(pCandidateGenerator)
+              .filter(getCandidateApplicabilityPredicate(pReachedSet, checkedKeys))
+              .toSet();
+      final Set<CandidateInvariant> assumptions = new LinkedHashSet<>(confirmedCandidates);
+
+      running =
+          executor.submit(
+              () -> {
+                List<CandidateInvariant> newlyConfirmedCandidates = new ArrayList<>();
+                boolean sound =
+                    checkStepCase(
+                        k,
+                        checkedKeys,
+                        candidates,
+                        kInductionProver,
+                        new HashSet<>(),
+                        assumptions,
+                        newlyConfirmedCandidates);
+                return new StepCaseResult(sound, newlyConfirmedCandidates);
+              });
+    }
+
+    private boolean isRunning() {
+      return running != null;
+    }
+
+    private StepCaseResult await() throws InterruptedException, CPAException, SolverException {
+      Future<StepCaseResult> future = checkNotNull(running);
+      running = null;
+      try {
+        return future.get();
+      } catch (ExecutionException e) {
+        Throwable t = e.getCause();
+        Throwables.propagateIfPossible(t, CPAException.class, InterruptedException.class);
+        Throwables.propagateIfPossible(t, SolverException.class);
+        throw new UnexpectedCheckedException("step case of k-induction", t);
+      }
+    }
+
+    /** Stop a running step case whose result is not needed. */
+    private void discard() throws InterruptedException {
+      if (running == null) {
+        return;
+      }
+      if (running.isDone()) {
+        try {
+          await();
+        } catch (CPAException | SolverException e) {
+          logger.logDebugException(e, "Discarded step case failed");
+        }
+      } else {
+        stop("Result of step case is not needed");
+      }
+    }
+
+    /**
+     * Request the shutdown of the running step case and wait (for a limited time) until it has
+     * stopped. Afterwards, the prover of the step case is closed and a new one is used for the next
+     * step case.
+     */
+    private void stop(String pReason) throws InterruptedException {
+      Future<StepCaseResult> future = checkNotNull(running);
+      running = null;
+      checkNotNull(shutdownManager).requestShutdown(pReason);
+      boolean stopped = true;
+      try {
+        future.get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        logger.logDebugException(e.getCause(), "Stopped step case failed");
+      } catch (TimeoutException e) {
+        stopped = false;
+        logger.log(Level.WARNING, "Step case of k-induction did not stop after shutdown request");
+      }
+      if (stopped) {
+        // otherwise the step case might still use the prover
+        checkNotNull(prover).close();
+      }
+      prover = null;
+      shutdownManager = null;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+      if (running != null) {
+        stop("Induction finished");
+      } else if (prover != null) {
+        prover.close();
+        prover = null;
+      }
+      executor.shutdownNow();
+    }
+  }
+
   /**
    * Gets all keys of loop-iteration reporting states that were reached by unrolling.
    *
@@ -594,6 +900,12 @@ abstract class AbstractBMCAlgorithm
       ProverEnvironmentWithFallback pProver,
       CandidateInvariant pCandidateInvariant)
       throws CPATransferException, InterruptedException, SolverException {
+    if (incremental
+        && pCandidateInvariant == TargetLocationCandidateInvariant.INSTANCE
+        && pReachedSet instanceof ReachedSet) {
+      return boundedModelCheckIncrementally((ReachedSet) pReachedSet, pProver);
+    }
+
     BooleanFormula program = bfmgr.not(pCandidateInvariant.getAssertion(pReachedSet, fmgr, pmgr));
     logger.log(Level.INFO, "Starting satisfiability check...");
     stats.satCheck.start();
@@ -616,6 +928,52 @@ abstract class AbstractBMCAlgorithm
     return safe;
   }
 
+  /**
+   * Check the reachability of the target states of the current unrolling without popping the
+   * formulas of previous unrollings from the solver stack. The formula of this unrolling is
+   * guarded by a fresh activation literal and stays on the stack, so later checks only need to
+   * encode the parts of the formula that were added by further unrolling. Other checks can still
+   * use push and pop on top of these formulas, because the guards are left unconstrained.
+   */
+  private boolean boundedModelCheckIncrementally(
+      ReachedSet pReachedSet, ProverEnvironmentWithFallback pProver)
+      throws CPATransferException, InterruptedException, SolverException {
+    BooleanFormula program =
+        bfmgr.not(
+            TargetLocationCandidateInvariant.INSTANCE.getAssertion(pReachedSet, fmgr, pmgr));
+    BooleanFormula activationLiteral = bfmgr.makeVariable("__BMC_UNROLLING_" + unrollingCounter++);
+    logger.log(Level.INFO, "Starting satisfiability check...");
+    stats.satCheck.start();
+    pProver.push(bfmgr.implication(activationLiteral, program));
+    final boolean safe;
+    try {
+      safe = pProver.isUnsatWithAssumptions(ImmutableList.of(activationLiteral));
+    } catch (UnsupportedOperationException e) {
+      stats.satCheck.stop();
+      logger.logDebugException(e);
+      logger.log(
+          Level.WARNING,
+          "Solver does not support assumptions, disabling incremental bounded model checking.");
+      pProver.pop();
+      incremental = false;
+      return boundedModelCheck(pReachedSet, pProver, TargetLocationCandidateInvariant.INSTANCE);
+    }
+    stats.satCheck.stop();
+
+    if (safe) {
+      TargetLocationCandidateInvariant.INSTANCE.assumeTruth(pReachedSet);
+    } else {
+      // assert the program formula directly, such that the model
+      // and further checks in the counterexample analysis refer to it
+      pProver.push(program);
+      if (!pProver.isUnsat()) {
+        analyzeCounterexample(program, pReachedSet, pProver);
+      }
+      pProver.pop();
+    }
+    return safe;
+  }
+
   private boolean refineCtiBlockingClauses(
       ReachedSet pReachedSet,
       ProverEnvironmentWithFallback pProver,
@@ -926,11 +1284,6 @@ abstract class AbstractBMCAlgorithm
 
   }
 
-  protected FluentIterable<CandidateInvariant> getConfirmedCandidates(final CFANode pLocation) {
-    return from(confirmedCandidates)
-        .filter(pConfirmedCandidate -> pConfirmedCandidate.appliesTo(pLocation));
-  }
-
   private Predicate<CandidateInvariant> getCandidateApplicabilityPredicate(
       ReachedSet pReached, Set<Object> pCheckedKeys) {
     Map<Loop, Integer> reachedK;
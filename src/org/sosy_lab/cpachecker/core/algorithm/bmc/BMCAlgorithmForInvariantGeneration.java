@@ -36,6 +36,7 @@ import org.sosy_lab.cpachecker.core.Specification;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.ExpressionTreeSupplier;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.VersionedInvariantStore;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
@@ -54,9 +55,11 @@ public class BMCAlgorithmForInvariantGeneration extends AbstractBMCAlgorithm {
 
   private final CandidateGenerator candidateGenerator;
 
-  private InvariantSupplier locationInvariantsProvider = InvariantSupplier.TrivialInvariantSupplier.INSTANCE;
+  private final VersionedInvariantStore invariantStore;
 
-  private ExpressionTreeSupplier locationInvariantExpressionTreeProvider = ExpressionTreeSupplier.TrivialInvariantSupplier.INSTANCE;
+  private volatile InvariantSupplier locationInvariantsProvider = InvariantSupplier.TrivialInvariantSupplier.INSTANCE;
+
+  private volatile ExpressionTreeSupplier locationInvariantExpressionTreeProvider = ExpressionTreeSupplier.TrivialInvariantSupplier.INSTANCE;
 
   public BMCAlgorithmForInvariantGeneration(
       Algorithm pAlgorithm,
@@ -69,6 +72,7 @@ public class BMCAlgorithmForInvariantGeneration extends AbstractBMCAlgorithm {
       final Specification specification,
       BMCStatistics pBMCStatistics,
       CandidateGenerator pCandidateGenerator,
+      VersionedInvariantStore pInvariantStore,
       AggregatedReachedSets pAggregatedReachedSets)
       throws InvalidConfigurationException, CPAException {
     super(
@@ -85,6 +89,7 @@ public class BMCAlgorithmForInvariantGeneration extends AbstractBMCAlgorithm {
         pAggregatedReachedSets);
     Verify.verify(checkIfInductionIsPossible(pCFA, pLogger));
     candidateGenerator = Objects.requireNonNull(pCandidateGenerator);
+    invariantStore = Objects.requireNonNull(pInvariantStore);
   }
 
   public InvariantSupplier getCurrentInvariants() {
@@ -121,17 +126,16 @@ public class BMCAlgorithmForInvariantGeneration extends AbstractBMCAlgorithm {
                 PathFormula pContext) {
               try {
                 BooleanFormulaManager booleanFormulaManager = pFMGR.getBooleanFormulaManager();
-                BooleanFormula invariant = booleanFormulaManager.makeTrue();
-
-                for (CandidateInvariant candidateInvariant : getConfirmedCandidates(pLocation)) {
-                  invariant =
-                      booleanFormulaManager.and(
-                          invariant, candidateInvariant.getFormula(pFMGR, pPFMGR, pContext));
+                BooleanFormula invariant =
+                    invariantStore.getInvariantFor(
+                        pLocation, pCallstackInformation, pFMGR, pPFMGR, pContext);
+                if (booleanFormulaManager.isFalse(invariant)) {
+                  return invariant;
                 }
                 return booleanFormulaManager.and(
                     invariant,
                     prover.getCurrentLocationInvariants(pLocation, pFMGR, pPFMGR, pContext));
-              } catch (InterruptedException | CPAException e) {
+              } catch (InterruptedException e) {
                 return pFMGR.getBooleanFormulaManager().makeTrue();
               }
             }
@@ -142,19 +146,10 @@ public class BMCAlgorithmForInvariantGeneration extends AbstractBMCAlgorithm {
             @Override
             public ExpressionTree<Object> getInvariantFor(CFANode pLocation) {
               try {
-
-                ExpressionTree<Object> invariant = ExpressionTrees.getTrue();
-
-                for (ExpressionTreeCandidateInvariant expressionTreeCandidateInvariant :
-                    getConfirmedCandidates(pLocation)
-                        .filter(ExpressionTreeCandidateInvariant.class)) {
-                  invariant =
-                      And.of(invariant, expressionTreeCandidateInvariant.asExpressionTree());
-                  if (ExpressionTrees.getFalse().equals(invariant)) {
-                    break;
-                  }
+                ExpressionTree<Object> invariant = invariantStore.getInvariantFor(pLocation);
+                if (ExpressionTrees.getFalse().equals(invariant)) {
+                  return invariant;
                 }
-
                 return And.of(invariant, prover.getCurrentLocationInvariants(pLocation));
               } catch (InterruptedException e) {
                 return ExpressionTrees.getTrue();
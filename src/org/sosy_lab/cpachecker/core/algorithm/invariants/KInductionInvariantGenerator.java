@@ -178,6 +178,9 @@ public class KInductionInvariantGenerator extends AbstractInvariantGenerator
 
   private final boolean async;
 
+  /** The confirmed invariants, published as soon as they are confirmed. */
+  private final VersionedInvariantStore invariantStore = new VersionedInvariantStore();
+
   // After start(), this will hold a Future for the final result of the invariant generation.
   // We use a Future instead of just the atomic reference below
   // to be able to ask for termination and see thrown exceptions.
@@ -317,6 +320,7 @@ public class KInductionInvariantGenerator extends AbstractInvariantGenerator
           @Override
           public void confirmCandidates(Iterable<CandidateInvariant> pCandidates) {
             pCandidateGenerator.confirmCandidates(pCandidates);
+            invariantStore.publish(pCandidates);
             for (CandidateInvariant invariant : pCandidates) {
               if (!(invariant instanceof TargetLocationCandidateInvariant)
                   && confirmedCandidates.add(invariant)) {
@@ -345,6 +349,7 @@ public class KInductionInvariantGenerator extends AbstractInvariantGenerator
             specification,
             stats,
             statisticsCandidateGenerator,
+            invariantStore,
             pAggregatedReachedSets);
   }
 
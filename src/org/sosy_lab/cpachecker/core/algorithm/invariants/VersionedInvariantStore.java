@@ -0,0 +1,255 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.invariants;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.algorithm.bmc.CandidateInvariant;
+import org.sosy_lab.cpachecker.core.algorithm.bmc.ExpressionTreeCandidateInvariant;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.expressions.And;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
+import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+
+/**
+ * A store of confirmed invariants that is shared between an invariant generator, which publishes
+ * invariants as soon as it confirms them, and the analyses that consume them, possibly in other
+ * threads.
+ *
+ * <p>Invariants are never removed from the store. Neither publishing nor reading blocks: readers
+ * always work on an immutable snapshot of the invariants published so far, and the invariants
+ * applicable to a location are only collected once per location and published invariant. The
+ * formulas of the invariants are cached per formula manager and context, for a bounded number of
+ * conversions.
+ */
+public final class VersionedInvariantStore implements InvariantSupplier, ExpressionTreeSupplier {
+
+  /** All published invariants, in the order of their publication. */
+  private final AtomicReference<ImmutableList<CandidateInvariant>> invariants =
+      new AtomicReference<>(ImmutableList.of());
+
+  private final Set<CandidateInvariant> publishedInvariants = ConcurrentHashMap.newKeySet();
+
+  private final ConcurrentMap<CFANode, LocationInvariants> locationInvariants =
+      new ConcurrentHashMap<>();
+
+  /** Maximal number of cached conversions of invariants to formulas. */
+  private static final int MAX_CONVERTED_INVARIANTS = 10000;
+
+  private final Cache<ConversionKey, BooleanFormula> convertedInvariants =
+      CacheBuilder.newBuilder().maximumSize(MAX_CONVERTED_INVARIANTS).build();
+
+  /**
+   * Publishes the given confirmed invariants. Invariants that were already published before are
+   * ignored.
+   *
+   * @param pInvariants the confirmed invariants.
+   */
+  public void publish(Iterable<? extends CandidateInvariant> pInvariants) {
+    List<CandidateInvariant> newInvariants = new ArrayList<>();
+    for (CandidateInvariant invariant : pInvariants) {
+      if (publishedInvariants.add(invariant)) {
+        newInvariants.add(invariant);
+      }
+    }
+    if (!newInvariants.isEmpty()) {
+      invariants.updateAndGet(
+          current ->
+              ImmutableList.<CandidateInvariant>builder()
+                  .addAll(current)
+                  .addAll(newInvariants)
+                  .build());
+    }
+  }
+
+  /**
+   * Gets all invariants published so far that apply to the given location.
+   *
+   * @param pLocation the location.
+   * @return the invariants that apply to the given location.
+   */
+  public ImmutableList<CandidateInvariant> getInvariants(CFANode pLocation) {
+    return getLocationInvariants(pLocation).invariants;
+  }
+
+  @Override
+  public BooleanFormula getInvariantFor(
+      CFANode pNode,
+      Optional<CallstackStateEqualsWrapper> pCallstackInformation,
+      FormulaManagerView pFmgr,
+      PathFormulaManager pPfmgr,
+      @Nullable PathFormula pContext)
+      throws InterruptedException {
+    BooleanFormulaManager bfmgr = pFmgr.getBooleanFormulaManager();
+    ImmutableList<CandidateInvariant> applicableInvariants = getInvariants(pNode);
+    if (applicableInvariants.isEmpty()) {
+      return bfmgr.makeTrue();
+    }
+
+    PathFormula clearContext = pContext == null ? null : pPfmgr.makeEmptyPathFormula(pContext);
+    List<BooleanFormula> formulas = new ArrayList<>(applicableInvariants.size());
+    for (CandidateInvariant invariant : applicableInvariants) {
+      ConversionKey key = new ConversionKey(invariant, pFmgr, pPfmgr, clearContext);
+      BooleanFormula formula = convertedInvariants.getIfPresent(key);
+      if (formula == null) {
+        try {
+          formula = invariant.getFormula(pFmgr, pPfmgr, pContext);
+        } catch (CPATransferException e) {
+          // leaving out an invariant only weakens the result
+          continue;
+        }
+        convertedInvariants.put(key, formula);
+      }
+      if (bfmgr.isFalse(formula)) {
+        return formula;
+      }
+      formulas.add(formula);
+    }
+    return bfmgr.and(formulas);
+  }
+
+  @Override
+  public ExpressionTree<Object> getInvariantFor(CFANode pNode) {
+    return getLocationInvariants(pNode).expressionTree;
+  }
+
+  private LocationInvariants getLocationInvariants(CFANode pLocation) {
+    ImmutableList<CandidateInvariant> snapshot = invariants.get();
+    LocationInvariants current =
+        locationInvariants.getOrDefault(pLocation, LocationInvariants.EMPTY);
+    if (current.version >= snapshot.size()) {
+      return current;
+    }
+    LocationInvariants updated = current.extend(pLocation, snapshot);
+    // another reader might have updated the entry concurrently; keep whichever is newer
+    locationInvariants.merge(
+        pLocation, updated, (old, candidate) -> old.version >= candidate.version ? old : candidate);
+    return updated;
+  }
+
+  /** An immutable view on the invariants that apply to a location at a given version. */
+  private static final class LocationInvariants {
+
+    private static final LocationInvariants EMPTY =
+        new LocationInvariants(0, ImmutableList.of(), ExpressionTrees.getTrue());
+
+    private final int version;
+
+    private final ImmutableList<CandidateInvariant> invariants;
+
+    private final ExpressionTree<Object> expressionTree;
+
+    private LocationInvariants(
+        int pVersion,
+        ImmutableList<CandidateInvariant> pInvariants,
+        ExpressionTree<Object> pExpressionTree) {
+      version = pVersion;
+      invariants = checkNotNull(pInvariants);
+      expressionTree = checkNotNull(pExpressionTree);
+    }
+
+    private LocationInvariants extend(
+        CFANode pLocation, ImmutableList<CandidateInvariant> pSnapshot) {
+      ImmutableList.Builder<CandidateInvariant> extendedInvariants = ImmutableList.builder();
+      extendedInvariants.addAll(invariants);
+      ExpressionTree<Object> extendedExpressionTree = expressionTree;
+      for (CandidateInvariant invariant : pSnapshot.subList(version, pSnapshot.size())) {
+        if (invariant.appliesTo(pLocation)) {
+          extendedInvariants.add(invariant);
+          if (invariant instanceof ExpressionTreeCandidateInvariant
+              && !ExpressionTrees.getFalse().equals(extendedExpressionTree)) {
+            extendedExpressionTree =
+                And.of(
+                    extendedExpressionTree,
+                    ((ExpressionTreeCandidateInvariant) invariant).asExpressionTree());
+          }
+        }
+      }
+      return new LocationInvariants(
+          pSnapshot.size(), extendedInvariants.build(), extendedExpressionTree);
+    }
+  }
+
+  private static final class ConversionKey {
+
+    private final CandidateInvariant invariant;
+
+    private final FormulaManagerView fmgr;
+
+    private final PathFormulaManager pfmgr;
+
+    private final @Nullable PathFormula clearContext;
+
+    private ConversionKey(
+        CandidateInvariant pInvariant,
+        FormulaManagerView pFmgr,
+        PathFormulaManager pPfmgr,
+        @Nullable PathFormula pClearContext) {
+      invariant = pInvariant;
+      fmgr = pFmgr;
+      pfmgr = pPfmgr;
+      clearContext = pClearContext;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          invariant, System.identityHashCode(fmgr), System.identityHashCode(pfmgr), clearContext);
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (this == pObj) {
+        return true;
+      }
+      if (pObj instanceof ConversionKey) {
+        ConversionKey other = (ConversionKey) pObj;
+        return invariant.equals(other.invariant)
+            && fmgr == other.fmgr
+            && pfmgr == other.pfmgr
+            && Objects.equals(clearContext, other.clearContext);
+      }
+      return false;
+    }
+  }
+}
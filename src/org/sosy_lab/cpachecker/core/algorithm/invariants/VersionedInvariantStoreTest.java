@@ -0,0 +1,148 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.invariants;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.algorithm.bmc.CandidateInvariant;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+public class VersionedInvariantStoreTest extends SolverViewBasedTest0 {
+
+  /** An invariant consisting of a boolean variable that counts its conversions to formulas. */
+  private static final class TestInvariant implements CandidateInvariant {
+
+    private final String name;
+    private final @Nullable CFANode location;
+    private int conversions = 0;
+
+    /** Creates an invariant for the given location, or for all locations if it is null. */
+    private TestInvariant(String pName, @Nullable CFANode pLocation) {
+      name = pName;
+      location = pLocation;
+    }
+
+    @Override
+    public BooleanFormula getFormula(
+        FormulaManagerView pFMGR, PathFormulaManager pPFMGR, @Nullable PathFormula pContext) {
+      conversions++;
+      return pFMGR.getBooleanFormulaManager().makeVariable(name);
+    }
+
+    @Override
+    public BooleanFormula getAssertion(
+        Iterable<AbstractState> pReachedSet, FormulaManagerView pFMGR, PathFormulaManager pPFMGR) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void assumeTruth(ReachedSet pReachedSet) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean appliesTo(CFANode pLocation) {
+      return location == null || location.equals(pLocation);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private final CFANode l1 = new CFANode("main");
+  private final CFANode l2 = new CFANode("main");
+
+  private VersionedInvariantStore store;
+  private PathFormulaManager pfmgr;
+
+  @Before
+  public void init() {
+    store = new VersionedInvariantStore();
+    pfmgr = mock(PathFormulaManager.class);
+  }
+
+  private BooleanFormula getInvariantFor(CFANode pLocation) throws InterruptedException {
+    return store.getInvariantFor(pLocation, Optional.empty(), mgrv, pfmgr, null);
+  }
+
+  @Test
+  public void publish() {
+    TestInvariant a = new TestInvariant("a", l1);
+    TestInvariant b = new TestInvariant("b", null);
+    TestInvariant c = new TestInvariant("c", l2);
+
+    assertThat(store.getInvariants(l1)).isEmpty();
+
+    store.publish(ImmutableList.of(a));
+    assertThat(store.getInvariants(l1)).containsExactly(a);
+
+    // already published invariants are ignored
+    store.publish(ImmutableList.of(a, b, c));
+    assertThat(store.getInvariants(l1)).containsExactly(a, b).inOrder();
+    assertThat(store.getInvariants(l2)).containsExactly(b, c).inOrder();
+
+    store.publish(ImmutableList.of(c));
+    assertThat(store.getInvariants(l2)).containsExactly(b, c).inOrder();
+  }
+
+  @Test
+  public void convertOnce() throws Exception {
+    TestInvariant a = new TestInvariant("a", l1);
+    TestInvariant b = new TestInvariant("b", null);
+
+    assertThatFormula(getInvariantFor(l1)).isEquivalentTo(bmgrv.makeTrue());
+
+    store.publish(ImmutableList.of(a));
+    assertThatFormula(getInvariantFor(l1)).isEquivalentTo(bmgrv.makeVariable("a"));
+    assertThatFormula(getInvariantFor(l1)).isEquivalentTo(bmgrv.makeVariable("a"));
+    assertThat(a.conversions).isEqualTo(1);
+
+    // only newly published invariants are converted
+    store.publish(ImmutableList.of(b));
+    assertThatFormula(getInvariantFor(l1))
+        .isEquivalentTo(bmgrv.and(bmgrv.makeVariable("a"), bmgrv.makeVariable("b")));
+    assertThatFormula(getInvariantFor(l2)).isEquivalentTo(bmgrv.makeVariable("b"));
+    assertThat(a.conversions).isEqualTo(1);
+    assertThat(b.conversions).isEqualTo(1);
+
+    // conversions are not shared between different managers
+    store.getInvariantFor(l2, Optional.empty(), mgrv, mock(PathFormulaManager.class), null);
+    assertThat(b.conversions).isEqualTo(2);
+  }
+}
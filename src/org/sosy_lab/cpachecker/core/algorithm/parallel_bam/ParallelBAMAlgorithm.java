@@ -24,14 +24,14 @@
 package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedMap;
 import java.io.PrintStream;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -48,6 +48,7 @@ import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
 import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm.CPAAlgorithmFactory;
@@ -78,6 +79,14 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
   )
   private int numberOfThreads = -1;
 
+  @Option(
+    description =
+        "schedule the analysis of blocks on which many other blocks (transitively) wait "
+            + "before other blocks, instead of using FIFO order.",
+    secure = true
+  )
+  private boolean prioritizeBlocks = true;
+
   private final ParallelBAMStatistics stats = new ParallelBAMStatistics();
   private final LogManager logger;
   private final LogManagerWithoutDuplicates oneTimeLogger;
@@ -117,7 +126,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
         new HashMap<>();
     final int numberOfCores = getNumberOfCores();
     oneTimeLogger.logfOnce(Level.INFO, "creating pool for %d threads", numberOfCores);
-    final ExecutorService pool = Executors.newFixedThreadPool(numberOfCores);
+    final PriorityScheduler pool = new PriorityScheduler(numberOfCores, prioritizeBlocks);
     final AtomicReference<Throwable> error = new AtomicReference<>(null);
     final AtomicBoolean terminateAnalysis = new AtomicBoolean(false);
 
@@ -147,6 +156,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
 
     } finally {
+      stats.collectThreadUtilization(pool);
       if (!pool.isTerminated()) {
         // in case of problems we must kill the thread pool,
         // otherwise we have a running daemon thread and CPAchecker does not terminate.
@@ -258,6 +268,50 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     final StatHist histActiveThreads = new StatHist("Active threads");
     final StatHist executionCounter = new StatHist("RSE execution counter");
     private final StatCounter unfinishedRSEcounter = new StatCounter("unfinished reached-sets");
+    private ImmutableSortedMap<Integer, Long> busyTimePerThread = ImmutableSortedMap.of();
+    private long schedulerTime = 0;
+    private int numberOfThreads = 0;
+
+    /** store the busy times of the worker threads (in milliseconds). */
+    private synchronized void collectThreadUtilization(PriorityScheduler pScheduler) {
+      busyTimePerThread = pScheduler.getBusyTimes(TimeUnit.MILLISECONDS);
+      schedulerTime = pScheduler.getElapsedTime(TimeUnit.MILLISECONDS);
+      numberOfThreads = pScheduler.getParallelism();
+    }
+
+    private synchronized void printThreadUtilization(PrintStream pOut) {
+      if (schedulerTime <= 0) {
+        return;
+      }
+      long totalBusyTime = 0;
+      for (long busyTime : busyTimePerThread.values()) {
+        totalBusyTime += busyTime;
+      }
+      StatisticsUtils.write(pOut, 0, 50, "number of threads", numberOfThreads);
+      StatisticsUtils.write(
+          pOut,
+          0,
+          50,
+          "average thread utilization",
+          StatisticsUtils.toPercent(totalBusyTime, (double) schedulerTime * numberOfThreads));
+      StatisticsUtils.write(
+          pOut,
+          0,
+          50,
+          "speedup (busy time / wall time)",
+          String.format("%.2f", (double) totalBusyTime / schedulerTime));
+      for (Entry<Integer, Long> thread : busyTimePerThread.entrySet()) {
+        StatisticsUtils.write(
+            pOut,
+            1,
+            50,
+            "utilization of worker " + thread.getKey(),
+            TimeSpan.ofMillis(thread.getValue()).formatAs(TimeUnit.SECONDS)
+                + " ("
+                + StatisticsUtils.toPercent(thread.getValue(), schedulerTime)
+                + ")");
+      }
+    }
 
     @Override
     public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
@@ -269,6 +323,7 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
       StatisticsUtils.write(pOut, 0, 50, threadTime);
       StatisticsUtils.write(pOut, 1, 50, addingStatesTime);
       StatisticsUtils.write(pOut, 1, 50, terminationCheckTime);
+      printThreadUtilization(pOut);
     }
 
     @Override
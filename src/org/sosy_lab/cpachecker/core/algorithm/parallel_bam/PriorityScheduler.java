@@ -0,0 +1,201 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * An executor service based on a work-stealing {@link ForkJoinPool} that executes pending tasks in
+ * the order of their priority (higher priority first, FIFO for equal priorities).
+ *
+ * <p>Each submission adds the task to a shared priority queue and schedules a trigger in the
+ * fork-join pool. Whenever a worker thread executes a trigger, it takes the task with the highest
+ * priority from the queue. The priority of a task is determined when the task is submitted.
+ *
+ * <p>The scheduler also measures how long each worker thread was busy executing tasks.
+ */
+class PriorityScheduler extends AbstractExecutorService {
+
+  private static final int DEFAULT_PRIORITY = 0;
+
+  private static final Comparator<PrioritizedTask> ORDER =
+      Comparator.<PrioritizedTask>comparingInt(t -> -t.priority).thenComparingLong(t -> t.id);
+
+  private final ForkJoinPool pool;
+  private final PriorityBlockingQueue<PrioritizedTask> queue =
+      new PriorityBlockingQueue<>(64, ORDER);
+  private final AtomicLong taskCounter = new AtomicLong(0);
+
+  /**
+   * busy time in nanoseconds for each worker, indexed by the pool index of the worker thread. The
+   * pool may replace idle threads by new ones with other names, but they reuse the pool index.
+   */
+  private final ConcurrentMap<Integer, LongAdder> busyTime = new ConcurrentHashMap<>();
+
+  private final long creationTime = System.nanoTime();
+
+  private final boolean usePriorities;
+
+  /**
+   * @param pUsePriorities whether to use the priorities of the tasks, otherwise the tasks are
+   *     executed in FIFO order.
+   */
+  PriorityScheduler(int pNumberOfThreads, boolean pUsePriorities) {
+    usePriorities = pUsePriorities;
+    // async mode, because we never join tasks
+    pool =
+        new ForkJoinPool(
+            pNumberOfThreads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+  }
+
+  private static final class PrioritizedTask {
+    private final Runnable runnable;
+    private final int priority;
+    private final long id;
+
+    private PrioritizedTask(Runnable pRunnable, int pPriority, long pId) {
+      runnable = checkNotNull(pRunnable);
+      priority = pPriority;
+      id = pId;
+    }
+  }
+
+  /**
+   * Return an executor that submits tasks to this scheduler with a priority that is computed (by
+   * the given supplier) at the time of the submission.
+   */
+  Executor withPriority(IntSupplier pPriority) {
+    if (!usePriorities) {
+      return this;
+    }
+    return command -> execute(command, pPriority.getAsInt());
+  }
+
+  @Override
+  public void execute(Runnable pCommand) {
+    execute(pCommand, DEFAULT_PRIORITY);
+  }
+
+  private void execute(Runnable pCommand, int pPriority) {
+    PrioritizedTask task =
+        new PrioritizedTask(pCommand, pPriority, taskCounter.getAndIncrement());
+    // The task is queued before its trigger, thus each trigger finds a task in the queue
+    // (but not necessarily the same one).
+    queue.add(task);
+    try {
+      pool.execute(this::runNextTask);
+    } catch (RejectedExecutionException e) {
+      queue.remove(task);
+      throw e;
+    }
+  }
+
+  private void runNextTask() {
+    PrioritizedTask task = queue.poll();
+    if (task == null) {
+      return; // the queue was cleared by shutdownNow()
+    }
+    long start = System.nanoTime();
+    try {
+      task.runnable.run();
+    } finally {
+      busyTime
+          .computeIfAbsent(getWorkerIndex(), k -> new LongAdder())
+          .add(System.nanoTime() - start);
+    }
+  }
+
+  private static int getWorkerIndex() {
+    Thread thread = Thread.currentThread();
+    return thread instanceof ForkJoinWorkerThread
+        ? ((ForkJoinWorkerThread) thread).getPoolIndex()
+        : -1;
+  }
+
+  /** Return the busy time for each worker (sorted by the index of the worker). */
+  ImmutableSortedMap<Integer, Long> getBusyTimes(TimeUnit pUnit) {
+    ImmutableSortedMap.Builder<Integer, Long> result = ImmutableSortedMap.naturalOrder();
+    busyTime.forEach(
+        (worker, time) -> result.put(worker, pUnit.convert(time.sum(), TimeUnit.NANOSECONDS)));
+    return result.build();
+  }
+
+  /** Return the time since the creation of this scheduler. */
+  long getElapsedTime(TimeUnit pUnit) {
+    return pUnit.convert(System.nanoTime() - creationTime, TimeUnit.NANOSECONDS);
+  }
+
+  int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  @Override
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<PrioritizedTask> pending = new ArrayList<>();
+    queue.drainTo(pending);
+    pool.shutdownNow();
+    List<Runnable> result = new ArrayList<>(pending.size());
+    for (PrioritizedTask task : pending) {
+      result.add(task.runnable);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return pool.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return pool.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long pTimeout, TimeUnit pUnit) throws InterruptedException {
+    return pool.awaitTermination(pTimeout, pUnit);
+  }
+}
@@ -44,7 +44,6 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -101,7 +100,7 @@ class ReachedSetExecutor {
   private final Map<ReachedSet, Pair<ReachedSetExecutor, CompletableFuture<Void>>>
       reachedSetMapping;
 
-  private final ExecutorService pool;
+  private final PriorityScheduler pool;
 
   private final BAMCPAWithBreakOnMissingBlock bamcpa;
   private final CPAAlgorithmFactory algorithmFactory;
@@ -132,13 +131,21 @@ class ReachedSetExecutor {
   private final Multimap<ReachedSetExecutor, AbstractState> dependingFrom =
       LinkedHashMultimap.create();
 
+  /**
+   * The priority of this RSE for scheduling, i.e., the length of the longest chain of RSEs that
+   * (transitively) wait for its result, as known when the last dependency was added. It is only
+   * increased, and only while holding the lock for 'reachedSetMapping', but can be read without
+   * lock when a job is submitted.
+   */
+  private volatile int priority = 0;
+
   public ReachedSetExecutor(
       BAMCPAWithBreakOnMissingBlock pBamCpa,
       ReachedSet pRs,
       Block pBlock,
       ReachedSet pMainReachedSet,
       Map<ReachedSet, Pair<ReachedSetExecutor, CompletableFuture<Void>>> pReachedSetMapping,
-      ExecutorService pPool,
+      PriorityScheduler pPool,
       CPAAlgorithmFactory pAlgorithmFactory,
       ShutdownNotifier pShutdownNotifier,
       ParallelBAMStatistics pStats,
@@ -390,11 +397,14 @@ class ReachedSetExecutor {
 
   private void addDependencies(
       MissingBlockAbstractionState pBsme, final ReachedSetExecutor subRse) {
+    assert Thread.holdsLock(reachedSetMapping);
     logger.logf(level, "%s :: %s -> %s", this, this, subRse);
     dependsOn.add(pBsme.getState());
     synchronized (subRse.dependingFrom) {
       subRse.dependingFrom.put(this, pBsme.getState());
     }
+    // the sub-analysis needs to be finished before this one and all RSEs that wait for this one
+    subRse.priority = Math.max(subRse.priority, priority + 1);
   }
 
   /**
@@ -497,24 +507,22 @@ class ReachedSetExecutor {
   private ReachedSet createAndRegisterNewReachedSet(MissingBlockAbstractionState pBsme) {
     ReachedSet newRs = pBsme.getReachedSet();
     if (newRs == null) {
-      // We are only synchronized in the current method. Thus, we need to check
-      // the cache again, maybe another thread already created the needed reached-set.
-      final Pair<ReachedSet, Collection<AbstractState>> pair =
-          bamcpa
-              .getCache()
-              .get(pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock());
-      newRs = pair.getFirst(); // @Nullable
-    }
-
-    // now we can be sure, whether the sub-reached-set exists or not.
-    if (newRs == null) {
-      // we have not even cached a partly computed reached-set,
-      // so we must compute the subgraph specification from scratch
+      // Maybe another thread already created the needed reached-set in the meantime.
+      // Otherwise we have not even cached a partly computed reached-set,
+      // so we must compute the subgraph specification from scratch.
+      // The cache guarantees that only one reached-set is created per block entry.
       newRs =
           bamcpa
-              .getData()
-              .createAndRegisterNewReachedSet(
-                  pBsme.getReducedState(), pBsme.getReducedPrecision(), pBsme.getBlock());
+              .getCache()
+              .computeIfAbsent(
+                  pBsme.getReducedState(),
+                  pBsme.getReducedPrecision(),
+                  pBsme.getBlock(),
+                  () -> {
+                    ReachedSet reached = bamcpa.getData().getReachedSetFactory().create();
+                    reached.add(pBsme.getReducedState(), pBsme.getReducedPrecision());
+                    return reached;
+                  });
     }
 
     if (!reachedSetMapping.containsKey(newRs)) {
@@ -559,11 +567,25 @@ class ReachedSetExecutor {
       assert p.getFirst() == pRse;
       logger.logf(level, "%s :: scheduling RSE: %s", this, pRse);
       CompletableFuture<Void> future =
-          p.getSecond().thenRunAsync(r, pool).exceptionally(new ExceptionHandler(pRse));
+          p.getSecond()
+              .thenRunAsync(r, pool.withPriority(pRse::getPriority))
+              .exceptionally(new ExceptionHandler(pRse));
       reachedSetMapping.put(pRse.rs, Pair.of(pRse, future));
     }
   }
 
+  /**
+   * The priority of the RSE for scheduling is the length of the longest chain of RSEs that
+   * (transitively) wait for its result. Thus blocks that are nested deeply below the main
+   * reached-set are analyzed first. The priority is updated in {@link #addDependencies} instead
+   * of walking over the dependency graph for each job submission. It is not lowered when the
+   * dependencies are removed, and not raised when an RSE that waits for this one gets a higher
+   * priority later, so it is only a heuristic.
+   */
+  private int getPriority() {
+    return priority;
+  }
+
   private Block getBlockForState(AbstractState state) {
     CFANode location = extractLocation(state);
     assert bamcpa.getBlockPartitioning().isCallNode(location)
@@ -30,6 +30,7 @@ import com.google.common.collect.ImmutableList;
 
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Property;
 import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
@@ -45,7 +46,8 @@ import javax.annotation.Nullable;
  * one CPA.
  */
 public abstract class AbstractSingleWrapperState
-    implements AbstractWrapperState, Targetable, Partitionable, PseudoPartitionable, Serializable {
+    implements AbstractWrapperState, Targetable, Partitionable, PseudoPartitionable,
+        CoverageIndexable, Serializable {
 
   private static final long serialVersionUID = -332757795984736107L;
 
@@ -107,6 +109,15 @@ public abstract class AbstractSingleWrapperState
     }
   }
 
+  @Override
+  public long getCoverageSignature() {
+    if (wrappedState instanceof CoverageIndexable) {
+      return ((CoverageIndexable) wrappedState).getCoverageSignature();
+    } else {
+      return 0;
+    }
+  }
+
   @Override
   public String toString() {
     return wrappedState.toString();
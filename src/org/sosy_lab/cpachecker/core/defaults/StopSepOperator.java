@@ -27,6 +27,7 @@ import java.util.Collection;
 
 import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
@@ -51,7 +52,9 @@ public class StopSepOperator implements StopOperator {
     throws CPAException, InterruptedException {
 
     for (AbstractState reachedState : reached) {
-      if (domain.isLessOrEqual(el, reachedState)) {
+      // cheap pre-check to avoid expensive calls to isLessOrEqual
+      if (CoverageIndexable.mayBeLessOrEqual(el, reachedState)
+          && domain.isLessOrEqual(el, reachedState)) {
         return true;
       }
     }
@@ -0,0 +1,45 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+/**
+ * Interface for CPAs whose transfer relation may compute the successors of different states
+ * concurrently in several threads, e.g., for the parallel successor computation of the CPA
+ * algorithm. CPAs that do not implement this interface are assumed to have a transfer relation
+ * that is not thread-safe, for example because it stores information about the current state in
+ * fields (like {@link org.sosy_lab.cpachecker.core.defaults.ForwardingTransferRelation}) or uses
+ * a shared solver.
+ */
+public interface ConfigurableProgramAnalysisWithThreadSafeTransferRelation
+    extends ConfigurableProgramAnalysis {
+
+  /**
+   * Returns whether {@link TransferRelation#getAbstractSuccessors(AbstractState, Precision)} of
+   * the transfer relation of this CPA may be called concurrently for different states. Wrapper
+   * CPAs override this method and return true only if this holds for all wrapped CPAs.
+   */
+  default boolean hasThreadSafeTransferRelation() {
+    return true;
+  }
+}
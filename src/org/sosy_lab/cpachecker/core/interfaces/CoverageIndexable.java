@@ -0,0 +1,82 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+/**
+ * Interface for abstract states that provide a cheap summary which can be used to rule out
+ * coverage without calling {@link AbstractDomain#isLessOrEqual(AbstractState, AbstractState)}.
+ *
+ * <p>The summary is a signature of 64 bits (similar to a Bloom filter) that over-approximates
+ * the information stored in the state. It needs to fulfill the following condition for all
+ * states e1 and e2 of the same domain: if e1 is less or equal than e2, then every bit of the
+ * signature of e2 is also set in the signature of e1 (cf. {@link #mayBeLessOrEqual(long,
+ * long)}). Returning the same signature for all states is always correct, but useless.
+ *
+ * <p>Wrapper states like CompositeState and ARGState combine the signatures of their components,
+ * and the reached set (cf. {@link
+ * org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet#getCoverageCandidates(AbstractState)})
+ * as well as the default stop-sep operator use the signature to skip candidates for coverage
+ * checks. Skipping a candidate can only lead to less coverage, thus this is always sound.
+ */
+public interface CoverageIndexable {
+
+  /**
+   * Returns the signature of this state. The result has to stay constant as long as the state is
+   * part of a reached set.
+   */
+  long getCoverageSignature();
+
+  /**
+   * Check whether a state with the signature <code>pSignature1</code> may be less or equal than a
+   * state with the signature <code>pSignature2</code>. If this method returns false, the first
+   * state is definitely not less or equal than the second state.
+   */
+  static boolean mayBeLessOrEqual(long pSignature1, long pSignature2) {
+    return (pSignature2 & ~pSignature1) == 0;
+  }
+
+  /**
+   * Check whether the first state may be less or equal than the second state, based on their
+   * signatures. States that do not implement this interface are never excluded.
+   */
+  static boolean mayBeLessOrEqual(AbstractState pState1, AbstractState pState2) {
+    if (pState1 instanceof CoverageIndexable && pState2 instanceof CoverageIndexable) {
+      return mayBeLessOrEqual(
+          ((CoverageIndexable) pState1).getCoverageSignature(),
+          ((CoverageIndexable) pState2).getCoverageSignature());
+    }
+    return true;
+  }
+
+  /**
+   * Map the given hash code to a signature with exactly one bit set. This can be used to build
+   * signatures for sets of elements: a state that contains a superset of the elements of another
+   * state will have a superset of the bits.
+   */
+  static long signatureBit(int pHashCode) {
+    // spread the bits of the hash code, the lower bits of many hash codes are not well distributed
+    int h = pHashCode * 0x9E3779B9;
+    return 1L << (h >>> 26);
+  }
+}
@@ -0,0 +1,399 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+
+/**
+ * Memory-efficient replacement for the <code>LinkedHashMap&lt;AbstractState, Precision&gt;</code>
+ * that is used as main storage by {@link DefaultReachedSet}.
+ *
+ * <p>The states are stored in insertion order in a plain array, and an open-addressing hash table
+ * of int indices into this array is used for lookups, so there is no entry object per state.
+ * Precisions are interned: equal precisions are stored only once and referenced by an int id from
+ * each state. Removed states leave a gap in the array, which is closed when too many gaps exist.
+ *
+ * <p>Like {@link java.util.LinkedHashMap}, this class is not thread-safe and its iterators are
+ * fail-fast.
+ */
+final class CompactStateMap extends AbstractMap<AbstractState, Precision> {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** marker in the hash table for an empty slot */
+  private static final int EMPTY = -1;
+
+  /** marker in the hash table for a slot whose state was removed */
+  private static final int DELETED = -2;
+
+  /** the states in insertion order, removed states are null */
+  private AbstractState[] states = new AbstractState[INITIAL_CAPACITY];
+
+  /** the id of the interned precision for each entry of {@link #states} */
+  private int[] precisionIds = new int[INITIAL_CAPACITY];
+
+  /** the number of used entries of {@link #states} (including removed ones) */
+  private int end = 0;
+
+  /** the number of states */
+  private int size = 0;
+
+  /** open-addressing hash table (linear probing) with indices into {@link #states} */
+  private int[] table = newTable(2 * INITIAL_CAPACITY);
+
+  /** the number of slots of {@link #table} that are not {@link #EMPTY} */
+  private int usedSlots = 0;
+
+  /** the interned precisions, indexed by their id, unused ids are null */
+  private final List<Precision> precisions = new ArrayList<>();
+
+  /** the id of each interned precision */
+  private final Map<Precision, Integer> precisionIndex = new HashMap<>();
+
+  /** the number of states that refer to each precision id */
+  private int[] precisionRefCounts = new int[4];
+
+  /** ids of {@link #precisions} that can be reused */
+  private int[] freePrecisionIds = new int[4];
+
+  private int freePrecisionIdCount = 0;
+
+  private int modCount = 0;
+
+  private static int[] newTable(int pCapacity) {
+    int[] result = new int[pCapacity];
+    Arrays.fill(result, EMPTY);
+    return result;
+  }
+
+  private static int hash(Object pKey) {
+    int h = pKey.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /** Returns the slot in {@link #table} that contains the given state, or -1. */
+  private int findSlot(Object pKey) {
+    int mask = table.length - 1;
+    for (int slot = hash(pKey) & mask; ; slot = (slot + 1) & mask) {
+      int index = table[slot];
+      if (index == EMPTY) {
+        return -1;
+      }
+      if (index != DELETED && pKey.equals(states[index])) {
+        return slot;
+      }
+    }
+  }
+
+  private int findIndex(Object pKey) {
+    int slot = findSlot(pKey);
+    return slot < 0 ? -1 : table[slot];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object pKey) {
+    return pKey != null && findIndex(pKey) >= 0;
+  }
+
+  @Override
+  public @Nullable Precision get(Object pKey) {
+    if (pKey == null) {
+      return null;
+    }
+    int index = findIndex(pKey);
+    return index < 0 ? null : precisions.get(precisionIds[index]);
+  }
+
+  @Override
+  public @Nullable Precision put(AbstractState pState, Precision pPrecision) {
+    checkNotNull(pState);
+    checkNotNull(pPrecision);
+
+    int index = findIndex(pState);
+    if (index >= 0) {
+      int oldId = precisionIds[index];
+      Precision oldPrecision = precisions.get(oldId);
+      precisionIds[index] = internPrecision(pPrecision);
+      releasePrecision(oldId);
+      return oldPrecision;
+    }
+
+    if (end == states.length) {
+      if (size < end / 2) {
+        compact();
+      } else {
+        states = Arrays.copyOf(states, 2 * states.length);
+        precisionIds = Arrays.copyOf(precisionIds, states.length);
+      }
+    }
+    if (2 * (usedSlots + 1) > table.length) {
+      rehash();
+    }
+
+    index = end++;
+    states[index] = pState;
+    precisionIds[index] = internPrecision(pPrecision);
+    size++;
+    modCount++;
+
+    int mask = table.length - 1;
+    int slot = hash(pState) & mask;
+    while (table[slot] >= 0) {
+      slot = (slot + 1) & mask;
+    }
+    if (table[slot] == EMPTY) {
+      usedSlots++;
+    }
+    table[slot] = index;
+    return null;
+  }
+
+  @Override
+  public @Nullable Precision remove(Object pKey) {
+    if (pKey == null) {
+      return null;
+    }
+    int slot = findSlot(pKey);
+    if (slot < 0) {
+      return null;
+    }
+    int index = table[slot];
+    table[slot] = DELETED;
+    states[index] = null;
+    int precisionId = precisionIds[index];
+    Precision oldPrecision = precisions.get(precisionId);
+    releasePrecision(precisionId);
+    size--;
+    modCount++;
+    return oldPrecision;
+  }
+
+  @Override
+  public void clear() {
+    states = new AbstractState[INITIAL_CAPACITY];
+    precisionIds = new int[INITIAL_CAPACITY];
+    end = 0;
+    size = 0;
+    table = newTable(2 * INITIAL_CAPACITY);
+    usedSlots = 0;
+    precisions.clear();
+    precisionIndex.clear();
+    precisionRefCounts = new int[4];
+    freePrecisionIdCount = 0;
+    modCount++;
+  }
+
+  /** Close the gaps of removed states in {@link #states}. */
+  private void compact() {
+    int newEnd = 0;
+    for (int i = 0; i < end; i++) {
+      if (states[i] != null) {
+        states[newEnd] = states[i];
+        precisionIds[newEnd] = precisionIds[i];
+        newEnd++;
+      }
+    }
+    Arrays.fill(states, newEnd, end, null);
+    end = newEnd;
+    rehash();
+  }
+
+  /** Rebuild {@link #table} without deleted slots, growing it if necessary. */
+  private void rehash() {
+    int capacity = table.length;
+    while (2 * (size + 1) > capacity) {
+      capacity *= 2;
+    }
+    table = newTable(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < end; i++) {
+      if (states[i] != null) {
+        int slot = hash(states[i]) & mask;
+        while (table[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = i;
+      }
+    }
+    usedSlots = size;
+    modCount++;
+  }
+
+  private int internPrecision(Precision pPrecision) {
+    Integer id = precisionIndex.get(pPrecision);
+    if (id == null) {
+      if (freePrecisionIdCount > 0) {
+        id = freePrecisionIds[--freePrecisionIdCount];
+        precisions.set(id, pPrecision);
+      } else {
+        id = precisions.size();
+        precisions.add(pPrecision);
+        if (id == precisionRefCounts.length) {
+          precisionRefCounts = Arrays.copyOf(precisionRefCounts, 2 * id);
+        }
+      }
+      precisionIndex.put(pPrecision, id);
+    }
+    precisionRefCounts[id]++;
+    return id;
+  }
+
+  private void releasePrecision(int pId) {
+    if (--precisionRefCounts[pId] == 0) {
+      precisionIndex.remove(precisions.get(pId));
+      precisions.set(pId, null);
+      if (freePrecisionIdCount == freePrecisionIds.length) {
+        freePrecisionIds = Arrays.copyOf(freePrecisionIds, 2 * freePrecisionIdCount);
+      }
+      freePrecisionIds[freePrecisionIdCount++] = pId;
+    }
+  }
+
+  /** Returns the number of distinct precisions that are currently referenced. */
+  int getNumberOfPrecisions() {
+    return precisionIndex.size();
+  }
+
+  /**
+   * Returns an estimate of the bytes that are used by this map for each state (without the
+   * states and precisions themselves), assuming compressed object pointers.
+   */
+  int getBytesPerState() {
+    if (size == 0) {
+      return 0;
+    }
+    long bytes = 4L * (states.length + precisionIds.length + table.length);
+    return (int) (bytes / size);
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super AbstractState, ? super Precision> pAction) {
+    int expectedModCount = modCount;
+    for (int i = 0; i < end; i++) {
+      if (states[i] != null) {
+        pAction.accept(states[i], precisions.get(precisionIds[i]));
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+      }
+    }
+  }
+
+  @Override
+  public Set<AbstractState> keySet() {
+    return new AbstractSet<AbstractState>() {
+
+      @Override
+      public Iterator<AbstractState> iterator() {
+        return new StateIterator<AbstractState>() {
+          @Override
+          AbstractState get(int pIndex) {
+            return states[pIndex];
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object pObj) {
+        return containsKey(pObj);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public Set<Entry<AbstractState, Precision>> entrySet() {
+    return new AbstractSet<Entry<AbstractState, Precision>>() {
+
+      @Override
+      public Iterator<Entry<AbstractState, Precision>> iterator() {
+        return new StateIterator<Entry<AbstractState, Precision>>() {
+          @Override
+          Entry<AbstractState, Precision> get(int pIndex) {
+            return new SimpleImmutableEntry<>(
+                states[pIndex], precisions.get(precisionIds[pIndex]));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /** Fail-fast iterator over the indices of all states in insertion order. */
+  private abstract class StateIterator<T> implements Iterator<T> {
+
+    private final int expectedModCount = modCount;
+    private int next = 0;
+
+    abstract T get(int pIndex);
+
+    @Override
+    public boolean hasNext() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      while (next < end && states[next] == null) {
+        next++;
+      }
+      return next < end;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return get(next++);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+
+public class CompactStateMapTest {
+
+  private static final class TestState implements AbstractState {}
+
+  private static final class TestPrecision implements Precision {
+
+    private final int value;
+
+    private TestPrecision(int pValue) {
+      value = pValue;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof TestPrecision && ((TestPrecision) pObj).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return value;
+    }
+  }
+
+  private CompactStateMap map;
+
+  @Before
+  public void init() {
+    map = new CompactStateMap();
+  }
+
+  @Test
+  public void insertionOrder() {
+    List<AbstractState> states = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      AbstractState state = new TestState();
+      states.add(state);
+      assertThat(map.put(state, new TestPrecision(i % 3))).isNull();
+    }
+    for (int i = 0; i < 100; i += 2) {
+      assertThat(map.remove(states.get(i))).isEqualTo(new TestPrecision(i % 3));
+    }
+    List<AbstractState> expected = new ArrayList<>();
+    for (int i = 1; i < 100; i += 2) {
+      expected.add(states.get(i));
+    }
+    for (int i = 0; i < 100; i += 2) {
+      expected.add(states.get(i));
+      map.put(states.get(i), new TestPrecision(i % 3));
+    }
+
+    assertThat(map).hasSize(100);
+    assertThat(map.keySet()).containsExactlyElementsIn(expected).inOrder();
+    assertThat(map.getNumberOfPrecisions()).isEqualTo(3);
+  }
+
+  @Test
+  public void precisionsAreInterned() {
+    AbstractState s1 = new TestState();
+    AbstractState s2 = new TestState();
+    TestPrecision p1 = new TestPrecision(1);
+    map.put(s1, p1);
+    map.put(s2, new TestPrecision(1));
+
+    assertThat(map.get(s2)).isSameAs(p1);
+    assertThat(map.getNumberOfPrecisions()).isEqualTo(1);
+
+    map.put(s2, new TestPrecision(2));
+    assertThat(map.getNumberOfPrecisions()).isEqualTo(2);
+
+    map.remove(s1);
+    assertThat(map.getNumberOfPrecisions()).isEqualTo(1);
+    assertThat(map.containsKey(s1)).isFalse();
+    assertThat(map.get(s2)).isEqualTo(new TestPrecision(2));
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
+
+/**
+ * Index of abstract states by their coverage signature (cf. {@link CoverageIndexable}) that finds
+ * the states which may cover a given state without iterating over all stored signatures.
+ *
+ * <p>A state with signature s2 may cover a state with signature s1 only if the bits of s2 are a
+ * subset of the bits of s1. The signatures are stored in a trie with one level for each 4 bits
+ * (starting with the most significant ones), and the states with the same signature are stored
+ * together in a bucket at the leaf of the trie. A query for the candidates of s1 follows on each
+ * level only the children whose 4 bits are a subset of the corresponding bits of s1, so it visits
+ * only nodes on the paths to matching buckets and paths that are cut off within 4 bits.
+ */
+final class CoverageSignatureIndex {
+
+  private static final int BITS_PER_LEVEL = 4;
+  private static final int LEVELS = Long.SIZE / BITS_PER_LEVEL;
+  private static final int CHILDREN = 1 << BITS_PER_LEVEL;
+
+  /**
+   * The root of the trie. Nodes on the last level contain the buckets (sets of states), all other
+   * nodes contain their children (arrays). Missing children are null.
+   */
+  private final Object[] root = new Object[CHILDREN];
+
+  private int size = 0;
+
+  /** Returns the number of states in this index. */
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  private static int getChildIndex(long pSignature, int pLevel) {
+    return (int) (pSignature >>> (Long.SIZE - (pLevel + 1) * BITS_PER_LEVEL)) & (CHILDREN - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<AbstractState> asBucket(Object pNode) {
+    return (Set<AbstractState>) pNode;
+  }
+
+  void add(long pSignature, AbstractState pState) {
+    Object[] node = root;
+    for (int level = 0; level < LEVELS - 1; level++) {
+      int index = getChildIndex(pSignature, level);
+      if (node[index] == null) {
+        node[index] = new Object[CHILDREN];
+      }
+      node = (Object[]) node[index];
+    }
+    int index = getChildIndex(pSignature, LEVELS - 1);
+    if (node[index] == null) {
+      node[index] = new LinkedHashSet<>(2);
+    }
+    if (asBucket(node[index]).add(pState)) {
+      size++;
+    }
+  }
+
+  /** Remove the state that was added with the given signature, if present. */
+  void remove(long pSignature, AbstractState pState) {
+    if (remove(root, 0, pSignature, pState)) {
+      size--;
+    }
+  }
+
+  /** Remove the state from the subtree and remove all nodes of the subtree that became empty. */
+  private static boolean remove(Object[] pNode, int pLevel, long pSignature, AbstractState pState) {
+    int index = getChildIndex(pSignature, pLevel);
+    Object child = pNode[index];
+    if (child == null) {
+      return false;
+    }
+
+    boolean removed;
+    boolean childIsEmpty;
+    if (pLevel == LEVELS - 1) {
+      Set<AbstractState> bucket = asBucket(child);
+      removed = bucket.remove(pState);
+      childIsEmpty = bucket.isEmpty();
+    } else {
+      Object[] childNode = (Object[]) child;
+      removed = remove(childNode, pLevel + 1, pSignature, pState);
+      childIsEmpty = isEmpty(childNode);
+    }
+    if (childIsEmpty) {
+      pNode[index] = null;
+    }
+    return removed;
+  }
+
+  private static boolean isEmpty(Object[] pNode) {
+    for (Object child : pNode) {
+      if (child != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  void clear() {
+    for (int i = 0; i < CHILDREN; i++) {
+      root[i] = null;
+    }
+    size = 0;
+  }
+
+  /**
+   * Add all states whose signature does not exclude that they cover a state with the given
+   * signature (cf. {@link CoverageIndexable#mayBeLessOrEqual(long, long)}) to the given
+   * collection.
+   */
+  void getCandidates(long pSignature, Collection<AbstractState> pCandidates) {
+    getCandidates(root, 0, pSignature, pCandidates);
+  }
+
+  private static void getCandidates(
+      Object[] pNode, int pLevel, long pSignature, Collection<AbstractState> pCandidates) {
+    int bits = getChildIndex(pSignature, pLevel);
+    // iterate over all subsets of the bits, including the empty set
+    for (int index = bits; ; index = (index - 1) & bits) {
+      Object child = pNode[index];
+      if (child != null) {
+        if (pLevel == LEVELS - 1) {
+          pCandidates.addAll(asBucket(child));
+        } else {
+          getCandidates((Object[]) child, pLevel + 1, pSignature, pCandidates);
+        }
+      }
+      if (index == 0) {
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
+
+public class CoverageSignatureIndexTest {
+
+  private static final class TestState implements AbstractState {}
+
+  private static List<AbstractState> getCandidates(CoverageSignatureIndex pIndex, long pSignature) {
+    List<AbstractState> candidates = new ArrayList<>();
+    pIndex.getCandidates(pSignature, candidates);
+    return candidates;
+  }
+
+  /** Compute the candidates by checking the signatures of all states. */
+  private static List<AbstractState> getExpectedCandidates(
+      Map<AbstractState, Long> pSignatures, long pSignature) {
+    List<AbstractState> candidates = new ArrayList<>();
+    for (Map.Entry<AbstractState, Long> entry : pSignatures.entrySet()) {
+      if (CoverageIndexable.mayBeLessOrEqual(pSignature, entry.getValue())) {
+        candidates.add(entry.getKey());
+      }
+    }
+    return candidates;
+  }
+
+  @Test
+  public void candidates() {
+    CoverageSignatureIndex index = new CoverageSignatureIndex();
+    AbstractState s1 = new TestState();
+    AbstractState s2 = new TestState();
+    AbstractState s3 = new TestState();
+    AbstractState s4 = new TestState();
+    index.add(0b0011, s1);
+    index.add(0b0001, s2);
+    index.add(0b0001, s3);
+    index.add(Long.MIN_VALUE | 0b0001, s4);
+    assertThat(index.size()).isEqualTo(4);
+
+    assertThat(getCandidates(index, 0b0011)).containsExactly(s1, s2, s3);
+    assertThat(getCandidates(index, 0b0001)).containsExactly(s2, s3);
+    assertThat(getCandidates(index, 0b0100)).isEmpty();
+    assertThat(getCandidates(index, -1L)).containsExactly(s1, s2, s3, s4);
+  }
+
+  @Test
+  public void remove() {
+    CoverageSignatureIndex index = new CoverageSignatureIndex();
+    AbstractState s1 = new TestState();
+    AbstractState s2 = new TestState();
+    index.add(0b0011, s1);
+    index.add(0b0001, s2);
+
+    index.remove(0b0001, s1); // wrong signature, nothing is removed
+    assertThat(index.size()).isEqualTo(2);
+
+    index.remove(0b0011, s1);
+    assertThat(index.size()).isEqualTo(1);
+    assertThat(getCandidates(index, -1L)).containsExactly(s2);
+
+    index.remove(0b0001, s2);
+    assertThat(index.isEmpty()).isTrue();
+    assertThat(getCandidates(index, -1L)).isEmpty();
+  }
+
+  @Test
+  public void randomSignatures() {
+    Random random = new Random(0);
+    CoverageSignatureIndex index = new CoverageSignatureIndex();
+    Map<AbstractState, Long> signatures = new LinkedHashMap<>();
+    for (int i = 0; i < 500; i++) {
+      // sparse signatures, such that some states can cover others
+      long signature = random.nextLong() & random.nextLong() & random.nextLong();
+      AbstractState state = new TestState();
+      index.add(signature, state);
+      signatures.put(state, signature);
+    }
+
+    for (int i = 0; i < 200; i++) {
+      long signature = random.nextLong() | random.nextLong();
+      assertThat(getCandidates(index, signature))
+          .containsExactlyElementsIn(getExpectedCandidates(signatures, signature));
+    }
+    for (long signature : signatures.values()) {
+      assertThat(getCandidates(index, signature))
+          .containsExactlyElementsIn(getExpectedCandidates(signatures, signature));
+    }
+  }
+}
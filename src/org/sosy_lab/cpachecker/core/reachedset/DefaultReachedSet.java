@@ -49,6 +49,8 @@ import org.sosy_lab.cpachecker.core.waitlist.Waitlist;
 import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 
 /**
  * Basic implementation of ReachedSet.
@@ -56,14 +58,22 @@ import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
  */
 class DefaultReachedSet implements ReachedSet {
 
-  private final LinkedHashMap<AbstractState, Precision> reached;
+  private final Map<AbstractState, Precision> reached;
   private final Set<AbstractState> unmodifiableReached;
   private @Nullable AbstractState lastState = null;
   private @Nullable AbstractState firstState = null;
   private final Waitlist waitlist;
 
   DefaultReachedSet(WaitlistFactory waitlistFactory) {
-    reached = new LinkedHashMap<>();
+    this(waitlistFactory, false);
+  }
+
+  /**
+   * @param pCompactStorage whether to use {@link CompactStateMap} instead of a {@link
+   *     LinkedHashMap} as storage
+   */
+  DefaultReachedSet(WaitlistFactory waitlistFactory, boolean pCompactStorage) {
+    reached = pCompactStorage ? new CompactStateMap() : new LinkedHashMap<>();
     unmodifiableReached = Collections.unmodifiableSet(reached.keySet());
     waitlist = waitlistFactory.createWaitlistInstance();
   }
@@ -293,12 +303,18 @@ class DefaultReachedSet implements ReachedSet {
   }
 
   public Map<String, ? extends AbstractStatValue> getStatistics() {
+    ImmutableMap.Builder<String, AbstractStatValue> result = ImmutableMap.builder();
     if (waitlist instanceof AbstractSortedWaitlist) {
-      return ((AbstractSortedWaitlist<?>) waitlist).getDelegationCounts();
+      result.putAll(((AbstractSortedWaitlist<?>) waitlist).getDelegationCounts());
+    }
 
-    } else {
-      return ImmutableMap.of();
+    if (reached instanceof CompactStateMap) {
+      CompactStateMap compactReached = (CompactStateMap) reached;
+      StatInt bytesPerState = new StatInt(StatKind.AVG, "Reached-set storage per state (bytes)");
+      bytesPerState.setNextValue(compactReached.getBytesPerState());
+      result.put(bytesPerState.getTitle(), bytesPerState);
     }
+    return result.build();
   }
 
   @Override
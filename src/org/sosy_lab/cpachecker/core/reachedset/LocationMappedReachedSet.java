@@ -42,6 +42,15 @@ public class LocationMappedReachedSet extends PartitionedReachedSet {
     super(waitlistFactory);
   }
 
+  public LocationMappedReachedSet(WaitlistFactory waitlistFactory, boolean pUseCoverageIndex) {
+    super(waitlistFactory, pUseCoverageIndex);
+  }
+
+  public LocationMappedReachedSet(
+      WaitlistFactory waitlistFactory, boolean pUseCoverageIndex, boolean pCompactStorage) {
+    super(waitlistFactory, pUseCoverageIndex, pCompactStorage);
+  }
+
   @Override
   public Collection<AbstractState> getReached(CFANode location) {
     return getReachedForKey(location);
@@ -0,0 +1,346 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState;
+import org.sosy_lab.cpachecker.cpa.callstack.CallstackState;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+import org.sosy_lab.cpachecker.util.statistics.StatIntHist;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
+
+/**
+ * Special implementation of the partitioned reached set {@link PartitionedReachedSet} that nests
+ * the partitions in several levels. Each level is defined by a {@link PartitionLevel} that
+ * extracts a key from the abstract state, the innermost level always uses the return value of
+ * {@link Partitionable#getPartitionKey()} as the key, like {@link PartitionedReachedSet}.
+ *
+ * <p>Whenever the method {@link #getReached(AbstractState)} is called, it will return those states
+ * that have the same key as the given state on every level. A level may return null as key for a
+ * state, if the state should be comparable to all states of this level (e.g., the TOP state of an
+ * automaton). Such states are returned for every key of that level.
+ *
+ * <p>Additional levels only make sense if states with different keys of this level are never
+ * merged and never cover each other, so this type of reached set works best in combination with
+ * an analysis that uses merge_sep and stop_sep.
+ */
+public class MultiLevelPartitionedReachedSet extends DefaultReachedSet {
+
+  /** The levels that can be used for partitioning in addition to the partition key. */
+  public enum PartitionLevel {
+
+    /** partition by program location */
+    LOCATION {
+      @Override
+      @Nullable
+      Object getKey(AbstractState pState) {
+        return AbstractStates.extractLocation(pState);
+      }
+    },
+
+    /** partition by callstack (needs the CallstackCPA) */
+    CALLSTACK {
+      @Override
+      @Nullable
+      Object getKey(AbstractState pState) {
+        return AbstractStates.extractStateByType(pState, CallstackState.class);
+      }
+    },
+
+    /**
+     * partition by the internal states of all automata (needs the ControlAutomatonCPA, which
+     * should not use the merge operator that merges into the TOP state)
+     */
+    AUTOMATON {
+      @Override
+      @Nullable
+      Object getKey(AbstractState pState) {
+        ImmutableList.Builder<String> key = ImmutableList.builder();
+        for (AutomatonState automatonState :
+            AbstractStates.asIterable(pState).filter(AutomatonState.class)) {
+          if (automatonState.isTop()) {
+            // TOP covers all states of the automaton
+            return null;
+          }
+          key.add(automatonState.getOwningAutomatonName());
+          key.add(automatonState.getInternalStateName());
+        }
+        return key.build();
+      }
+    };
+
+    /**
+     * Return the key of the state for this level, or null if the state may be related to states
+     * with arbitrary keys on this level.
+     */
+    abstract @Nullable Object getKey(AbstractState pState);
+  }
+
+  /**
+   * One node in the tree of partitions. Inner nodes have children for each key of the next level,
+   * nodes on the innermost level store the states by their partition key.
+   */
+  private static final class Partition {
+
+    private final Map<Object, Partition> children = new LinkedHashMap<>(2);
+    private final SetMultimap<Object, AbstractState> states = LinkedHashMultimap.create(1, 1);
+    private int size = 0;
+  }
+
+  private final ImmutableList<PartitionLevel> levels;
+
+  private final Partition root = new Partition();
+
+  public MultiLevelPartitionedReachedSet(
+      WaitlistFactory waitlistFactory, List<PartitionLevel> pLevels) {
+    this(waitlistFactory, pLevels, false);
+  }
+
+  public MultiLevelPartitionedReachedSet(
+      WaitlistFactory waitlistFactory, List<PartitionLevel> pLevels, boolean pCompactStorage) {
+    super(waitlistFactory, pCompactStorage);
+    levels = ImmutableList.copyOf(pLevels);
+    checkArgument(
+        ImmutableSet.copyOf(levels).size() == levels.size(), "Partition levels are not distinct");
+  }
+
+  @Override
+  public void add(AbstractState pState, Precision pPrecision) {
+    super.add(pState, pPrecision);
+
+    List<Partition> path = new ArrayList<>(levels.size() + 1);
+    Partition partition = root;
+    path.add(partition);
+    for (PartitionLevel level : levels) {
+      partition = partition.children.computeIfAbsent(level.getKey(pState), k -> new Partition());
+      path.add(partition);
+    }
+
+    if (partition.states.put(getPartitionKey(pState), pState)) {
+      for (Partition p : path) {
+        p.size++;
+      }
+    }
+  }
+
+  @Override
+  public void remove(AbstractState pState) {
+    super.remove(pState);
+
+    List<Partition> path = new ArrayList<>(levels.size() + 1);
+    List<Object> keys = new ArrayList<>(levels.size());
+    Partition partition = root;
+    path.add(partition);
+    for (PartitionLevel level : levels) {
+      Object key = level.getKey(pState);
+      partition = partition.children.get(key);
+      if (partition == null) {
+        return;
+      }
+      keys.add(key);
+      path.add(partition);
+    }
+
+    if (partition.states.remove(getPartitionKey(pState), pState)) {
+      for (int i = path.size() - 1; i >= 0; i--) {
+        Partition p = path.get(i);
+        p.size--;
+        if (p.size == 0 && i > 0) {
+          path.get(i - 1).children.remove(keys.get(i - 1));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+
+    root.children.clear();
+    root.states.clear();
+    root.size = 0;
+  }
+
+  @Override
+  public Set<AbstractState> getReached(AbstractState pState) {
+    Object partitionKey = getPartitionKey(pState);
+    Set<AbstractState> result = ImmutableSet.of();
+    for (Partition partition : getPartitions(pState)) {
+      Set<AbstractState> states = partition.states.get(partitionKey);
+      result = result.isEmpty() ? states : Sets.union(result, states);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode pLocation) {
+    if (levels.isEmpty() || levels.get(0) != PartitionLevel.LOCATION) {
+      return super.getReached(pLocation);
+    }
+
+    List<AbstractState> result = new ArrayList<>();
+    for (Object key : new Object[] {pLocation, null}) {
+      Partition partition = root.children.get(key);
+      if (partition != null) {
+        collectStates(partition, result);
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /** Collect all partitions on the innermost level that match the given state on all levels. */
+  private List<Partition> getPartitions(AbstractState pState) {
+    List<Partition> current = ImmutableList.of(root);
+    for (PartitionLevel level : levels) {
+      Object key = level.getKey(pState);
+      List<Partition> next = new ArrayList<>(2);
+      for (Partition partition : current) {
+        if (key == null) {
+          next.addAll(partition.children.values());
+        } else {
+          addIfPresent(partition.children.get(key), next);
+          addIfPresent(partition.children.get(null), next);
+        }
+      }
+      current = next;
+    }
+    return current;
+  }
+
+  private static void addIfPresent(@Nullable Partition pPartition, List<Partition> pPartitions) {
+    if (pPartition != null) {
+      pPartitions.add(pPartition);
+    }
+  }
+
+  private static void collectStates(Partition pPartition, Collection<AbstractState> pStates) {
+    pStates.addAll(pPartition.states.values());
+    for (Partition child : pPartition.children.values()) {
+      collectStates(child, pStates);
+    }
+  }
+
+  public int getNumberOfPartitions() {
+    return countPartitions(root, 0);
+  }
+
+  private int countPartitions(Partition pPartition, int pDepth) {
+    if (pDepth == levels.size()) {
+      return pPartition.states.keySet().size();
+    }
+    int count = 0;
+    for (Partition child : pPartition.children.values()) {
+      count += countPartitions(child, pDepth + 1);
+    }
+    return count;
+  }
+
+  /** Returns the largest partition on the innermost level, or null if the reached set is empty. */
+  public @Nullable Map.Entry<Object, Collection<AbstractState>> getMaxPartition() {
+    return getMaxPartition(root, 0, null);
+  }
+
+  private Map.Entry<Object, Collection<AbstractState>> getMaxPartition(
+      Partition pPartition, int pDepth, Map.Entry<Object, Collection<AbstractState>> pMax) {
+    Map.Entry<Object, Collection<AbstractState>> max = pMax;
+    if (pDepth == levels.size()) {
+      for (Map.Entry<Object, Collection<AbstractState>> partition :
+          pPartition.states.asMap().entrySet()) {
+        if (max == null || partition.getValue().size() > max.getValue().size()) {
+          max = partition;
+        }
+      }
+    } else {
+      for (Partition child : pPartition.children.values()) {
+        max = getMaxPartition(child, pDepth + 1, max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Returns statistics about the tree of partitions of this reached set. This walks over all
+   * partitions, so it should be called only once for the final reached set.
+   */
+  public Map<String, ? extends AbstractStatValue> getPartitionStatistics() {
+    List<StatIntHist> childrenPerLevel = new ArrayList<>(levels.size());
+    for (PartitionLevel level : levels) {
+      childrenPerLevel.add(
+          new StatIntHist(StatKind.AVG, "Number of partitions per " + level + " partition"));
+    }
+    StatIntHist partitionSizes = new StatIntHist(StatKind.AVG, "Size of partitions");
+    collectStatistics(root, 0, childrenPerLevel, partitionSizes);
+
+    ImmutableMap.Builder<String, AbstractStatValue> result = ImmutableMap.builder();
+    result.put(partitionSizes.getTitle(), partitionSizes);
+    for (StatIntHist hist : childrenPerLevel) {
+      result.put(hist.getTitle(), hist);
+    }
+    return result.build();
+  }
+
+  private void collectStatistics(
+      Partition pPartition,
+      int pDepth,
+      List<StatIntHist> pChildrenPerLevel,
+      StatIntHist pPartitionSizes) {
+    if (pDepth == levels.size()) {
+      for (Collection<AbstractState> states : pPartition.states.asMap().values()) {
+        pPartitionSizes.setNextValue(states.size());
+      }
+    } else {
+      pChildrenPerLevel.get(pDepth).setNextValue(pPartition.children.size());
+      for (Partition child : pPartition.children.values()) {
+        collectStatistics(child, pDepth + 1, pChildrenPerLevel, pPartitionSizes);
+      }
+    }
+  }
+
+  private static Object getPartitionKey(AbstractState pState) {
+    assert pState instanceof Partitionable
+        : "Partitionable states necessary for MultiLevelPartitionedReachedSet";
+    return ((Partitionable) pState).getPartitionKey();
+  }
+}
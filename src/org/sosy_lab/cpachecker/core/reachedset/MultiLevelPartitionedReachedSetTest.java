@@ -0,0 +1,194 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractStateWithLocation;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.reachedset.MultiLevelPartitionedReachedSet.PartitionLevel;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+public class MultiLevelPartitionedReachedSetTest {
+
+  private static final class TestState implements AbstractStateWithLocation, Partitionable {
+
+    private final @Nullable CFANode location;
+    private final Object partitionKey;
+
+    private TestState(@Nullable CFANode pLocation, Object pPartitionKey) {
+      location = pLocation;
+      partitionKey = pPartitionKey;
+    }
+
+    @Override
+    public CFANode getLocationNode() {
+      return location;
+    }
+
+    @Override
+    public Iterable<CFANode> getLocationNodes() {
+      return location == null ? ImmutableList.of() : ImmutableList.of(location);
+    }
+
+    @Override
+    public Iterable<CFAEdge> getOutgoingEdges() {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public Iterable<CFAEdge> getIngoingEdges() {
+      return ImmutableList.of();
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partitionKey;
+    }
+  }
+
+  private final CFANode l1 = new CFANode("main");
+  private final CFANode l2 = new CFANode("main");
+
+  private MultiLevelPartitionedReachedSet reached;
+
+  @Before
+  public void init() {
+    reached =
+        new MultiLevelPartitionedReachedSet(
+            TraversalMethod.BFS, ImmutableList.of(PartitionLevel.LOCATION));
+  }
+
+  private void addAll(ReachedSet pReached, TestState... pStates) {
+    for (TestState state : pStates) {
+      pReached.add(state, SingletonPrecision.getInstance());
+    }
+  }
+
+  @Test
+  public void reachedPerLevel() {
+    TestState s1 = new TestState(l1, "a");
+    TestState s2 = new TestState(l1, "b");
+    TestState s3 = new TestState(l2, "a");
+    addAll(reached, s1, s2, s3);
+
+    assertThat(reached.getReached(new TestState(l1, "a"))).containsExactly(s1);
+    assertThat(reached.getReached(new TestState(l1, "b"))).containsExactly(s2);
+    assertThat(reached.getReached(new TestState(l2, "a"))).containsExactly(s3);
+    assertThat(reached.getReached(new TestState(l2, "b"))).isEmpty();
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(3);
+
+    assertThat(reached.getReached(l1)).containsExactly(s1, s2);
+    assertThat(reached.getReached(l2)).containsExactly(s3);
+  }
+
+  @Test
+  public void stateWithoutKeyOnLevel() {
+    TestState s1 = new TestState(l1, "a");
+    TestState s2 = new TestState(l2, "a");
+    TestState any = new TestState(null, "a");
+    addAll(reached, s1, s2, any);
+
+    // a state without key is related to the states of all keys of the level
+    assertThat(reached.getReached(new TestState(l1, "a"))).containsExactly(s1, any);
+    assertThat(reached.getReached(new TestState(l2, "a"))).containsExactly(s2, any);
+    assertThat(reached.getReached(new TestState(null, "a"))).containsExactly(s1, s2, any);
+    assertThat(reached.getReached(new TestState(null, "b"))).isEmpty();
+    assertThat(reached.getReached(l1)).containsExactly(s1, any);
+  }
+
+  @Test
+  public void remove() {
+    TestState s1 = new TestState(l1, "a");
+    TestState s2 = new TestState(l1, "a");
+    TestState s3 = new TestState(l2, "a");
+    addAll(reached, s1, s2, s3);
+
+    reached.remove(s1);
+    assertThat(reached.getReached(new TestState(l1, "a"))).containsExactly(s2);
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(2);
+
+    reached.remove(s2);
+    assertThat(reached.getReached(new TestState(l1, "a"))).isEmpty();
+    assertThat(reached.getReached(l1)).isEmpty();
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(1);
+    assertThat(reached.getMaxPartition().getValue()).containsExactly(s3);
+
+    // removing a state that is not in the reached set has no effect
+    reached.remove(s1);
+    assertThat(reached.asCollection()).containsExactly(s3);
+
+    reached.clear();
+    assertThat(reached.asCollection()).isEmpty();
+    assertThat(reached.getNumberOfPartitions()).isEqualTo(0);
+    assertThat(reached.getMaxPartition()).isNull();
+  }
+
+  @Test
+  public void consistentWithPartitionedReachedSet() {
+    TestState[] states = {
+      new TestState(l1, "a"),
+      new TestState(l1, "b"),
+      new TestState(l2, "a"),
+      new TestState(l2, "a"),
+      new TestState(l1, "c"),
+    };
+
+    // without additional levels, both reached sets have the same partitions
+    MultiLevelPartitionedReachedSet multiLevel =
+        new MultiLevelPartitionedReachedSet(TraversalMethod.BFS, ImmutableList.of());
+    PartitionedReachedSet partitioned = new PartitionedReachedSet(TraversalMethod.BFS);
+    addAll(multiLevel, states);
+    addAll(partitioned, states);
+    addAll(reached, states);
+    multiLevel.remove(states[1]);
+    partitioned.remove(states[1]);
+    reached.remove(states[1]);
+
+    assertThat(multiLevel.getNumberOfPartitions())
+        .isEqualTo(partitioned.getNumberOfPartitions());
+    for (TestState state : states) {
+      assertThat(multiLevel.getReached(state))
+          .containsExactlyElementsIn(partitioned.getReached(state));
+
+      // additional levels only restrict the partitions
+      ImmutableSet.Builder<AbstractState> expected = ImmutableSet.builder();
+      for (AbstractState other : partitioned.getReached(state)) {
+        if (((TestState) other).location == state.location) {
+          expected.add(other);
+        }
+      }
+      assertThat(reached.getReached(state)).containsExactlyElementsIn(expected.build());
+    }
+  }
+}
@@ -23,18 +23,28 @@
  */
 package org.sosy_lab.cpachecker.core.reachedset;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
+import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
-
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
+import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatIntHist;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
 
 /**
  * Special implementation of the reached set that partitions the set by keys that
@@ -50,27 +60,81 @@ import com.google.common.collect.Multimap;
  * for merging and coverage checks), it will return a subset of the set of all
  * reached states. This subset contains exactly those states, whose partition
  * key is equal to the key of the state given as a parameter.
+ *
+ * Optionally, the states of each partition are additionally indexed by their
+ * {@link CoverageIndexable#getCoverageSignature() coverage signature}
+ * (cf. {@link CoverageSignatureIndex}).
+ * Then {@link #getCoverageCandidates(AbstractState)} returns only those states of the
+ * partition which can cover the given state according to their signature.
  */
 public class PartitionedReachedSet extends DefaultReachedSet {
 
   private final Multimap<Object, AbstractState> partitionedReached = LinkedHashMultimap.create(100, 1);
 
+  /**
+   * For each partition key the states of the partition indexed by their coverage signature,
+   * or null if the coverage index is disabled.
+   */
+  private final @Nullable Map<Object, CoverageSignatureIndex> coverageIndex;
+
+  /**
+   * The coverage signature under which each state was added to the coverage index. Some states
+   * are modified while they are in the reached set, so their signature cannot be computed again
+   * when they are removed.
+   */
+  private final @Nullable Map<AbstractState, Long> coverageSignatures;
+
+  private final StatInt coverageCandidates =
+      new StatInt(StatKind.SUM, "Number of candidates for coverage checks");
+  private final StatInt prunedCoverageCandidates =
+      new StatInt(StatKind.SUM, "Number of candidates pruned by coverage index");
+
   public PartitionedReachedSet(WaitlistFactory waitlistFactory) {
-    super(waitlistFactory);
+    this(waitlistFactory, false);
+  }
+
+  public PartitionedReachedSet(WaitlistFactory waitlistFactory, boolean pUseCoverageIndex) {
+    this(waitlistFactory, pUseCoverageIndex, false);
+  }
+
+  public PartitionedReachedSet(
+      WaitlistFactory waitlistFactory, boolean pUseCoverageIndex, boolean pCompactStorage) {
+    super(waitlistFactory, pCompactStorage);
+    coverageIndex = pUseCoverageIndex ? new HashMap<>() : null;
+    coverageSignatures = pUseCoverageIndex ? new IdentityHashMap<>() : null;
   }
 
   @Override
   public void add(AbstractState pState, Precision pPrecision) {
     super.add(pState, pPrecision);
 
-    partitionedReached.put(getPartitionKey(pState), pState);
+    Object key = getPartitionKey(pState);
+    partitionedReached.put(key, pState);
+
+    if (coverageIndex != null) {
+      long signature = getCoverageSignature(pState);
+      coverageSignatures.put(pState, signature);
+      coverageIndex.computeIfAbsent(key, k -> new CoverageSignatureIndex()).add(signature, pState);
+    }
   }
 
   @Override
   public void remove(AbstractState pState) {
     super.remove(pState);
 
-    partitionedReached.remove(getPartitionKey(pState), pState);
+    Object key = getPartitionKey(pState);
+    partitionedReached.remove(key, pState);
+
+    if (coverageIndex != null) {
+      Long signature = coverageSignatures.remove(pState);
+      CoverageSignatureIndex partition = coverageIndex.get(key);
+      if (partition != null && signature != null) {
+        partition.remove(signature, pState);
+        if (partition.isEmpty()) {
+          coverageIndex.remove(key);
+        }
+      }
+    }
   }
 
   @Override
@@ -78,6 +142,10 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     super.clear();
 
     partitionedReached.clear();
+    if (coverageIndex != null) {
+      coverageIndex.clear();
+      coverageSignatures.clear();
+    }
   }
 
   @Override
@@ -85,6 +153,40 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     return getReachedForKey(getPartitionKey(pState));
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>If the coverage index is enabled, this returns only those states of the partition whose
+   * coverage signature does not exclude that they cover the given state. In contrast to {@link
+   * #getReached(AbstractState)}, the result is not a view but a snapshot.
+   */
+  @Override
+  public Collection<AbstractState> getCoverageCandidates(AbstractState pState) {
+    if (coverageIndex == null || !(pState instanceof CoverageIndexable)) {
+      return getReached(pState);
+    }
+
+    CoverageSignatureIndex partition = coverageIndex.get(getPartitionKey(pState));
+    if (partition == null) {
+      return ImmutableSet.of();
+    }
+
+    List<AbstractState> candidates = new ArrayList<>();
+    partition.getCandidates(((CoverageIndexable) pState).getCoverageSignature(), candidates);
+
+    coverageCandidates.setNextValue(candidates.size());
+    prunedCoverageCandidates.setNextValue(partition.size() - candidates.size());
+    return Collections.unmodifiableList(candidates);
+  }
+
+  /** States without signature get the neutral signature that never excludes coverage. */
+  private static long getCoverageSignature(AbstractState pState) {
+    if (pState instanceof CoverageIndexable) {
+      return ((CoverageIndexable) pState).getCoverageSignature();
+    }
+    return 0;
+  }
+
   public int getNumberOfPartitions() {
     return partitionedReached.keySet().size();
   }
@@ -103,6 +205,27 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     return maxPartition;
   }
 
+  /**
+   * Returns statistics about the partitions of this reached set. This walks over all partitions
+   * and describes the reached set as it is now (including the coverage candidates that were
+   * checked since it was created), so it should be called only once for the final reached set.
+   */
+  public Map<String, ? extends AbstractStatValue> getPartitionStatistics() {
+    ImmutableMap.Builder<String, AbstractStatValue> result = ImmutableMap.builder();
+
+    StatIntHist partitionSizes = new StatIntHist(StatKind.AVG, "Size of partitions");
+    for (Collection<AbstractState> partition : partitionedReached.asMap().values()) {
+      partitionSizes.setNextValue(partition.size());
+    }
+    result.put(partitionSizes.getTitle(), partitionSizes);
+
+    if (coverageIndex != null) {
+      result.put(coverageCandidates.getTitle(), coverageCandidates);
+      result.put(prunedCoverageCandidates.getTitle(), prunedCoverageCandidates);
+    }
+    return result.build();
+  }
+
   protected Object getPartitionKey(AbstractState pState) {
     assert pState instanceof Partitionable : "Partitionable states necessary for PartitionedReachedSet";
     return ((Partitionable)pState).getPartitionKey();
@@ -0,0 +1,123 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+public class PartitionedReachedSetTest {
+
+  private static final class TestState implements AbstractState, Partitionable, CoverageIndexable {
+
+    private final Object partitionKey;
+    private long signature;
+
+    private TestState(Object pPartitionKey, long pSignature) {
+      partitionKey = pPartitionKey;
+      signature = pSignature;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partitionKey;
+    }
+
+    @Override
+    public long getCoverageSignature() {
+      return signature;
+    }
+  }
+
+  private PartitionedReachedSet reached;
+
+  @Before
+  public void init() {
+    reached = new PartitionedReachedSet(TraversalMethod.BFS, true);
+  }
+
+  @Test
+  public void candidatesWithCoverageIndex() {
+    TestState s1 = new TestState("a", 0b0011);
+    TestState s2 = new TestState("a", 0b0001);
+    TestState s3 = new TestState("a", 0b0100);
+    TestState s4 = new TestState("b", 0b0001);
+    for (TestState s : new TestState[] {s1, s2, s3, s4}) {
+      reached.add(s, SingletonPrecision.getInstance());
+    }
+
+    // state with more information can be covered by states with less information
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0011))).containsExactly(s1, s2);
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0001))).containsExactly(s2);
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b1000))).isEmpty();
+    assertThat(reached.getCoverageCandidates(new TestState("c", 0b1111))).isEmpty();
+
+    // merge needs all states of the partition
+    assertThat(reached.getReached(new TestState("a", 0b1000))).containsExactly(s1, s2, s3);
+  }
+
+  @Test
+  public void candidatesAfterRemove() {
+    TestState s1 = new TestState("a", 0b0001);
+    TestState s2 = new TestState("a", 0b0001);
+    reached.add(s1, SingletonPrecision.getInstance());
+    reached.add(s2, SingletonPrecision.getInstance());
+
+    reached.remove(s1);
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0001))).containsExactly(s2);
+
+    reached.remove(s2);
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0001))).isEmpty();
+  }
+
+  @Test
+  public void removeAfterSignatureChanged() {
+    TestState s1 = new TestState("a", 0b0001);
+    reached.add(s1, SingletonPrecision.getInstance());
+
+    // states may be strengthened while they are in the reached set
+    s1.signature = 0b0011;
+    reached.remove(s1);
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0011))).isEmpty();
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0001))).isEmpty();
+  }
+
+  @Test
+  public void candidatesWithoutCoverageIndex() {
+    reached = new PartitionedReachedSet(TraversalMethod.BFS, false);
+    TestState s1 = new TestState("a", 0b0001);
+    TestState s2 = new TestState("a", 0b0010);
+    reached.add(s1, SingletonPrecision.getInstance());
+    reached.add(s2, SingletonPrecision.getInstance());
+
+    assertThat(reached.getCoverageCandidates(new TestState("a", 0b0001)))
+        .containsExactly(s1, s2);
+  }
+}
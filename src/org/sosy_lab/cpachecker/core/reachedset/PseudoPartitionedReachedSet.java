@@ -71,6 +71,10 @@ public class PseudoPartitionedReachedSet extends DefaultReachedSet {
     super(waitlistFactory);
   }
 
+  public PseudoPartitionedReachedSet(WaitlistFactory waitlistFactory, boolean pCompactStorage) {
+    super(waitlistFactory, pCompactStorage);
+  }
+
   @Override
   public void add(AbstractState pState, Precision pPrecision) {
     super.add(pState, pPrecision);
@@ -23,12 +23,15 @@
  */
 package org.sosy_lab.cpachecker.core.reachedset;
 
+import com.google.common.collect.ImmutableList;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.reachedset.MultiLevelPartitionedReachedSet.PartitionLevel;
 import org.sosy_lab.cpachecker.core.waitlist.AutomatonFailedMatchesWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.AutomatonMatchesWaitlist;
 import org.sosy_lab.cpachecker.core.waitlist.BlockConfiguration;
@@ -50,7 +53,7 @@ import org.sosy_lab.cpachecker.cpa.automaton.AutomatonVariableWaitlist;
 public class ReachedSetFactory {
 
   private static enum ReachedSetType {
-    NORMAL, LOCATIONMAPPED, PARTITIONED, PSEUDOPARTITIONED
+    NORMAL, LOCATIONMAPPED, PARTITIONED, PSEUDOPARTITIONED, MULTIPARTITIONED
   }
 
   @Option(
@@ -180,9 +183,44 @@ public class ReachedSetFactory {
             + "\nPARTITIONED: partitioning depending on CPAs (e.g Location, Callstack etc.)"
             + "\nPSEUDOPARTITIONED: based on PARTITIONED, uses additional info about the states' lattice "
             + "(maybe faster for some special analyses which use merge_sep and stop_sep"
+            + "\nMULTIPARTITIONED: based on PARTITIONED, nests the partitions "
+            + "in the levels given by analysis.reachedSet.partitionLevels "
+            + "(states with different keys on some level cannot be merged)"
   )
   private ReachedSetType reachedSet = ReachedSetType.PARTITIONED;
 
+  @Option(
+    secure = true,
+    name = "reachedSet.useCoverageIndex",
+    description =
+        "group the states of each partition by their coverage signature "
+            + "and use it to skip states that cannot cover a new state in the stop operator "
+            + "(only for PARTITIONED and LOCATIONMAPPED, "
+            + "may lose coverage for CPAs that do not use stop-sep)"
+  )
+  private boolean useCoverageIndex = false;
+
+  @Option(
+    secure = true,
+    name = "reachedSet.partitionLevels",
+    description =
+        "levels used by the reached set MULTIPARTITIONED from outermost to innermost, "
+            + "the partition key of the states is always used as innermost level "
+            + "(LOCATION and CALLSTACK only add a real level "
+            + "if the partition key does not already contain this information)"
+  )
+  private List<PartitionLevel> partitionLevels = ImmutableList.of(PartitionLevel.AUTOMATON);
+
+  @Option(
+    secure = true,
+    name = "reachedSet.compactStorage",
+    description =
+        "store the reached states in primitive arrays instead of a LinkedHashMap "
+            + "and share equal precisions between states, "
+            + "this reduces the memory overhead per state for large reached sets"
+  )
+  private boolean useCompactStorage = false;
+
   private final Configuration config;
   private final @Nullable BlockConfiguration blockConfig;
   private final LogManager logger;
@@ -252,17 +290,21 @@ public class ReachedSetFactory {
 
     switch (reachedSet) {
     case PARTITIONED:
-      return new PartitionedReachedSet(waitlistFactory);
+      return new PartitionedReachedSet(waitlistFactory, useCoverageIndex, useCompactStorage);
 
     case PSEUDOPARTITIONED:
-      return new PseudoPartitionedReachedSet(waitlistFactory);
+      return new PseudoPartitionedReachedSet(waitlistFactory, useCompactStorage);
+
+    case MULTIPARTITIONED:
+      return new MultiLevelPartitionedReachedSet(
+          waitlistFactory, partitionLevels, useCompactStorage);
 
     case LOCATIONMAPPED:
-      return new LocationMappedReachedSet(waitlistFactory);
+      return new LocationMappedReachedSet(waitlistFactory, useCoverageIndex, useCompactStorage);
 
     case NORMAL:
     default:
-      return new DefaultReachedSet(waitlistFactory);
+      return new DefaultReachedSet(waitlistFactory, useCompactStorage);
     }
   }
 }
@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.core.reachedset;
 
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Property;
 
@@ -81,6 +82,23 @@ public interface UnmodifiableReachedSet extends Iterable<AbstractState> {
    */
   public Collection<AbstractState> getReached(CFANode location);
 
+  /**
+   * Returns a subset of {@link #getReached(AbstractState)}, which contains at least all abstract
+   * states that might cover the given state. This is intended to be used for the stop operator
+   * only, for the merge operator {@link #getReached(AbstractState)} needs to be used.
+   *
+   * <p>Implementations may use the {@link CoverageIndexable coverage signatures} of the states to
+   * exclude candidates, so stop operators that do not only check coverage with single states
+   * according to the partial order of the abstract domain (e.g., stop-join) might lose precision.
+   *
+   * @param state An abstract state for which coverage should be checked.
+   * @return A subset of the result of {@link #getReached(AbstractState)}.
+   */
+  public default Collection<AbstractState> getCoverageCandidates(AbstractState state)
+      throws UnsupportedOperationException {
+    return getReached(state);
+  }
+
   /**
    * Returns the first state that was added to the reached set.
    * @throws IllegalStateException If the reached set is empty.
@@ -31,12 +31,15 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractStateByType;
 
 import com.google.common.collect.Sets;
 import com.google.common.graph.Traverser;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -56,12 +59,15 @@ public class ARGState extends AbstractSingleWrapperState
 
   private static final long serialVersionUID = 2608287648397165040L;
 
-  // We use a List here although we would like to have a Set
-  // because ArrayList is much more memory efficient than e.g. LinkedHashSet.
-  // Also these collections are small and so a slow contains() method won't hurt.
-  // To enforce set semantics, do not add elements except through addparent()!
-  private final Collection<ARGState> children = new ArrayList<>(1);
-  private final Collection<ARGState> parents = new ArrayList<>(1);
+  private static final ARGState[] NO_STATES = new ARGState[0];
+
+  // Parents and children are stored in exactly-sized arrays (shared if empty),
+  // because most states have only one parent and one child and there are millions of states.
+  // The arrays are small, so a linear contains() won't hurt.
+  // Each array contains no duplicates and the arrays are replaced instead of modified.
+  // To enforce this, do not change them except through addParent() and the remove methods!
+  private ARGState[] children = NO_STATES;
+  private ARGState[] parents = NO_STATES;
 
   private ARGState mCoveredBy = null;
   private Set<ARGState> mCoveredByThis = null; // lazy initialization because rarely needed
@@ -93,10 +99,10 @@ public class ARGState extends AbstractSingleWrapperState
 
   /**
    * Get the parent elements of this state.
-   * @return A unmodifiable collection of ARGStates without duplicates.
+   * @return An unmodifiable view of the ARGStates without duplicates.
    */
   public Collection<ARGState> getParents() {
-    return Collections.unmodifiableCollection(parents);
+    return new StatesView(this, true);
   }
 
   public void addParent(ARGState pOtherParent) {
@@ -104,22 +110,96 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (!parents.contains(pOtherParent)) {
-      assert !pOtherParent.children.contains(this);
-      parents.add(pOtherParent);
-      pOtherParent.children.add(this);
+    if (!contains(parents, pOtherParent)) {
+      assert !contains(pOtherParent.children, this);
+      parents = append(parents, pOtherParent);
+      pOtherParent.children = append(pOtherParent.children, this);
     } else {
-      assert pOtherParent.children.contains(this);
+      assert contains(pOtherParent.children, this);
     }
   }
 
   /**
    * Get the child elements of this state.
-   * @return An unmodifiable collection of ARGStates without duplicates.
+   * @return An unmodifiable view of the ARGStates without duplicates.
    */
   public Collection<ARGState> getChildren() {
     assert !destroyed : "Don't use destroyed ARGState " + this;
-    return Collections.unmodifiableCollection(children);
+    return new StatesView(this, false);
+  }
+
+  /**
+   * Returns an estimate of the bytes used for storing the parent and child relation of this
+   * state, assuming compressed object pointers.
+   */
+  public int getEdgeStorageSize() {
+    return arraySize(parents) + arraySize(children);
+  }
+
+  private static int arraySize(ARGState[] pStates) {
+    // the empty array is shared, other arrays have a header of 16 bytes
+    return pStates.length == 0 ? 0 : 16 + 4 * pStates.length;
+  }
+
+  /** Unmodifiable view of the current parents or children of a state. */
+  private static final class StatesView extends AbstractList<ARGState> implements RandomAccess {
+
+    private final ARGState state;
+    private final boolean ofParents;
+
+    private StatesView(ARGState pState, boolean pOfParents) {
+      state = pState;
+      ofParents = pOfParents;
+    }
+
+    private ARGState[] getStates() {
+      return ofParents ? state.parents : state.children;
+    }
+
+    @Override
+    public ARGState get(int pIndex) {
+      return getStates()[pIndex];
+    }
+
+    @Override
+    public int size() {
+      return getStates().length;
+    }
+
+    @Override
+    public boolean contains(Object pObject) {
+      return pObject instanceof ARGState && ARGState.contains(getStates(), (ARGState) pObject);
+    }
+  }
+
+  private static boolean contains(ARGState[] pStates, ARGState pState) {
+    for (ARGState state : pStates) {
+      if (state == pState) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ARGState[] append(ARGState[] pStates, ARGState pState) {
+    ARGState[] result = Arrays.copyOf(pStates, pStates.length + 1);
+    result[pStates.length] = pState;
+    return result;
+  }
+
+  private static ARGState[] remove(ARGState[] pStates, ARGState pState) {
+    for (int i = 0; i < pStates.length; i++) {
+      if (pStates[i] == pState) {
+        if (pStates.length == 1) {
+          return NO_STATES;
+        }
+        ARGState[] result = new ARGState[pStates.length - 1];
+        System.arraycopy(pStates, 0, result, 0, i);
+        System.arraycopy(pStates, i + 1, result, i, pStates.length - i - 1);
+        return result;
+      }
+    }
+    return pStates;
   }
 
   /**
@@ -297,10 +377,10 @@ public class ARGState extends AbstractSingleWrapperState
   }
 
   void deleteChild(ARGState child) {
-    assert (children.contains(child));
-    assert (child.parents.contains(this));
-    children.remove(child);
-    child.parents.remove(this);
+    assert contains(children, child);
+    assert contains(child.parents, this);
+    children = remove(children, child);
+    child.parents = remove(child.parents, this);
   }
 
   // counterexample
@@ -381,9 +461,9 @@ public class ARGState extends AbstractSingleWrapperState
     sb.append(stateId);
     if (!destroyed) {
       sb.append(", Parents: ");
-      sb.append(stateIdsOf(parents));
+      sb.append(stateIdsOf(getParents()));
       sb.append(", Children: ");
-      sb.append(stateIdsOf(children));
+      sb.append(stateIdsOf(new StatesView(this, false)));
 
       if (mCoveredBy != null) {
         sb.append(", Covered by: ");
@@ -469,17 +549,17 @@ public class ARGState extends AbstractSingleWrapperState
 
     // clear children
     for (ARGState child : children) {
-      assert (child.parents.contains(this));
-      child.parents.remove(this);
+      assert contains(child.parents, this);
+      child.parents = remove(child.parents, this);
     }
-    children.clear();
+    children = NO_STATES;
 
     // clear parents
     for (ARGState parent : parents) {
-      assert (parent.children.contains(this));
-      parent.children.remove(this);
+      assert contains(parent.children, this);
+      parent.children = remove(parent.children, this);
     }
-    parents.clear();
+    parents = NO_STATES;
   }
 
   /**
@@ -500,18 +580,18 @@ public class ARGState extends AbstractSingleWrapperState
 
     // copy children
     for (ARGState child : children) {
-      assert (child.parents.contains(this)) : "Inconsistent ARG at " + this;
-      child.parents.remove(this);
+      assert contains(child.parents, this) : "Inconsistent ARG at " + this;
+      child.parents = remove(child.parents, this);
       child.addParent(replacement);
     }
-    children.clear();
+    children = NO_STATES;
 
     for (ARGState parent : parents) {
-      assert (parent.children.contains(this)) : "Inconsistent ARG at " + this;
-      parent.children.remove(this);
+      assert contains(parent.children, this) : "Inconsistent ARG at " + this;
+      parent.children = remove(parent.children, this);
       replacement.addParent(parent);
     }
-    parents.clear();
+    parents = NO_STATES;
 
     if (mCoveredByThis != null) {
       if (replacement.mCoveredByThis == null) {
@@ -576,12 +656,12 @@ public class ARGState extends AbstractSingleWrapperState
     assert !destroyed : "Don't use destroyed ARGState " + this;
 
     // Manually enforce set semantics.
-    if (parents.contains(pOtherParent)) {
-      assert pOtherParent.children.contains(this);
-      parents.remove(pOtherParent);
-      pOtherParent.children.remove(this);
+    if (contains(parents, pOtherParent)) {
+      assert contains(pOtherParent.children, this);
+      parents = remove(parents, pOtherParent);
+      pOtherParent.children = remove(pOtherParent.children, this);
     } else {
-      assert !pOtherParent.children.contains(this) : "Problem detected!";
+      assert !contains(pOtherParent.children, this) : "Problem detected!";
     }
   }
 }
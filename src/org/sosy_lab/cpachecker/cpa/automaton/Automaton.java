@@ -34,6 +34,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
@@ -50,10 +51,22 @@ public class Automaton {
   private final ImmutableMap<String, AutomatonVariable> initVars;
   private final ImmutableList<AutomatonInternalState> states;
   private final AutomatonInternalState initState;
+  private final Optional<WitnessParsingStatistics> parsingStatistics;
 
   public Automaton(String pName, Map<String, AutomatonVariable> pVars, List<AutomatonInternalState> pStates,
       String pInitialStateName) throws InvalidAutomatonException {
+    this(pName, pVars, pStates, pInitialStateName, Optional.empty());
+  }
+
+  Automaton(
+      String pName,
+      Map<String, AutomatonVariable> pVars,
+      List<AutomatonInternalState> pStates,
+      String pInitialStateName,
+      Optional<WitnessParsingStatistics> pParsingStatistics)
+      throws InvalidAutomatonException {
     this.name = pName;
+    this.parsingStatistics = pParsingStatistics;
     this.initVars = ImmutableMap.copyOf(pVars);
     this.states = ImmutableList.copyOf(pStates);
 
@@ -91,6 +104,11 @@ public class Automaton {
     return states.size();
   }
 
+  /** Returns the statistics for parsing this automaton, if it was parsed from a witness. */
+  Optional<WitnessParsingStatistics> getParsingStatistics() {
+    return parsingStatistics;
+  }
+
   /**
    * Prints the contents of a DOT file representing this automaton to the PrintStream.
    * @param pOut the appendable to write to
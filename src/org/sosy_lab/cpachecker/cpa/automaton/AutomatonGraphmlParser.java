@@ -24,13 +24,11 @@
 package org.sosy_lab.cpachecker.cpa.automaton;
 
 import com.google.common.base.Joiner;
-import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -51,7 +49,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -66,11 +63,13 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nullable;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -99,11 +98,6 @@ import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -232,8 +226,10 @@ public class AutomatonGraphmlParser {
         CParser.Factory.getParser(
             logger, CParser.Factory.getOptions(config), cfa.getMachineModel());
 
+    WitnessParsingStatistics.Builder statisticsBuilder = WitnessParsingStatistics.start();
     AutomatonGraphmlParserState graphMLParserState =
-        setupGraphMLParser(pInputStream, pPropertyTypes);
+        setupGraphMLParser(pInputStream, pPropertyTypes, statisticsBuilder);
+    WitnessParsingStatistics statistics = statisticsBuilder.build();
 
     // Parse the transitions
     parseTransitions(cparser, graphMLParserState);
@@ -252,7 +248,8 @@ public class AutomatonGraphmlParser {
           graphMLParserState.getAutomatonName(),
           graphMLParserState.getAutomatonVariables(),
           automatonStates,
-          graphMLParserState.getEntryState().getId());
+          graphMLParserState.getEntryState().getId(),
+          Optional.of(statistics));
     } catch (InvalidAutomatonException e) {
       throw new WitnessParseException(INVALID_AUTOMATON_ERROR_MESSAGE, e);
     }
@@ -822,49 +819,31 @@ public class AutomatonGraphmlParser {
    *
    * @param pInputStream the input stream to read from.
    * @param pPropertyTypes which are assumed to be witnessed.
+   * @param pStatistics the statistics to update while reading.
    * @return the initialized parser state.
    * @throws IOException if reading from the input stream fails.
    * @throws WitnessParseException if the initial validity checks for conformity with the witness
    *     format fail.
    */
   private AutomatonGraphmlParserState setupGraphMLParser(
-      InputStream pInputStream, Set<PropertyType> pPropertyTypes)
+      InputStream pInputStream,
+      Set<PropertyType> pPropertyTypes,
+      WitnessParsingStatistics.Builder pStatistics)
       throws IOException, WitnessParseException {
 
-    GraphMLDocumentData docDat = parseXML(pInputStream);
+    GraphMLCollector collector = new GraphMLCollector(pStatistics);
+    GraphMLElement graph = readGraphML(pInputStream, collector);
+    collector.finish();
 
-    checkFields(docDat.getGraph());
+    checkFields(graph);
 
-    WitnessType graphType = getWitnessType(docDat.getGraph());
+    WitnessType graphType = getWitnessType(graph);
 
     // Extract the information on the automaton ----
-    Node nameAttribute = docDat.getGraph().getAttributes().getNamedItem("name");
+    String nameAttribute = graph.getAttribute("name");
     String automatonName = WITNESS_AUTOMATON_NAME;
     if (nameAttribute != null) {
-      automatonName += "_" + nameAttribute.getTextContent();
-    }
-
-    Map<String, GraphMLState> states = Maps.newHashMap();
-    Multimap<GraphMLState, GraphMLTransition> enteringTransitions = HashMultimap.create();
-    Multimap<GraphMLState, GraphMLTransition> leavingTransitions = HashMultimap.create();
-    NumericIdProvider numericIdProvider = NumericIdProvider.create();
-    Set<GraphMLState> entryStates = Sets.newHashSet();
-    for (Node transition : docDat.getTransitions()) {
-      collectEdgeData(
-          docDat,
-          states,
-          entryStates,
-          leavingTransitions,
-          enteringTransitions,
-          numericIdProvider,
-          transition);
-    }
-    if (states.size() < docDat.idToNodeMap.size()) {
-      for (String stateId : docDat.idToNodeMap.keySet()) {
-        if (!states.containsKey(stateId)) {
-          states.put(stateId, parseState(docDat, states, stateId, Optional.empty()));
-        }
-      }
+      automatonName += "_" + nameAttribute;
     }
 
     AutomatonGraphmlParserState state =
@@ -872,9 +851,9 @@ public class AutomatonGraphmlParser {
             automatonName,
             graphType,
             pPropertyTypes,
-            states.values(),
-            enteringTransitions,
-            leavingTransitions,
+            collector.states.values(),
+            collector.enteringTransitions,
+            collector.leavingTransitions,
             cfa.getAllFunctionNames());
 
     // Check if entry state is connected to a violation state
@@ -900,27 +879,198 @@ public class AutomatonGraphmlParser {
     return state;
   }
 
-  private GraphMLDocumentData parseXML(InputStream pInputStream)
-      throws WitnessParseException, IOException {
+  /**
+   * Collects the states and transitions of a witness while its GraphML document is read. Edges are
+   * converted into transitions as soon as their source and target states are known, such that
+   * only those edges that precede the nodes they refer to need to be kept until these nodes are
+   * read. Such edges and all edges after them are converted in the order of the document, so that
+   * the numeric thread ids do not depend on the order of nodes and edges.
+   */
+  private final class GraphMLCollector implements GraphMLElementHandler {
+
+    private final Map<String, GraphMLState> states = Maps.newHashMap();
+    private final Multimap<GraphMLState, GraphMLTransition> enteringTransitions =
+        HashMultimap.create();
+    private final Multimap<GraphMLState, GraphMLTransition> leavingTransitions =
+        HashMultimap.create();
+    private final NumericIdProvider numericIdProvider = NumericIdProvider.create();
+    private final Set<GraphMLState> entryStates = Sets.newHashSet();
+    private final Queue<GraphMLElement> pendingEdges = Queues.newArrayDeque();
+    private final WitnessParsingStatistics.Builder statistics;
+
+    private GraphMLCollector(WitnessParsingStatistics.Builder pStatistics) {
+      statistics = pStatistics;
+    }
+
+    @Override
+    public void handleNode(GraphMLElement pNode) throws WitnessParseException {
+      String stateId = pNode.getAttribute("id", "Every state needs an ID!");
+      checkParsable(
+          !states.containsKey(stateId),
+          String.format("The state with id <%s> is defined twice.", stateId));
+      states.put(stateId, parseState(stateId, pNode));
+      statistics.countElement();
+      collectPendingEdges(false);
+    }
 
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
+    @Override
+    public void handleEdge(GraphMLElement pEdge) throws WitnessParseException {
+      pendingEdges.add(pEdge);
+      statistics.countElement();
+      collectPendingEdges(false);
+    }
+
+    /** Converts the remaining edges, after the whole document was read. */
+    private void finish() throws WitnessParseException {
+      collectPendingEdges(true);
+    }
 
-    Document doc;
+    private void collectPendingEdges(boolean pForce) throws WitnessParseException {
+      while (!pendingEdges.isEmpty() && (pForce || hasKnownStates(pendingEdges.peek()))) {
+        collectEdgeData(
+            states,
+            entryStates,
+            leavingTransitions,
+            enteringTransitions,
+            numericIdProvider,
+            pendingEdges.poll());
+      }
+    }
+
+    private boolean hasKnownStates(GraphMLElement pEdge) {
+      // edges without source or target are handled right away to report the error
+      String source = pEdge.getAttribute("source");
+      String target = pEdge.getAttribute("target");
+      return (source == null || states.containsKey(source))
+          && (target == null || states.containsKey(target));
+    }
+  }
+
+  /** Receives the nodes and edges of a GraphML document while it is read. */
+  private static interface GraphMLElementHandler {
+
+    void handleNode(GraphMLElement pNode) throws WitnessParseException;
+
+    void handleEdge(GraphMLElement pEdge) throws WitnessParseException;
+  }
+
+  /**
+   * Reads a GraphML document with a streaming parser and passes each node and edge to the given
+   * handler as soon as it was read completely, without keeping the document in memory.
+   *
+   * @param pInputStream the input stream to read from.
+   * @param pHandler the handler for nodes and edges.
+   * @return the (only) graph of the document with its attributes and data.
+   * @throws IOException if reading from the input stream fails.
+   * @throws WitnessParseException if the document is not well-formed or does not contain exactly
+   *     one graph.
+   */
+  private static GraphMLElement readGraphML(
+      InputStream pInputStream, GraphMLElementHandler pHandler)
+      throws IOException, WitnessParseException {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+    GraphMLElement graph = null;
+    int numberOfGraphs = 0;
+    // the graph and the node or edge that is currently read, if any
+    Deque<GraphMLElement.Builder> openElements = new ArrayDeque<>();
     try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
+      XMLStreamReader reader = factory.createXMLStreamReader(pInputStream);
+      try {
+        while (reader.hasNext()) {
+          int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            GraphMLTag tag = getTag(reader.getLocalName());
+            if (tag == GraphMLTag.GRAPH || tag == GraphMLTag.NODE || tag == GraphMLTag.EDGE) {
+              if (tag == GraphMLTag.GRAPH) {
+                numberOfGraphs++;
+                checkParsable(numberOfGraphs == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+              }
+              GraphMLElement.Builder element = GraphMLElement.builder(tag);
+              for (int i = 0; i < reader.getAttributeCount(); i++) {
+                if (Strings.isNullOrEmpty(reader.getAttributeNamespace(i))) {
+                  element.putAttribute(
+                      reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                }
+              }
+              openElements.push(element);
+            } else if (tag == GraphMLTag.DATA) {
+              String key = reader.getAttributeValue(null, "key");
+              checkParsable(key != null, "Every data element must have a key attribute!");
+              String text = readTextContent(reader);
+              if (!openElements.isEmpty()) {
+                openElements.peek().putData(key, text);
+              }
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            GraphMLTag tag = getTag(reader.getLocalName());
+            if (tag == GraphMLTag.GRAPH || tag == GraphMLTag.NODE || tag == GraphMLTag.EDGE) {
+              GraphMLElement element = openElements.pop().build();
+              if (tag == GraphMLTag.NODE) {
+                pHandler.handleNode(element);
+              } else if (tag == GraphMLTag.EDGE) {
+                pHandler.handleEdge(element);
+              } else {
+                graph = element;
+              }
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        throw (IOException) e.getNestedException();
+      }
       throw new WitnessParseException(e);
     }
+    checkParsable(graph != null, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+    return graph;
+  }
+
+  private static @Nullable GraphMLTag getTag(String pName) {
+    for (GraphMLTag tag : GraphMLTag.values()) {
+      if (tag.text.equals(pName)) {
+        return tag;
+      }
+    }
+    return null;
+  }
 
-    return new GraphMLDocumentData(doc);
+  /**
+   * Reads the text content of the current element, including the text of nested elements, and
+   * moves the reader to the end of the current element.
+   */
+  private static String readTextContent(XMLStreamReader pReader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      switch (pReader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          text.append(pReader.getText());
+          break;
+        default:
+          break;
+      }
+    }
+    return text.toString();
   }
 
-  private void checkFields(Node graphNode) throws IOException, WitnessParseException {
+  private void checkFields(GraphMLElement graphNode) throws IOException, WitnessParseException {
 
-    checkHashSum(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.PROGRAMHASH));
-    checkArchitecture(GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.ARCHITECTURE));
+    checkHashSum(graphNode.getData(KeyDef.PROGRAMHASH));
+    checkArchitecture(graphNode.getData(KeyDef.ARCHITECTURE));
 
     if (strictChecking) {
       checkRequiredField(graphNode, KeyDef.WITNESS_TYPE);
@@ -953,9 +1103,9 @@ public class AutomatonGraphmlParser {
     return functionExitMatcher;
   }
 
-  private static boolean entersLoopHead(Node pTransition) throws WitnessParseException {
+  private static boolean entersLoopHead(GraphMLElement pTransition) throws WitnessParseException {
     Set<String> loopHeadFlags =
-        GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENTERLOOPHEAD);
+        pTransition.getData(KeyDef.ENTERLOOPHEAD);
     if (!loopHeadFlags.isEmpty()) {
       Set<Boolean> loopHeadFlagValues =
           loopHeadFlags.stream().map(Boolean::parseBoolean).collect(Collectors.toSet());
@@ -1000,18 +1150,19 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which line numbers to assume.
    * @return a predicate to match file locations based on the line numbers specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(Node pTransition)
+  private static Optional<Predicate<FileLocation>> getOriginLineMatcherPredicate(
+      GraphMLElement pTransition)
       throws WitnessParseException {
-    Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
+    Set<String> originFileTags = pTransition.getData(KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
         "At most one origin-file data tag must be provided for an edge.");
 
-    Set<String> startLineTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.STARTLINE);
+    Set<String> startLineTags = pTransition.getData(KeyDef.STARTLINE);
     checkParsable(
         startLineTags.size() < 2,
         "At most one startline data tag must be provided for each edge.");
-    Set<String> endLineTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENDLINE);
+    Set<String> endLineTags = pTransition.getData(KeyDef.ENDLINE);
     checkParsable(
         endLineTags.size() < 2, "At most one endline data tag must be provided for each edge.");
 
@@ -1054,16 +1205,17 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition specifying which character offset to assume.
    * @return a predicate to match file locations based on the offsets specified by the transition.
    */
-  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(Node pTransition) throws WitnessParseException {
-    Set<String> originFileTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ORIGINFILE);
+  private static Optional<Predicate<FileLocation>> getOffsetMatcherPredicate(
+      GraphMLElement pTransition) throws WitnessParseException {
+    Set<String> originFileTags = pTransition.getData(KeyDef.ORIGINFILE);
     checkParsable(
         originFileTags.size() < 2,
         "At most one origin-file data tag must be provided for an edge.");
 
-    Set<String> offsetTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.OFFSET);
+    Set<String> offsetTags = pTransition.getData(KeyDef.OFFSET);
     checkParsable(
         offsetTags.size() < 2, "At most one offset data tag must be provided for each edge.");
-    Set<String> endoffsetTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ENDOFFSET);
+    Set<String> endoffsetTags = pTransition.getData(KeyDef.ENDOFFSET);
     checkParsable(
         endoffsetTags.size() < 2, "At most one endoffset data tag must be provided for each edge.");
 
@@ -1108,8 +1260,9 @@ public class AutomatonGraphmlParser {
    * @return an automaton-transition condition for specific branches of an assumption corresponding
    *     to the control case specified by the given transition.
    */
-  private static AutomatonBoolExpr getAssumeCaseMatcher(Node pTransition) throws WitnessParseException {
-    Set<String> assumeCaseTags = GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.CONTROLCASE);
+  private static AutomatonBoolExpr getAssumeCaseMatcher(GraphMLElement pTransition)
+      throws WitnessParseException {
+    Set<String> assumeCaseTags = pTransition.getData(KeyDef.CONTROLCASE);
 
     if (assumeCaseTags.size() > 0) {
       checkParsable(
@@ -1139,7 +1292,8 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> getThread(
-      Node pTransition, NumericIdProvider pNumericIdProvider) throws WitnessParseException {
+      GraphMLElement pTransition, NumericIdProvider pNumericIdProvider)
+      throws WitnessParseException {
     return parseThreadId(pTransition, pNumericIdProvider, KeyDef.THREADID, "At most one threadId tag must be provided for each transition.");
   }
 
@@ -1155,9 +1309,12 @@ public class AutomatonGraphmlParser {
    * @throws WitnessParseException if more than one thread id was specified.
    */
   private static Optional<GraphMLTransition.GraphMLThread> parseThreadId(
-      Node pTransition, NumericIdProvider pNumericIdProvider, KeyDef pKey, String pErrorMessage)
+      GraphMLElement pTransition,
+      NumericIdProvider pNumericIdProvider,
+      KeyDef pKey,
+      String pErrorMessage)
       throws WitnessParseException {
-    Set<String> threadIdTags = GraphMLDocumentData.getDataOnNode(pTransition, pKey);
+    Set<String> threadIdTags = pTransition.getData(pKey);
 
     if (threadIdTags.size() > 0) {
       checkParsable(
@@ -1183,7 +1340,6 @@ public class AutomatonGraphmlParser {
   /**
    * Reads an automaton edge from the graphml file and inserts it into the automaton.
    *
-   * @param pDocDat the GraphML-document-data helper.
    * @param pStates the map from state identifiers to parsed states.
    * @param pEntryStates the set of entry states.
    * @param pLeavingEdges the map from predecessor states to transitions leaving these states that
@@ -1195,23 +1351,20 @@ public class AutomatonGraphmlParser {
    * @param pTransition the transition to be analyzed, represented as a GraphML edge.
    */
   private void collectEdgeData(
-      GraphMLDocumentData pDocDat,
       Map<String, GraphMLState> pStates,
       Set<GraphMLState> pEntryStates,
       Multimap<GraphMLState, GraphMLTransition> pLeavingEdges,
       Multimap<GraphMLState, GraphMLTransition> pEnteringEdges,
       NumericIdProvider pNumericThreadIdProvider,
-      Node pTransition)
+      GraphMLElement pTransition)
       throws WitnessParseException {
     String sourceStateId =
-        GraphMLDocumentData.getAttributeValue(
-            pTransition, "source", "Every transition needs a source!");
-    GraphMLState source = parseState(pDocDat, pStates, sourceStateId, Optional.of(pTransition));
+        pTransition.getAttribute("source", "Every transition needs a source!");
+    GraphMLState source = getState(pStates, sourceStateId, pTransition);
 
     String targetStateId =
-        GraphMLDocumentData.getAttributeValue(
-            pTransition, "target", "Every transition needs a target!");
-    GraphMLState target = parseState(pDocDat, pStates, targetStateId, Optional.of(pTransition));
+        pTransition.getAttribute("target", "Every transition needs a target!");
+    GraphMLState target = getState(pStates, targetStateId, pTransition);
 
     Optional<String> functionEntry = parseSingleDataValue(pTransition, KeyDef.FUNCTIONENTRY,
         "At most one function can be entered by one transition.");
@@ -1241,7 +1394,7 @@ public class AutomatonGraphmlParser {
             getAssumeCaseMatcher(pTransition),
             thread.orElse(DEFAULT_THREAD),
             threadIdAssignment,
-            GraphMLDocumentData.getDataOnNode(pTransition, KeyDef.ASSUMPTION),
+            pTransition.getData(KeyDef.ASSUMPTION),
             explicitAssumptionScope,
             assumptionResultFunction,
             entersLoopHead(pTransition));
@@ -1249,21 +1402,6 @@ public class AutomatonGraphmlParser {
     pLeavingEdges.put(source, transition);
     pEnteringEdges.put(target, transition);
 
-    Element sourceStateNode = pDocDat.getNodeWithId(sourceStateId);
-    if (sourceStateNode == null) {
-      throw new WitnessParseException(
-          String.format(
-              "Source %s of transition %s does not exist.",
-              sourceStateId, transitionToString(pTransition)));
-    }
-    Element targetStateNode = pDocDat.getNodeWithId(targetStateId);
-    if (targetStateNode == null) {
-      throw new WitnessParseException(
-          String.format(
-              "Target %s of transition %s does not exist.",
-              targetStateId, transitionToString(pTransition)));
-    }
-
     if (source.isViolationState()) {
       logger.log(
           Level.WARNING,
@@ -1288,51 +1426,48 @@ public class AutomatonGraphmlParser {
     }
   }
 
-  private GraphMLState parseState(
-      GraphMLDocumentData pDocDat,
-      Map<String, GraphMLState> pStates,
-      String pStateId,
-      Optional<Node> pReference)
+  private static GraphMLState getState(
+      Map<String, GraphMLState> pStates, String pStateId, GraphMLElement pReference)
       throws WitnessParseException {
     GraphMLState result = pStates.get(pStateId);
-    if (result != null) {
-      return result;
-    }
-
-    Element stateNode = pDocDat.getNodeWithId(pStateId);
-    if (stateNode == null) {
-      final String message;
-      if (pReference.isPresent()) {
-        message =
-            String.format(
-                "The state with id <%s> does not exist, but is referenced in the transition <%s>",
-                pStateId, transitionToString(pReference.get()));
-      } else {
-        message = String.format("The state with if <%s> does not exist.", pStateId);
-      }
-      throw new WitnessParseException(message);
+    if (result == null) {
+      throw new WitnessParseException(
+          String.format(
+              "The state with id <%s> does not exist, but is referenced in the transition <%s>",
+              pStateId, transitionToString(pReference)));
     }
+    return result;
+  }
 
-    Set<String> candidates = GraphMLDocumentData.getDataOnNode(stateNode, KeyDef.INVARIANT);
-    Optional<String> candidateScope = parseSingleDataValue(stateNode, KeyDef.INVARIANTSCOPE,
+  private static GraphMLState parseState(String pStateId, GraphMLElement pStateNode)
+      throws WitnessParseException {
+    Set<String> candidates = pStateNode.getData(KeyDef.INVARIANT);
+    Optional<String> candidateScope = parseSingleDataValue(pStateNode, KeyDef.INVARIANTSCOPE,
         "At most one explicit invariant scope must be provided for a state.");
 
-    result = new GraphMLState(
+    return new GraphMLState(
         pStateId,
         candidates,
         candidateScope,
-        pDocDat.getNodeFlags(stateNode));
-
-    pStates.put(pStateId, result);
+        getNodeFlags(pStateNode));
+  }
 
+  private static EnumSet<NodeFlag> getNodeFlags(GraphMLElement pStateNode) {
+    EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
+    for (String key : pStateNode.getDataKeys()) {
+      NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
+      if (flag != null) {
+        result.add(flag);
+      }
+    }
     return result;
   }
 
-  private static Optional<String> parseSingleDataValue(Node pEdge,
+  private static Optional<String> parseSingleDataValue(GraphMLElement pEdge,
       KeyDef pKey,
       String pErrorMessage) throws WitnessParseException {
     Set<String> values =
-        GraphMLDocumentData.getDataOnNode(pEdge, pKey);
+        pEdge.getData(pKey);
     checkParsable(values.size() <= 1, pErrorMessage);
     String value = Iterables.getOnlyElement(values, null);
     return Optional.ofNullable(value);
@@ -1344,9 +1479,9 @@ public class AutomatonGraphmlParser {
    * @param pAutomaton the GraphML graph node representing the witness automaton.
    * @return the witness-automaton type of an automaton represented as a GraphML graph.
    */
-  private WitnessType getWitnessType(Node pAutomaton) throws WitnessParseException {
+  private WitnessType getWitnessType(GraphMLElement pAutomaton) throws WitnessParseException {
     Set<String> witnessTypeText =
-        GraphMLDocumentData.getDataOnNode(pAutomaton, KeyDef.WITNESS_TYPE);
+        pAutomaton.getData(KeyDef.WITNESS_TYPE);
     final WitnessType witnessType;
     if (witnessTypeText.isEmpty()) {
       witnessType = WitnessType.VIOLATION_WITNESS;
@@ -1368,28 +1503,22 @@ public class AutomatonGraphmlParser {
     return witnessType;
   }
 
-  private static String transitionToString(Node pTransition) {
+  private static String transitionToString(GraphMLElement pTransition) {
     if (pTransition == null) {
       return "null";
     }
-    NamedNodeMap attributes = pTransition.getAttributes();
-    if (attributes != null) {
-      Node id = attributes.getNamedItem("id");
-      if (id != null) {
-        return id.getNodeValue();
-      }
-    }
     return pTransition.toString();
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey)
+  private static void checkRequiredField(GraphMLElement pGraphNode, KeyDef pKey)
       throws WitnessParseException {
     checkRequiredField(pGraphNode, pKey, false);
   }
 
-  private static void checkRequiredField(Node pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
+  private static void checkRequiredField(
+      GraphMLElement pGraphNode, KeyDef pKey, boolean pAcceptEmpty)
       throws WitnessParseException {
-    Iterable<String> data = GraphMLDocumentData.getDataOnNode(pGraphNode, pKey);
+    Iterable<String> data = pGraphNode.getData(pKey);
     if (Iterables.isEmpty(data)) {
       throw new WitnessParseException(
           String.format("The witness does not contain the required field '%s'", pKey.id));
@@ -1633,119 +1762,6 @@ public class AutomatonGraphmlParser {
 
   }
 
-  private static class GraphMLDocumentData {
-
-    private final Node graph;
-
-    private final ImmutableMap<String, Element> idToNodeMap;
-
-    private final Iterable<Node> transitions;
-
-    public GraphMLDocumentData(Document pDocument) throws WitnessParseException {
-
-      NodeList graphs = pDocument.getElementsByTagName(GraphMLTag.GRAPH.toString());
-      checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-      graph = Objects.requireNonNull(graphs.item(0));
-
-      ImmutableMap.Builder<String, Element> idToNodeMapBuilder = ImmutableMap.builder();
-      NodeList nodes = pDocument.getElementsByTagName(GraphMLTag.NODE.toString());
-      for (Node stateNode : asIterable(nodes)) {
-        String stateId = getAttributeValue(stateNode, "id", "Every state needs an ID!");
-        idToNodeMapBuilder.put(stateId, (Element) stateNode);
-      }
-      idToNodeMap = idToNodeMapBuilder.build();
-
-      transitions = asIterable(pDocument.getElementsByTagName(GraphMLTag.EDGE.toString()));
-    }
-
-    public Node getGraph() {
-      return graph;
-    }
-
-    public Iterable<Node> getTransitions() {
-      return transitions;
-    }
-
-    public EnumSet<NodeFlag> getNodeFlags(Element pStateNode) {
-      EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
-
-      NodeList dataChilds = pStateNode.getElementsByTagName(GraphMLTag.DATA.toString());
-
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String key = attribute.getTextContent();
-        NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
-        if (flag != null) {
-          result.add(flag);
-        }
-      }
-
-      return result;
-    }
-
-    private static String getAttributeValue(Node of, String attributeName, String exceptionMessage)
-        throws WitnessParseException {
-      Node attribute = of.getAttributes().getNamedItem(attributeName);
-      if (attribute == null) {
-        throw new WitnessParseException(exceptionMessage);
-      }
-      return attribute.getTextContent();
-    }
-
-    private @Nullable Element getNodeWithId(String nodeId) {
-      Element result = idToNodeMap.get(nodeId);
-      if (result == null
-          || !result.getTagName().equals(GraphMLTag.NODE.toString())) {
-        return null;
-      }
-      return result;
-    }
-
-    private static Set<String> getDataOnNode(Node node, final KeyDef dataKey) {
-      Preconditions.checkNotNull(node);
-      Preconditions.checkArgument(node.getNodeType() == Node.ELEMENT_NODE);
-
-      Element nodeElement = (Element) node;
-      Set<Node> dataNodes = findKeyedDataNode(nodeElement, dataKey);
-
-      Set<String> result = Sets.newHashSet();
-      for (Node n: dataNodes) {
-        result.add(n.getTextContent());
-      }
-
-      return result;
-    }
-
-    private static Set<Node> findKeyedDataNode(Element of, final KeyDef dataKey) {
-      Set<Node> result = Sets.newHashSet();
-      Set<Node> alternative = null;
-      NodeList dataChilds = of.getElementsByTagName(GraphMLTag.DATA.toString());
-      for (Node dataChild : asIterable(dataChilds)) {
-        Node attribute = dataChild.getAttributes().getNamedItem("key");
-        Preconditions.checkNotNull(attribute, "Every data element must have a key attribute!");
-        String nodeKey = attribute.getTextContent();
-        if (nodeKey.equals(dataKey.id)) {
-          result.add(dataChild);
-          alternative = null;
-        }
-        // Backwards-compatibility: type/graph-type
-        if (alternative == null
-            && result.isEmpty()
-            && dataKey.equals(KeyDef.WITNESS_TYPE)
-            && nodeKey.equals("type")) {
-          alternative = Sets.newHashSet();
-          alternative.add(dataChild);
-        }
-      }
-      if (result.isEmpty() && alternative != null) {
-        return alternative;
-      }
-      return result;
-    }
-
-  }
-
   public static boolean isGraphmlAutomatonFromConfiguration(Path pPath)
       throws InvalidConfigurationException {
     try {
@@ -1795,24 +1811,22 @@ public class AutomatonGraphmlParser {
 
   private static AutomatonGraphmlCommon.WitnessType getWitnessType(InputStream pInputStream)
       throws InvalidConfigurationException, IOException {
-    // Parse the XML document ----
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-    Document doc;
-    try {
-      DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-      doc = docBuilder.parse(pInputStream);
-    } catch (ParserConfigurationException | SAXException e) {
-      throw new WitnessParseException(e);
-    }
+    // (The one) graph of the document, nodes and edges are not needed ----
+    GraphMLElement graphNode =
+        readGraphML(
+            pInputStream,
+            new GraphMLElementHandler() {
+
+              @Override
+              public void handleNode(GraphMLElement pNode) {}
 
-    // (The one) root node of the graph ----
-    NodeList graphs = doc.getElementsByTagName(GraphMLTag.GRAPH.toString());
-    checkParsable(graphs.getLength() == 1, TOO_MANY_GRAPHS_ERROR_MESSAGE);
-    Node graphNode = graphs.item(0);
+              @Override
+              public void handleEdge(GraphMLElement pEdge) {}
+            });
 
     checkRequiredField(graphNode, KeyDef.WITNESS_TYPE);
 
-    Set<String> graphTypeText = GraphMLDocumentData.getDataOnNode(graphNode, KeyDef.WITNESS_TYPE);
+    Set<String> graphTypeText = graphNode.getData(KeyDef.WITNESS_TYPE);
     final WitnessType graphType;
     if (graphTypeText.isEmpty()) {
       graphType = WitnessType.VIOLATION_WITNESS;
@@ -1928,29 +1942,4 @@ public class AutomatonGraphmlParser {
       throw pExceptionHandler.apply(e);
     }
   }
-
-
-  /** return a nice {@link Iterable} wrapping the interface {@link NodeList}. */
-  private static Iterable<Node> asIterable(final NodeList pNodeList) {
-    return new Iterable<Node>() {
-
-      @Override
-      public Iterator<Node> iterator() {
-        return new Iterator<Node>() {
-
-          private int index = 0;
-
-          @Override
-          public boolean hasNext() {
-            return index < pNodeList.getLength();
-          }
-
-          @Override
-          public Node next() {
-            return pNodeList.item(index++);
-          }
-        };
-      }
-    };
-  }
 }
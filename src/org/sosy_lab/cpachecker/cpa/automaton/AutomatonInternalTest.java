@@ -30,6 +30,9 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.io.CharSource;
 import com.google.common.io.CharStreams;
 import com.google.common.io.MoreFiles;
@@ -41,6 +44,7 @@ import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -49,14 +53,22 @@ import java_cup.runtime.ComplexSymbolFactory;
 import java_cup.runtime.Symbol;
 import org.junit.Test;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.CParser;
 import org.sosy_lab.cpachecker.cfa.CParser.ParserOptions;
 import org.sosy_lab.cpachecker.cfa.CProgramScope;
 import org.sosy_lab.cpachecker.cfa.ast.c.CAstNode;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonASTComparator.ASTMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonState.AutomatonUnknownState;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
 
 /**
  * This class contains Tests for the AutomatonAnalysis
@@ -172,6 +184,139 @@ public class AutomatonInternalTest {
     assertThat(ex.eval(args).canNotEvaluate()).isTrue();
   }
 
+  /** A location guard that holds only for the given edge. */
+  private static AutomatonBoolExpr matchEdge(CFAEdge pEdge) {
+    return new AutomatonBoolExpr.MatchLocationDescriptor(null, location -> false) {
+      @Override
+      protected boolean eval(CFAEdge pOther) {
+        return pOther == pEdge;
+      }
+    };
+  }
+
+  /** Creates an automaton whose initial state has one transition to a new state per trigger. */
+  private ControlAutomatonCPA createAutomatonCPA(List<AutomatonBoolExpr> pTriggers)
+      throws Exception {
+    List<AutomatonInternalState> states = new ArrayList<>();
+    List<AutomatonTransition> transitions = new ArrayList<>();
+    for (int i = 0; i < pTriggers.size(); i++) {
+      AutomatonInternalState followState = new AutomatonInternalState("q" + i, ImmutableList.of());
+      states.add(followState);
+      transitions.add(
+          new AutomatonTransition(
+              pTriggers.get(i), ImmutableList.of(), ImmutableList.of(), followState));
+    }
+    states.add(new AutomatonInternalState("init", transitions));
+    Automaton automaton = new Automaton("test", ImmutableMap.of(), states, "init");
+    return new ControlAutomatonCPA(
+        automaton, TestDataTools.configurationForTest().build(), logger, mock(CFA.class));
+  }
+
+  private static List<String> getSuccessors(ControlAutomatonCPA pCpa, CFAEdge pEdge)
+      throws Exception {
+    AbstractState initialState =
+        pCpa.getInitialState(new CFANode("main"), StateSpacePartition.getDefaultPartition());
+    List<String> result = new ArrayList<>();
+    for (AutomatonState successor :
+        pCpa.getTransferRelation()
+            .getAbstractSuccessorsForEdge(initialState, SingletonPrecision.getInstance(), pEdge)) {
+      if (successor instanceof AutomatonUnknownState) {
+        result.add("unknown");
+      } else {
+        result.add(
+            successor.getInternalStateName()
+                + " matches="
+                + successor.getMatches()
+                + " failed="
+                + successor.getFailedMatches());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks that the successors of the initial state (including their counters for matches and
+   * failed matches) for the given edge are the same as without the transition index.
+   *
+   * @return which transitions of the initial state the index considers for the edge
+   */
+  private boolean[] checkTransitionIndex(List<AutomatonBoolExpr> pTriggers, CFAEdge pEdge)
+      throws Exception {
+    // TRUE does not only depend on the edge, so the index finds no guards in these triggers
+    ControlAutomatonCPA unindexed =
+        createAutomatonCPA(
+            Lists.transform(pTriggers, t -> new AutomatonBoolExpr.And(AutomatonBoolExpr.TRUE, t)));
+    assertThat(unindexed.getTransitionIndex().getNumberOfIndexedStates()).isEqualTo(0);
+
+    ControlAutomatonCPA indexed = createAutomatonCPA(pTriggers);
+    assertThat(getSuccessors(indexed, pEdge))
+        .containsExactlyElementsIn(getSuccessors(unindexed, pEdge))
+        .inOrder();
+
+    boolean[] candidates =
+        indexed
+            .getTransitionIndex()
+            .getCandidateTransitions(indexed.getAutomaton().getInitialState(), pEdge);
+    assertThat(candidates).isNotNull();
+    return candidates;
+  }
+
+  @Test
+  public void testTransitionIndexAndWithUnknownFirstOperand() throws Exception {
+    CFAEdge e1 = mock(CFAEdge.class);
+    CFAEdge e2 = mock(CFAEdge.class);
+    CFAEdge e3 = mock(CFAEdge.class);
+    AutomatonBoolExpr unknown = pArgs -> new ResultValue<>("unknown", "test");
+    List<AutomatonBoolExpr> triggers =
+        ImmutableList.of(new AutomatonBoolExpr.And(unknown, matchEdge(e1)), matchEdge(e2));
+
+    // the location guard in the second operand is not used
+    assertThat(checkTransitionIndex(triggers, e1)).asList().containsExactly(true, false).inOrder();
+    assertThat(checkTransitionIndex(triggers, e2)).asList().containsExactly(true, true).inOrder();
+    assertThat(checkTransitionIndex(triggers, e3)).asList().containsExactly(true, false).inOrder();
+    assertThat(getSuccessors(createAutomatonCPA(triggers), e1)).containsExactly("unknown");
+    assertThat(getSuccessors(createAutomatonCPA(triggers), e3))
+        .containsExactly("init matches=0 failed=2");
+  }
+
+  @Test
+  public void testTransitionIndexNegatedGuard() throws Exception {
+    CFAEdge e1 = mock(CFAEdge.class);
+    CFAEdge e2 = mock(CFAEdge.class);
+    List<AutomatonBoolExpr> triggers =
+        ImmutableList.of(new AutomatonBoolExpr.Negation(matchEdge(e1)), matchEdge(e1));
+
+    assertThat(checkTransitionIndex(triggers, e1)).asList().containsExactly(false, true).inOrder();
+    assertThat(checkTransitionIndex(triggers, e2)).asList().containsExactly(true, false).inOrder();
+    assertThat(getSuccessors(createAutomatonCPA(triggers), e1))
+        .containsExactly("q1 matches=1 failed=0");
+  }
+
+  @Test
+  public void testTransitionIndexUnknownGuard() throws Exception {
+    CFAEdge e1 = mock(CFAEdge.class);
+    CFAEdge e2 = mock(CFAEdge.class);
+    AutomatonBoolExpr unknownGuard =
+        new AutomatonBoolExpr.MatchLocationDescriptor(null, location -> false) {
+          @Override
+          public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
+            return new ResultValue<>("location unknown", "test");
+          }
+        };
+    List<AutomatonBoolExpr> triggers =
+        ImmutableList.of(new AutomatonBoolExpr.And(unknownGuard, matchEdge(e1)), matchEdge(e2));
+
+    // a guard that cannot be evaluated does not exclude a transition
+    assertThat(checkTransitionIndex(triggers, e1)).asList().containsExactly(true, false).inOrder();
+    assertThat(checkTransitionIndex(triggers, e2)).asList().containsExactly(false, true).inOrder();
+    assertThat(getSuccessors(createAutomatonCPA(triggers), e2))
+        .containsExactly("q1 matches=1 failed=1");
+
+    triggers = ImmutableList.of(matchEdge(e2), unknownGuard);
+    assertThat(checkTransitionIndex(triggers, e1)).asList().containsExactly(false, true).inOrder();
+    assertThat(getSuccessors(createAutomatonCPA(triggers), e1)).containsExactly("unknown");
+  }
+
   @Test
   public void testJokerReplacementInPattern() {
     // tests the replacement of Joker expressions in the AST comparison
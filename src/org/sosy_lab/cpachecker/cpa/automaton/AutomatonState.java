@@ -239,6 +239,11 @@ public class AutomatonState implements AbstractQueryableState, Targetable, Seria
     return automatonCPA.getAutomaton().getName();
   }
 
+  /** Returns whether this is the TOP state of the automaton, which covers all other states. */
+  public boolean isTop() {
+    return this instanceof TOP;
+  }
+
   public Automaton getOwningAutomaton() {
     return automatonCPA.getAutomaton();
   }
@@ -24,6 +24,8 @@
 package org.sosy_lab.cpachecker.cpa.automaton;
 
 import java.io.PrintStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
@@ -55,6 +57,19 @@ class AutomatonStatistics extends AbstractStatistics {
   @Override
   public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
     put(out, 0, "Number of states", mCpa.getAutomaton().getNumberOfStates());
+    put(out, 1, "Number of states with indexed transitions",
+        mCpa.getTransitionIndex().getNumberOfIndexedStates());
+
+    Optional<WitnessParsingStatistics> parsingStatistics =
+        mCpa.getAutomaton().getParsingStatistics();
+    if (parsingStatistics.isPresent()) {
+      put(out, 0, "Time for reading the witness",
+          parsingStatistics.get().getParseTime().formatAs(TimeUnit.SECONDS));
+      put(out, 1, "Number of witness nodes and edges",
+          parsingStatistics.get().getNumberOfElements());
+      put(out, 1, "Approx. heap growth while reading the witness",
+          (parsingStatistics.get().getApproximateHeapGrowth() >> 20) + " MiB");
+    }
     put(out, 0, totalPostTime);
 
     if (totalPostTime.getSumTime().compareTo(TimeSpan.ofMillis(500)) >= 0) {
@@ -157,7 +157,17 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     // the list holds a Transition and the TransitionVariables generated during its match
     List<Pair<AutomatonTransition, Map<Integer, String>>> transitionsToBeTaken = new ArrayList<>(2);
 
+    // transitions that cannot match this edge are skipped without evaluating them
+    boolean[] candidates =
+        cpa.getTransitionIndex().getCandidateTransitions(state.getInternalState(), edge);
+    int transitionIndex = -1;
+
     for (AutomatonTransition t : state.getInternalState().getTransitions()) {
+      transitionIndex++;
+      if (candidates != null && !candidates[transitionIndex]) {
+        failedMatches++;
+        continue;
+      }
       exprArgs.clearTransitionVariables();
 
       matchTime.start();
@@ -0,0 +1,164 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.ResultValue;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+
+/**
+ * Index that determines which transitions of an automaton state can match a given CFA edge without
+ * evaluating their triggers.
+ *
+ * <p>When the index is created, the trigger of every transition is split into guards, i.e.,
+ * conjuncts that only depend on the CFA edge (like source locations or the program entry) and that
+ * are always evaluated before the rest of the trigger. If a guard does not hold for an edge, the
+ * trigger cannot match it. The guards of all transitions of a state are evaluated only once per
+ * edge, and the result is cached, so for large automata like witnesses (where almost every
+ * transition is restricted to some lines of the program) most transitions are never evaluated.
+ */
+final class AutomatonTransitionIndex {
+
+  private final ImmutableMap<AutomatonInternalState, StateIndex> states;
+  private final LogManager logger;
+
+  AutomatonTransitionIndex(Automaton pAutomaton, LogManager pLogger) {
+    logger = pLogger;
+    ImmutableMap.Builder<AutomatonInternalState, StateIndex> builder = ImmutableMap.builder();
+    for (AutomatonInternalState state : pAutomaton.getStates()) {
+      ImmutableList.Builder<ImmutableList<AutomatonBoolExpr>> guards = ImmutableList.builder();
+      boolean hasGuards = false;
+      for (AutomatonTransition transition : state.getTransitions()) {
+        ImmutableList.Builder<AutomatonBoolExpr> transitionGuards = ImmutableList.builder();
+        collectGuards(transition.getTrigger(), transitionGuards);
+        ImmutableList<AutomatonBoolExpr> result = transitionGuards.build();
+        hasGuards |= !result.isEmpty();
+        guards.add(result);
+      }
+      if (hasGuards) {
+        builder.put(state, new StateIndex(guards.build()));
+      }
+    }
+    states = builder.build();
+  }
+
+  /**
+   * Collects the conjuncts of the given trigger that only depend on the CFA edge. A conjunct of
+   * the second operand of {@link AutomatonBoolExpr.And} is only used if the first operand is
+   * guaranteed to be evaluated without exceptions, because otherwise skipping the transition would
+   * change the behavior of the automaton.
+   */
+  private static void collectGuards(
+      AutomatonBoolExpr pExpr, ImmutableList.Builder<AutomatonBoolExpr> pGuards) {
+    if (dependsOnlyOnEdge(pExpr)) {
+      pGuards.add(pExpr);
+    } else if (pExpr instanceof AutomatonBoolExpr.And) {
+      AutomatonBoolExpr.And and = (AutomatonBoolExpr.And) pExpr;
+      collectGuards(and.getA(), pGuards);
+      if (dependsOnlyOnEdge(and.getA())) {
+        collectGuards(and.getB(), pGuards);
+      }
+    }
+  }
+
+  private static boolean dependsOnlyOnEdge(AutomatonBoolExpr pExpr) {
+    if (pExpr instanceof AutomatonBoolExpr.MatchLocationDescriptor
+        || pExpr == AutomatonBoolExpr.MatchProgramEntry.INSTANCE
+        || pExpr == AutomatonBoolExpr.MatchProgramExit.INSTANCE
+        || pExpr == AutomatonBoolExpr.MatchSplitDeclaration.INSTANCE) {
+      return true;
+    } else if (pExpr instanceof AutomatonBoolExpr.Negation) {
+      return dependsOnlyOnEdge(((AutomatonBoolExpr.Negation) pExpr).getA());
+    } else if (pExpr instanceof AutomatonBoolExpr.And) {
+      AutomatonBoolExpr.And and = (AutomatonBoolExpr.And) pExpr;
+      return dependsOnlyOnEdge(and.getA()) && dependsOnlyOnEdge(and.getB());
+    }
+    return false;
+  }
+
+  /**
+   * Returns for each transition of the given state (in the order of {@link
+   * AutomatonInternalState#getTransitions()}) whether it may match the given edge, or null if
+   * all transitions of the state need to be evaluated. The returned array must not be modified.
+   */
+  @Nullable
+  boolean[] getCandidateTransitions(AutomatonInternalState pState, CFAEdge pEdge)
+      throws CPATransferException {
+    StateIndex index = states.get(pState);
+    if (index == null) {
+      return null;
+    }
+    boolean[] candidates = index.candidates.get(pEdge);
+    if (candidates == null) {
+      candidates = computeCandidates(index.guards, pEdge);
+      boolean[] previous = index.candidates.putIfAbsent(pEdge, candidates);
+      if (previous != null) {
+        candidates = previous;
+      }
+    }
+    return candidates;
+  }
+
+  private boolean[] computeCandidates(
+      List<ImmutableList<AutomatonBoolExpr>> pGuards, CFAEdge pEdge) throws CPATransferException {
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, null, null, pEdge, logger);
+    boolean[] candidates = new boolean[pGuards.size()];
+    for (int i = 0; i < candidates.length; i++) {
+      candidates[i] = true;
+      for (AutomatonBoolExpr guard : pGuards.get(i)) {
+        ResultValue<Boolean> result = guard.eval(args);
+        if (!result.canNotEvaluate() && !result.getValue()) {
+          candidates[i] = false;
+          break;
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /** Returns the number of automaton states whose transitions can be filtered by this index. */
+  int getNumberOfIndexedStates() {
+    return states.size();
+  }
+
+  private static final class StateIndex {
+
+    private final ImmutableList<ImmutableList<AutomatonBoolExpr>> guards;
+
+    /** Cache for the result of {@link #computeCandidates(List, CFAEdge)}. */
+    private final ConcurrentMap<CFAEdge, boolean[]> candidates = new ConcurrentHashMap<>();
+
+    private StateIndex(ImmutableList<ImmutableList<AutomatonBoolExpr>> pGuards) {
+      guards = pGuards;
+    }
+  }
+}
@@ -116,6 +116,7 @@ public class ControlAutomatonCPA
   private boolean topOnFinalSelfLoopingState = false;
 
   private final Automaton automaton;
+  private final AutomatonTransitionIndex transitionIndex;
   private final AutomatonState topState = new AutomatonState.TOP(this);
   private final AutomatonState bottomState = new AutomatonState.BOTTOM(this);
 
@@ -143,6 +144,7 @@ public class ControlAutomatonCPA
     }
 
     pLogger.log(Level.FINEST, "Automaton", automaton.getName(), "loaded.");
+    transitionIndex = new AutomatonTransitionIndex(automaton, pLogger);
 
     if (export && exportFile != null) {
       try (Writer w =
@@ -178,6 +180,10 @@ public class ControlAutomatonCPA
     return this.automaton;
   }
 
+  AutomatonTransitionIndex getTransitionIndex() {
+    return transitionIndex;
+  }
+
   public void registerInAutomatonInfo(AutomatonInfo info) {
     info.register(automaton, this);
   }
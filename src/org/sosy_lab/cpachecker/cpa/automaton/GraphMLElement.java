@@ -0,0 +1,131 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser.WitnessParseException;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMLTag;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+
+/**
+ * A graph, node, or edge of a GraphML document, consisting of its attributes and the contents of
+ * the data elements directly below it. Other nested elements are not kept, so witnesses can be
+ * read one element at a time without building the whole document in memory.
+ */
+final class GraphMLElement {
+
+  private final GraphMLTag tag;
+
+  private final ImmutableMap<String, String> attributes;
+
+  /** The text of the data elements, indexed by their key. */
+  private final ImmutableListMultimap<String, String> data;
+
+  private GraphMLElement(
+      GraphMLTag pTag,
+      ImmutableMap<String, String> pAttributes,
+      ImmutableListMultimap<String, String> pData) {
+    tag = pTag;
+    attributes = pAttributes;
+    data = pData;
+  }
+
+  GraphMLTag getTag() {
+    return tag;
+  }
+
+  @Nullable
+  String getAttribute(String pName) {
+    return attributes.get(pName);
+  }
+
+  String getAttribute(String pName, String pExceptionMessage) throws WitnessParseException {
+    String value = attributes.get(pName);
+    if (value == null) {
+      throw new WitnessParseException(pExceptionMessage);
+    }
+    return value;
+  }
+
+  /** Returns the keys of all data elements of this element. */
+  Set<String> getDataKeys() {
+    return data.keySet();
+  }
+
+  /** Returns the distinct values of all data elements of this element with the given key. */
+  Set<String> getData(KeyDef pKey) {
+    if (data.containsKey(pKey.id)) {
+      return ImmutableSet.copyOf(data.get(pKey.id));
+    }
+    // Backwards-compatibility: type/graph-type
+    if (pKey.equals(KeyDef.WITNESS_TYPE) && data.containsKey("type")) {
+      return ImmutableSet.of(data.get("type").get(0));
+    }
+    return ImmutableSet.of();
+  }
+
+  @Override
+  public String toString() {
+    String id = attributes.get("id");
+    return id != null ? id : tag + attributes.toString();
+  }
+
+  static Builder builder(GraphMLTag pTag) {
+    return new Builder(pTag);
+  }
+
+  static final class Builder {
+
+    private final GraphMLTag tag;
+    private final ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+    private final ImmutableListMultimap.Builder<String, String> data =
+        ImmutableListMultimap.builder();
+
+    private Builder(GraphMLTag pTag) {
+      tag = pTag;
+    }
+
+    GraphMLTag getTag() {
+      return tag;
+    }
+
+    Builder putAttribute(String pName, String pValue) {
+      attributes.put(pName, pValue);
+      return this;
+    }
+
+    Builder putData(String pKey, String pValue) {
+      data.put(pKey, pValue);
+      return this;
+    }
+
+    GraphMLElement build() {
+      return new GraphMLElement(tag, attributes.build(), data.build());
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import java.util.concurrent.TimeUnit;
+import org.sosy_lab.common.time.TimeSpan;
+
+/**
+ * Time and memory that were needed for reading the GraphML of a witness, before its transitions
+ * are converted into an {@link Automaton}.
+ */
+final class WitnessParsingStatistics {
+
+  private final TimeSpan parseTime;
+  private final long heapGrowth;
+  private final int numberOfElements;
+
+  private WitnessParsingStatistics(
+      TimeSpan pParseTime, long pHeapGrowth, int pNumberOfElements) {
+    parseTime = pParseTime;
+    heapGrowth = pHeapGrowth;
+    numberOfElements = pNumberOfElements;
+  }
+
+  TimeSpan getParseTime() {
+    return parseTime;
+  }
+
+  /**
+   * Returns the largest growth of the used heap (in bytes) compared to the start of parsing. This is
+   * only an approximation: the heap usage is sampled only from time to time, it includes garbage
+   * that was not yet collected as well as allocations of other threads, and it decreases if
+   * garbage that existed before parsing is collected.
+   */
+  long getApproximateHeapGrowth() {
+    return heapGrowth;
+  }
+
+  /** Returns the number of nodes and edges in the witness. */
+  int getNumberOfElements() {
+    return numberOfElements;
+  }
+
+  /** Starts measuring the parsing of a witness. */
+  static Builder start() {
+    return new Builder();
+  }
+
+  static final class Builder {
+
+    /** The heap usage is sampled after every this many elements. */
+    private static final int SAMPLING_INTERVAL = 1024;
+
+    private final long startTime = System.nanoTime();
+    private final long startHeapUsage = getHeapUsage();
+    private long heapGrowth = 0;
+    private int numberOfElements = 0;
+
+    private Builder() {}
+
+    void countElement() {
+      numberOfElements++;
+      if (numberOfElements % SAMPLING_INTERVAL == 0) {
+        sampleHeapUsage();
+      }
+    }
+
+    private static long getHeapUsage() {
+      Runtime runtime = Runtime.getRuntime();
+      return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void sampleHeapUsage() {
+      heapGrowth = Math.max(heapGrowth, getHeapUsage() - startHeapUsage);
+    }
+
+    WitnessParsingStatistics build() {
+      sampleHeapUsage();
+      return new WitnessParsingStatistics(
+          TimeSpan.ofNanos(System.nanoTime() - startTime).to(TimeUnit.MILLISECONDS),
+          heapGrowth,
+          numberOfElements);
+    }
+  }
+}
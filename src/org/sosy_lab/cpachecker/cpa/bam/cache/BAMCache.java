@@ -24,6 +24,7 @@
 package org.sosy_lab.cpachecker.cpa.bam.cache;
 
 import java.util.Collection;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
@@ -64,6 +65,22 @@ public interface BAMCache extends Statistics {
       Collection<AbstractState> item,
       @Nullable ARGState rootOfBlock);
 
+  /**
+   * Return the reached-set for the given key. If there is no reached-set for the key, create one
+   * with the given supplier and store it in the cache (like {@link #put(AbstractState, Precision,
+   * Block, ReachedSet)}). Thread-safe implementations guarantee that concurrent calls for the same
+   * key return the same reached-set, such that a block entry is never analyzed twice.
+   */
+  default ReachedSet computeIfAbsent(
+      AbstractState stateKey, Precision precisionKey, Block context, Supplier<ReachedSet> creator) {
+    if (containsPreciseKey(stateKey, precisionKey, context)) {
+      return get(stateKey, precisionKey, context).getFirst();
+    }
+    ReachedSet reached = creator.get();
+    put(stateKey, precisionKey, context, reached);
+    return reached;
+  }
+
   /**
    * Invalidate the result-states of the given key. Does not remove the reached-set, thus it can be
    * used for re-exploration.
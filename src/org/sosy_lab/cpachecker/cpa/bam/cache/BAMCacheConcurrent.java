@@ -0,0 +1,278 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.collect.Collections2;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+
+/**
+ * A thread-safe cache without a global lock, intended for the parallel BAM analysis.
+ *
+ * <p>Each block entry is stored in a {@link ConcurrentHashMap} and updated independently of all
+ * other entries. The reached-set of an entry is created at most once: concurrent calls of {@link
+ * #computeIfAbsent} for the same key return the same reached-set, and threads that access an entry
+ * while its reached-set is still being created wait for it (this waiting time is measured).
+ *
+ * <p>The cache does only support precise cache hits (like {@link BAMCacheImpl}).
+ */
+public class BAMCacheConcurrent implements BAMCache {
+
+  private final ConcurrentMap<BlockKey, Entry> entries = new ConcurrentHashMap<>();
+
+  // the last analyzed block is only meaningful for the current thread
+  private final ThreadLocal<Entry> lastAnalyzedBlock = new ThreadLocal<>();
+
+  private final Reducer reducer;
+  private final LogManager logger;
+
+  private final StatCounter cacheMisses = new StatCounter("Number of cache misses");
+  private final StatCounter partialCacheHits = new StatCounter("Number of partial cache hits");
+  private final StatCounter fullCacheHits = new StatCounter("Number of full cache hits");
+  private final StatCounter waitingAccesses =
+      new StatCounter("Number of accesses waiting for another thread");
+  private final ThreadSafeTimerContainer waitingTime =
+      new ThreadSafeTimerContainer("Time for waiting for another thread's block entry");
+  private final ThreadLocal<TimerWrapper> waitingTimer =
+      ThreadLocal.withInitial(waitingTime::getNewTimer);
+
+  public BAMCacheConcurrent(Reducer pReducer, LogManager pLogger) {
+    reducer = pReducer;
+    logger = pLogger;
+  }
+
+  /** The data stored for one key. Only the result-states are mutable. */
+  private static final class Entry {
+
+    private final CompletableFuture<ReachedSet> reached = new CompletableFuture<>();
+
+    // both fields are updated together while holding the lock of this entry
+    private volatile @Nullable Collection<AbstractState> returnStates = null;
+    private volatile @Nullable ARGState rootOfBlock = null;
+
+    private synchronized void setResult(
+        @Nullable Collection<AbstractState> pReturnStates, @Nullable ARGState pRootOfBlock) {
+      returnStates = pReturnStates;
+      rootOfBlock = pRootOfBlock;
+    }
+
+    private synchronized Pair<ReachedSet, Collection<AbstractState>> asPair(ReachedSet pReached) {
+      return Pair.of(pReached, returnStates);
+    }
+  }
+
+  private BlockKey getKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    return new BlockKey(reducer.getHashCodeForState(stateKey, precisionKey), context);
+  }
+
+  /**
+   * Return the reached-set of an entry, waiting for another thread that is currently creating it.
+   */
+  private ReachedSet getReached(Entry entry) {
+    ReachedSet result = entry.reached.getNow(null);
+    if (result == null) {
+      waitingAccesses.inc();
+      TimerWrapper timer = waitingTimer.get();
+      timer.start();
+      try {
+        result = entry.reached.join();
+      } finally {
+        timer.stop();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void put(AbstractState stateKey, Precision precisionKey, Block context, ReachedSet item) {
+    Entry entry = new Entry();
+    entry.reached.complete(checkNotNull(item));
+    entries.put(getKey(stateKey, precisionKey, context), entry);
+  }
+
+  @Override
+  public void put(
+      AbstractState stateKey,
+      Precision precisionKey,
+      Block context,
+      Collection<AbstractState> item,
+      @Nullable ARGState rootOfBlock) {
+    Entry entry = entries.get(getKey(stateKey, precisionKey, context));
+    checkState(entry != null, "key not found in cache");
+    assert getReached(entry).asCollection().containsAll(item)
+        : "output-states must be in reached-set";
+    entry.setResult(item, rootOfBlock);
+    lastAnalyzedBlock.set(entry);
+  }
+
+  @Override
+  public ReachedSet computeIfAbsent(
+      AbstractState stateKey,
+      Precision precisionKey,
+      Block context,
+      Supplier<ReachedSet> creator) {
+    Entry newEntry = new Entry();
+    Entry entry = entries.putIfAbsent(getKey(stateKey, precisionKey, context), newEntry);
+    if (entry != null) {
+      return getReached(entry);
+    }
+    // we own the new entry, other threads wait until we have created its reached-set
+    try {
+      ReachedSet reached = checkNotNull(creator.get());
+      newEntry.reached.complete(reached);
+      return reached;
+    } catch (RuntimeException | Error e) {
+      entries.remove(getKey(stateKey, precisionKey, context), newEntry);
+      newEntry.reached.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  @Override
+  public void remove(AbstractState stateKey, Precision precisionKey, Block context) {
+    Entry entry = entries.get(getKey(stateKey, precisionKey, context));
+    if (entry != null) {
+      entry.setResult(null, null);
+    }
+  }
+
+  @Override
+  public Pair<ReachedSet, Collection<AbstractState>> get(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    Entry entry = entries.get(getKey(stateKey, precisionKey, context));
+    if (entry == null) {
+      lastAnalyzedBlock.remove();
+      logger.log(Level.FINEST, "CACHE_ACCESS: entry not available");
+      cacheMisses.inc();
+      return Pair.of(null, null);
+    }
+
+    lastAnalyzedBlock.set(entry);
+    logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+    Pair<ReachedSet, Collection<AbstractState>> result = entry.asPair(getReached(entry));
+    if (result.getSecond() != null) {
+      fullCacheHits.inc();
+    } else {
+      partialCacheHits.inc();
+    }
+    return result;
+  }
+
+  @Override
+  public ARGState getLastAnalyzedBlock() {
+    Entry entry = lastAnalyzedBlock.get();
+    return entry == null ? null : entry.rootOfBlock;
+  }
+
+  @Override
+  public boolean containsPreciseKey(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    return entries.containsKey(getKey(stateKey, precisionKey, context));
+  }
+
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    return Collections2.filter(
+        Collections2.transform(entries.values(), entry -> entry.reached.getNow(null)),
+        reached -> reached != null);
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+    lastAnalyzedBlock.remove();
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+    long sumCalls = cacheMisses.getValue() + partialCacheHits.getValue() + fullCacheHits.getValue();
+    out.println("Total number of cached blocks:                       " + entries.size());
+    out.println("Total number of recursive CPA calls:                 " + sumCalls);
+    out.println("  Number of cache misses:                            " + cacheMisses.getValue() + " (" + toPercent(cacheMisses.getValue(), sumCalls) + " of all calls)");
+    out.println("  Number of partial cache hits:                      " + partialCacheHits.getValue() + " (" + toPercent(partialCacheHits.getValue(), sumCalls) + " of all calls)");
+    out.println("  Number of full cache hits:                         " + fullCacheHits.getValue() + " (" + toPercent(fullCacheHits.getValue(), sumCalls) + " of all calls)");
+    out.println("Number of accesses waiting for another thread:       " + waitingAccesses.getValue());
+    out.println("Time for waiting for another thread's block entry:   " + waitingTime);
+  }
+
+  @Override
+  public String getName() {
+    return "BAMCache";
+  }
+
+  private static final class BlockKey {
+
+    private final Object wrappedHash;
+    private final Block context;
+    private final int hashCode;
+
+    private BlockKey(Object pWrappedHash, Block pContext) {
+      wrappedHash = checkNotNull(pWrappedHash);
+      context = checkNotNull(pContext);
+      hashCode = wrappedHash.hashCode() * 17 + context.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (pObj == this) {
+        return true;
+      }
+      if (!(pObj instanceof BlockKey)) {
+        return false;
+      }
+      BlockKey other = (BlockKey) pObj;
+      return hashCode == other.hashCode
+          && context.equals(other.context)
+          && wrappedHash.equals(other.wrappedHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
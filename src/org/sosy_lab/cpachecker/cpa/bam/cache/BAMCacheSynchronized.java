@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.bam.cache;
 
 import java.io.PrintStream;
 import java.util.Collection;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.sosy_lab.cpachecker.cfa.blocks.Block;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
@@ -87,6 +88,22 @@ public class BAMCacheSynchronized implements BAMCache {
     }
   }
 
+  @Override
+  public ReachedSet computeIfAbsent(
+      AbstractState pStateKey,
+      Precision pPrecisionKey,
+      Block pContext,
+      Supplier<ReachedSet> pCreator) {
+    synchronized (this) {
+      try {
+        timer.start();
+        return cache.computeIfAbsent(pStateKey, pPrecisionKey, pContext, pCreator);
+      } finally {
+        timer.stop();
+      }
+    }
+  }
+
   @Override
   public void remove(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
     synchronized (this) {
@@ -45,6 +45,7 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithBAM;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithThreadSafeTransferRelation;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
@@ -61,7 +62,12 @@ import org.sosy_lab.cpachecker.cpa.predicate.PredicateCPA;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 
-public class CompositeCPA implements StatisticsProvider, WrapperCPA, ConfigurableProgramAnalysisWithBAM, ProofChecker {
+public class CompositeCPA
+    implements StatisticsProvider,
+        WrapperCPA,
+        ConfigurableProgramAnalysisWithBAM,
+        ConfigurableProgramAnalysisWithThreadSafeTransferRelation,
+        ProofChecker {
 
   @Options(prefix="cpa.composite")
   private static class CompositeOptions {
@@ -314,6 +320,17 @@ public class CompositeCPA implements StatisticsProvider, WrapperCPA, Configurabl
     return cpas;
   }
 
+  @Override
+  public boolean hasThreadSafeTransferRelation() {
+    // CompositeTransferRelation itself has no mutable state
+    return from(cpas)
+        .allMatch(
+            cpa ->
+                cpa instanceof ConfigurableProgramAnalysisWithThreadSafeTransferRelation
+                    && ((ConfigurableProgramAnalysisWithThreadSafeTransferRelation) cpa)
+                        .hasThreadSafeTransferRelation());
+  }
+
   @Override
   public boolean areAbstractSuccessors(AbstractState pElement, CFAEdge pCfaEdge, Collection<? extends AbstractState> pSuccessors) throws CPATransferException, InterruptedException {
     return getTransferRelation().areAbstractSuccessors(pElement, pCfaEdge, pSuccessors, cpas);
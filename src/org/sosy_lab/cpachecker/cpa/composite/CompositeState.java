@@ -39,21 +39,24 @@ import java.util.List;
 import java.util.Set;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Property;
 import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
 import org.sosy_lab.cpachecker.core.interfaces.Targetable;
 import org.sosy_lab.cpachecker.cpa.arg.Splitable;
+import org.sosy_lab.cpachecker.util.AbstractStates;
 
 public class CompositeState
     implements AbstractWrapperState, Targetable, Partitionable, PseudoPartitionable, Serializable,
-        Graphable, Splitable {
+        Graphable, Splitable, CoverageIndexable {
   private static final long serialVersionUID = -5143296331663510680L;
   private final ImmutableList<AbstractState> states;
   private transient Object partitionKey; // lazily initialized
   private transient Comparable<?> pseudoPartitionKey; // lazily initialized
   private transient Object pseudoHashCode; // lazily initialized
+  private transient CompositeStateLayout layout; // lazily initialized
 
   public CompositeState(List<AbstractState> elements) {
     this.states = ImmutableList.copyOf(elements);
@@ -63,6 +66,27 @@ public class CompositeState
     return states.size();
   }
 
+  /**
+   * Retrieve one of the wrapped abstract states by type, like {@link
+   * AbstractStates#extractStateByType(AbstractState, Class)}. Only those components are searched
+   * that may contain a state of the given type according to an index that is shared between all
+   * composite states with the same classes of components.
+   *
+   * @return An instance of the given type or null if there is none.
+   */
+  public <T extends AbstractState> T extractStateByType(Class<T> pType) {
+    if (layout == null) {
+      layout = CompositeStateLayout.of(states);
+    }
+    for (int index : layout.getCandidates(pType)) {
+      T result = AbstractStates.extractStateByType(states.get(index), pType);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
   @Override
   public boolean isTarget() {
     for (AbstractState element : states) {
@@ -200,6 +224,21 @@ public class CompositeState
     return pseudoHashCode;
   }
 
+  /**
+   * A composite state is only less or equal than another one if all components are, so we can
+   * combine the signatures of all components.
+   */
+  @Override
+  public long getCoverageSignature() {
+    long signature = 0;
+    for (AbstractState element : states) {
+      if (element instanceof CoverageIndexable) {
+        signature |= ((CoverageIndexable) element).getCoverageSignature();
+      }
+    }
+    return signature;
+  }
+
   private static final class CompositePartitionKey {
 
     private final Object[] keys;
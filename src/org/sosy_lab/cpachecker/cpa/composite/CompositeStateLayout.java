@@ -0,0 +1,112 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.composite;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.sosy_lab.cpachecker.core.defaults.AbstractSingleWrapperState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractWrapperState;
+
+/**
+ * The classes of the components of a {@link CompositeState}, together with an index that maps a
+ * type to the components that may contain a state of this type. Layouts are shared between all
+ * composite states with the same component classes, so the index for each type is computed only
+ * once per analysis.
+ */
+final class CompositeStateLayout {
+
+  private static final Map<ImmutableList<Class<?>>, CompositeStateLayout> layouts =
+      new ConcurrentHashMap<>();
+
+  /** The most recently used layout, usually all composite states of an analysis share it. */
+  private static volatile CompositeStateLayout lastLayout = null;
+
+  private final ImmutableList<Class<?>> componentClasses;
+
+  private final Map<Class<?>, int[]> candidatesByType = new ConcurrentHashMap<>();
+
+  private CompositeStateLayout(ImmutableList<Class<?>> pComponentClasses) {
+    componentClasses = pComponentClasses;
+  }
+
+  /** Get the (shared) layout for the given components. */
+  static CompositeStateLayout of(List<AbstractState> pComponents) {
+    CompositeStateLayout layout = lastLayout;
+    if (layout == null || !layout.matches(pComponents)) {
+      ImmutableList.Builder<Class<?>> classes = ImmutableList.builder();
+      for (AbstractState component : pComponents) {
+        classes.add(component.getClass());
+      }
+      layout = layouts.computeIfAbsent(classes.build(), CompositeStateLayout::new);
+      lastLayout = layout;
+    }
+    return layout;
+  }
+
+  private boolean matches(List<AbstractState> pComponents) {
+    if (pComponents.size() != componentClasses.size()) {
+      return false;
+    }
+    for (int i = 0; i < componentClasses.size(); i++) {
+      if (pComponents.get(i).getClass() != componentClasses.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the indices of the components that need to be searched (in this order) for a state of
+   * the given type. A component is a candidate if it is an instance of the type (then it is the
+   * last candidate) or if it is a wrapper state, whose wrapped states are only known at runtime.
+   */
+  int[] getCandidates(Class<?> pType) {
+    int[] candidates = candidatesByType.get(pType);
+    if (candidates == null) {
+      candidates = computeCandidates(pType);
+      candidatesByType.put(pType, candidates);
+    }
+    return candidates;
+  }
+
+  private int[] computeCandidates(Class<?> pType) {
+    List<Integer> candidates = new ArrayList<>(1);
+    for (int i = 0; i < componentClasses.size(); i++) {
+      Class<?> componentClass = componentClasses.get(i);
+      if (pType.isAssignableFrom(componentClass)) {
+        candidates.add(i);
+        break;
+      } else if (AbstractSingleWrapperState.class.isAssignableFrom(componentClass)
+          || AbstractWrapperState.class.isAssignableFrom(componentClass)) {
+        candidates.add(i);
+      }
+    }
+    return Ints.toArray(candidates);
+  }
+}
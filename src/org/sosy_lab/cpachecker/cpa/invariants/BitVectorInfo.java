@@ -37,6 +37,12 @@ import org.sosy_lab.cpachecker.cfa.types.java.JSimpleType;
 
 public class BitVectorInfo implements TypeInfo {
 
+  /**
+   * The maximal size of bit vectors whose values always fit into a primitive {@code long}
+   * (for signed and unsigned bit vectors).
+   */
+  static final int MAX_LONG_BACKED_SIZE = Long.SIZE - 1;
+
   private final int size;
 
   private final boolean signed;
@@ -45,12 +51,24 @@ public class BitVectorInfo implements TypeInfo {
 
   private final BigInteger maxValue;
 
+  private final boolean longBacked;
+
+  private final long minLongValue;
+
+  private final long maxLongValue;
+
+  /** The interval of all values, created lazily (benign race, intervals are immutable). */
+  private BitVectorInterval range = null;
+
   private BitVectorInfo(int pSize, boolean pSigned) {
     Preconditions.checkArgument(pSize >= 0, "bit vector size must not be negative");
     size = pSize;
     signed = pSigned;
     minValue = !signed ? BigInteger.ZERO : BigInteger.valueOf(2).pow(size - 1).negate();
     maxValue = !signed ? BigInteger.valueOf(2).pow(size).subtract(BigInteger.ONE) : BigInteger.valueOf(2).pow(size - 1).subtract(BigInteger.ONE);
+    longBacked = size <= MAX_LONG_BACKED_SIZE;
+    minLongValue = longBacked ? minValue.longValue() : Long.MIN_VALUE;
+    maxLongValue = longBacked ? maxValue.longValue() : Long.MAX_VALUE;
   }
 
   public int getSize() {
@@ -72,8 +90,33 @@ public class BitVectorInfo implements TypeInfo {
     return maxValue;
   }
 
+  /**
+   * Checks whether all values of this bit vector type fit into a primitive {@code long}, such that
+   * intervals of this type can use primitive bounds instead of {@link BigInteger}s.
+   */
+  public boolean isLongBacked() {
+    return longBacked;
+  }
+
+  /** Return the minimal value as long (may only be called if {@link #isLongBacked()}). */
+  long getMinLongValue() {
+    Preconditions.checkState(longBacked);
+    return minLongValue;
+  }
+
+  /** Return the maximal value as long (may only be called if {@link #isLongBacked()}). */
+  long getMaxLongValue() {
+    Preconditions.checkState(longBacked);
+    return maxLongValue;
+  }
+
   public BitVectorInterval getRange() {
-    return BitVectorInterval.of(this, minValue, maxValue);
+    BitVectorInterval result = range;
+    if (result == null) {
+      result = BitVectorInterval.of(this, minValue, maxValue);
+      range = result;
+    }
+    return result;
   }
 
   @Override
@@ -31,7 +31,6 @@ import com.google.common.base.Preconditions;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * This class represents simple convex ranges of BigIntegers.
@@ -39,19 +38,43 @@ import java.util.Objects;
  * concrete value or infinity. In case of a concrete value, the bound is assumed
  * to be included in the range.
  *
+ * For bit vectors of at most 63 bits (cf. {@link BitVectorInfo#isLongBacked()}),
+ * the bounds are stored as primitive longs and operations on them
+ * do not allocate BigIntegers; the BigInteger bounds are only created on demand.
+ * For wider bit vectors, the bounds are stored as BigIntegers.
+ *
  * All instances of this class are immutable.
  */
 public class BitVectorInterval implements BitVectorType {
 
+  /**
+   * The lower bound of the interval, if the interval is long-backed.
+   */
+  private final long lowerLong;
+
+  /**
+   * The upper bound of the interval, if the interval is long-backed.
+   */
+  private final long upperLong;
+
+  /**
+   * Whether the bounds are stored as primitive longs.
+   */
+  private final boolean longBacked;
+
   /**
    * The lower bound of the interval.
+   * For long-backed intervals it is created lazily
+   * (benign race, BigIntegers are immutable).
    */
-  private final BigInteger lowerBound;
+  private BigInteger lowerBound;
 
   /**
    * The upper bound of the interval.
+   * For long-backed intervals it is created lazily
+   * (benign race, BigIntegers are immutable).
    */
-  private final BigInteger upperBound;
+  private BigInteger upperBound;
 
   /**
    * Size and signedness.
@@ -70,16 +93,43 @@ public class BitVectorInterval implements BitVectorType {
     checkNotNull(pInfo);
     checkNotNull(pLowerBound);
     checkNotNull(pUpperBound);
+    checkArgument(!pInfo.isLongBacked());
     checkArgument(pLowerBound.compareTo(pUpperBound) <= 0
         , "lower endpoint greater than upper end point");
     checkArgument(pLowerBound.compareTo(pInfo.getMinValue()) >= 0, "lower bound must fit the bit vector");
     checkArgument(pUpperBound.compareTo(pInfo.getMaxValue()) <= 0, "upper bound must fit the bit vector");
 
     info = pInfo;
+    longBacked = false;
+    lowerLong = 0;
+    upperLong = 0;
     lowerBound = pLowerBound;
     upperBound = pUpperBound;
   }
 
+  /**
+   * Creates a new long-backed interval from the given lower bound to the given upper bound.
+   *
+   * The lower bound must be a value less than or equal to the upper bound.
+   *
+   * @param pLowerBound the lower bound of the interval.
+   * @param pUpperBound the upper bound of the interval.
+   */
+  private BitVectorInterval(BitVectorInfo pInfo, long pLowerBound, long pUpperBound) {
+    checkNotNull(pInfo);
+    checkArgument(pInfo.isLongBacked());
+    checkArgument(pLowerBound <= pUpperBound, "lower endpoint greater than upper end point");
+    checkArgument(pLowerBound >= pInfo.getMinLongValue(), "lower bound must fit the bit vector");
+    checkArgument(pUpperBound <= pInfo.getMaxLongValue(), "upper bound must fit the bit vector");
+
+    info = pInfo;
+    longBacked = true;
+    lowerLong = pLowerBound;
+    upperLong = pUpperBound;
+    lowerBound = null;
+    upperBound = null;
+  }
+
   /**
    * Gets information about size and signedness of the bit vector.
    *
@@ -94,14 +144,53 @@ public class BitVectorInterval implements BitVectorType {
    * Return lower bound (may only be called if {@link #hasLowerBound()} returns true.
    */
   public BigInteger getLowerBound() {
-    return lowerBound;
+    BigInteger result = lowerBound;
+    if (result == null) {
+      result = BigInteger.valueOf(lowerLong);
+      lowerBound = result;
+    }
+    return result;
   }
 
   /**
    * Return upper bound (may only be called if {@link #hasUpperBound()} returns true.
    */
   public BigInteger getUpperBound() {
-    return upperBound;
+    BigInteger result = upperBound;
+    if (result == null) {
+      result = BigInteger.valueOf(upperLong);
+      upperBound = result;
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether the bounds of this interval are stored as primitive longs.
+   * If this is the case, {@link #getLowerBoundAsLong()} and {@link #getUpperBoundAsLong()}
+   * can be used instead of {@link #getLowerBound()} and {@link #getUpperBound()}.
+   */
+  public boolean isLongBacked() {
+    return longBacked;
+  }
+
+  /**
+   * Return lower bound (may only be called if {@link #isLongBacked()} returns true.
+   */
+  public long getLowerBoundAsLong() {
+    checkState(longBacked);
+    return lowerLong;
+  }
+
+  /**
+   * Return upper bound (may only be called if {@link #isLongBacked()} returns true.
+   */
+  public long getUpperBoundAsLong() {
+    checkState(longBacked);
+    return upperLong;
+  }
+
+  private static boolean bothLongBacked(BitVectorInterval pA, BitVectorInterval pB) {
+    return pA.longBacked && pB.longBacked;
   }
 
   /**
@@ -135,26 +224,36 @@ public class BitVectorInterval implements BitVectorType {
     if (pOther.isSingleton() || contains(pOther)) {
       return pOther;
     }
+    if (bothLongBacked(this, pOther)) {
+      return new BitVectorInterval(
+          info, Math.max(lowerLong, pOther.lowerLong), Math.min(upperLong, pOther.upperLong));
+    }
     // The lower bound of this interval is a candidate for the new lower bound
     // The lower bound of the other interval is a candidate as well
     // The new lower bound is the maximum of both lower bounds.
-    BigInteger newLowerBound = this.lowerBound.max(pOther.getLowerBound());
+    BigInteger newLowerBound = this.getLowerBound().max(pOther.getLowerBound());
 
     // The upper bound of this interval is a candidate for the new lower bound
     // The upper bound of the other interval is a candidate as well
     // The new upper bound is the minimum of both upper bounds.
-    BigInteger newUpperBound = this.upperBound.min(pOther.getUpperBound());
+    BigInteger newUpperBound = this.getUpperBound().min(pOther.getUpperBound());
 
     return new BitVectorInterval(info, newLowerBound, newUpperBound);
   }
 
   public BitVectorInterval getNegativePart() {
     Preconditions.checkArgument(containsNegative(), "This interval has no negative part.");
+    if (longBacked) {
+      return BitVectorInterval.of(info, lowerLong, Math.min(-1L, upperLong));
+    }
     return BitVectorInterval.of(info, lowerBound, BigInteger.valueOf(-1).min(upperBound));
   }
 
   public BitVectorInterval getPositivePart() {
     Preconditions.checkArgument(containsPositive(), "This interval has no positive part.");
+    if (longBacked) {
+      return BitVectorInterval.of(info, Math.max(1L, lowerLong), upperLong);
+    }
     return BitVectorInterval.of(info, BigInteger.ONE.max(lowerBound), upperBound);
   }
 
@@ -180,7 +279,7 @@ public class BitVectorInterval implements BitVectorType {
    * positive value, <code>false</code> otherwise.
    */
   public boolean containsPositive() {
-    return upperBound.signum() == 1;
+    return longBacked ? upperLong > 0 : upperBound.signum() == 1;
   }
 
   /**
@@ -189,6 +288,9 @@ public class BitVectorInterval implements BitVectorType {
    * <code>false</code> otherwise.
    */
   public boolean containsZero() {
+    if (longBacked) {
+      return upperLong >= 0 && lowerLong <= 0;
+    }
     return upperBound.signum() >= 0
         && lowerBound.signum() <= 0;
   }
@@ -199,17 +301,32 @@ public class BitVectorInterval implements BitVectorType {
    * <code>false</code> otherwise.
    */
   public boolean contains(BigInteger pValue) {
+    if (longBacked) {
+      return pValue.bitLength() < Long.SIZE && contains(pValue.longValue());
+    }
     return upperBound.compareTo(pValue) >= 0
         && lowerBound.compareTo(pValue) <= 0;
   }
 
+  /**
+   * Checks if this interval contains the given value.
+   * @return <code>true</code> if this interval contains the given value,
+   * <code>false</code> otherwise.
+   */
+  public boolean contains(long pValue) {
+    if (longBacked) {
+      return upperLong >= pValue && lowerLong <= pValue;
+    }
+    return contains(BigInteger.valueOf(pValue));
+  }
+
   /**
    * Checks if this interval contains at least one negative value.
    * @return <code>true</code> if this interval contains at least one
    * negative value, <code>false</code> otherwise.
    */
   public boolean containsNegative() {
-    return lowerBound.signum() == -1;
+    return longBacked ? lowerLong < 0 : lowerBound.signum() == -1;
   }
 
   /**
@@ -219,7 +336,13 @@ public class BitVectorInterval implements BitVectorType {
    * @return The upper bound minus the lower bound plus one.
    */
   public BigInteger size() {
-    return upperBound.subtract(lowerBound).add(BigInteger.ONE);
+    if (longBacked) {
+      long difference = upperLong - lowerLong; // cannot overflow for at most 63 bits
+      if (difference < Long.MAX_VALUE) {
+        return BigInteger.valueOf(difference + 1);
+      }
+    }
+    return getUpperBound().subtract(getLowerBound()).add(BigInteger.ONE);
   }
 
   /**
@@ -231,7 +354,7 @@ public class BitVectorInterval implements BitVectorType {
    * single value, <code>false</code> otherwise.
    */
   public boolean isSingleton() {
-    return lowerBound.equals(upperBound);
+    return longBacked ? lowerLong == upperLong : lowerBound.equals(upperBound);
   }
 
   /**
@@ -245,8 +368,18 @@ public class BitVectorInterval implements BitVectorType {
    * @return the mathematical negation of this interval.
    */
   public BitVectorInterval negate(boolean pAllowSignedWrapAround, OverflowEventHandler pOverflowEventHandler) {
-    BigInteger newLowerBound = upperBound.negate();
-    BigInteger newUpperBound = lowerBound.negate();
+    if (longBacked) {
+      // negation cannot overflow for at most 63 bits
+      long newLowerBound = -upperLong;
+      long newUpperBound = -lowerLong;
+      if (newLowerBound >= info.getMinLongValue() && newUpperBound <= info.getMaxLongValue()) {
+        return new BitVectorInterval(info, newLowerBound, newUpperBound);
+      }
+      // otherwise handle wrap-around below
+    }
+
+    BigInteger newLowerBound = getUpperBound().negate();
+    BigInteger newUpperBound = getLowerBound().negate();
 
     boolean lbExceedsBelow = newLowerBound.compareTo(info.getMinValue()) < 0;
     boolean lbExceedsAbove = !lbExceedsBelow && newLowerBound.compareTo(info.getMaxValue()) > 0;
@@ -282,7 +415,7 @@ public class BitVectorInterval implements BitVectorType {
       newUpperBound = fromUB;
     }
 
-    return new BitVectorInterval(info, newLowerBound, newUpperBound);
+    return BitVectorInterval.of(info, newLowerBound, newUpperBound);
   }
 
   public static BitVectorInterval cast(BitVectorInfo pInfo,
@@ -307,6 +440,31 @@ public class BitVectorInterval implements BitVectorType {
     return BitVectorInterval.singleton(pInfo, value);
   }
 
+  /**
+   * Casts the interval from the given lower bound to the given upper bound
+   * into the given bit vector type.
+   * Only if the bounds do not fit, this delegates to
+   * {@link #cast(BitVectorInfo, BigInteger, BigInteger, boolean, OverflowEventHandler)}.
+   */
+  public static BitVectorInterval cast(BitVectorInfo pInfo,
+      long pLowerBound,
+      long pUpperBound,
+      boolean pAllowSignedWrapAround,
+      OverflowEventHandler pOverflowEventHandler) {
+    if (pInfo.isLongBacked()
+        && pLowerBound <= pUpperBound
+        && pLowerBound >= pInfo.getMinLongValue()
+        && pUpperBound <= pInfo.getMaxLongValue()) {
+      return new BitVectorInterval(pInfo, pLowerBound, pUpperBound);
+    }
+    return cast(
+        pInfo,
+        BigInteger.valueOf(pLowerBound),
+        BigInteger.valueOf(pUpperBound),
+        pAllowSignedWrapAround,
+        pOverflowEventHandler);
+  }
+
   public static BitVectorInterval cast(BitVectorInfo pInfo,
       BigInteger pLowerBound,
       BigInteger pUpperBound,
@@ -386,6 +544,12 @@ public class BitVectorInterval implements BitVectorType {
    * allowed by the bit vector size.
    */
   public BitVectorInterval extendToMaxValue() {
+    if (longBacked) {
+      if (upperLong == info.getMaxLongValue()) {
+        return this;
+      }
+      return new BitVectorInterval(info, lowerLong, info.getMaxLongValue());
+    }
     if (upperBound.equals(info.getMaxValue())) {
       return this;
     }
@@ -400,6 +564,12 @@ public class BitVectorInterval implements BitVectorType {
    * allowed by the bit vector size.
    */
   public BitVectorInterval extendToMinValue() {
+    if (longBacked) {
+      if (lowerLong == info.getMinLongValue()) {
+        return this;
+      }
+      return new BitVectorInterval(info, info.getMinLongValue(), upperLong);
+    }
     if (lowerBound.equals(info.getMinValue())) {
       return this;
     }
@@ -415,17 +585,35 @@ public class BitVectorInterval implements BitVectorType {
     }
 
     BitVectorInterval other = (BitVectorInterval) pObj;
-    return Objects.equals(this.lowerBound, other.lowerBound)
-        && Objects.equals(this.upperBound, other.upperBound);
+    if (bothLongBacked(this, other)) {
+      return lowerLong == other.lowerLong && upperLong == other.upperLong;
+    }
+    return this.getLowerBound().equals(other.getLowerBound())
+        && this.getUpperBound().equals(other.getUpperBound());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(lowerBound, upperBound);
+    // needs to be equal for long-backed and BigInteger-backed intervals with the same bounds
+    return 31 * hashCodeOf(longBacked ? null : lowerBound, lowerLong)
+        + hashCodeOf(longBacked ? null : upperBound, upperLong);
+  }
+
+  private static int hashCodeOf(BigInteger pBigValue, long pLongValue) {
+    if (pBigValue == null) {
+      return Long.hashCode(pLongValue);
+    }
+    if (pBigValue.bitLength() < Long.SIZE) {
+      return Long.hashCode(pBigValue.longValue());
+    }
+    return pBigValue.hashCode();
   }
 
   @Override
   public String toString() {
+    if (longBacked) {
+      return "[" + lowerLong + ", " + upperLong + "]";
+    }
     return "[" + lowerBound + ", " + upperBound + "]";
   }
 
@@ -442,9 +630,12 @@ public class BitVectorInterval implements BitVectorType {
     if (pOther == null) {
       return false;
     }
+    if (bothLongBacked(this, pOther)) {
+      return lowerLong <= pOther.lowerLong && upperLong >= pOther.upperLong;
+    }
 
-    return this.lowerBound.compareTo(pOther.lowerBound) <= 0
-        && this.upperBound.compareTo(pOther.upperBound) >= 0;
+    return this.getLowerBound().compareTo(pOther.getLowerBound()) <= 0
+        && this.getUpperBound().compareTo(pOther.getUpperBound()) >= 0;
   }
 
   /**
@@ -460,8 +651,14 @@ public class BitVectorInterval implements BitVectorType {
   public boolean touches(BitVectorInterval pOther) {
     if (pOther == null) { return false; }
     if (intersectsWith(pOther)) { return true; }
-    return pOther.upperBound.add(BigInteger.ONE).equals(this.lowerBound)
-        || this.upperBound.add(BigInteger.ONE).equals(pOther.lowerBound);
+    if (bothLongBacked(this, pOther)) {
+      // For unsigned 63-bit vectors, an upper bound of Long.MAX_VALUE overflows to
+      // Long.MIN_VALUE when adding one. This is still correct, because no long-backed lower bound
+      // is Long.MIN_VALUE (the smallest one is -2^62 for signed 63-bit vectors).
+      return pOther.upperLong + 1 == lowerLong || upperLong + 1 == pOther.lowerLong;
+    }
+    return pOther.getUpperBound().add(BigInteger.ONE).equals(this.getLowerBound())
+        || this.getUpperBound().add(BigInteger.ONE).equals(pOther.getLowerBound());
   }
 
   /**
@@ -475,8 +672,11 @@ public class BitVectorInterval implements BitVectorType {
 
     // this is [a, b]; other is [c, d]
     // result is true if a <= d and b >= c
-    boolean aLessThanOrEqB = this.lowerBound.compareTo(other.upperBound) <= 0;
-    boolean bGreaterThanOrEqC = this.upperBound.compareTo(other.lowerBound) >= 0;
+    if (bothLongBacked(this, other)) {
+      return lowerLong <= other.upperLong && upperLong >= other.lowerLong;
+    }
+    boolean aLessThanOrEqB = this.getLowerBound().compareTo(other.getUpperBound()) <= 0;
+    boolean bGreaterThanOrEqC = this.getUpperBound().compareTo(other.getLowerBound()) >= 0;
     return aLessThanOrEqB && bGreaterThanOrEqC;
   }
 
@@ -541,7 +741,11 @@ public class BitVectorInterval implements BitVectorType {
   }
 
   public static BitVectorInterval singleton(BitVectorInfo pInfo, BigInteger pI) {
-    return new BitVectorInterval(pInfo, pI, pI);
+    return of(pInfo, pI, pI);
+  }
+
+  public static BitVectorInterval singleton(BitVectorInfo pInfo, long pI) {
+    return of(pInfo, pI, pI);
   }
 
   public static BitVectorInterval greaterOrEqual(BitVectorInfo pInfo, BigInteger pI) {
@@ -553,31 +757,50 @@ public class BitVectorInterval implements BitVectorType {
   }
 
   public static BitVectorInterval of(BitVectorInfo pInfo, BigInteger pLowerBound, BigInteger pUpperBound) {
+    if (pInfo.isLongBacked()) {
+      // values that do not fit into a long are also outside of the range of the bit vector
+      checkArgument(pLowerBound.bitLength() < Long.SIZE, "lower bound must fit the bit vector");
+      checkArgument(pUpperBound.bitLength() < Long.SIZE, "upper bound must fit the bit vector");
+      BitVectorInterval result =
+          new BitVectorInterval(pInfo, pLowerBound.longValue(), pUpperBound.longValue());
+      // keep the existing BigInteger objects
+      result.lowerBound = pLowerBound;
+      result.upperBound = pUpperBound;
+      return result;
+    }
     return new BitVectorInterval(pInfo, pLowerBound, pUpperBound);
   }
 
+  public static BitVectorInterval of(BitVectorInfo pInfo, long pLowerBound, long pUpperBound) {
+    if (pInfo.isLongBacked()) {
+      return new BitVectorInterval(pInfo, pLowerBound, pUpperBound);
+    }
+    return new BitVectorInterval(
+        pInfo, BigInteger.valueOf(pLowerBound), BigInteger.valueOf(pUpperBound));
+  }
+
   /**
    * Create the smallest interval that contains two given intervals;
    */
   public static BitVectorInterval span(BitVectorInterval a, BitVectorInterval b) {
     a.checkBitVectorCompatibilityWith(b);
-    BigInteger lower;
-    if (a.lowerBound == null || b.lowerBound == null) {
-      lower = null;
-    } else {
-      lower = a.lowerBound.min(b.lowerBound);
+    if (bothLongBacked(a, b)) {
+      long lower = Math.min(a.lowerLong, b.lowerLong);
+      long upper = Math.max(a.upperLong, b.upperLong);
+      if (lower == a.lowerLong && upper == a.upperLong) {
+        return a;
+      } else if (lower == b.lowerLong && upper == b.upperLong) {
+        return b;
+      }
+      return new BitVectorInterval(a.info, lower, upper);
     }
 
-    BigInteger upper;
-    if (a.upperBound == null || b.upperBound == null) {
-      upper = null;
-    } else {
-      upper = a.upperBound.max(b.upperBound);
-    }
+    BigInteger lower = a.getLowerBound().min(b.getLowerBound());
+    BigInteger upper = a.getUpperBound().max(b.getUpperBound());
 
-    if (lower == a.lowerBound && upper == a.upperBound) {
+    if (lower == a.getLowerBound() && upper == a.getUpperBound()) {
       return a;
-    } else if (lower == b.lowerBound && upper == b.upperBound) {
+    } else if (lower == b.getLowerBound() && upper == b.getUpperBound()) {
       return b;
     } else {
       return new BitVectorInterval(a.info, lower, upper);
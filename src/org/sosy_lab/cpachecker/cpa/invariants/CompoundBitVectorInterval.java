@@ -432,6 +432,33 @@ public class CompoundBitVectorInterval implements CompoundIntegralInterval, BitV
     return index == 0 ? -1 : -index;
   }
 
+  /**
+   * Same as {@link #intervalIndexOf(BigInteger)}, but without creating BigIntegers.
+   * May only be called if the bit vector type is long-backed.
+   */
+  private int intervalIndexOf(long value) {
+    if (containsAllPossibleValues()) {
+      return 0;
+    }
+    int leftInclusive = 0;
+    int rightExclusive = this.intervals.length;
+    int index = rightExclusive / 2;
+    while (leftInclusive < rightExclusive) {
+      BitVectorInterval intervalAtIndex = this.intervals[index];
+      if (intervalAtIndex.getLowerBoundAsLong() <= value) { // Interval at index starts before the value
+        if (intervalAtIndex.getUpperBoundAsLong() >= value) { // Interval at index ends after the value
+          return index;
+        }
+        // Interval at index ends before the value
+        leftInclusive = index + 1;
+      } else { // Interval at index starts after the value
+        rightExclusive = index;
+      }
+      index = IntMath.mean(leftInclusive, rightExclusive);
+    }
+    return index == 0 ? -1 : -index;
+  }
+
   /**
    * Checks if the given big integer value is contained in this state.
    * @param pValue the value to check for.
@@ -459,6 +486,9 @@ public class CompoundBitVectorInterval implements CompoundIntegralInterval, BitV
    */
   public boolean contains(long pValue) {
     if (isBottom()) { return false; }
+    if (info.isLongBacked()) {
+      return intervalIndexOf(pValue) >= 0;
+    }
     BigInteger value = BigInteger.valueOf(pValue);
     return intervalIndexOf(value) >= 0;
   }
@@ -1768,35 +1798,7 @@ public class CompoundBitVectorInterval implements CompoundIntegralInterval, BitV
   private static BitVectorInterval union(BitVectorInterval pA, BitVectorInterval pB) {
     Preconditions.checkArgument(pA.getTypeInfo().equals(pB.getTypeInfo()));
     Preconditions.checkArgument(pA.touches(pB), "Cannot unite intervals that do not touch.");
-    return BitVectorInterval.of(pA.getTypeInfo(), lowestBound(pA, pB), highestBound(pA, pB));
-  }
-
-  /**
-   * Returns the lowest bound of the two given intervals.
-   *
-   * @param pA one if the intervals to get the lowest lower bound from.
-   * @param pB one if the intervals to get the lowest lower bound from.
-   *
-   * @return the lowest bound of the two given intervals.
-   */
-  private static BigInteger lowestBound(BitVectorInterval pA, BitVectorInterval pB) {
-    BigInteger aLowerBound = pA.getLowerBound();
-    BigInteger bLowerBound = pB.getLowerBound();
-    return lessOrEqual(aLowerBound, bLowerBound) ? aLowerBound : bLowerBound;
-  }
-
-  /**
-   * Returns the highest bound of the two given intervals.
-   *
-   * @param pA one if the intervals to get the highest upper bound from.
-   * @param pB one if the intervals to get the highest upper bound from.
-   *
-   * @return the highest bound of the two given intervals.
-   */
-  private static BigInteger highestBound(BitVectorInterval pA, BitVectorInterval pB) {
-    BigInteger aUpperBound = pA.getUpperBound();
-    BigInteger bUpperBound = pB.getUpperBound();
-    return lessOrEqual(bUpperBound, aUpperBound) ? aUpperBound : bUpperBound;
+    return BitVectorInterval.span(pA, pB);
   }
 
   /**
@@ -1812,18 +1814,6 @@ public class CompoundBitVectorInterval implements CompoundIntegralInterval, BitV
     return pFirst.compareTo(pSecond) < 0;
   }
 
-  /**
-   * Checks if the first given big integer is less than or equal to the second given big integer, none of which may be <code>null</code>.
-   *
-   * @param pFirst the value being compared to the reference value.
-   * @param pSecond the reference value.
-   *
-   * @return <code>true</code> if <code>pFirst</code> is less than or equal to <code>pSecond</code>, <code>false</code> otherwise.
-   */
-  private static boolean lessOrEqual(BigInteger pFirst, BigInteger pSecond) {
-    return pFirst.compareTo(pSecond) <= 0;
-  }
-
   /**
    * Creates a new compound state from the given simple interval.
    *
@@ -1858,7 +1848,7 @@ public class CompoundBitVectorInterval implements CompoundIntegralInterval, BitV
    * @return a compound state representing the given long value.
    */
   public static CompoundBitVectorInterval singleton(BitVectorInfo pInfo, long pValue) {
-    return singleton(pInfo, BigInteger.valueOf(pValue));
+    return CompoundBitVectorInterval.of(BitVectorInterval.singleton(pInfo, pValue));
   }
 
   /**
@@ -80,6 +80,18 @@ public enum IIIOperatorFactory {
          * bounds for the new upper bound. If any of the summands is not
          * finite, the resulting bound isn't finite either.
          */
+        if (pOperand1.isLongBacked() && pOperand2.isLongBacked()) {
+          try {
+            return BitVectorInterval.cast(
+                pOperand1.getTypeInfo(),
+                Math.addExact(pOperand1.getLowerBoundAsLong(), pOperand2.getLowerBoundAsLong()),
+                Math.addExact(pOperand1.getUpperBoundAsLong(), pOperand2.getUpperBoundAsLong()),
+                pAllowSignedWrapAround,
+                pOverflowEventHandler);
+          } catch (ArithmeticException e) {
+            // the result does not fit into a long (unsigned 63 bits), use BigIntegers below
+          }
+        }
         BigInteger lowerBound = pOperand1.getLowerBound();
         BigInteger upperBound = pOperand1.getUpperBound();
         BigInteger pLowerBound = pOperand2.getLowerBound();
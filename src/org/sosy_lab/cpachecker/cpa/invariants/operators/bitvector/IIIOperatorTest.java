@@ -60,6 +60,34 @@ public class IIIOperatorTest {
     assertEquals(one, ADD.apply(zero, one));
   }
 
+  @Test
+  public void testAddWrapAround() {
+    // 63 bits are the widest long-backed type, 64 bits use BigInteger bounds
+    for (BitVectorInfo info :
+        new BitVectorInfo[] {
+          BitVectorInfo.from(32, false), BitVectorInfo.from(63, true), BitVectorInfo.from(64, true)
+        }) {
+      BitVectorInterval one = BitVectorInterval.singleton(info, BigInteger.ONE);
+      BitVectorInterval max = BitVectorInterval.singleton(info, info.getMaxValue());
+      BitVectorInterval min = BitVectorInterval.singleton(info, info.getMinValue());
+      assertEquals(min, ADD.apply(max, one));
+      assertEquals(info.getRange(), ADD.apply(max.extendToMinValue(), one));
+    }
+  }
+
+  @Test
+  public void testAddLongOverflow() {
+    // the sum of the bounds of the widest long-backed unsigned type does not fit into a long
+    BitVectorInfo info = BitVectorInfo.from(63, false);
+    BigInteger max = info.getMaxValue();
+    BitVectorInterval oneToMax = BitVectorInterval.of(info, BigInteger.ONE, max);
+    BitVectorInterval nearMax = BitVectorInterval.of(info, max.subtract(BigInteger.ONE), max);
+    assertEquals(info.getRange(), ADD.apply(oneToMax, oneToMax));
+    assertEquals(
+        BitVectorInterval.of(info, max.subtract(BigInteger.valueOf(3)), max.subtract(BigInteger.ONE)),
+        ADD.apply(nearMax, nearMax));
+  }
+
   @Test
   public void testModulo() {
     BigInteger scalarFour = BigInteger.valueOf(4);
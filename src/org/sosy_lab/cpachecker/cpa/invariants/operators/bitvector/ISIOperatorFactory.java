@@ -60,6 +60,19 @@ public enum ISIOperatorFactory {
         if (pFirstOperand.isTop() || pSecondOperand.equals(BigInteger.ZERO)) {
           return pFirstOperand;
         }
+        if (pFirstOperand.isLongBacked() && pSecondOperand.bitLength() < Long.SIZE) {
+          long value = pSecondOperand.longValue();
+          try {
+            return BitVectorInterval.cast(
+                pFirstOperand.getTypeInfo(),
+                Math.addExact(pFirstOperand.getLowerBoundAsLong(), value),
+                Math.addExact(pFirstOperand.getUpperBoundAsLong(), value),
+                pAllowSignedWrapAround,
+                pOverflowEventHandler);
+          } catch (ArithmeticException e) {
+            // the result does not fit into a long, use BigIntegers below
+          }
+        }
         BigInteger lowerBound = pFirstOperand.getLowerBound().add(pSecondOperand);
         BigInteger upperBound = pFirstOperand.getUpperBound().add(pSecondOperand);
         return BitVectorInterval.cast(
@@ -129,6 +142,19 @@ public enum ISIOperatorFactory {
          * Infinite bounds stay infinite, finite bounds are multiplied with
          * the factor.
          */
+        if (pFirstOperand.isLongBacked() && pSecondOperand.bitLength() < Long.SIZE) {
+          long factor = pSecondOperand.longValue();
+          try {
+            return BitVectorInterval.cast(
+                pFirstOperand.getTypeInfo(),
+                Math.multiplyExact(pFirstOperand.getLowerBoundAsLong(), factor),
+                Math.multiplyExact(pFirstOperand.getUpperBoundAsLong(), factor),
+                pAllowSignedWrapAround,
+                pOverflowEventHandler);
+          } catch (ArithmeticException e) {
+            // the result does not fit into a long, use BigIntegers below
+          }
+        }
         BigInteger lowerBound = pFirstOperand.getLowerBound().multiply(pSecondOperand);
         BigInteger upperBound = pFirstOperand.getUpperBound().multiply(pSecondOperand);
         return BitVectorInterval.cast(
@@ -34,6 +34,7 @@ import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
 import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.NonMergeableAbstractState;
@@ -49,10 +50,18 @@ import java.io.Serializable;
 /**
  * AbstractState for Symbolic Predicate Abstraction CPA
  */
-public abstract class PredicateAbstractState implements AbstractState, Partitionable, Serializable {
+public abstract class PredicateAbstractState
+    implements AbstractState, Partitionable, CoverageIndexable, Serializable {
 
   private static final long serialVersionUID = -265763837277453447L;
 
+  /**
+   * Signature of non-abstraction states, they can never cover an abstraction state.
+   * The abstraction formula can not be part of the signature, because coverage of abstraction
+   * states is decided by implication and the abstraction may change during refinement.
+   */
+  private static final long NON_ABSTRACTION_SIGNATURE = 1L;
+
   public final static Predicate<AbstractState> CONTAINS_ABSTRACTION_STATE =
       Predicates.compose(
           PredicateAbstractState::isAbstractionState,
@@ -98,6 +107,11 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
       return true;
     }
 
+    @Override
+    public long getCoverageSignature() {
+      return 0;
+    }
+
     @Override
     public String toString() {
       return "Abstraction location: true, Abstraction: " + super.abstractionFormula;
@@ -137,6 +151,11 @@ public abstract class PredicateAbstractState implements AbstractState, Partition
       return false;
     }
 
+    @Override
+    public long getCoverageSignature() {
+      return NON_ABSTRACTION_SIGNATURE;
+    }
+
     @Override
     PredicateAbstractState getMergedInto() {
       return mergedInto;
@@ -31,8 +31,10 @@ import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.io.Writer;
@@ -40,6 +42,7 @@ import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
@@ -68,6 +71,7 @@ import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier.TrivialInvariantSupplier;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.cpa.predicate.persistence.PersistentAbstractionCache;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage.AbstractionNode;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
@@ -87,7 +91,9 @@ import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
 import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
 @Options(prefix = "cpa.predicate")
@@ -110,6 +116,7 @@ public class PredicateAbstractionManager {
     public int numInductivePredicates = 0;
     public int numCartesianAbsPredicates = 0;
     public int numCartesianAbsPredicatesCached = 0;
+    public int numCartesianAbsBatchQueries = 0;
     public int numBooleanAbsPredicates = 0;
     public final Timer abstractionReuseTime = new Timer();
     public final StatTimer abstractionReuseImplicationTime = new StatTimer("Time for checking reusability of abstractions");
@@ -121,12 +128,18 @@ public class PredicateAbstractionManager {
     public final NestedTimer abstractionEnumTime = new NestedTimer(); // outer: solver time, inner: bdd time
     public final Timer abstractionSolveTime = new Timer(); // only the time for solving, not for model enumeration
 
+    public final Timer persistentCacheTime = new Timer();
+
     public long allSatCount = 0;
     public int maxAllSatCount = 0;
   }
 
   final Stats stats = new Stats();
 
+  @Nullable PersistentAbstractionCache getPersistentCache() {
+    return persistentCache;
+  }
+
   private final LogManager logger;
   private final FormulaManagerView fmgr;
   private final BooleanFormulaManagerView bfmgr;
@@ -156,6 +169,12 @@ public class PredicateAbstractionManager {
       description = "whether to use Boolean or Cartesian abstraction or both")
   private AbstractionType abstractionType = AbstractionType.BOOLEAN;
 
+  @Option(secure=true, name = "abstraction.cartesianBatching",
+      description = "for Cartesian abstraction, check all predicates together "
+          + "with assumptions over activation literals instead of checking "
+          + "each predicate and its negation in a separate query")
+  private boolean batchCartesianAbstraction = false;
+
   @Option(secure=true, name = "abstraction.dumpHardQueries",
       description = "dump the abstraction formulas if they took to long")
   private boolean dumpHardAbstractions = false;
@@ -171,6 +190,12 @@ public class PredicateAbstractionManager {
   @Option(secure=true, name = "abs.useCache", description = "use caching of abstractions")
   private boolean useCache = true;
 
+  @Option(secure=true, name = "abs.persistentCacheFile",
+      description = "File with a cache of abstractions that is shared between runs. "
+          + "Existing abstractions are read from it and new abstractions are appended to it.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path persistentCacheFile = null;
+
   @Option(secure=true, name="refinement.splitItpAtoms",
       description="split each arithmetic equality into two inequalities when extracting predicates from interpolants")
   private boolean splitItpAtoms = false;
@@ -183,6 +208,9 @@ public class PredicateAbstractionManager {
       description="Simplify the abstraction formula that is stored to represent the state space. Helpful when debugging (formulas get smaller).")
   private boolean simplifyAbstractionFormula = false;
 
+  private static final String CARTESIAN_TRUE_LITERAL_PREFIX = "__CARTESIAN_TRUE_";
+  private static final String CARTESIAN_FALSE_LITERAL_PREFIX = "__CARTESIAN_FALSE_";
+
   private boolean warnedOfCartesianAbstraction = false;
 
   private boolean abstractionReuseDisabledBecauseOfAmbiguity = false;
@@ -198,6 +226,8 @@ public class PredicateAbstractionManager {
   // 1: predicate is true
   private final Map<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
 
+  private final @Nullable PersistentAbstractionCache persistentCache;
+
   public PredicateAbstractionManager(
       AbstractionManager pAmgr,
       PathFormulaManager pPfmgr,
@@ -241,6 +271,20 @@ public class PredicateAbstractionManager {
       cartesianAbstractionCache = null;
     }
 
+    if (persistentCacheFile != null) {
+      // Options that change the stored abstraction,
+      // batching of Cartesian abstraction does not change the result.
+      String abstractionOptions =
+          "computation="
+              + abstractionType
+              + " identifyTrivialPredicates="
+              + identifyTrivialPredicates;
+      persistentCache =
+          new PersistentAbstractionCache(persistentCacheFile, logger, fmgr, abstractionOptions);
+    } else {
+      persistentCache = null;
+    }
+
     abstractionStorage = new PredicateAbstractionsStorage(reuseAbstractionsFrom, logger, fmgr, null);
   }
 
@@ -345,11 +389,15 @@ public class PredicateAbstractionManager {
 
     // caching
     Pair<BooleanFormula, ImmutableSet<BooleanFormula>> absKey = null;
-    if (useCache) {
+    String persistentKey = null;
+    if (useCache || persistentCache != null) {
       ImmutableSet<BooleanFormula> instantiatedPreds =
           Collections3.transformedImmutableSetCopy(
               remainingPredicates, pred -> instantiator.apply(pred.getSymbolicAtom()));
       absKey = Pair.of(f, instantiatedPreds);
+    }
+
+    if (useCache) {
       AbstractionFormula result = abstractionCache.get(absKey);
 
       if (result != null) {
@@ -379,6 +427,23 @@ public class PredicateAbstractionManager {
       }
     }
 
+    // The persistent cache stores only the part of the abstraction that is computed below
+    // from f and the predicates, the other parts are cheap to recompute.
+    Region persistentAbs = null;
+    if (persistentCache != null) {
+      stats.persistentCacheTime.start();
+      try {
+        persistentKey = persistentCache.computeKey(f, absKey.getSecond());
+        BooleanFormula cachedAbstraction = persistentCache.get(persistentKey);
+        if (cachedAbstraction != null) {
+          persistentAbs = amgr.convertFormulaToRegion(cachedAbstraction);
+          logger.log(Level.FINEST, "Abstraction", stats.numCallsAbstraction, "was cached on disk");
+          stats.numCallsAbstractionCached++;
+        }
+      } finally {
+        stats.persistentCacheTime.stop();
+      }
+    }
 
     // Compute result for those predicates
     // where we can trivially identify their truthness in the result
@@ -399,21 +464,31 @@ public class PredicateAbstractionManager {
         abs = rmgr.makeAnd(abs, absPred.getAbstractVariable());
 
         // Calculate the set of predicates we still need to use for abstraction.
-        Iterables.removeIf(remainingPredicates, equalTo(absPred));
+        // The persistent cache needs an abstraction that does not depend on the invariant.
+        if (persistentCache == null) {
+          Iterables.removeIf(remainingPredicates, equalTo(absPred));
+        }
       }
     }
 
-    if (abstractionType == AbstractionType.ELIMINATION) {
+    if (persistentAbs != null) {
+      abs = rmgr.makeAnd(abs, persistentAbs);
+
+    } else if (abstractionType == AbstractionType.ELIMINATION) {
       stats.quantifierEliminationTime.start();
       try {
         BooleanFormula eliminationResult = fmgr.uninstantiate(fmgr.eliminateDeadVariables(f, ssa));
-        abs = rmgr.makeAnd(abs, amgr.convertFormulaToRegion(eliminationResult));
+        persistentAbs = amgr.convertFormulaToRegion(eliminationResult);
       } finally {
         stats.quantifierEliminationTime.stop();
       }
+      abs = rmgr.makeAnd(abs, persistentAbs);
+      storeInPersistentCache(persistentKey, persistentAbs);
 
     } else {
-      abs = rmgr.makeAnd(abs, computeAbstraction(f, remainingPredicates, instantiator));
+      persistentAbs = computeAbstraction(f, remainingPredicates, instantiator);
+      abs = rmgr.makeAnd(abs, persistentAbs);
+      storeInPersistentCache(persistentKey, persistentAbs);
     }
 
     AbstractionFormula result = makeAbstractionFormula(abs, ssa, pathFormula);
@@ -440,6 +515,14 @@ public class PredicateAbstractionManager {
     return result;
   }
 
+  private void storeInPersistentCache(@Nullable String pKey, Region pAbstraction) {
+    if (persistentCache != null) {
+      stats.persistentCacheTime.start();
+      persistentCache.put(pKey, amgr.convertRegionToFormula(pAbstraction));
+      stats.persistentCacheTime.stop();
+    }
+  }
+
   /**
    * Compute an abstraction of a formula.
    * This is a low-level version of
@@ -739,7 +822,7 @@ public class PredicateAbstractionManager {
       throws SolverException, InterruptedException {
     Region abs = rmgr.makeTrue();
 
-    try (ProverEnvironment thmProver = solver.newProverEnvironment()) {
+    try (ProverEnvironment thmProver = newAbstractionProverEnvironment()) {
       thmProver.push(f);
 
       if (remainingPredicates.isEmpty()) {
@@ -792,6 +875,14 @@ public class PredicateAbstractionManager {
     return abs;
   }
 
+  private ProverEnvironment newAbstractionProverEnvironment() {
+    if (batchCartesianAbstraction && abstractionType != AbstractionType.BOOLEAN) {
+      // batched Cartesian abstraction decides predicates by evaluating them in models
+      return solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
+    }
+    return solver.newProverEnvironment();
+  }
+
   /**
    * Compute a Cartesian abstraction of a formula given a set of predicates.
    * The abstracted formula is expected to have been pushed onto the solver stack already.
@@ -829,6 +920,27 @@ public class PredicateAbstractionManager {
     try {
       Region absbdd = rmgr.makeTrue();
 
+      Map<AbstractionPredicate, Byte> batchedPredicateValues = ImmutableMap.of();
+      if (batchCartesianAbstraction) {
+        List<AbstractionPredicate> uncachedPredicates = new ArrayList<>();
+        for (AbstractionPredicate p : pPredicates) {
+          if (!useCache || !cartesianAbstractionCache.containsKey(Pair.of(f, p))) {
+            uncachedPredicates.add(p);
+          }
+        }
+        try {
+          batchedPredicateValues =
+              computeCartesianPredicateValuesBatched(thmProver, uncachedPredicates, instantiator);
+        } catch (UnsupportedOperationException e) {
+          logger.logDebugException(e);
+          logger.log(
+              Level.WARNING,
+              "Solver does not support assumptions, disabling batched Cartesian abstraction.");
+          // the loop below checks each predicate separately
+          batchCartesianAbstraction = false;
+        }
+      }
+
       // check whether each of the predicate is implied in the next state...
 
       final Iterator<AbstractionPredicate> predicateIt = pPredicates.iterator();
@@ -854,47 +966,22 @@ public class PredicateAbstractionManager {
           stats.abstractionEnumTime.getCurentInnerTimer().stop();
 
         } else {
-          logger.log(Level.ALL, "DEBUG_1",
-              "CHECKING VALUE OF PREDICATE: ", p.getSymbolicAtom());
-
-          // instantiate the definition of the predicate
-          BooleanFormula predTrue = instantiator.apply(p.getSymbolicAtom());
-          BooleanFormula predFalse = bfmgr.not(predTrue);
+          Byte batchedPredVal = batchedPredicateValues.get(p);
+          byte predVal =
+              batchedPredVal != null
+                  ? batchedPredVal
+                  : computeCartesianPredicateValue(thmProver, p, instantiator);
 
-          // check whether this predicate has a truth value in the next
-          // state
-          byte predVal = 0; // pred is neither true nor false
-
-          thmProver.push(predFalse);
-          boolean isTrue = thmProver.isUnsat();
-          thmProver.pop();
-
-          if (isTrue) {
+          if (predVal != 0) {
             stats.numCartesianAbsPredicates++;
             stats.abstractionEnumTime.getCurentInnerTimer().start();
             Region v = p.getAbstractVariable();
+            if (predVal == -1) {
+              v = rmgr.makeNot(v);
+            }
             absbdd = rmgr.makeAnd(absbdd, v);
             predicateIt.remove(); // mark predicate as handled
             stats.abstractionEnumTime.getCurentInnerTimer().stop();
-
-            predVal = 1;
-          } else {
-            // check whether it's false...
-            thmProver.push(predTrue);
-            boolean isFalse = thmProver.isUnsat();
-            thmProver.pop();
-
-            if (isFalse) {
-              stats.numCartesianAbsPredicates++;
-              stats.abstractionEnumTime.getCurentInnerTimer().start();
-              Region v = p.getAbstractVariable();
-              v = rmgr.makeNot(v);
-              absbdd = rmgr.makeAnd(absbdd, v);
-              predicateIt.remove(); // mark predicate as handled
-              stats.abstractionEnumTime.getCurentInnerTimer().stop();
-
-              predVal = -1;
-            }
           }
 
           if (useCache) {
@@ -910,6 +997,150 @@ public class PredicateAbstractionManager {
     }
   }
 
+  /**
+   * Check whether a single predicate is implied by the formula on the solver stack, either
+   * positively or negatively.
+   *
+   * @return 1 if the predicate is implied, -1 if its negation is implied, and 0 otherwise.
+   */
+  private byte computeCartesianPredicateValue(
+      final ProverEnvironment thmProver,
+      final AbstractionPredicate p,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws SolverException, InterruptedException {
+    logger.log(Level.ALL, "DEBUG_1",
+        "CHECKING VALUE OF PREDICATE: ", p.getSymbolicAtom());
+
+    // instantiate the definition of the predicate
+    BooleanFormula predTrue = instantiator.apply(p.getSymbolicAtom());
+    BooleanFormula predFalse = bfmgr.not(predTrue);
+
+    // check whether this predicate has a truth value in the next state
+    thmProver.push(predFalse);
+    boolean isTrue = thmProver.isUnsat();
+    thmProver.pop();
+
+    if (isTrue) {
+      return 1;
+    }
+
+    // check whether it's false...
+    thmProver.push(predTrue);
+    boolean isFalse = thmProver.isUnsat();
+    thmProver.pop();
+
+    return isFalse ? (byte) -1 : 0;
+  }
+
+  /**
+   * Decide for several predicates at once whether they are implied by the formula on the solver
+   * stack, either positively or negatively.
+   *
+   * <p>Each predicate gets two activation literals, one guarding the negation of the predicate and
+   * one guarding the predicate itself. A single query asks whether any of the active guarded
+   * formulas is satisfiable together with the formula on the stack. If not, all predicates whose
+   * literals are still active are decided at once. Otherwise the model shows for several predicates
+   * at once that they are not implied, and their literals are deactivated for the next query.
+   *
+   * @param thmProver The solver to use with the abstracted formula on the stack, needs to produce
+   *     models.
+   * @param pPredicates The predicates to decide.
+   * @param instantiator A function that will be applied to instantiate each abstraction predicate.
+   * @return The values of the decided predicates, with 1 if the predicate is implied, -1 if its
+   *     negation is implied, and 0 otherwise. Predicates for which the models do not allow to make
+   *     progress are missing and need to be checked separately.
+   */
+  private Map<AbstractionPredicate, Byte> computeCartesianPredicateValuesBatched(
+      final ProverEnvironment thmProver,
+      final List<AbstractionPredicate> pPredicates,
+      final Function<BooleanFormula, BooleanFormula> instantiator)
+      throws SolverException, InterruptedException {
+    if (pPredicates.isEmpty()) {
+      return ImmutableMap.of();
+    }
+
+    final int size = pPredicates.size();
+    List<BooleanFormula> predicates = new ArrayList<>(size);
+    List<BooleanFormula> trueLiterals = new ArrayList<>(size);
+    List<BooleanFormula> falseLiterals = new ArrayList<>(size);
+    List<BooleanFormula> guardedChecks = new ArrayList<>(2 * size);
+    for (int i = 0; i < size; i++) {
+      BooleanFormula predTrue = instantiator.apply(pPredicates.get(i).getSymbolicAtom());
+      BooleanFormula trueLiteral = bfmgr.makeVariable(CARTESIAN_TRUE_LITERAL_PREFIX + i);
+      BooleanFormula falseLiteral = bfmgr.makeVariable(CARTESIAN_FALSE_LITERAL_PREFIX + i);
+      predicates.add(predTrue);
+      trueLiterals.add(trueLiteral);
+      falseLiterals.add(falseLiteral);
+      guardedChecks.add(bfmgr.and(trueLiteral, bfmgr.not(predTrue)));
+      guardedChecks.add(bfmgr.and(falseLiteral, predTrue));
+    }
+
+    // predicates that might still be implied (positively or negatively)
+    BitSet possiblyTrue = new BitSet(size);
+    possiblyTrue.set(0, size);
+    BitSet possiblyFalse = new BitSet(size);
+    possiblyFalse.set(0, size);
+    boolean decided = false;
+
+    thmProver.push(bfmgr.or(guardedChecks));
+    try {
+      while (!possiblyTrue.isEmpty() || !possiblyFalse.isEmpty()) {
+        shutdownNotifier.shutdownIfNecessary();
+        List<BooleanFormula> assumptions = new ArrayList<>(2 * size);
+        for (int i = 0; i < size; i++) {
+          BooleanFormula trueLiteral = trueLiterals.get(i);
+          BooleanFormula falseLiteral = falseLiterals.get(i);
+          assumptions.add(possiblyTrue.get(i) ? trueLiteral : bfmgr.not(trueLiteral));
+          assumptions.add(possiblyFalse.get(i) ? falseLiteral : bfmgr.not(falseLiteral));
+        }
+
+        stats.numCartesianAbsBatchQueries++;
+        if (thmProver.isUnsatWithAssumptions(assumptions)) {
+          decided = true;
+          break;
+        }
+
+        boolean progress = false;
+        try (Model model = thmProver.getModel()) {
+          for (int i = possiblyTrue.nextSetBit(0); i >= 0; i = possiblyTrue.nextSetBit(i + 1)) {
+            if (Boolean.FALSE.equals(model.evaluate(predicates.get(i)))) {
+              possiblyTrue.clear(i);
+              progress = true;
+            }
+          }
+          for (int i = possiblyFalse.nextSetBit(0); i >= 0; i = possiblyFalse.nextSetBit(i + 1)) {
+            if (Boolean.TRUE.equals(model.evaluate(predicates.get(i)))) {
+              possiblyFalse.clear(i);
+              progress = true;
+            }
+          }
+        }
+        if (!progress) {
+          // the solver did not give us values for the relevant predicates
+          break;
+        }
+      }
+    } finally {
+      thmProver.pop();
+    }
+
+    Map<AbstractionPredicate, Byte> result = Maps.newHashMapWithExpectedSize(size);
+    for (int i = 0; i < size; i++) {
+      if (possiblyTrue.get(i)) {
+        if (decided) {
+          result.put(pPredicates.get(i), (byte) 1);
+        }
+      } else if (possiblyFalse.get(i)) {
+        if (decided) {
+          result.put(pPredicates.get(i), (byte) -1);
+        }
+      } else {
+        result.put(pPredicates.get(i), (byte) 0);
+      }
+    }
+    return result;
+  }
+
   /**
    * Compute a Boolean abstraction of a formula given a set of predicates.
    * The abstracted formula is expected to have been pushed onto the solver stack already.
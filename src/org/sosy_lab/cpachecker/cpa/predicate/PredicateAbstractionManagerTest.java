@@ -0,0 +1,160 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2015  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import com.google.common.collect.ImmutableList;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier.TrivialInvariantSupplier;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.bdd.BDDManagerFactory;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+
+/** Compare batched and unbatched Cartesian abstraction. */
+@SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
+@RunWith(Parameterized.class)
+public class PredicateAbstractionManagerTest extends SolverViewBasedTest0 {
+
+  @Parameters(name = "{0}")
+  public static Object[] getAllSolvers() {
+    return Solvers.values();
+  }
+
+  @Parameter(0)
+  public Solvers solverUnderTest;
+
+  @Override
+  protected Solvers solverToUse() {
+    return solverUnderTest;
+  }
+
+  private BooleanFormula computeCartesianAbstraction(
+      BooleanFormula pFormula, List<BooleanFormula> pAtoms, boolean pBatched) throws Exception {
+    Configuration abstractionConfig =
+        Configuration.builder()
+            .copyFrom(config)
+            .setOption("cpa.predicate.abstraction.computation", "CARTESIAN")
+            .setOption("cpa.predicate.abstraction.cartesianBatching", Boolean.toString(pBatched))
+            .build();
+    AbstractionManager amgr =
+        new AbstractionManager(
+            new BDDManagerFactory(abstractionConfig, logger).createRegionManager(),
+            abstractionConfig,
+            logger,
+            solver);
+    PredicateAbstractionManager pamgr =
+        new PredicateAbstractionManager(
+            amgr,
+            new PathFormulaManagerImpl(
+                mgrv,
+                abstractionConfig,
+                logger,
+                ShutdownNotifier.createDummy(),
+                MachineModel.LINUX32,
+                Optional.empty(),
+                AnalysisDirection.FORWARD),
+            solver,
+            abstractionConfig,
+            logger,
+            ShutdownNotifier.createDummy(),
+            TrivialInvariantSupplier.INSTANCE);
+
+    ImmutableList.Builder<AbstractionPredicate> predicates = ImmutableList.builder();
+    for (BooleanFormula atom : pAtoms) {
+      predicates.add(amgr.makePredicate(atom));
+    }
+    return pamgr.computeAbstraction(pFormula, predicates.build());
+  }
+
+  private void assertBatchedAbstractionIsEquivalent(
+      BooleanFormula pFormula, List<BooleanFormula> pAtoms) throws Exception {
+    BooleanFormula unbatched = computeCartesianAbstraction(pFormula, pAtoms, false);
+    BooleanFormula batched = computeCartesianAbstraction(pFormula, pAtoms, true);
+    assertThatFormula(batched).isEquivalentTo(unbatched);
+  }
+
+  @Test
+  public void batchedCartesianAbstraction() throws Exception {
+    IntegerFormula x = imgrv.makeVariable("x");
+    IntegerFormula y = imgrv.makeVariable("y");
+    IntegerFormula zero = imgrv.makeNumber(0);
+    IntegerFormula one = imgrv.makeNumber(1);
+    BooleanFormula formula = bmgrv.and(imgrv.equal(x, one), imgrv.greaterThan(y, x));
+
+    List<BooleanFormula> atoms =
+        ImmutableList.of(
+            imgrv.equal(x, one), // implied
+            imgrv.greaterThan(y, zero), // implied
+            imgrv.lessThan(y, zero), // negation implied
+            imgrv.equal(x, y), // negation implied
+            imgrv.equal(y, imgrv.makeNumber(5))); // undecided
+
+    assertBatchedAbstractionIsEquivalent(formula, atoms);
+    assertThatFormula(computeCartesianAbstraction(formula, atoms, true))
+        .isEquivalentTo(
+            bmgrv.and(
+                imgrv.equal(x, one),
+                imgrv.greaterThan(y, zero),
+                bmgrv.not(imgrv.lessThan(y, zero)),
+                bmgrv.not(imgrv.equal(x, y))));
+  }
+
+  @Test
+  public void batchedCartesianAbstractionOfUnsatFormula() throws Exception {
+    IntegerFormula x = imgrv.makeVariable("x");
+    BooleanFormula formula =
+        bmgrv.and(imgrv.equal(x, imgrv.makeNumber(1)), imgrv.equal(x, imgrv.makeNumber(2)));
+
+    List<BooleanFormula> atoms = ImmutableList.of(imgrv.equal(x, imgrv.makeNumber(1)));
+    assertThatFormula(computeCartesianAbstraction(formula, atoms, true)).isUnsatisfiable();
+    assertThatFormula(computeCartesianAbstraction(formula, atoms, false)).isUnsatisfiable();
+  }
+
+  @Test
+  public void batchedCartesianAbstractionWithoutDecidedPredicates() throws Exception {
+    IntegerFormula x = imgrv.makeVariable("x");
+    IntegerFormula y = imgrv.makeVariable("y");
+    BooleanFormula formula = imgrv.greaterOrEquals(x, y);
+
+    assertBatchedAbstractionIsEquivalent(
+        formula,
+        ImmutableList.of(
+            imgrv.equal(x, imgrv.makeNumber(3)), imgrv.greaterThan(y, imgrv.makeNumber(0))));
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.io.MoreFiles;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Disk-backed cache for the results of predicate abstractions
+ * that can be shared across several runs of CPAchecker (e.g., for regression verification).
+ *
+ * The cache is content-addressed: the key of an entry is a hash over a normalized
+ * SMT-LIB dump of the (instantiated) block formula and of the (instantiated) predicates,
+ * together with a description of the options that determine how the abstraction is computed;
+ * the value is the SMT-LIB dump of the (uninstantiated) abstraction.
+ * Because the predicates are instantiated with the SSA indices of the block formula,
+ * entries are only reused for exactly the same abstraction problem.
+ * Names of auxiliary definitions that the solver introduces when dumping a formula
+ * (like ".def_12") are renamed canonically, such that the key does not depend
+ * on the solver session in which it was computed.
+ *
+ * The file contains one entry per line (key and value separated by a tab).
+ * All existing entries are read when the cache is created,
+ * new entries are appended to the file and flushed immediately.
+ * Lines that cannot be read (e.g., because a previous run was killed while writing)
+ * are ignored.
+ */
+public class PersistentAbstractionCache implements AutoCloseable {
+
+  private static final char SEPARATOR = '\t';
+  private static final Joiner SPACE_JOINER = Joiner.on(' ');
+
+  /** Symbols that solvers introduce for shared subterms when dumping a formula. */
+  private static final Pattern AUXILIARY_SYMBOL = Pattern.compile("\\.def_\\d+");
+
+  private final Path file;
+  private final LogManager logger;
+  private final FormulaManagerView fmgr;
+  private final String abstractionOptions;
+
+  // key -> SMT-LIB string of abstraction, parsed lazily
+  private final Map<String, String> entries = new HashMap<>();
+
+  private int numLoadedEntries = 0;
+  private int numHits = 0;
+  private int numWrittenEntries = 0;
+  private boolean writingFailed = false;
+
+  // opened on the first write
+  private @Nullable Writer writer = null;
+
+  /**
+   * @param pAbstractionOptions A description of all options that influence the result of an
+   *     abstraction, entries are only reused by analyses with the same description.
+   */
+  public PersistentAbstractionCache(
+      Path pFile, LogManager pLogger, FormulaManagerView pFmgr, String pAbstractionOptions) {
+    file = checkNotNull(pFile);
+    logger = pLogger;
+    fmgr = pFmgr;
+    abstractionOptions = checkNotNull(pAbstractionOptions);
+    load();
+  }
+
+  private void load() {
+    if (!Files.exists(file)) {
+      return;
+    }
+    int invalidLines = 0;
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        int sep = line.indexOf(SEPARATOR);
+        if (sep <= 0 || sep == line.length() - 1) {
+          invalidLines++;
+          continue;
+        }
+        entries.put(line.substring(0, sep), line.substring(sep + 1));
+      }
+    } catch (IOException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not read persistent cache of abstractions, ignoring it");
+      entries.clear();
+      return;
+    }
+    if (invalidLines > 0) {
+      logger.log(
+          Level.WARNING,
+          "Ignoring",
+          invalidLines,
+          "invalid lines in persistent cache of abstractions in",
+          file);
+    }
+    numLoadedEntries = entries.size();
+    logger.log(Level.FINE, "Loaded", numLoadedEntries, "abstractions from", file);
+  }
+
+  /**
+   * Compute the key for an abstraction problem.
+   * The key does not depend on the order of the predicates
+   * or the order of the declarations in the dumped formulas.
+   */
+  public String computeKey(
+      BooleanFormula pBlockFormula, Collection<BooleanFormula> pInstantiatedPredicates) {
+    SortedSet<String> predicates = new TreeSet<>();
+    for (BooleanFormula pred : pInstantiatedPredicates) {
+      predicates.add(normalize(pred));
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append(abstractionOptions).append('\n');
+    sb.append(normalize(pBlockFormula)).append('\n');
+    for (String pred : predicates) {
+      sb.append(pred).append('\n');
+    }
+    return Hashing.sha256().hashString(sb, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Dump a formula such that the result only depends on the formula itself:
+   * the declarations are sorted (except for definitions of auxiliary symbols,
+   * whose order matters), and auxiliary symbols are numbered in order of their first occurrence.
+   */
+  private String normalize(BooleanFormula pFormula) {
+    Pair<String, List<String>> dump = PredicatePersistenceUtils.splitFormula(fmgr, pFormula);
+    SortedSet<String> declarations = new TreeSet<>();
+    StringBuilder sb = new StringBuilder();
+    for (String decl : dump.getSecond()) {
+      if (AUXILIARY_SYMBOL.matcher(decl).find()) {
+        sb.append(decl).append('\n');
+      } else {
+        declarations.add(decl);
+      }
+    }
+    sb.append(dump.getFirst());
+
+    Map<String, String> renaming = new HashMap<>();
+    Matcher matcher = AUXILIARY_SYMBOL.matcher(sb);
+    StringBuffer result = new StringBuffer();
+    for (String decl : declarations) {
+      result.append(decl).append('\n');
+    }
+    while (matcher.find()) {
+      String name =
+          renaming.computeIfAbsent(matcher.group(), symbol -> ".def_" + renaming.size());
+      matcher.appendReplacement(result, Matcher.quoteReplacement(name));
+    }
+    matcher.appendTail(result);
+    return result.toString();
+  }
+
+  /**
+   * Look up the abstraction for a given key.
+   * @return The uninstantiated abstraction formula, or null if there is no valid entry.
+   */
+  public @Nullable BooleanFormula get(String pKey) {
+    String value = entries.get(pKey);
+    if (value == null) {
+      return null;
+    }
+    try {
+      BooleanFormula result = fmgr.parse(value);
+      numHits++;
+      return result;
+    } catch (IllegalArgumentException e) {
+      logger.logDebugException(e, "Invalid entry in persistent cache of abstractions");
+      entries.remove(pKey);
+      return null;
+    }
+  }
+
+  /** Store an (uninstantiated) abstraction formula and append it to the file. */
+  public void put(String pKey, BooleanFormula pAbstraction) {
+    Pair<String, List<String>> dump = PredicatePersistenceUtils.splitFormula(fmgr, pAbstraction);
+    String value =
+        SPACE_JOINER.join(
+            ImmutableList.builder().addAll(dump.getSecond()).add(dump.getFirst()).build());
+    if (value.equals(entries.put(pKey, value)) || writingFailed) {
+      return;
+    }
+
+    try {
+      if (writer == null) {
+        MoreFiles.createParentDirectories(file);
+        writer =
+            Files.newBufferedWriter(
+                file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      }
+      writer.append(pKey).append(SEPARATOR).append(value).append('\n');
+      // flush each entry such that a killed run leaves at most one invalid line
+      writer.flush();
+      numWrittenEntries++;
+    } catch (IOException e) {
+      writingFailed = true;
+      logger.logUserException(
+          Level.WARNING, e, "Could not write persistent cache of abstractions");
+    }
+  }
+
+  @Override
+  public void close() {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not write persistent cache of abstractions");
+      }
+      writer = null;
+    }
+  }
+
+  public int getNumberOfLoadedEntries() {
+    return numLoadedEntries;
+  }
+
+  public int getNumberOfHits() {
+    return numHits;
+  }
+
+  public int getNumberOfWrittenEntries() {
+    return numWrittenEntries;
+  }
+}
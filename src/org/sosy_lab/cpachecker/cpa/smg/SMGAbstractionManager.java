@@ -23,18 +23,32 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.CLangSMG;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedListFinder;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.sll.SMGSingleLinkedListFinder;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 public class SMGAbstractionManager {
 
+  public static final ThreadSafeTimerContainer candidateSearchTimer =
+      new ThreadSafeTimerContainer("Time for searching abstraction candidates");
+
+  /** The timer of the current thread, such that not every search creates a new timer. */
+  private static final ThreadLocal<TimerWrapper> threadCandidateSearchTimer =
+      ThreadLocal.withInitial(candidateSearchTimer::getNewTimer);
+
   private final LogManager logger;
   private final CLangSMG smg;
   private final SMGState smgState;
@@ -43,6 +57,7 @@ public class SMGAbstractionManager {
   private final Set<SMGAbstractionBlock> blocks;
   private final SMGDoublyLinkedListFinder dllCandidateFinder;
   private final SMGSingleLinkedListFinder sllCandidateFinder;
+  private final boolean parallelSearch;
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate) {
     smg = pSMG;
@@ -51,6 +66,7 @@ public class SMGAbstractionManager {
     blocks = ImmutableSet.of();
     dllCandidateFinder = new SMGDoublyLinkedListFinder();
     sllCandidateFinder = new SMGSingleLinkedListFinder();
+    parallelSearch = pSMGstate.getOptions().isParallelAbstractionSearch();
   }
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate,
@@ -61,6 +77,7 @@ public class SMGAbstractionManager {
     blocks = pBlocks;
     dllCandidateFinder = new SMGDoublyLinkedListFinder();
     sllCandidateFinder = new SMGSingleLinkedListFinder();
+    parallelSearch = pSMGstate.getOptions().isParallelAbstractionSearch();
   }
 
   public SMGAbstractionManager(LogManager pLogger, CLangSMG pSMG, SMGState pSMGstate,
@@ -71,16 +88,93 @@ public class SMGAbstractionManager {
     blocks = pBlocks;
     dllCandidateFinder = new SMGDoublyLinkedListFinder(equalSeq, entailSeq, incSeq);
     sllCandidateFinder = new SMGSingleLinkedListFinder(equalSeq, entailSeq, incSeq);
+    parallelSearch = pSMGstate.getOptions().isParallelAbstractionSearch();
   }
 
   private boolean hasCandidates() throws SMGInconsistentException {
 
-    abstractionCandidates.addAll(dllCandidateFinder.traverse(smg, smgState, blocks));
-    abstractionCandidates.addAll(sllCandidateFinder.traverse(smg, smgState, blocks));
+    TimerWrapper timer = threadCandidateSearchTimer.get();
+    timer.start();
+    try {
+      if (parallelSearch) {
+        searchCandidatesInParallel();
+      } else {
+        abstractionCandidates.addAll(dllCandidateFinder.traverse(smg, smgState, blocks));
+        abstractionCandidates.addAll(sllCandidateFinder.traverse(smg, smgState, blocks));
+      }
+    } finally {
+      timer.stop();
+    }
 
     return (!abstractionCandidates.isEmpty());
   }
 
+  /**
+   * The finders only read the SMG, so they can search for candidates at the same time. Their
+   * results are collected in the same order as in the sequential search, such that the chosen
+   * candidate does not depend on the scheduling.
+   *
+   * <p>The objects and values that the finders create for their temporary joins are not part of
+   * the candidates. Each finder numbers them with its own counters that start after the current
+   * ids, such that their ids do not depend on the scheduling either.
+   */
+  private void searchCandidatesInParallel() throws SMGInconsistentException {
+    int lastObjectId = SMGObject.getIdCounter().getLastId();
+    int lastValue = SMGValueFactory.getIdCounter().getLastId();
+    List<CandidateSearch> searches =
+        ImmutableList.of(
+            new CandidateSearch(dllCandidateFinder, lastObjectId, lastValue),
+            new CandidateSearch(sllCandidateFinder, lastObjectId, lastValue));
+    ForkJoinTask.invokeAll(searches);
+    for (CandidateSearch search : searches) {
+      abstractionCandidates.addAll(search.getCandidates());
+      // the temporary ids are never reused
+      SMGObject.getIdCounter().skipTo(search.lastObjectId);
+      SMGValueFactory.getIdCounter().skipTo(search.lastValue);
+    }
+  }
+
+  private class CandidateSearch extends RecursiveTask<Set<SMGAbstractionCandidate>> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SMGAbstractionFinder finder;
+    private @Nullable SMGInconsistentException failure = null;
+
+    /** The last ids used by this search, they are read after joining the task. */
+    private int lastObjectId;
+    private int lastValue;
+
+    private CandidateSearch(SMGAbstractionFinder pFinder, int pLastObjectId, int pLastValue) {
+      finder = pFinder;
+      lastObjectId = pLastObjectId;
+      lastValue = pLastValue;
+    }
+
+    @Override
+    protected Set<SMGAbstractionCandidate> compute() {
+      SMGObject.getIdCounter().beginLocalIds(lastObjectId);
+      SMGValueFactory.getIdCounter().beginLocalIds(lastValue);
+      try {
+        return finder.traverse(smg, smgState, blocks);
+      } catch (SMGInconsistentException e) {
+        failure = e;
+        return ImmutableSet.of();
+      } finally {
+        lastObjectId = SMGObject.getIdCounter().endLocalIds();
+        lastValue = SMGValueFactory.getIdCounter().endLocalIds();
+      }
+    }
+
+    private Set<SMGAbstractionCandidate> getCandidates() throws SMGInconsistentException {
+      Set<SMGAbstractionCandidate> candidates = join();
+      if (failure != null) {
+        throw failure;
+      }
+      return candidates;
+    }
+  }
+
   private SMGAbstractionCandidate getBestCandidate() {
 
     SMGAbstractionCandidate bestCandidate = abstractionCandidates.get(0);
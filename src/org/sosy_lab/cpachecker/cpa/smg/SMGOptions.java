@@ -187,6 +187,14 @@ public class SMGOptions {
       description = "Handle extern variables with incomplete type (extern int array[]) as external allocation")
   private boolean handleExternVariableAsExternalAllocation = false;
 
+  @Option(
+      secure = true,
+      name = "parallelAbstractionSearch",
+      description =
+          "Search for candidates of heap abstraction with all candidate finders in parallel."
+              + " The found candidates are the same as for the sequential search.")
+  private boolean parallelAbstractionSearch = false;
+
   public static enum SMGExportLevel {
     NEVER,
     LEAF,
@@ -293,4 +301,8 @@ public class SMGOptions {
   public boolean isHandleExternVariableAsExternalAllocation() {
     return handleExternVariableAsExternalAllocation;
   }
+
+  public boolean isParallelAbstractionSearch() {
+    return parallelAbstractionSearch;
+  }
 }
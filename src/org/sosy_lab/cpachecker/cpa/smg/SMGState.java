@@ -83,6 +83,7 @@ import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoinStatus;
 import org.sosy_lab.cpachecker.cpa.smg.refiner.SMGInterpolant;
 import org.sosy_lab.cpachecker.cpa.smg.refiner.SMGMemoryPath;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentBiMap;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
 
@@ -102,7 +103,8 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
   private final int predecessorId;
   private final int id;
 
-  private final BiMap<SMGKnownSymValue, SMGKnownExpValue> explicitValues = HashBiMap.create();
+  private PersistentBiMap<SMGKnownSymValue, SMGKnownExpValue> explicitValues =
+      PersistentBiMap.of();
   private final CLangSMG heap;
 
   private final boolean blockEnded;
@@ -166,6 +168,11 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
 
   public SMGState(LogManager pLogger, SMGOptions pOptions, CLangSMG pHeap,
       int pPredId, Map<SMGKnownSymValue, SMGKnownExpValue> pMergedExplicitValues) {
+    this(pLogger, pOptions, pHeap, pPredId, PersistentBiMap.copyOf(pMergedExplicitValues));
+  }
+
+  private SMGState(LogManager pLogger, SMGOptions pOptions, CLangSMG pHeap,
+      int pPredId, PersistentBiMap<SMGKnownSymValue, SMGKnownExpValue> pMergedExplicitValues) {
     // merge
     options = pOptions;
     heap = pHeap;
@@ -175,7 +182,7 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     invalidFree = false;
     invalidRead = false;
     invalidWrite = false;
-    explicitValues.putAll(pMergedExplicitValues);
+    explicitValues = pMergedExplicitValues;
     blockEnded = false;
   }
 
@@ -193,7 +200,7 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getAndIncrement();
-    explicitValues.putAll(pOriginalState.explicitValues);
+    explicitValues = pOriginalState.explicitValues;
     invalidFree = pOriginalState.invalidFree;
     invalidRead = pOriginalState.invalidRead;
     invalidWrite = pOriginalState.invalidWrite;
@@ -215,7 +222,7 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getAndIncrement();
-    explicitValues.putAll(pOriginalState.explicitValues);
+    explicitValues = pOriginalState.explicitValues;
     invalidFree = pOriginalState.invalidFree;
     invalidRead = pOriginalState.invalidRead;
     invalidWrite = pOriginalState.invalidWrite;
@@ -230,7 +237,7 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getAndIncrement();
-    explicitValues.putAll(pOriginalState.explicitValues);
+    explicitValues = pOriginalState.explicitValues;
     blockEnded = pOriginalState.blockEnded;
 
     boolean pInvalidFree = pOriginalState.invalidFree;
@@ -265,7 +272,7 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getAndIncrement();
-    explicitValues.putAll(pCombinedMap);
+    explicitValues = PersistentBiMap.copyOf(pCombinedMap);
     invalidFree = pOriginalState.invalidFree;
     invalidRead = pOriginalState.invalidRead;
     invalidWrite = pOriginalState.invalidWrite;
@@ -402,6 +409,10 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     return predecessorId;
   }
 
+  SMGOptions getOptions() {
+    return options;
+  }
+
   /**
    * Constant.
    *
@@ -451,7 +462,7 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
    */
   public String toDot(String pName, String pLocation) {
     SMGPlotter plotter = new SMGPlotter();
-    return plotter.smgAsDot(heap, pName, pLocation, explicitValues);
+    return plotter.smgAsDot(heap, pName, pLocation, explicitValues.asMap());
   }
 
   /**
@@ -1333,10 +1344,10 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     SMGEdgeHasValue new_edge = new SMGEdgeHasValue(pType, pOffset, pObject, pValue);
 
     // Check if the edge is  not present already
-    SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(pObject);
+    SMGEdgeHasValueFilter filter =
+        SMGEdgeHasValueFilter.objectFilter(pObject).filterAtOffset(pOffset);
 
-    Set<SMGEdgeHasValue> edges = heap.getHVEdges(filter);
-    if (edges.contains(new_edge)) {
+    if (heap.getHVEdges(filter).contains(new_edge)) {
       performConsistencyCheck(SMGRuntimeCheck.HALF);
       return new SMGStateEdgePair(this, new_edge);
     }
@@ -1351,17 +1362,15 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
     /* We need to remove all non-zero overlapping edges
      * and remember all overlapping zero edges to shrink them later
      */
-    for (SMGEdgeHasValue hv : edges) {
+    long end = pOffset + new_edge.getSizeInBits(heap.getMachineModel());
+    for (SMGEdgeHasValue hv : heap.getOverlappingHVEdges(pObject, pOffset, end)) {
 
-      boolean hvEdgeOverlaps = new_edge.overlapsWith(hv, heap.getMachineModel());
       boolean hvEdgeIsZero = hv.getValue() == SMG.NULL_ADDRESS;
 
-      if (hvEdgeOverlaps) {
-        if (hvEdgeIsZero) {
-          overlappingZeroEdges.add(hv);
-        } else {
-          heap.removeHasValueEdge(hv);
-        }
+      if (hvEdgeIsZero) {
+        overlappingZeroEdges.add(hv);
+      } else {
+        heap.removeHasValueEdge(hv);
       }
     }
 
@@ -1846,56 +1855,49 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
 
     long targetRangeSize = pTargetOffset + copyRange;
 
-    SMGEdgeHasValueFilter filterSource = new SMGEdgeHasValueFilter();
-    filterSource.filterByObject(pSource);
-    SMGEdgeHasValueFilter filterTarget = new SMGEdgeHasValueFilter();
-    filterTarget.filterByObject(pTarget);
-
     //Remove all Target edges in range
-    Set<SMGEdgeHasValue> targetEdges = getHVEdges(filterTarget);
+    Set<SMGEdgeHasValue> targetEdges =
+        heap.getOverlappingHVEdges(pTarget, pTargetOffset, targetRangeSize);
 
     for (SMGEdgeHasValue edge : targetEdges) {
-      if (edge.overlapsWith(pTargetOffset, targetRangeSize, heap.getMachineModel())) {
-        boolean hvEdgeIsZero = edge.getValue() == SMG.NULL_ADDRESS;
-        heap.removeHasValueEdge(edge);
-        if (hvEdgeIsZero) {
-          SMGObject object = edge.getObject();
+      boolean hvEdgeIsZero = edge.getValue() == SMG.NULL_ADDRESS;
+      heap.removeHasValueEdge(edge);
+      if (hvEdgeIsZero) {
+        SMGObject object = edge.getObject();
 
-          MachineModel maModel = heap.getMachineModel();
+        MachineModel maModel = heap.getMachineModel();
 
-          // Shrink overlapping zero edge
-          long zeroEdgeOffset = edge.getOffset();
+        // Shrink overlapping zero edge
+        long zeroEdgeOffset = edge.getOffset();
 
-          long zeroEdgeOffset2 = zeroEdgeOffset + edge.getSizeInBits(maModel);
+        long zeroEdgeOffset2 = zeroEdgeOffset + edge.getSizeInBits(maModel);
 
-          if (zeroEdgeOffset < pTargetOffset) {
-            SMGEdgeHasValue newZeroEdge =
-                new SMGEdgeHasValue(Math.toIntExact(pTargetOffset - zeroEdgeOffset),
-                    zeroEdgeOffset, object, 0);
-            heap.addHasValueEdge(newZeroEdge);
-          }
+        if (zeroEdgeOffset < pTargetOffset) {
+          SMGEdgeHasValue newZeroEdge =
+              new SMGEdgeHasValue(Math.toIntExact(pTargetOffset - zeroEdgeOffset),
+                  zeroEdgeOffset, object, 0);
+          heap.addHasValueEdge(newZeroEdge);
+        }
 
-          if (targetRangeSize < zeroEdgeOffset2) {
-            SMGEdgeHasValue newZeroEdge =
-                new SMGEdgeHasValue(Math.toIntExact(zeroEdgeOffset2 - targetRangeSize),
-                    targetRangeSize, object, 0);
-            heap.addHasValueEdge(newZeroEdge);
-          }
+        if (targetRangeSize < zeroEdgeOffset2) {
+          SMGEdgeHasValue newZeroEdge =
+              new SMGEdgeHasValue(Math.toIntExact(zeroEdgeOffset2 - targetRangeSize),
+                  targetRangeSize, object, 0);
+          heap.addHasValueEdge(newZeroEdge);
         }
       }
     }
 
     // Copy all Source edges
-    Set<SMGEdgeHasValue> sourceEdges = getHVEdges(filterSource);
+    Set<SMGEdgeHasValue> sourceEdges =
+        heap.getOverlappingHVEdges(pSource, pSourceOffset, pSourceLastCopyBitOffset);
 
     // Shift the source edge offset depending on the target range offset
     long copyShift = pTargetOffset - pSourceOffset;
 
     for (SMGEdgeHasValue edge : sourceEdges) {
-      if (edge.overlapsWith(pSourceOffset, pSourceLastCopyBitOffset, heap.getMachineModel())) {
-        long offset = edge.getOffset() + copyShift;
-        newSMGState = writeValue(pTarget, offset, edge.getType(), edge.getValue()).getState();
-      }
+      long offset = edge.getOffset() + copyShift;
+      newSMGState = writeValue(pTarget, offset, edge.getType(), edge.getValue()).getState();
     }
 
     performConsistencyCheck(SMGRuntimeCheck.FULL);
@@ -1929,9 +1931,9 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
         explicitValues.get(pKnownVal1).equals(explicitValues.get(pKnownVal2)));
 
     heap.mergeValues(pKnownVal1.getAsInt(), pKnownVal2.getAsInt());
-    SMGKnownExpValue expVal = explicitValues.remove(pKnownVal2);
+    SMGKnownExpValue expVal = explicitValues.get(pKnownVal2);
     if (expVal != null) {
-      explicitValues.put(pKnownVal1, expVal);
+      explicitValues = explicitValues.removeAndCopy(pKnownVal2).putAndCopy(pKnownVal1, expVal);
     }
   }
 
@@ -2017,25 +2019,25 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
    */
   public SMGKnownSymValue putExplicit(SMGKnownSymValue pKey, SMGKnownExpValue pValue) {
 
-    if (explicitValues.inverse().containsKey(pValue)) {
-      SMGKnownSymValue symValue = explicitValues.inverse().get(pValue);
+    if (explicitValues.containsValue(pValue)) {
+      SMGKnownSymValue symValue = explicitValues.getKey(pValue);
 
       if (pKey.getAsInt() != symValue.getAsInt()) {
-        explicitValues.remove(symValue);
+        explicitValues = explicitValues.removeAndCopy(symValue);
         heap.mergeValues(pKey.getAsInt(), symValue.getAsInt());
-        explicitValues.put(pKey, pValue);
+        explicitValues = explicitValues.putAndCopy(pKey, pValue);
         return symValue;
       }
 
       return null;
     }
 
-    explicitValues.put(pKey, pValue);
+    explicitValues = explicitValues.putAndCopy(pKey, pValue);
     return null;
   }
 
   public void clearExplicit(SMGKnownSymValue pKey) {
-    explicitValues.remove(pKey);
+    explicitValues = explicitValues.removeAndCopy(pKey);
   }
 
   boolean isExplicit(int value) {
@@ -2228,8 +2230,13 @@ public class SMGState implements AbstractQueryableState, LatticeAbstractState<SM
   }
 
   public SMGIntersectionResult intersectStates(SMGState pOtherState) {
-    return SMGIntersectStates.intersect(this, heap, pOtherState, pOtherState.heap, explicitValues,
-        pOtherState.explicitValues);
+    return SMGIntersectStates.intersect(
+        this,
+        heap,
+        pOtherState,
+        pOtherState.heap,
+        HashBiMap.create(explicitValues.asMap()),
+        HashBiMap.create(pOtherState.explicitValues.asMap()));
   }
 
   public SMGAbstractionCandidate executeHeapAbstractionOneStep(Set<SMGAbstractionBlock> pResult)
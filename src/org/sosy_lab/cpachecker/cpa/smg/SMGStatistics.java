@@ -38,6 +38,7 @@ public class SMGStatistics extends AbstractStatistics {
     put(pOut, 1, SMGIsLessOrEqual.globalsTimer);
     put(pOut, 1, SMGIsLessOrEqual.stackTimer);
     put(pOut, 1, SMGIsLessOrEqual.heapTimer);
+    put(pOut, 0, SMGAbstractionManager.candidateSearchTimer);
   }
 
   @Override
@@ -23,14 +23,17 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg;
 
+import org.sosy_lab.cpachecker.cpa.smg.util.IdCounter;
 
 public class SMGValueFactory {
-  private static int counter = 0;
+  private static final IdCounter counter = new IdCounter();
   public static Integer getNewValue() {
-    counter++;
-    return Integer.valueOf(counter);
+    return Integer.valueOf(counter.getNewId());
+  }
+  public static IdCounter getIdCounter() {
+    return counter;
   }
   public static void prepareForTest() {
-    counter = 5;
+    counter.reset(5);
   }
 }
\ No newline at end of file
@@ -23,114 +23,157 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.SetMultimap;
+import com.google.common.collect.ImmutableSet;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGExplicitValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownAddVal;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
-import org.sosy_lab.cpachecker.util.Pair;
-
-public class PredRelation {
-  /** The Multimap is used as Bi-Map, i.e. each pair (K,V) is also inserted as pair (V,K). */
-  private final SetMultimap<Pair<Integer, Integer>, SymbolicRelation> smgValuesRelation = HashMultimap.create();
-  private final SetMultimap<Integer, Integer> smgValuesDependency = HashMultimap.create();
-  private final SetMultimap<Integer, ExplicitRelation> smgExplicitValueRelation = HashMultimap.create();
-  private final Map<Integer, Integer> smgValueSizeInBits = new HashMap<>();
-
-
-  /** Copy PredRelation */
-  public void putAll(PredRelation pPred) {
-    smgValuesRelation.putAll(pPred.smgValuesRelation);
-    smgValuesDependency.putAll(pPred.smgValuesDependency);
-    smgExplicitValueRelation.putAll(pPred.smgExplicitValueRelation);
-    smgValueSizeInBits.putAll(pPred.smgValueSizeInBits);
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
+
+/**
+ * This class tracks relations between symbolic values and between symbolic and explicit values.
+ * Implemented as an immutable structure, such that copies of an SMG can share it.
+ */
+public final class PredRelation {
+  /** The Multimap is used as Bi-Map, i.e. each relation is stored for both of its values. */
+  private final PersistentMultimap<Integer, SymbolicRelation> smgValuesRelation;
+  private final PersistentMultimap<Integer, Integer> smgValuesDependency;
+  private final PersistentMultimap<Integer, ExplicitRelation> smgExplicitValueRelation;
+  private final PersistentMap<Integer, Integer> smgValueSizeInBits;
+
+  public PredRelation() {
+    smgValuesRelation = PersistentMultimap.of();
+    smgValuesDependency = PersistentMultimap.of();
+    smgExplicitValueRelation = PersistentMultimap.of();
+    smgValueSizeInBits = PathCopyingPersistentTreeMap.of();
   }
 
-  public void addRelation(SMGSymbolicValue pOne, int pCType1,
+  private PredRelation(
+      PersistentMultimap<Integer, SymbolicRelation> pValuesRelation,
+      PersistentMultimap<Integer, Integer> pValuesDependency,
+      PersistentMultimap<Integer, ExplicitRelation> pExplicitValueRelation,
+      PersistentMap<Integer, Integer> pValueSizeInBits) {
+    smgValuesRelation = pValuesRelation;
+    smgValuesDependency = pValuesDependency;
+    smgExplicitValueRelation = pExplicitValueRelation;
+    smgValueSizeInBits = pValueSizeInBits;
+  }
+
+  public PredRelation addRelationAndCopy(SMGSymbolicValue pOne, int pCType1,
                           SMGSymbolicValue pTwo, int pCType2,
                           BinaryOperator pOperator) {
     //TODO: track address values
     if (!pOne.isUnknown() && !pTwo.isUnknown() &&
         !(pOne instanceof SMGKnownAddVal) && !(pTwo instanceof SMGKnownAddVal)) {
-      addRelation(pOne.getAsInt(), pTwo.getAsInt(), pOperator);
-      addValueSize(pOne.getAsInt(), pCType1);
-      addValueSize(pTwo.getAsInt(), pCType2);
+      return addRelationAndCopy(pOne.getAsInt(), pTwo.getAsInt(), pOperator)
+          .addValueSizeAndCopy(pOne.getAsInt(), pCType1)
+          .addValueSizeAndCopy(pTwo.getAsInt(), pCType2);
     }
+    return this;
   }
 
-  private void addValueSize(Integer pValue, Integer pCType2) {
-    if (!smgValueSizeInBits.containsKey(pValue)) {
-      smgValueSizeInBits.put(pValue, pCType2);
+  private PredRelation addValueSizeAndCopy(Integer pValue, Integer pCType2) {
+    if (pCType2 == null || smgValueSizeInBits.containsKey(pValue)) {
+      return this;
     }
+    return new PredRelation(
+        smgValuesRelation,
+        smgValuesDependency,
+        smgExplicitValueRelation,
+        smgValueSizeInBits.putAndCopy(pValue, pCType2));
   }
 
-  public void addRelation(Integer pOne, Integer pTwo, BinaryOperator pOperator) {
+  public PredRelation addRelationAndCopy(Integer pOne, Integer pTwo, BinaryOperator pOperator) {
     SymbolicRelation relation = new SymbolicRelation(pOne, pTwo, pOperator);
-    if (!smgValuesDependency.containsEntry(pOne, pTwo)) {
-      smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-      smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
-      smgValuesDependency.put(pOne, pTwo);
-      smgValuesDependency.put(pTwo, pOne);
-    } else {
-      if (!smgValuesRelation.containsEntry(Pair.of(pOne, pTwo), relation)) {
-        smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-        smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
-      }
-    }
+    if (smgValuesRelation.contains(pOne, relation)) {
+      return this;
+    }
+    PersistentMultimap<Integer, Integer> dependency = smgValuesDependency;
+    if (!dependency.contains(pOne, pTwo)) {
+      dependency = dependency.putAndCopy(pOne, pTwo).putAndCopy(pTwo, pOne);
+    }
+    return new PredRelation(
+        smgValuesRelation.putAndCopy(pOne, relation).putAndCopy(pTwo, relation),
+        dependency,
+        smgExplicitValueRelation,
+        smgValueSizeInBits);
   }
 
-  public void addExplicitRelation(SMGSymbolicValue pSymbolicValue, Integer pCType1,
+  public PredRelation addExplicitRelationAndCopy(SMGSymbolicValue pSymbolicValue, Integer pCType1,
                                   SMGExplicitValue pExplicitValue, Integer pCType2,
                                   BinaryOperator pOp) {
     assert(pCType1.equals(pCType2));
-    addExplicitRelation(pSymbolicValue.getAsInt(), pExplicitValue, pOp);
-    addValueSize(pSymbolicValue.getAsInt(), pCType1);
+    return addExplicitRelationAndCopy(pSymbolicValue.getAsInt(), pExplicitValue, pOp)
+        .addValueSizeAndCopy(pSymbolicValue.getAsInt(), pCType1);
   }
 
-  public void addExplicitRelation(Integer pSymbolicValue, SMGExplicitValue pExplicitValue,
-                                  BinaryOperator pOp) {
+  public PredRelation addExplicitRelationAndCopy(Integer pSymbolicValue,
+                                  SMGExplicitValue pExplicitValue, BinaryOperator pOp) {
     ExplicitRelation relation = new ExplicitRelation(pSymbolicValue, pExplicitValue, pOp);
-    if (!smgExplicitValueRelation.containsEntry(pSymbolicValue, relation)) {
-      smgExplicitValueRelation.put(pSymbolicValue, relation);
-    }
+    if (smgExplicitValueRelation.contains(pSymbolicValue, relation)) {
+      return this;
+    }
+    return new PredRelation(
+        smgValuesRelation,
+        smgValuesDependency,
+        smgExplicitValueRelation.putAndCopy(pSymbolicValue, relation),
+        smgValueSizeInBits);
   }
 
-  public void removeValue(Integer pValue) {
-    for (Integer pOposit: smgValuesDependency.removeAll(pValue)) {
-
-      smgValuesDependency.remove(pOposit, pValue);
-
-      smgValuesRelation.removeAll(Pair.of(pOposit, pValue));
-      smgValuesRelation.removeAll(Pair.of(pValue, pOposit));
+  /** Removes all symbolic relations and dependencies of the given value. */
+  private PredRelation removeSymbolicRelationsAndCopy(Integer pValue) {
+    PersistentMultimap<Integer, SymbolicRelation> relations =
+        smgValuesRelation.removeAndCopy(pValue);
+    PersistentMultimap<Integer, Integer> dependency = smgValuesDependency.removeAndCopy(pValue);
+    for (Integer oposit : smgValuesDependency.get(pValue)) {
+      dependency = dependency.removeAndCopy(oposit, pValue);
+      for (SymbolicRelation relation : smgValuesRelation.get(oposit)) {
+        if (relation.involves(pValue)) {
+          relations = relations.removeAndCopy(oposit, relation);
+        }
+      }
     }
-    smgExplicitValueRelation.removeAll(pValue);
-    smgValueSizeInBits.remove(pValue);
+    return new PredRelation(
+        relations, dependency, smgExplicitValueRelation, smgValueSizeInBits);
   }
 
-  public void mergeValues(Integer pV1, Integer pV2) {
-    for (Integer relatedValue: smgValuesDependency.removeAll(pV2)) {
-      smgValuesDependency.remove(relatedValue, pV2);
-      smgValuesRelation.removeAll(Pair.of(pV2, relatedValue));
-        //TODO: modify predicates on merge values
-      smgValuesRelation.removeAll(Pair.of(relatedValue, pV2));
-    }
-    for (ExplicitRelation explicitRelation: smgExplicitValueRelation.removeAll(pV2)) {
-      addExplicitRelation(pV1, explicitRelation.explicitValue, explicitRelation.getOperator());
-      addValueSize(pV1, getSymbolicSize(pV2));
-    }
-    smgValueSizeInBits.remove(pV2);
+  public PredRelation removeValueAndCopy(Integer pValue) {
+    PredRelation result = removeSymbolicRelationsAndCopy(pValue);
+    return new PredRelation(
+        result.smgValuesRelation,
+        result.smgValuesDependency,
+        smgExplicitValueRelation.removeAndCopy(pValue),
+        smgValueSizeInBits.removeAndCopy(pValue));
   }
 
+  public PredRelation mergeValuesAndCopy(Integer pV1, Integer pV2) {
+    //TODO: modify predicates on merge values
+    PredRelation result = removeSymbolicRelationsAndCopy(pV2);
+    result =
+        new PredRelation(
+            result.smgValuesRelation,
+            result.smgValuesDependency,
+            smgExplicitValueRelation.removeAndCopy(pV2),
+            smgValueSizeInBits);
+    for (ExplicitRelation explicitRelation : smgExplicitValueRelation.get(pV2)) {
+      result =
+          result
+              .addExplicitRelationAndCopy(
+                  pV1, explicitRelation.explicitValue, explicitRelation.getOperator())
+              .addValueSizeAndCopy(pV1, getSymbolicSize(pV2));
+    }
+    return new PredRelation(
+        result.smgValuesRelation,
+        result.smgValuesDependency,
+        result.smgExplicitValueRelation,
+        result.smgValueSizeInBits.removeAndCopy(pV2));
+  }
 
   public Integer getSymbolicSize(Integer pSymbolic) {
     return smgValueSizeInBits.get(pSymbolic);
@@ -140,12 +183,13 @@ public class PredRelation {
   public Set<Integer> closureDependencyFor(PredRelation pRelation) {
     Set<Integer> result = new HashSet<>();
     Set<Integer> toAdd = new HashSet<>();
-    for (Entry<Integer, Integer> entry : pRelation.smgValuesDependency.entries()) {
+    for (Entry<Integer, ImmutableSet<Integer>> entry : pRelation.smgValuesDependency.entries()) {
       Integer key = entry.getKey();
-      Integer value = entry.getValue();
-      if (key > value) {
-        toAdd.add(key);
-        toAdd.add(value);
+      for (Integer value : entry.getValue()) {
+        if (key > value) {
+          toAdd.add(key);
+          toAdd.add(value);
+        }
       }
     }
     while (!toAdd.isEmpty()) {
@@ -161,7 +205,7 @@ public class PredRelation {
   }
 
   public boolean isEmpty() {
-    return smgExplicitValueRelation.isEmpty() && smgValuesRelation.isEmpty();
+    return smgExplicitValueRelation.size() == 0 && smgValuesRelation.size() == 0;
   }
 
   @Override
@@ -176,7 +220,7 @@ public class PredRelation {
       return false;
     }
     PredRelation other = (PredRelation) obj;
-    return other.smgValuesRelation != null && smgValuesRelation.equals(other.smgValuesRelation);
+    return smgValuesRelation.equals(other.smgValuesRelation);
   }
 
   @Override
@@ -192,45 +236,43 @@ public class PredRelation {
     return smgExplicitValueRelation.values();
   }
 
-  public Set<Entry<Pair<Integer, Integer>, SymbolicRelation>> getValuesRelations() {
-    return smgValuesRelation.entries();
+  /** Returns all relations between two different symbolic values, each of them only once. */
+  public Set<SymbolicRelation> getValuesRelations() {
+    ImmutableSet.Builder<SymbolicRelation> result = ImmutableSet.builder();
+    for (Entry<Integer, ImmutableSet<SymbolicRelation>> entry : smgValuesRelation.entries()) {
+      for (SymbolicRelation relation : entry.getValue()) {
+        // each relation is stored for both of its values, we take it from the smaller one
+        if (entry.getKey().equals(relation.getSmallerValue())
+            && !relation.valueOne.equals(relation.valueTwo)) {
+          result.add(relation);
+        }
+      }
+    }
+    return result.build();
   }
 
   public boolean isLessOrEqual(PredRelation pPathPredicateRelation) {
-    if (smgValuesDependency.size() > pPathPredicateRelation.smgValuesDependency.size()) {
-      return false;
-    }
-    if (smgExplicitValueRelation.size() > pPathPredicateRelation.smgExplicitValueRelation.size()) {
-      return false;
-    }
-    if (smgValuesRelation.size() > pPathPredicateRelation.smgValuesDependency.size()) {
-      return false;
-    }
-    if (!Multimaps.filterEntries(smgValuesDependency, new FilterPredicate<>(pPathPredicateRelation.smgValuesDependency)).isEmpty()) {
-      return false;
+    return isContained(smgValuesDependency, pPathPredicateRelation.smgValuesDependency)
+        && isContained(smgExplicitValueRelation, pPathPredicateRelation.smgExplicitValueRelation)
+        && isContained(smgValuesRelation, pPathPredicateRelation.smgValuesRelation);
+  }
+
+  private static <V> boolean isContained(
+      PersistentMultimap<Integer, V> pSmaller, PersistentMultimap<Integer, V> pBigger) {
+    if (pSmaller == pBigger) {
+      return true;
     }
-    if (!Multimaps.filterEntries(smgExplicitValueRelation, new FilterPredicate<>(pPathPredicateRelation.smgExplicitValueRelation)).isEmpty()) {
+    if (pSmaller.size() > pBigger.size()) {
       return false;
     }
-    if (!Multimaps.filterEntries(smgValuesRelation, new FilterPredicate<>(pPathPredicateRelation.smgValuesRelation)).isEmpty()) {
-      return false;
+    for (Entry<Integer, ImmutableSet<V>> entry : pSmaller.entries()) {
+      if (!pBigger.get(entry.getKey()).containsAll(entry.getValue())) {
+        return false;
+      }
     }
     return true;
   }
 
-  public static class FilterPredicate<K, V> implements Predicate<Entry<K, V>> {
-    private final Multimap<K, V> filterAgainst;
-
-    public FilterPredicate(Multimap<K, V> filterAgainst) {
-      this.filterAgainst = filterAgainst;
-    }
-
-    @Override
-    public boolean apply(Entry<K, V> arg0) {
-      return !filterAgainst.containsEntry(arg0.getKey(), arg0.getValue());
-    }
-  }
-
   static public class SymbolicRelation {
     Integer valueOne;
     Integer valueTwo;
@@ -257,6 +299,14 @@ public class PredRelation {
       return valueTwo;
     }
 
+    private Integer getSmallerValue() {
+      return valueOne <= valueTwo ? valueOne : valueTwo;
+    }
+
+    private boolean involves(Integer pValue) {
+      return valueOne.equals(pValue) || valueTwo.equals(pValue);
+    }
+
     @Override
     public boolean equals(Object pO) {
       if (this == pO) {
@@ -368,9 +418,12 @@ public class PredRelation {
     }
   }
 
-  public void clear() {
-    smgExplicitValueRelation.clear();
-    smgValuesDependency.clear();
-    smgValuesRelation.clear();
+  /** Returns a copy without any relations, the sizes of the symbolic values are kept. */
+  public PredRelation clearAndCopy() {
+    return new PredRelation(
+        PersistentMultimap.of(),
+        PersistentMultimap.of(),
+        PersistentMultimap.of(),
+        smgValueSizeInBits);
   }
 }
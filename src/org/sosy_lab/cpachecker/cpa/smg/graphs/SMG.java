@@ -82,7 +82,7 @@ public class SMG {
   public SMG(final MachineModel pMachineModel) {
     objects = PersistentSet.of();
     values = PersistentSet.of();
-    hv_edges = new SMGHasValueEdgeSet();
+    hv_edges = new SMGHasValueEdgeSet(pMachineModel);
     pt_edges = new SMGPointsToMap();
     object_validity = PathCopyingPersistentTreeMap.of();
     objectAllocationIdentity = PathCopyingPersistentTreeMap.of();
@@ -104,8 +104,8 @@ public class SMG {
     hv_edges = pHeap.hv_edges;
     pt_edges = pHeap.pt_edges;
     neq = pHeap.neq;
-    pathPredicate.putAll(pHeap.pathPredicate);
-    errorPredicate.putAll(pHeap.errorPredicate);
+    pathPredicate = pHeap.pathPredicate;
+    errorPredicate = pHeap.errorPredicate;
     object_validity = pHeap.object_validity;
     objectAllocationIdentity = pHeap.objectAllocationIdentity;
     objects = pHeap.objects;
@@ -169,8 +169,8 @@ public class SMG {
     Preconditions.checkArgument(pValue != 0, "Can not remove NULL from SMG");
     values = values.removeAndCopy(pValue);
     neq = neq.removeValueAndCopy(pValue);
-    pathPredicate.removeValue(pValue);
-    errorPredicate.removeValue(pValue);
+    pathPredicate = pathPredicate.removeValueAndCopy(pValue);
+    errorPredicate = errorPredicate.removeValueAndCopy(pValue);
   }
   /**
    * Remove pObj from the SMG. This method does not remove
@@ -309,7 +309,7 @@ public class SMG {
    * Keeps consistency: no
    */
   public void replaceHVSet(Set<SMGEdgeHasValue> pNewHV) {
-    SMGHasValueEdges tmp = new SMGHasValueEdgeSet();
+    SMGHasValueEdges tmp = new SMGHasValueEdgeSet(machine_model);
     for (SMGEdgeHasValue edge : pNewHV) {
       tmp = tmp.addEdgeAndCopy(edge);
     }
@@ -333,9 +333,11 @@ public class SMG {
                                    BinaryOperator pOp, CFAEdge pEdge) {
     CAssumeEdge assumeEdge = (CAssumeEdge) pEdge;
     if (assumeEdge.getTruthAssumption()) {
-      pathPredicate.addRelation(pV1, pCType1, pV2, pCType2, pOp);
+      pathPredicate = pathPredicate.addRelationAndCopy(pV1, pCType1, pV2, pCType2, pOp);
     } else {
-      pathPredicate.addRelation(pV1, pCType1, pV2, pCType2, pOp.getOppositLogicalOperator());
+      pathPredicate =
+          pathPredicate.addRelationAndCopy(
+              pV1, pCType1, pV2, pCType2, pOp.getOppositLogicalOperator());
     }
   }
 
@@ -345,9 +347,17 @@ public class SMG {
     if (pEdge instanceof CAssumeEdge) {
       CAssumeEdge assumeEdge = (CAssumeEdge) pEdge;
       if (assumeEdge.getTruthAssumption()) {
-        pathPredicate.addExplicitRelation(pSymbolicValue, pCType1, pExplicitValue, pCType2, pOp);
+        pathPredicate =
+            pathPredicate.addExplicitRelationAndCopy(
+                pSymbolicValue, pCType1, pExplicitValue, pCType2, pOp);
       } else {
-        pathPredicate.addExplicitRelation(pSymbolicValue, pCType1, pExplicitValue, pCType2, pOp.getOppositLogicalOperator());
+        pathPredicate =
+            pathPredicate.addExplicitRelationAndCopy(
+                pSymbolicValue,
+                pCType1,
+                pExplicitValue,
+                pCType2,
+                pOp.getOppositLogicalOperator());
       }
     }
   }
@@ -358,7 +368,9 @@ public class SMG {
 
   public void addErrorRelation(SMGSymbolicValue pSMGSymbolicValue, Integer pCType1,
                                SMGExplicitValue pExplicitValue, Integer pCType2) {
-    errorPredicate.addExplicitRelation(pSMGSymbolicValue, pCType1, pExplicitValue, pCType2, BinaryOperator.GREATER_THAN);
+    errorPredicate =
+        errorPredicate.addExplicitRelationAndCopy(
+            pSMGSymbolicValue, pCType1, pExplicitValue, pCType2, BinaryOperator.GREATER_THAN);
   }
 
   public PredRelation getErrorPredicateRelation() {
@@ -408,6 +420,20 @@ public class SMG {
     return ImmutableSet.copyOf(pFilter.filter(hv_edges));
   }
 
+  /**
+   * Getter for obtaining the Has-Value edges of an object that overlap with a range of the object.
+   * Constant.
+   *
+   * @param pObject the object of the edges
+   * @param pStart the first offset of the range
+   * @param pEnd the offset after the last offset of the range
+   * @return A set of Has-Value edges of pObject that overlap with the range
+   */
+  final public Set<SMGEdgeHasValue> getOverlappingHVEdges(
+      SMGObject pObject, long pStart, long pEnd) {
+    return hv_edges.getOverlappingEdges(pObject, pStart, pEnd);
+  }
+
   public Set<SMGEdgePointsTo> getPtEdges(SMGEdgePointsToFilter pFilter) {
     return ImmutableSet.copyOf(pFilter.filter(pt_edges));
   }
@@ -566,7 +592,7 @@ public class SMG {
     }
 
     neq = neq.mergeValuesAndCopy(pV1, pV2);
-    pathPredicate.mergeValues(pV1, pV2);
+    pathPredicate = pathPredicate.mergeValuesAndCopy(pV1, pV2);
 
     removeValue(pV2);
 
@@ -607,10 +633,10 @@ public class SMG {
 
   protected void clearValuesHvePte() {
     values = PersistentSet.of();
-    hv_edges = new SMGHasValueEdgeSet();
+    hv_edges = new SMGHasValueEdgeSet(machine_model);
     pt_edges = new SMGPointsToMap();
     neq = new NeqRelation();
-    pathPredicate.clear();
+    pathPredicate = pathPredicate.clearAndCopy();
     initializeNullAddress();
   }
 
@@ -24,52 +24,120 @@
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import java.util.Collection;
 import javax.annotation.Nullable;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
+import org.sosy_lab.common.collect.PersistentSortedMap;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
-import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
 
+/**
+ * The has-value-edges of an SMG, indexed by their object and their offset.
+ *
+ * <p>For each object, we also count its edges per size, such that the edges overlapping with a
+ * range of the object can be found by only looking at the edges with an offset between the start
+ * of the range minus the size of the widest edge and the end of the range.
+ */
 public class SMGHasValueEdgeSet implements SMGHasValueEdges {
 
-  private final PersistentMultimap<SMGObject, SMGEdgeHasValue> map;
+  private final MachineModel machineModel;
+  private final PersistentMap<SMGObject, ObjectEdges> map;
 
-  public SMGHasValueEdgeSet() {
-    map = PersistentMultimap.of();
+  public SMGHasValueEdgeSet(MachineModel pMachineModel) {
+    machineModel = pMachineModel;
+    map = PathCopyingPersistentTreeMap.of();
   }
 
-  private SMGHasValueEdgeSet(PersistentMultimap<SMGObject, SMGEdgeHasValue> pMap) {
+  private SMGHasValueEdgeSet(
+      MachineModel pMachineModel, PersistentMap<SMGObject, ObjectEdges> pMap) {
+    machineModel = pMachineModel;
     map = pMap;
   }
 
   @Override
   public SMGHasValueEdgeSet removeAllEdgesOfObjectAndCopy(SMGObject obj) {
-    return new SMGHasValueEdgeSet(map.removeAndCopy(obj));
+    return new SMGHasValueEdgeSet(machineModel, map.removeAndCopy(obj));
   }
 
   @Override
   public SMGHasValueEdgeSet addEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    return new SMGHasValueEdgeSet(map.putAndCopy(pEdge.getObject(), pEdge));
+    ObjectEdges edges = map.get(pEdge.getObject());
+    if (edges == null) {
+      edges = ObjectEdges.EMPTY;
+    }
+    ObjectEdges updated = edges.add(pEdge, pEdge.getSizeInBits(machineModel));
+    if (edges == updated) {
+      return this;
+    }
+    return new SMGHasValueEdgeSet(machineModel, map.putAndCopy(pEdge.getObject(), updated));
   }
 
   @Override
   public SMGHasValueEdgeSet removeEdgeAndCopy(SMGEdgeHasValue pEdge) {
-    PersistentMultimap<SMGObject, SMGEdgeHasValue> updated =
-        map.removeAndCopy(pEdge.getObject(), pEdge);
-    if (map == updated) {
+    ObjectEdges edges = map.get(pEdge.getObject());
+    if (edges == null) {
       return this;
+    }
+    ObjectEdges updated = edges.remove(pEdge, pEdge.getSizeInBits(machineModel));
+    if (edges == updated) {
+      return this;
+    } else if (updated.isEmpty()) {
+      return new SMGHasValueEdgeSet(machineModel, map.removeAndCopy(pEdge.getObject()));
     } else {
-      return new SMGHasValueEdgeSet(updated);
+      return new SMGHasValueEdgeSet(machineModel, map.putAndCopy(pEdge.getObject(), updated));
     }
   }
 
   @Override
   public ImmutableSet<SMGEdgeHasValue> getHvEdges() {
-    return map.values();
+    ImmutableSet.Builder<SMGEdgeHasValue> result = ImmutableSet.builder();
+    for (ObjectEdges edges : map.values()) {
+      edges.addAllTo(result);
+    }
+    return result.build();
   }
 
   @Override
   public @Nullable ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject) {
-    return map.get(pObject);
+    ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    return edges.getAllEdges();
+  }
+
+  @Override
+  public ImmutableSet<SMGEdgeHasValue> getEdgesForObjectAtOffset(SMGObject pObject, long pOffset) {
+    ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet<SMGEdgeHasValue> result = edges.byOffset.get(pOffset);
+    return result == null ? ImmutableSet.of() : result;
+  }
+
+  @Override
+  public ImmutableSet<SMGEdgeHasValue> getOverlappingEdges(
+      SMGObject pObject, long pStart, long pEnd) {
+    ObjectEdges edges = map.get(pObject);
+    if (edges == null) {
+      return ImmutableSet.of();
+    }
+    // edges starting at pStart always overlap, even if the range or the edge is empty
+    long from = pStart - Math.max(1, edges.getMaxSizeInBits()) + 1;
+    long to = Math.max(pEnd, pStart + 1);
+    ImmutableSet.Builder<SMGEdgeHasValue> result = ImmutableSet.builder();
+    for (ImmutableSet<SMGEdgeHasValue> edgesAtOffset : edges.byOffset.subMap(from, to).values()) {
+      for (SMGEdgeHasValue edge : edgesAtOffset) {
+        if (edge.overlapsWith(pStart, pEnd, machineModel)) {
+          result.add(edge);
+        }
+      }
+    }
+    return result.build();
   }
 
   @Override
@@ -90,4 +158,105 @@ public class SMGHasValueEdgeSet implements SMGHasValueEdges {
   public String toString() {
     return map.toString();
   }
-}
\ No newline at end of file
+
+  /** The edges of a single object, sorted by their offset. */
+  private static final class ObjectEdges {
+
+    private static final ObjectEdges EMPTY =
+        new ObjectEdges(PathCopyingPersistentTreeMap.of(), PathCopyingPersistentTreeMap.of());
+
+    private final PersistentSortedMap<Long, ImmutableSet<SMGEdgeHasValue>> byOffset;
+
+    /** The number of edges of the object for each size. */
+    private final PersistentSortedMap<Integer, Integer> sizesInBits;
+
+    /** All edges of the object, computed lazily (there is no need for synchronization). */
+    private @Nullable ImmutableSet<SMGEdgeHasValue> allEdges = null;
+
+    private ObjectEdges(
+        PersistentSortedMap<Long, ImmutableSet<SMGEdgeHasValue>> pByOffset,
+        PersistentSortedMap<Integer, Integer> pSizesInBits) {
+      byOffset = pByOffset;
+      sizesInBits = pSizesInBits;
+    }
+
+    private boolean isEmpty() {
+      return byOffset.isEmpty();
+    }
+
+    private int getMaxSizeInBits() {
+      return sizesInBits.isEmpty() ? 0 : sizesInBits.lastKey();
+    }
+
+    private ObjectEdges add(SMGEdgeHasValue pEdge, int pSizeInBits) {
+      ImmutableSet<SMGEdgeHasValue> old = byOffset.get(pEdge.getOffset());
+      if (old != null && old.contains(pEdge)) {
+        return this;
+      }
+      ImmutableSet<SMGEdgeHasValue> fresh =
+          old == null
+              ? ImmutableSet.of(pEdge)
+              : ImmutableSet.<SMGEdgeHasValue>builder().addAll(old).add(pEdge).build();
+      Integer count = sizesInBits.get(pSizeInBits);
+      return new ObjectEdges(
+          byOffset.putAndCopy(pEdge.getOffset(), fresh),
+          sizesInBits.putAndCopy(pSizeInBits, count == null ? 1 : count + 1));
+    }
+
+    private ObjectEdges remove(SMGEdgeHasValue pEdge, int pSizeInBits) {
+      ImmutableSet<SMGEdgeHasValue> old = byOffset.get(pEdge.getOffset());
+      if (old == null || !old.contains(pEdge)) {
+        return this;
+      }
+      ImmutableSet<SMGEdgeHasValue> fresh =
+          ImmutableSet.copyOf(Iterables.filter(old, e -> !e.equals(pEdge)));
+      int count = sizesInBits.get(pSizeInBits);
+      PersistentSortedMap<Integer, Integer> newSizesInBits =
+          count == 1
+              ? sizesInBits.removeAndCopy(pSizeInBits)
+              : sizesInBits.putAndCopy(pSizeInBits, count - 1);
+      if (fresh.isEmpty()) {
+        return new ObjectEdges(byOffset.removeAndCopy(pEdge.getOffset()), newSizesInBits);
+      } else {
+        return new ObjectEdges(byOffset.putAndCopy(pEdge.getOffset(), fresh), newSizesInBits);
+      }
+    }
+
+    private void addAllTo(ImmutableSet.Builder<SMGEdgeHasValue> pBuilder) {
+      if (allEdges != null) {
+        pBuilder.addAll(allEdges);
+        return;
+      }
+      for (Collection<SMGEdgeHasValue> edges : byOffset.values()) {
+        pBuilder.addAll(edges);
+      }
+    }
+
+    private ImmutableSet<SMGEdgeHasValue> getAllEdges() {
+      ImmutableSet<SMGEdgeHasValue> result = allEdges;
+      if (result == null) {
+        ImmutableSet.Builder<SMGEdgeHasValue> builder = ImmutableSet.builder();
+        addAllTo(builder);
+        result = builder.build();
+        allEdges = result;
+      }
+      return result;
+    }
+
+    // the sizes are determined by the edges and ignored here
+    @Override
+    public int hashCode() {
+      return byOffset.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof ObjectEdges && byOffset.equals(((ObjectEdges) pObj).byOffset);
+    }
+
+    @Override
+    public String toString() {
+      return byOffset.values().toString();
+    }
+  }
+}
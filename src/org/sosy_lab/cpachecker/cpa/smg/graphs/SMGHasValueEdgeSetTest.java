@@ -0,0 +1,153 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2016  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.graphs;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CType;
+import org.sosy_lab.cpachecker.cpa.smg.AnonymousTypes;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
+
+public class SMGHasValueEdgeSetTest {
+
+  private static final MachineModel MODEL = MachineModel.LINUX64;
+
+  private final CType type32b = AnonymousTypes.createTypeWithLength(32);
+  private final SMGObject object = new SMGRegion(256, "object");
+  private final SMGObject otherObject = new SMGRegion(256, "other object");
+
+  /** The overlapping edges must be the same as when checking every edge of the object. */
+  private void assertOverlappingEdgesOfObject(SMGHasValueEdges pEdges) {
+    for (long start = 0; start < 256; start += 8) {
+      for (long end = start; end <= 256; end += 8) {
+        for (SMGEdgeHasValue edge : pEdges.getEdgesForObject(object)) {
+          if (edge.overlapsWith(start, end, MODEL)) {
+            assertThat(pEdges.getOverlappingEdges(object, start, end)).contains(edge);
+          } else {
+            assertThat(pEdges.getOverlappingEdges(object, start, end)).doesNotContain(edge);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testEdgesAtOffset() {
+    SMGEdgeHasValue at0 = new SMGEdgeHasValue(type32b, 0, object, 1);
+    SMGEdgeHasValue at32 = new SMGEdgeHasValue(type32b, 32, object, 2);
+    SMGEdgeHasValue otherAt32 = new SMGEdgeHasValue(type32b, 32, otherObject, 3);
+
+    SMGHasValueEdges edges =
+        new SMGHasValueEdgeSet(MODEL)
+            .addEdgeAndCopy(at0)
+            .addEdgeAndCopy(at32)
+            .addEdgeAndCopy(otherAt32);
+
+    assertThat(edges.getEdgesForObjectAtOffset(object, 32)).containsExactly(at32);
+    assertThat(edges.getEdgesForObjectAtOffset(object, 64)).isEmpty();
+    assertThat(edges.getEdgesForObject(object)).containsExactly(at0, at32);
+    assertThat(edges.getHvEdges()).containsExactly(at0, at32, otherAt32);
+
+    edges = edges.removeEdgeAndCopy(at32);
+    assertThat(edges.getEdgesForObjectAtOffset(object, 32)).isEmpty();
+    assertThat(edges.getEdgesForObject(object)).containsExactly(at0);
+  }
+
+  @Test
+  public void testOverlappingEdges() {
+    SMGEdgeHasValue zeroEdge = new SMGEdgeHasValue(128, 0, object, 0);
+    SMGEdgeHasValue at96 = new SMGEdgeHasValue(type32b, 96, object, 1);
+    SMGEdgeHasValue at160 = new SMGEdgeHasValue(type32b, 160, object, 2);
+    SMGEdgeHasValue otherAt96 = new SMGEdgeHasValue(type32b, 96, otherObject, 3);
+
+    SMGHasValueEdges edges =
+        new SMGHasValueEdgeSet(MODEL)
+            .addEdgeAndCopy(zeroEdge)
+            .addEdgeAndCopy(at96)
+            .addEdgeAndCopy(at160)
+            .addEdgeAndCopy(otherAt96);
+
+    assertOverlappingEdgesOfObject(edges);
+
+    assertThat(edges.getOverlappingEdges(object, 120, 136)).containsExactly(zeroEdge, at96);
+    assertThat(edges.getOverlappingEdges(otherObject, 0, 256)).containsExactly(otherAt96);
+  }
+
+  @Test
+  public void testOverlappingEdgesAfterRemoval() {
+    SMGEdgeHasValue zeroAt0 = new SMGEdgeHasValue(128, 0, object, 0);
+    SMGEdgeHasValue zeroAt128 = new SMGEdgeHasValue(128, 128, object, 0);
+    SMGEdgeHasValue at96 = new SMGEdgeHasValue(type32b, 96, object, 1);
+    SMGEdgeHasValue at224 = new SMGEdgeHasValue(type32b, 224, object, 2);
+
+    SMGHasValueEdges edges =
+        new SMGHasValueEdgeSet(MODEL)
+            .addEdgeAndCopy(zeroAt0)
+            .addEdgeAndCopy(zeroAt128)
+            .addEdgeAndCopy(at96)
+            .addEdgeAndCopy(at224);
+
+    // another edge of the same size is still there
+    edges = edges.removeEdgeAndCopy(zeroAt0);
+    assertOverlappingEdgesOfObject(edges);
+    assertThat(edges.getOverlappingEdges(object, 200, 208)).containsExactly(zeroAt128);
+
+    // the widest edges are gone
+    edges = edges.removeEdgeAndCopy(zeroAt128);
+    assertOverlappingEdgesOfObject(edges);
+    assertThat(edges.getOverlappingEdges(object, 96, 256)).containsExactly(at96, at224);
+
+    edges = edges.addEdgeAndCopy(zeroAt0);
+    assertOverlappingEdgesOfObject(edges);
+    assertThat(edges.getOverlappingEdges(object, 120, 136)).containsExactly(zeroAt0, at96);
+  }
+
+  @Test
+  public void testOverlappingEdgesOfSizeZero() {
+    SMGEdgeHasValue emptyAt32 = new SMGEdgeHasValue(0, 32, object, 1);
+    SMGEdgeHasValue emptyAt64 = new SMGEdgeHasValue(0, 64, object, 2);
+
+    SMGHasValueEdges edges =
+        new SMGHasValueEdgeSet(MODEL).addEdgeAndCopy(emptyAt32).addEdgeAndCopy(emptyAt64);
+
+    assertOverlappingEdgesOfObject(edges);
+    assertThat(edges.getOverlappingEdges(object, 32, 32)).containsExactly(emptyAt32);
+    assertThat(edges.getOverlappingEdges(object, 32, 96)).containsExactly(emptyAt32, emptyAt64);
+  }
+
+  @Test
+  public void testEdgesForObjectAreCached() {
+    SMGHasValueEdges edges =
+        new SMGHasValueEdgeSet(MODEL)
+            .addEdgeAndCopy(new SMGEdgeHasValue(type32b, 0, object, 1))
+            .addEdgeAndCopy(new SMGEdgeHasValue(type32b, 32, object, 2));
+
+    assertThat(edges.getEdgesForObject(object)).hasSize(2);
+    assertThat(edges.getEdgesForObject(object)).isSameAs(edges.getEdgesForObject(object));
+  }
+}
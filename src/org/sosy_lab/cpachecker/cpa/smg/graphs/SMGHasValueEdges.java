@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
 import com.google.common.collect.ImmutableSet;
 import javax.annotation.Nullable;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGObject;
 
@@ -46,4 +47,13 @@ public interface SMGHasValueEdges {
   public ImmutableSet<SMGEdgeHasValue> getHvEdges();
 
   public @Nullable ImmutableSet<SMGEdgeHasValue> getEdgesForObject(SMGObject pObject);
+
+  public ImmutableSet<SMGEdgeHasValue> getEdgesForObjectAtOffset(SMGObject pObject, long pOffset);
+
+  /**
+   * Returns all edges of the object that overlap with the range from pStart (inclusive) to pEnd
+   * (exclusive), as defined by {@link SMGEdgeHasValue#overlapsWith(long, long, MachineModel)}.
+   */
+  public ImmutableSet<SMGEdgeHasValue> getOverlappingEdges(
+      SMGObject pObject, long pStart, long pEnd);
 }
\ No newline at end of file
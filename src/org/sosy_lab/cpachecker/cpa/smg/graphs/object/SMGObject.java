@@ -25,6 +25,7 @@ package org.sosy_lab.cpachecker.cpa.smg.graphs.object;
 
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedList;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
+import org.sosy_lab.cpachecker.cpa.smg.util.IdCounter;
 
 /**
  * SMGs consists of two types of nodes: {@link SMGObject}s and {@link SMGValue}s. {@link SMGObject}s
@@ -37,7 +38,7 @@ public abstract class SMGObject implements Comparable<SMGObject> {
   private final String label;
   private final int level;
   private final SMGObjectKind kind;
-  private static int count;
+  private static final IdCounter idCounter = new IdCounter();
   private final int id;
 
   public SMGObjectKind getKind() {
@@ -100,8 +101,12 @@ public abstract class SMGObject implements Comparable<SMGObject> {
   }
 
   private static int getNewId() {
-    count++;
-    return count;
+    return idCounter.getNewId();
+  }
+
+  /** Returns the counter for the ids of new objects. */
+  public static IdCounter getIdCounter() {
+    return idCounter;
   }
 
   public int getId() {
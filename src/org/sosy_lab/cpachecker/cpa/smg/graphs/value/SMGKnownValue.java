@@ -27,7 +27,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.math.BigInteger;
 
-public abstract class SMGKnownValue {
+/**
+ * Known values are ordered by their numeric value. An explicit value is ordered before a symbolic
+ * value with the same numeric value, such that the ordering is consistent with equals.
+ */
+public abstract class SMGKnownValue implements Comparable<SMGKnownValue> {
 
   /** A symbolic value representing an explicit value. */
   private final BigInteger value;
@@ -47,6 +51,16 @@ public abstract class SMGKnownValue {
     return value.hashCode();
   }
 
+  @Override
+  public int compareTo(SMGKnownValue pOther) {
+    int result = value.compareTo(pOther.value);
+    if (result == 0) {
+      result =
+          Boolean.compare(this instanceof SMGSymbolicValue, pOther instanceof SMGSymbolicValue);
+    }
+    return result;
+  }
+
   public final BigInteger getValue() {
     return value;
   }
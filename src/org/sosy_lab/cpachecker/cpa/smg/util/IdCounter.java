@@ -0,0 +1,88 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.util;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A counter for unique ids, e.g., of SMG objects and values.
+ *
+ * <p>Ids are taken from a global counter. A thread that only creates temporary ids, which are
+ * discarded when it is done, can instead switch to a local counter that starts at a given value.
+ * The ids created by this thread then do not depend on the ids that other threads create at the
+ * same time, e.g., in a parallel search. Temporary ids of different threads may coincide.
+ */
+public final class IdCounter {
+
+  private final AtomicInteger global = new AtomicInteger(0);
+  private final ThreadLocal<int[]> local = new ThreadLocal<>();
+
+  public int getNewId() {
+    int[] localCounter = local.get();
+    if (localCounter != null) {
+      return ++localCounter[0];
+    }
+    return global.incrementAndGet();
+  }
+
+  /** Returns the last id that was taken from the global counter. */
+  public int getLastId() {
+    return global.get();
+  }
+
+  public void reset(int pLastId) {
+    global.set(pLastId);
+  }
+
+  /**
+   * Let the current thread create the ids following the given id from a local counter, until
+   * {@link #endLocalIds()} is called.
+   */
+  public void beginLocalIds(int pLastId) {
+    checkState(local.get() == null, "local ids already in use");
+    local.set(new int[] {pLastId});
+  }
+
+  /**
+   * Let the current thread use the global counter again.
+   *
+   * @return the last id that was taken from the local counter.
+   */
+  public int endLocalIds() {
+    int[] localCounter = local.get();
+    checkState(localCounter != null, "local ids not in use");
+    local.remove();
+    return localCounter[0];
+  }
+
+  /**
+   * Make sure that the global counter does not create the given id or any lower id again, e.g.,
+   * because some of them are used as temporary ids.
+   */
+  public void skipTo(int pLastId) {
+    global.accumulateAndGet(pLastId, Math::max);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map.Entry;
+import org.junit.Test;
+
+public class PersistentBiMapTest {
+
+  /** Checks that the inverse lookup of the bimap matches its entries. */
+  private static <K, V> void assertInverseConsistent(PersistentBiMap<K, V> pMap) {
+    for (Entry<K, V> entry : pMap.entrySet()) {
+      assertThat(pMap.containsValue(entry.getValue())).isTrue();
+      assertThat(pMap.getKey(entry.getValue())).isEqualTo(entry.getKey());
+    }
+  }
+
+  @Test
+  public void put() {
+    PersistentBiMap<Integer, String> map = PersistentBiMap.<Integer, String>of();
+    assertThat(map.isEmpty()).isTrue();
+
+    map = map.putAndCopy(1, "a").putAndCopy(2, "b");
+    assertThat(map.asMap()).containsExactly(1, "a", 2, "b");
+    assertThat(map.getKey("a")).isEqualTo(1);
+    assertThat(map.getKey("b")).isEqualTo(2);
+    assertThat(map.getKey("c")).isNull();
+    assertInverseConsistent(map);
+  }
+
+  @Test
+  public void putExisting() {
+    PersistentBiMap<Integer, String> map = PersistentBiMap.<Integer, String>of().putAndCopy(1, "a");
+    assertThat(map.putAndCopy(1, "a")).isSameAs(map);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void putValueOfOtherKey() {
+    PersistentBiMap.<Integer, String>of().putAndCopy(1, "a").putAndCopy(2, "a");
+  }
+
+  @Test
+  public void overwrite() {
+    PersistentBiMap<Integer, String> map =
+        PersistentBiMap.<Integer, String>of().putAndCopy(1, "a").putAndCopy(2, "b");
+
+    map = map.putAndCopy(1, "c");
+    assertThat(map.asMap()).containsExactly(1, "c", 2, "b");
+    assertThat(map.containsValue("a")).isFalse();
+    assertThat(map.getKey("a")).isNull();
+    assertThat(map.getKey("c")).isEqualTo(1);
+    assertInverseConsistent(map);
+
+    // the old value is free again and can be bound to another key
+    map = map.putAndCopy(3, "a");
+    assertThat(map.getKey("a")).isEqualTo(3);
+    assertInverseConsistent(map);
+  }
+
+  @Test
+  public void remove() {
+    PersistentBiMap<Integer, String> map =
+        PersistentBiMap.<Integer, String>of().putAndCopy(1, "a").putAndCopy(2, "b");
+
+    assertThat(map.removeAndCopy(3)).isSameAs(map);
+
+    map = map.removeAndCopy(1);
+    assertThat(map.asMap()).containsExactly(2, "b");
+    assertThat(map.containsKey(1)).isFalse();
+    assertThat(map.containsValue("a")).isFalse();
+    assertThat(map.getKey("a")).isNull();
+    assertInverseConsistent(map);
+
+    map = map.removeAndCopy(2);
+    assertThat(map.isEmpty()).isTrue();
+    assertThat(map.containsValue("b")).isFalse();
+  }
+
+  @Test
+  public void persistence() {
+    PersistentBiMap<Integer, String> original =
+        PersistentBiMap.<Integer, String>of().putAndCopy(1, "a");
+
+    PersistentBiMap<Integer, String> changed = original.putAndCopy(1, "b").putAndCopy(2, "c");
+    PersistentBiMap<Integer, String> removed = original.removeAndCopy(1);
+
+    assertThat(original.asMap()).containsExactly(1, "a");
+    assertThat(original.getKey("a")).isEqualTo(1);
+    assertThat(original.getKey("b")).isNull();
+    assertThat(changed.asMap()).containsExactly(1, "b", 2, "c");
+    assertThat(changed.getKey("a")).isNull();
+    assertThat(removed.isEmpty()).isTrue();
+    assertInverseConsistent(changed);
+  }
+
+  @Test
+  public void copyOf() {
+    PersistentBiMap<Integer, String> map = PersistentBiMap.copyOf(ImmutableMap.of(1, "a", 2, "b"));
+    assertThat(map.size()).isEqualTo(2);
+    assertThat(map)
+        .isEqualTo(PersistentBiMap.<Integer, String>of().putAndCopy(2, "b").putAndCopy(1, "a"));
+    assertInverseConsistent(map);
+  }
+}
@@ -51,6 +51,7 @@ import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
 import org.sosy_lab.cpachecker.cfa.types.c.CSimpleType;
 import org.sosy_lab.cpachecker.core.defaults.LatticeAbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractQueryableState;
+import org.sosy_lab.cpachecker.core.interfaces.CoverageIndexable;
 import org.sosy_lab.cpachecker.core.interfaces.FormulaReportingState;
 import org.sosy_lab.cpachecker.core.interfaces.Graphable;
 import org.sosy_lab.cpachecker.core.interfaces.PseudoPartitionable;
@@ -76,7 +77,7 @@ import org.sosy_lab.java_smt.api.FormulaType.FloatingPointType;
 public class ValueAnalysisState
     implements AbstractQueryableState, FormulaReportingState,
         ForgetfulState<ValueAnalysisInformation>, Serializable, Graphable,
-        LatticeAbstractState<ValueAnalysisState>, PseudoPartitionable {
+        LatticeAbstractState<ValueAnalysisState>, PseudoPartitionable, CoverageIndexable {
 
   private static final long serialVersionUID = -3152134511524554357L;
 
@@ -95,6 +96,11 @@ public class ValueAnalysisState
 
   private transient PersistentMap<MemoryLocation, Type> memLocToType = PathCopyingPersistentTreeMap.of();
 
+  /** the map for which {@link #coverageSignature} was computed, used for lazy recomputation */
+  private transient @Nullable PersistentMap<MemoryLocation, Value> coverageSignatureMap = null;
+
+  private transient long coverageSignature = 0;
+
   public ValueAnalysisState(MachineModel pMachineModel) {
     this(
         checkNotNull(pMachineModel),
@@ -372,6 +378,25 @@ public class ValueAnalysisState
     return true;
   }
 
+  /**
+   * The signature contains one bit for each assignment of a value to a memory location. If this
+   * state is less or equal than another state, it contains all assignments of the other state and
+   * thus also all bits of its signature.
+   */
+  @Override
+  public long getCoverageSignature() {
+    // constantsMap is persistent, so we only need to recompute if it was replaced
+    if (coverageSignatureMap != constantsMap) {
+      long signature = 0;
+      for (Map.Entry<MemoryLocation, Value> entry : constantsMap.entrySet()) {
+        signature |= CoverageIndexable.signatureBit(entry.hashCode());
+      }
+      coverageSignature = signature;
+      coverageSignatureMap = constantsMap;
+    }
+    return coverageSignature;
+  }
+
   @Override
   public boolean equals(Object other) {
     if (this == other) {
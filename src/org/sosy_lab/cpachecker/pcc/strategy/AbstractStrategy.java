@@ -40,6 +40,7 @@ import java.util.logging.Level;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -55,7 +56,6 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.exceptions.ValidationConfigurationConstructionFailed;
 import org.sosy_lab.cpachecker.pcc.util.ProofStatesInfoCollector;
 import org.sosy_lab.cpachecker.pcc.util.ValidationConfigurationBuilder;
-import org.sosy_lab.cpachecker.util.Triple;
 
 @Options(prefix="pcc")
 public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvider {
@@ -83,6 +83,17 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       description = "writes the validation configuration required for checking to proof")
   boolean storeConfig = false;
 
+  @Option(secure=true,
+      name="indexedProof",
+      description = "writes the proof as an uncompressed file with an index of its entries"
+          + " instead of a zip file. Entries, e.g., the partitions of a partitioned proof,"
+          + " are then read from memory-mapped regions of the file without decompressing"
+          + " or skipping the preceding entries, which lets the parallel reading strategies"
+          + " read partitions concurrently. The format of a proof is detected when reading it.")
+  boolean indexedProof = false;
+
+  private @Nullable IndexedProofFile indexedProofFile = null;
+
   public AbstractStrategy(Configuration pConfig, LogManager pLogger, Path pProofFile) throws InvalidConfigurationException {
     pConfig.inject(this, AbstractStrategy.class);
     config = pConfig;
@@ -96,7 +107,6 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
   }
 
   @Override
-  @SuppressFBWarnings(value="OS_OPEN_STREAM", justification="Do not close stream o because it wraps stream zos/fos which need to remain open and would be closed if o.close() is called.")
   public void writeProof(UnmodifiableReachedSet pReached) {
 
     Path dir = proofFile.getParent();
@@ -106,54 +116,21 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
         Files.createDirectories(dir);
       }
 
-      try (final OutputStream fos = Files.newOutputStream(proofFile);
-          final ZipOutputStream zos = new ZipOutputStream(fos)) {
-        zos.setLevel(9);
-
-        ZipEntry ze = new ZipEntry(PROOF_ZIPENTRY_NAME);
-        zos.putNextEntry(ze);
-        ObjectOutputStream o = new ObjectOutputStream(zos);
-        //TODO might also want to write used configuration to the file so that proof checker does not need to get it as an argument
-        //write ARG
-        writeProofToStream(o, pReached);
-        o.flush();
-        zos.closeEntry();
-
-        // write additional proof information
-        int index = 0;
-        boolean continueWriting;
-        do {
-          ze = new ZipEntry(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
-          zos.putNextEntry(ze);
-          o = new ObjectOutputStream(zos);
-          continueWriting = writeAdditionalProofStream(o);
-          o.flush();
-          zos.closeEntry();
-          index++;
-        } while (continueWriting);
-
-        if (storeConfig) {
-          ze = new ZipEntry(CONFIG_ZIPENTRY_NAME);
-          zos.putNextEntry(ze);
-          o = new ObjectOutputStream(zos);
-          try {
-            writeConfiguration(o);
-          } catch (ValidationConfigurationConstructionFailed eIC) {
-            logger.log(Level.WARNING, "Construction of validation configuration failed. Validation configuration is empty.");
-          }
-
-          o.flush();
-          zos.closeEntry();
+      if (indexedProof) {
+        try (final IndexedProofFile.Writer writer = new IndexedProofFile.Writer(proofFile)) {
+          writeProofEntries(writer::putNextEntry, pReached);
+        }
+      } else {
+        try (final OutputStream fos = Files.newOutputStream(proofFile);
+            final ZipOutputStream zos = new ZipOutputStream(fos)) {
+          zos.setLevel(9);
+          writeProofEntries(
+              name -> {
+                zos.putNextEntry(new ZipEntry(name));
+                return zos;
+              },
+              pReached);
         }
-      } catch (NotSerializableException eS) {
-        logger.log(Level.SEVERE, "Proof cannot be written. Class " + eS.getMessage()
-            + " does not implement Serializable interface");
-      } catch (InvalidConfigurationException e) {
-        logger.log(Level.SEVERE, "Proof cannot be constructed due to conflicting configuration.",
-            e.getMessage());
-      } catch (InterruptedException e) {
-        logger.log(Level.SEVERE,
-            "Proof cannot be written due to time out during proof construction");
       }
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -162,17 +139,64 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
     logger.log(Level.INFO, proofInfo.getInfoAsString());
   }
 
+  /** Starts a new entry of the proof file, implicitly closing the previous one. */
+  private interface ProofEntryWriter {
+    OutputStream putNextEntry(String pName) throws IOException;
+  }
+
+  @SuppressFBWarnings(value="OS_OPEN_STREAM", justification="Do not close stream o because it wraps the stream of the proof file which needs to remain open and would be closed if o.close() is called.")
+  private void writeProofEntries(ProofEntryWriter pEntries, UnmodifiableReachedSet pReached)
+      throws IOException {
+    try {
+      ObjectOutputStream o = new ObjectOutputStream(pEntries.putNextEntry(PROOF_ZIPENTRY_NAME));
+      //TODO might also want to write used configuration to the file so that proof checker does not need to get it as an argument
+      //write ARG
+      writeProofToStream(o, pReached);
+      o.flush();
+
+      // write additional proof information
+      int index = 0;
+      boolean continueWriting;
+      do {
+        o =
+            new ObjectOutputStream(
+                pEntries.putNextEntry(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index));
+        continueWriting = writeAdditionalProofStream(o);
+        o.flush();
+        index++;
+      } while (continueWriting);
+
+      if (storeConfig) {
+        o = new ObjectOutputStream(pEntries.putNextEntry(CONFIG_ZIPENTRY_NAME));
+        try {
+          writeConfiguration(o);
+        } catch (ValidationConfigurationConstructionFailed eIC) {
+          logger.log(Level.WARNING, "Construction of validation configuration failed. Validation configuration is empty.");
+        }
+
+        o.flush();
+      }
+    } catch (NotSerializableException eS) {
+      logger.log(Level.SEVERE, "Proof cannot be written. Class " + eS.getMessage()
+          + " does not implement Serializable interface");
+    } catch (InvalidConfigurationException e) {
+      logger.log(Level.SEVERE, "Proof cannot be constructed due to conflicting configuration.",
+          e.getMessage());
+    } catch (InterruptedException e) {
+      logger.log(Level.SEVERE,
+          "Proof cannot be written due to time out during proof construction");
+    }
+  }
+
   protected abstract void writeProofToStream(ObjectOutputStream out, UnmodifiableReachedSet reached)
       throws IOException, InvalidConfigurationException, InterruptedException;
 
 
   @Override
   public void readProof() throws IOException, ClassNotFoundException, InvalidConfigurationException {
-    Triple<InputStream, ZipInputStream, ObjectInputStream> proofStream = openProofStream();
-    readProofFromStream(proofStream.getThird());
-    proofStream.getThird().close();
-    proofStream.getSecond().close();
-    proofStream.getFirst().close();
+    try (ObjectInputStream proofStream = openProofStream()) {
+      readProofFromStream(proofStream);
+    }
   }
 
   /**
@@ -190,17 +214,37 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
   }
 
 
-  protected Triple<InputStream, ZipInputStream, ObjectInputStream> openProofStream() throws IOException {
+  /**
+   * Returns the index of the proof file if it is an indexed proof file, or null if it is a zip
+   * file.
+   */
+  private synchronized @Nullable IndexedProofFile getIndexedProofFile() throws IOException {
+    if (indexedProofFile == null && IndexedProofFile.isIndexedProofFile(proofFile)) {
+      indexedProofFile = IndexedProofFile.open(proofFile);
+    }
+    return indexedProofFile;
+  }
+
+  @SuppressFBWarnings(value="OS_OPEN_STREAM", justification="The returned stream closes the wrapped streams.")
+  protected ObjectInputStream openProofStream() throws IOException {
+    IndexedProofFile indexedProofFile = getIndexedProofFile();
+    if (indexedProofFile != null) {
+      return indexedProofFile.openEntry(PROOF_ZIPENTRY_NAME);
+    }
     InputStream fis = Files.newInputStream(proofFile);
     ZipInputStream zis = new ZipInputStream(fis);
     ZipEntry entry = zis.getNextEntry();
     assert entry.getName().equals(PROOF_ZIPENTRY_NAME);
-    return Triple.of(fis, zis, new ObjectInputStream(zis));
+    return new ObjectInputStream(zis);
   }
 
-  public Triple<InputStream, ZipInputStream, ObjectInputStream> openAdditionalProofStream(final int index)
-      throws IOException {
+  @SuppressFBWarnings(value="OS_OPEN_STREAM", justification="The returned stream closes the wrapped streams.")
+  public ObjectInputStream openAdditionalProofStream(final int index) throws IOException {
     if (index < 0) { throw new IllegalArgumentException("Not a valid index. Indices must be at least zero."); }
+    IndexedProofFile indexedProofFile = getIndexedProofFile();
+    if (indexedProofFile != null) {
+      return indexedProofFile.openEntry(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
+    }
     InputStream fis = Files.newInputStream(proofFile);
     ZipInputStream zis = new ZipInputStream(fis);
     ZipEntry entry = null;
@@ -208,8 +252,8 @@ public abstract class AbstractStrategy implements PCCStrategy, StatisticsProvide
       entry = zis.getNextEntry();
     }
 
-    assert entry.getName().equals("ADDITIONAL_PROOFINFO_ZIPENTRY_NAME " + index);
-    return Triple.of(fis, zis, new ObjectInputStream(zis));
+    assert entry.getName().equals(ADDITIONAL_PROOFINFO_ZIPENTRY_NAME + index);
+    return new ObjectInputStream(zis);
   }
 
   protected abstract void readProofFromStream(ObjectInputStream in) throws ClassNotFoundException, InvalidConfigurationException, IOException;
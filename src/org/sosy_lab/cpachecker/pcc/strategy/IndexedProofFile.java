@@ -0,0 +1,301 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * An uncompressed proof file whose entries can be read independently of each other.
+ *
+ * <p>The file starts with a magic number and the version of the format, followed by the contents
+ * of the entries. At its end, an index maps the name of every entry to the region of the file that
+ * contains the entry, and the last eight bytes hold the position of the index. In contrast to a
+ * zip file, reading an entry does not require to decompress or skip all entries before it: the
+ * region of the entry is mapped into memory, so different threads can deserialize different
+ * entries, e.g., the partitions of a certificate, at the same time.
+ */
+public final class IndexedProofFile {
+
+  private static final int MAGIC = 0x43504343; // "CPCC"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+  private static final int TRAILER_SIZE = Long.BYTES;
+
+  private final Path file;
+  private final ImmutableMap<String, Region> entries;
+
+  private IndexedProofFile(Path pFile, ImmutableMap<String, Region> pEntries) {
+    file = pFile;
+    entries = pEntries;
+  }
+
+  /** Checks whether the given file starts like a proof file in this format. */
+  public static boolean isIndexedProofFile(Path pFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE + TRAILER_SIZE) {
+        return false;
+      }
+      return read(channel, 0, Integer.BYTES).getInt() == MAGIC;
+    }
+  }
+
+  /** Reads the index of the given proof file. */
+  public static IndexedProofFile open(Path pFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE + TRAILER_SIZE) {
+        throw new IOException("Proof file " + pFile + " is truncated");
+      }
+      ByteBuffer header = read(channel, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC) {
+        throw new IOException("File " + pFile + " is not an indexed proof file");
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of proof file " + pFile);
+      }
+
+      long indexPosition = read(channel, size - TRAILER_SIZE, TRAILER_SIZE).getLong();
+      if (indexPosition < HEADER_SIZE || indexPosition > size - TRAILER_SIZE) {
+        throw new IOException("Index of proof file " + pFile + " is corrupted");
+      }
+      long indexSize = size - TRAILER_SIZE - indexPosition;
+      DataInputStream index =
+          new DataInputStream(
+              new ByteBufferInputStream(channel.map(MapMode.READ_ONLY, indexPosition, indexSize)));
+
+      ImmutableMap.Builder<String, Region> entries = ImmutableMap.builder();
+      int numEntries = index.readInt();
+      for (int i = 0; i < numEntries; i++) {
+        String name = index.readUTF();
+        long offset = index.readLong();
+        long length = index.readLong();
+        if (offset < HEADER_SIZE || length < 0 || offset + length > indexPosition) {
+          throw new IOException("Index of proof file " + pFile + " is corrupted");
+        }
+        entries.put(name, new Region(offset, length));
+      }
+      return new IndexedProofFile(pFile, entries.build());
+    }
+  }
+
+  private static ByteBuffer read(FileChannel pChannel, long pPosition, int pLength)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(pLength);
+    while (buffer.hasRemaining()) {
+      if (pChannel.read(buffer, pPosition + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of proof file");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  public boolean hasEntry(String pName) {
+    return entries.containsKey(pName);
+  }
+
+  /**
+   * Opens a stream on the entry with the given name. The stream reads directly from a memory-mapped
+   * region of the file, and it is safe to open several entries from different threads.
+   */
+  public ObjectInputStream openEntry(String pName) throws IOException {
+    Region region = entries.get(pName);
+    if (region == null) {
+      throw new IOException("Proof file " + file + " does not contain entry " + pName);
+    }
+    if (region.length > Integer.MAX_VALUE) {
+      throw new IOException("Entry " + pName + " of proof file " + file + " is too large");
+    }
+    ByteBuffer content;
+    // the mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      content = channel.map(MapMode.READ_ONLY, region.offset, region.length);
+    }
+    return new ObjectInputStream(new ByteBufferInputStream(content));
+  }
+
+  private static final class Region {
+
+    private final long offset;
+    private final long length;
+
+    private Region(long pOffset, long pLength) {
+      offset = pOffset;
+      length = pLength;
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer pBuffer) {
+      buffer = pBuffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] pBytes, int pOffset, int pLength) {
+      if (pLength == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int length = Math.min(pLength, buffer.remaining());
+      buffer.get(pBytes, pOffset, length);
+      return length;
+    }
+
+    @Override
+    public long skip(long pLength) {
+      int length = (int) Math.max(0, Math.min(pLength, buffer.remaining()));
+      buffer.position(buffer.position() + length);
+      return length;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
+  /**
+   * Writes a proof file in this format. Like a {@link java.util.zip.ZipOutputStream}, everything
+   * that is written after a call to {@link #putNextEntry(String)} belongs to the entry with the
+   * given name. The index is written when the writer is closed.
+   */
+  public static final class Writer extends OutputStream {
+
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final Map<String, Region> entries = new LinkedHashMap<>();
+
+    private @Nullable String currentEntry = null;
+    private long currentEntryStart = 0;
+    private boolean closed = false;
+
+    public Writer(Path pFile) throws IOException {
+      channel =
+          FileChannel.open(
+              pFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE);
+      out = new BufferedOutputStream(Channels.newOutputStream(channel));
+      DataOutputStream header = new DataOutputStream(out);
+      header.writeInt(MAGIC);
+      header.writeInt(VERSION);
+    }
+
+    /**
+     * Closes the current entry, if any, and starts a new entry with the given name.
+     *
+     * @return this writer, to which the content of the entry should be written
+     */
+    public OutputStream putNextEntry(String pName) throws IOException {
+      checkState(!closed, "Proof file already closed");
+      closeEntry();
+      checkArgument(!entries.containsKey(pName), "Duplicate entry %s", pName);
+      out.flush();
+      currentEntry = pName;
+      currentEntryStart = channel.position();
+      return this;
+    }
+
+    public void closeEntry() throws IOException {
+      if (currentEntry != null) {
+        out.flush();
+        entries.put(
+            currentEntry, new Region(currentEntryStart, channel.position() - currentEntryStart));
+        currentEntry = null;
+      }
+    }
+
+    @Override
+    public void write(int pByte) throws IOException {
+      checkState(currentEntry != null, "No entry to write to");
+      out.write(pByte);
+    }
+
+    @Override
+    public void write(byte[] pBytes, int pOffset, int pLength) throws IOException {
+      checkState(currentEntry != null, "No entry to write to");
+      out.write(pBytes, pOffset, pLength);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        closeEntry();
+        out.flush();
+        long indexPosition = channel.position();
+        DataOutputStream index = new DataOutputStream(out);
+        index.writeInt(entries.size());
+        for (Map.Entry<String, Region> entry : entries.entrySet()) {
+          index.writeUTF(entry.getKey());
+          index.writeLong(entry.getValue().offset);
+          index.writeLong(entry.getValue().length);
+        }
+        index.writeLong(indexPosition);
+        index.flush();
+      } finally {
+        out.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexedProofFileTest {
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path file;
+
+  @Before
+  public void init() throws IOException {
+    file = tempFolder.newFile("proof.pcc").toPath();
+  }
+
+  private void writeEntries(int pNumberOfEntries) throws IOException {
+    try (IndexedProofFile.Writer writer = new IndexedProofFile.Writer(file)) {
+      for (int i = 0; i < pNumberOfEntries; i++) {
+        ObjectOutputStream o = new ObjectOutputStream(writer.putNextEntry("entry" + i));
+        o.writeInt(i);
+        o.writeObject("content of entry " + i);
+        o.flush();
+      }
+    }
+  }
+
+  private static void assertEntry(IndexedProofFile pProofFile, int pIndex) throws Exception {
+    try (ObjectInputStream in = pProofFile.openEntry("entry" + pIndex)) {
+      assertThat(in.readInt()).isEqualTo(pIndex);
+      assertThat(in.readObject()).isEqualTo("content of entry " + pIndex);
+    }
+  }
+
+  /** Cuts off the given number of bytes at the end of the file. */
+  private void truncate(long pBytes) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - pBytes);
+    }
+  }
+
+  @Test
+  public void roundtrip() throws Exception {
+    writeEntries(3);
+    assertThat(IndexedProofFile.isIndexedProofFile(file)).isTrue();
+
+    IndexedProofFile proofFile = IndexedProofFile.open(file);
+    assertThat(proofFile.hasEntry("entry0")).isTrue();
+    assertThat(proofFile.hasEntry("entry2")).isTrue();
+    assertThat(proofFile.hasEntry("entry3")).isFalse();
+
+    // entries can be read in any order and more than once
+    assertEntry(proofFile, 2);
+    assertEntry(proofFile, 0);
+    assertEntry(proofFile, 1);
+    assertEntry(proofFile, 2);
+  }
+
+  @Test
+  public void parallelAccess() throws Exception {
+    writeEntries(8);
+    IndexedProofFile proofFile = IndexedProofFile.open(file);
+
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      int index = i;
+      threads.add(
+          new Thread(
+              () -> {
+                try {
+                  assertEntry(proofFile, index);
+                } catch (Throwable e) {
+                  synchronized (failures) {
+                    failures.add(e);
+                  }
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(failures).isEmpty();
+  }
+
+  @Test
+  public void emptyFile() throws Exception {
+    writeEntries(0);
+    assertThat(IndexedProofFile.isIndexedProofFile(file)).isTrue();
+    assertThat(IndexedProofFile.open(file).hasEntry("entry0")).isFalse();
+  }
+
+  @Test(expected = IOException.class)
+  public void missingEntry() throws Exception {
+    writeEntries(1);
+    IndexedProofFile.open(file).openEntry("entry1");
+  }
+
+  @Test
+  public void otherFormat() throws Exception {
+    Files.write(file, "this is not a proof file".getBytes(StandardCharsets.US_ASCII));
+    assertThat(IndexedProofFile.isIndexedProofFile(file)).isFalse();
+  }
+
+  @Test(expected = IOException.class)
+  public void openOtherFormat() throws Exception {
+    Files.write(file, "this is not a proof file".getBytes(StandardCharsets.US_ASCII));
+    IndexedProofFile.open(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedHeader() throws Exception {
+    Files.write(file, new byte[] {0x43, 0x50});
+    IndexedProofFile.open(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedTrailer() throws Exception {
+    writeEntries(2);
+    truncate(3);
+    IndexedProofFile.open(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedIndex() throws Exception {
+    writeEntries(2);
+    // keep the position of the index, but cut off the end of the index
+    byte[] content = Files.readAllBytes(file);
+    int trailer = Long.BYTES;
+    byte[] corrupted = new byte[content.length - 4];
+    System.arraycopy(content, 0, corrupted, 0, corrupted.length - trailer);
+    System.arraycopy(
+        content, content.length - trailer, corrupted, corrupted.length - trailer, trailer);
+    Files.write(file, corrupted);
+    IndexedProofFile.open(file);
+  }
+
+  @Test(expected = IOException.class)
+  public void corruptedIndexPosition() throws Exception {
+    writeEntries(2);
+    byte[] content = Files.readAllBytes(file);
+    // the index position points behind the end of the file
+    content[content.length - Long.BYTES] = 0x7F;
+    Files.write(file, content);
+    IndexedProofFile.open(file);
+  }
+}
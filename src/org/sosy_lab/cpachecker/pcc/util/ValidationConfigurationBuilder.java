@@ -42,6 +42,7 @@ import org.sosy_lab.common.configuration.ConfigurationBuilder;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.cpachecker.exceptions.ValidationConfigurationConstructionFailed;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
+import org.sosy_lab.cpachecker.pcc.strategy.IndexedProofFile;
 
 public class ValidationConfigurationBuilder {
 
@@ -215,6 +216,14 @@ public class ValidationConfigurationBuilder {
   public static Configuration readConfigFromProof(Path proofFile)
       throws IOException, InvalidConfigurationException {
 
+    if (IndexedProofFile.isIndexedProofFile(proofFile)) {
+      IndexedProofFile indexedProofFile = IndexedProofFile.open(proofFile);
+      if (!indexedProofFile.hasEntry(AbstractStrategy.CONFIG_ZIPENTRY_NAME)) {
+        throw new IOException("Unable to find configuration entry in proof.");
+      }
+      return readConfig(indexedProofFile.openEntry(AbstractStrategy.CONFIG_ZIPENTRY_NAME));
+    }
+
     try (InputStream fis = Files.newInputStream(proofFile);
         ZipInputStream zis = new ZipInputStream(fis);) {
       ZipEntry entry;
@@ -226,17 +235,22 @@ public class ValidationConfigurationBuilder {
 
       if (entry == null) { throw new IOException("Unable to find configuration entry in proof."); }
 
-      Path valConfig = Files.createTempFile("pcc-check-config", "properties");
+      return readConfig(new ObjectInputStream(zis));
+    }
+  }
 
-      try (ObjectInputStream in = new ObjectInputStream(zis);
-          PrintStream out = new PrintStream(new FileOutputStream(valConfig.toFile()), false, "UTF-8")) {
-        out.print(in.readObject());
-      } catch (ClassNotFoundException e) {
-        throw new IOException("Failed to read configuration");
-      }
+  private static Configuration readConfig(ObjectInputStream pConfigStream)
+      throws IOException, InvalidConfigurationException {
+    Path valConfig = Files.createTempFile("pcc-check-config", "properties");
 
-      return Configuration.builder().loadFromFile(valConfig).build();
+    try (ObjectInputStream in = pConfigStream;
+        PrintStream out = new PrintStream(new FileOutputStream(valConfig.toFile()), false, "UTF-8")) {
+      out.print(in.readObject());
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Failed to read configuration");
     }
+
+    return Configuration.builder().loadFromFile(valConfig).build();
   }
 
 }
@@ -49,6 +49,7 @@ import org.sosy_lab.cpachecker.core.reachedset.LocationMappedReachedSet;
 import org.sosy_lab.cpachecker.cpa.assumptions.storage.AssumptionStorageState;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackState;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeState;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 
@@ -83,6 +84,10 @@ public final class AbstractStates {
       AbstractState wrapped = ((AbstractSingleWrapperState)pState).getWrappedState();
       return extractStateByType(wrapped, pType);
 
+    } else if (pState instanceof CompositeState) {
+      // uses an index of the components, which is much faster than searching all of them
+      return ((CompositeState) pState).extractStateByType(pType);
+
     } else if (pState instanceof AbstractWrapperState) {
       for (AbstractState wrapped : ((AbstractWrapperState)pState).getWrappedStates()) {
         T result = extractStateByType(wrapped, pType);
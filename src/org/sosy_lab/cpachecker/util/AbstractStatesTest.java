@@ -0,0 +1,79 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.composite.CompositeState;
+
+public class AbstractStatesTest {
+
+  private interface Marker extends AbstractState {}
+
+  private static class StateA implements AbstractState {}
+
+  private static class StateB implements Marker {}
+
+  private static class StateC implements Marker {}
+
+  @Test
+  public void extractFromComposite() {
+    StateA a = new StateA();
+    StateB b = new StateB();
+    StateC c = new StateC();
+    AbstractState state = new ARGState(new CompositeState(ImmutableList.of(a, b, c)), null);
+
+    assertThat(AbstractStates.extractStateByType(state, StateA.class)).isSameAs(a);
+    assertThat(AbstractStates.extractStateByType(state, StateC.class)).isSameAs(c);
+    // first match in the order of the components
+    assertThat(AbstractStates.extractStateByType(state, Marker.class)).isSameAs(b);
+    assertThat(AbstractStates.extractStateByType(state, CompositeState.class))
+        .isSameAs(((ARGState) state).getWrappedState());
+    assertThat(AbstractStates.extractStateByType(state, UnusedState.class)).isNull();
+  }
+
+  @Test
+  public void extractFromNestedWrapper() {
+    StateA a = new StateA();
+    StateB b1 = new StateB();
+    StateB b2 = new StateB();
+    // same layout of the outer composite state, but different wrapped states
+    CompositeState withB =
+        new CompositeState(ImmutableList.of(a, new CompositeState(ImmutableList.of(b1))));
+    CompositeState withoutB =
+        new CompositeState(ImmutableList.of(a, new CompositeState(ImmutableList.of(a))));
+    CompositeState laterB =
+        new CompositeState(ImmutableList.of(new CompositeState(ImmutableList.of(a)), b2));
+
+    assertThat(AbstractStates.extractStateByType(withB, StateB.class)).isSameAs(b1);
+    assertThat(AbstractStates.extractStateByType(withoutB, StateB.class)).isNull();
+    assertThat(AbstractStates.extractStateByType(laterB, StateB.class)).isSameAs(b2);
+  }
+
+  private static class UnusedState implements AbstractState {}
+}
@@ -37,18 +37,25 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
 import org.sosy_lab.common.Classes.UnexpectedCheckedException;
+import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
@@ -64,6 +71,7 @@ import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException;
 import org.sosy_lab.cpachecker.exceptions.RefinementFailedException.Reason;
 import org.sosy_lab.cpachecker.util.LoopStructure;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.Triple;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.ITPStrategy;
 import org.sosy_lab.cpachecker.util.predicates.interpolation.strategy.NestedInterpolation;
@@ -95,7 +103,9 @@ public final class InterpolationManager {
   private final Timer getInterpolantTimer = new Timer();
   private final Timer cexAnalysisGetUsefulBlocksTimer = new Timer();
   private final Timer interpolantVerificationTimer = new Timer();
+  private final Timer portfolioTimer = new Timer();
   private int reusedFormulasOnSolverStack = 0;
+  private int portfolioRacesWithoutWinner = 0;
 
   public void printStatistics(StatisticsWriter w0) {
     w0.put("Counterexample analysis", cexAnalysisTimer + " (Max: " + cexAnalysisTimer.getMaxTime().formatAs(TimeUnit.SECONDS) + ", Calls: " + cexAnalysisTimer.getNumberOfIntervals() + ")");
@@ -111,6 +121,14 @@ public final class InterpolationManager {
     if (interpolantVerificationTimer.getNumberOfIntervals() > 0) {
       w1.put("Interpolant verification", interpolantVerificationTimer);
     }
+    if (!portfolioMembers.isEmpty()) {
+      w1.put("Interpolation portfolio", portfolioTimer);
+      StatisticsWriter w2 = w1.beginLevel();
+      for (PortfolioMember member : portfolioMembers) {
+        w2.put("Wins of " + member, member.wins);
+      }
+      w2.put("Races without winner", portfolioRacesWithoutWinner);
+    }
   }
 
 
@@ -118,7 +136,15 @@ public final class InterpolationManager {
   private final ShutdownNotifier shutdownNotifier;
   private final FormulaManagerView fmgr;
   private final BooleanFormulaManagerView bfmgr;
-  private final PathFormulaManager pmgr;
+
+  /**
+   * Null for the instances that are run by members of the interpolation portfolio, because the
+   * path-formula manager belongs to the solver of the main analysis. Members only check feasibility
+   * and compute interpolants, the error path of a feasible counterexample is computed by the main
+   * solver.
+   */
+  private final @Nullable PathFormulaManager pmgr;
+
   private final Solver solver;
 
   private final Interpolator<?> interpolator;
@@ -182,7 +208,23 @@ public final class InterpolationManager {
   @Option(secure=true, description="Use a single SMT solver environment for several interpolation queries")
   private boolean reuseInterpolationEnvironment = false;
 
+  @Option(secure=true, name="portfolio.strategies",
+      description="Interpolation strategies that are raced against each other in parallel, "
+          + "each with its own solver context. The interpolants of the first strategy "
+          + "that succeeds are used, the others are cancelled. "
+          + "Each strategy is combined with each of the directions from "
+          + "cpa.predicate.refinement.portfolio.directions. "
+          + "If empty, only the strategy from cpa.predicate.refinement.strategy is used.")
+  private List<InterpolationStrategy> portfolioStrategies = ImmutableList.of();
+
+  @Option(secure=true, name="portfolio.directions",
+      description="Directions for counterexample analysis that are used by the members "
+          + "of the interpolation portfolio (if empty, cexTraceCheckDirection is used).")
+  private List<CexTraceAnalysisDirection> portfolioDirections = ImmutableList.of();
+
   private final ExecutorService executor;
+  private final ImmutableList<PortfolioMember> portfolioMembers;
+  private final ExecutorService portfolioExecutor;
   private final LoopStructure loopStructure;
   private final VariableClassification variableClassification;
 
@@ -194,7 +236,29 @@ public final class InterpolationManager {
       Configuration config,
       ShutdownNotifier pShutdownNotifier,
       LogManager pLogger) throws InvalidConfigurationException {
+    this(
+        checkNotNull(pPmgr),
+        pSolver,
+        pLoopStructure,
+        pVarClassification,
+        config,
+        pShutdownNotifier,
+        pLogger,
+        false);
+  }
+
+  private InterpolationManager(
+      @Nullable PathFormulaManager pPmgr,
+      Solver pSolver,
+      Optional<LoopStructure> pLoopStructure,
+      Optional<VariableClassification> pVarClassification,
+      Configuration config,
+      ShutdownNotifier pShutdownNotifier,
+      LogManager pLogger,
+      boolean pPortfolioMember)
+      throws InvalidConfigurationException {
     config.inject(this, InterpolationManager.class);
+    assert pPortfolioMember == (pPmgr == null);
 
     logger = pLogger;
     shutdownNotifier = pShutdownNotifier;
@@ -218,6 +282,130 @@ public final class InterpolationManager {
     } else {
       interpolator = null;
     }
+
+    ImmutableList.Builder<PortfolioMember> members = ImmutableList.builder();
+    for (InterpolationStrategy memberStrategy : portfolioStrategies) {
+      for (CexTraceAnalysisDirection memberDirection :
+          portfolioDirections.isEmpty() ? ImmutableList.of(direction) : portfolioDirections) {
+        members.add(new PortfolioMember(memberStrategy, memberDirection, config));
+      }
+    }
+    portfolioMembers = members.build();
+    if (portfolioMembers.isEmpty()) {
+      portfolioExecutor = null;
+    } else {
+      // daemon threads, because members that lost a race might still be running
+      portfolioExecutor =
+          Executors.newCachedThreadPool(
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("interpolation-portfolio-%d")
+                  .build());
+    }
+  }
+
+  /**
+   * One combination of interpolation strategy and direction of the interpolation portfolio.
+   * Each member is run with its own solver and its own instance of {@link InterpolationManager}.
+   */
+  private static final class PortfolioMember {
+
+    private final InterpolationStrategy strategy;
+    private final CexTraceAnalysisDirection direction;
+    private final Configuration config;
+
+    /** Number of races won, only accessed by the thread that runs the portfolio. */
+    private int wins = 0;
+
+    /**
+     * Context of this member that can be reused for the next race (null if there is none), only
+     * accessed by the thread that runs the portfolio.
+     */
+    private @Nullable MemberContext idleContext = null;
+
+    private PortfolioMember(
+        InterpolationStrategy pStrategy,
+        CexTraceAnalysisDirection pDirection,
+        Configuration pConfig)
+        throws InvalidConfigurationException {
+      strategy = pStrategy;
+      direction = pDirection;
+      config =
+          Configuration.builder()
+              .copyFrom(pConfig)
+              .setOption("cpa.predicate.refinement.strategy", pStrategy.name())
+              .setOption("cpa.predicate.refinement.cexTraceCheckDirection", pDirection.name())
+              .clearOption("cpa.predicate.refinement.portfolio.strategies")
+              .clearOption("cpa.predicate.refinement.timelimit")
+              .clearOption("cpa.predicate.refinement.reuseInterpolationEnvironment")
+              .clearOption("cpa.predicate.refinement.dumpInterpolationProblems")
+              .build();
+    }
+
+    @Override
+    public String toString() {
+      return strategy + "/" + direction;
+    }
+  }
+
+  /**
+   * The solver of a portfolio member, which is reused across races as long as the member finishes
+   * its race (i.e., it was not cancelled because another member was faster).
+   */
+  private static final class MemberContext {
+
+    private enum State {
+      IDLE,
+      RUNNING,
+      /** the member is still running but its result is not needed anymore */
+      ABANDONED
+    }
+
+    private final ShutdownManager shutdownManager;
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+
+    // created lazily by the thread that runs the member,
+    // the state transitions guarantee that only one thread at a time accesses them
+    private @Nullable Solver solver = null;
+    private @Nullable InterpolationManager itpManager = null;
+
+    private MemberContext(ShutdownNotifier pParentNotifier) {
+      shutdownManager = ShutdownManager.createWithParent(pParentNotifier);
+    }
+
+    /** Called by the thread that ran the member after it has finished. */
+    private void finish() {
+      if (!state.compareAndSet(State.RUNNING, State.IDLE)) {
+        // nobody is waiting for this member and nobody will reuse this context
+        close();
+      }
+    }
+
+    /**
+     * Called by the thread that runs the portfolio after a race.
+     *
+     * @return whether this context can be reused for the next race
+     */
+    private boolean release(String pReason) {
+      if (state.compareAndSet(State.RUNNING, State.ABANDONED)) {
+        // member will close the context when it notices the shutdown request
+        shutdownManager.requestShutdown(pReason);
+        return false;
+      }
+      if (shutdownManager.getNotifier().shouldShutdown()) {
+        close();
+        return false;
+      }
+      return true;
+    }
+
+    private void close() {
+      if (solver != null) {
+        solver.close();
+        solver = null;
+        itpManager = null;
+      }
+    }
   }
 
   /**
@@ -284,6 +472,16 @@ public final class InterpolationManager {
       final List<AbstractState> pAbstractionStates)
       throws CPAException, InterruptedException {
 
+    if (!portfolioMembers.isEmpty()) {
+      Optional<CounterexampleTraceInfo> result =
+          buildCounterexampleTraceWithPortfolio(pFormulas, pAbstractionStates);
+      if (result.isPresent()) {
+        return result.get();
+      }
+      // counterexample is feasible or all members failed,
+      // fall back to the analysis with the main solver
+    }
+
     cexAnalysisTimer.start();
     try {
       final BlockFormulas f = prepareCounterexampleFormulas(pFormulas);
@@ -317,6 +515,179 @@ public final class InterpolationManager {
     }
   }
 
+  /**
+   * Race all members of the interpolation portfolio against each other and return the
+   * interpolants of the first member that succeeds. The remaining members are cancelled.
+   *
+   * <p>Formulas are exchanged with the members as SMT-LIB strings, such that each solver context
+   * is only used by a single thread.
+   *
+   * @return the infeasible counterexample with interpolants, or an empty optional if the
+   *     counterexample is feasible or no member was able to compute interpolants
+   */
+  private Optional<CounterexampleTraceInfo> buildCounterexampleTraceWithPortfolio(
+      final BlockFormulas pFormulas, final List<AbstractState> pAbstractionStates)
+      throws RefinementFailedException, InterruptedException {
+
+    portfolioTimer.start();
+    final List<String> formulas =
+        from(pFormulas.getFormulas()).transform(f -> fmgr.dumpFormula(f).toString()).toList();
+    final String branchingFormula =
+        pFormulas.hasBranchingFormula()
+            ? fmgr.dumpFormula(pFormulas.getBranchingFormula()).toString()
+            : null;
+
+    List<MemberContext> contexts = new ArrayList<>(portfolioMembers.size());
+    List<Callable<Optional<List<String>>>> tasks = new ArrayList<>(portfolioMembers.size());
+    for (PortfolioMember member : portfolioMembers) {
+      MemberContext context = member.idleContext;
+      member.idleContext = null;
+      if (context == null) {
+        context = new MemberContext(shutdownNotifier);
+      }
+      context.state.set(MemberContext.State.RUNNING);
+      contexts.add(context);
+      MemberContext memberContext = context;
+      tasks.add(
+          () ->
+              interpolateWithPortfolioMember(
+                  member, memberContext, formulas, branchingFormula, pAbstractionStates));
+    }
+
+    try {
+      Optional<Pair<Integer, Optional<List<String>>>> winner =
+          race(portfolioExecutor, tasks, itpTimeLimit, logger);
+      if (!winner.isPresent()) {
+        portfolioRacesWithoutWinner++;
+        return Optional.empty();
+      }
+
+      Optional<List<String>> interpolants = winner.get().getSecondNotNull();
+      if (!interpolants.isPresent()) {
+        logger.log(Level.FINEST, "Interpolation portfolio found feasible counterexample");
+        return Optional.empty();
+      }
+      PortfolioMember member = portfolioMembers.get(winner.get().getFirstNotNull());
+      member.wins++;
+      logger.log(Level.FINEST, "Interpolation portfolio won by", member);
+      return Optional.of(
+          CounterexampleTraceInfo.infeasible(
+              from(interpolants.get()).transform(fmgr::parse).toList()));
+
+    } catch (TimeoutException e) {
+      logger.log(Level.SEVERE, "SMT-solver timed out during interpolation process");
+      throw new RefinementFailedException(Reason.TIMEOUT, null);
+
+    } finally {
+      for (int i = 0; i < portfolioMembers.size(); i++) {
+        if (contexts.get(i).release("Interpolation portfolio finished")) {
+          portfolioMembers.get(i).idleContext = contexts.get(i);
+        }
+      }
+      portfolioTimer.stop();
+    }
+  }
+
+  /**
+   * Run the given tasks in parallel and return the result of the first task that completes
+   * without an exception. The remaining tasks are not cancelled, the caller is responsible for
+   * stopping them.
+   *
+   * @param pTimeLimit the maximal time to wait for a result (empty for no limit)
+   * @return the index of the first successful task in the given list together with its result,
+   *     or an empty optional if all tasks failed
+   * @throws TimeoutException if no task succeeded within the time limit
+   */
+  static <T> Optional<Pair<Integer, T>> race(
+      ExecutorService pExecutor,
+      List<? extends Callable<T>> pTasks,
+      TimeSpan pTimeLimit,
+      LogManager pLogger)
+      throws InterruptedException, TimeoutException {
+    final long deadline = System.nanoTime() + pTimeLimit.asNanos();
+    CompletionService<T> completionService = new ExecutorCompletionService<>(pExecutor);
+    Map<Future<T>, Integer> indices = new LinkedHashMap<>();
+    for (Callable<T> task : pTasks) {
+      indices.put(completionService.submit(task), indices.size());
+    }
+
+    for (int i = 0; i < indices.size(); i++) {
+      Future<T> future;
+      if (pTimeLimit.isEmpty()) {
+        future = completionService.take();
+      } else {
+        future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (future == null) {
+          throw new TimeoutException();
+        }
+      }
+      int index = indices.get(future);
+      try {
+        return Optional.of(Pair.of(index, future.get()));
+      } catch (ExecutionException e) {
+        pLogger.logDebugException(e.getCause(), "Task " + index + " of race failed");
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Analyze the given counterexample with a single member of the interpolation portfolio
+   * using the solver of the given context. This method is run in a separate thread
+   * and must not touch the solver or the {@link PathFormulaManager} of this instance,
+   * so the member does not compute error paths for feasible counterexamples.
+   *
+   * @return the interpolants as SMT-LIB strings, or an empty optional if the counterexample is
+   *     feasible
+   */
+  private Optional<List<String>> interpolateWithPortfolioMember(
+      PortfolioMember pMember,
+      MemberContext pContext,
+      List<String> pFormulas,
+      @Nullable String pBranchingFormula,
+      List<AbstractState> pAbstractionStates)
+      throws InvalidConfigurationException, CPAException, InterruptedException {
+
+    try {
+      if (pContext.solver == null) {
+        ShutdownNotifier memberShutdownNotifier = pContext.shutdownManager.getNotifier();
+        pContext.solver = Solver.create(pMember.config, logger, memberShutdownNotifier);
+        pContext.itpManager =
+            new InterpolationManager(
+                null,
+                pContext.solver,
+                Optional.ofNullable(loopStructure),
+                Optional.ofNullable(variableClassification),
+                pMember.config,
+                memberShutdownNotifier,
+                logger,
+                true);
+      }
+      FormulaManagerView memberFmgr = pContext.solver.getFormulaManager();
+      BlockFormulas formulas =
+          new BlockFormulas(from(pFormulas).transform(memberFmgr::parse).toList());
+      if (pBranchingFormula != null) {
+        formulas = formulas.withBranchingFormula(memberFmgr.parse(pBranchingFormula));
+      }
+
+      CounterexampleTraceInfo info =
+          pContext.itpManager.buildCounterexampleTrace(formulas, pAbstractionStates);
+
+      if (!info.isSpurious()) {
+        return Optional.empty();
+      }
+      if (info.getInterpolants() == null) {
+        throw new RefinementFailedException(Reason.InterpolationFailed, null);
+      }
+      return Optional.of(
+          from(info.getInterpolants())
+              .transform(itp -> memberFmgr.dumpFormula(itp).toString())
+              .toList());
+    } finally {
+      pContext.finish();
+    }
+  }
+
   /**
    * Counterexample analysis without interpolation. Use this method if you want to check a
    * counterexample for feasibility and in case of a feasible counterexample want the proper path
@@ -666,6 +1037,12 @@ public final class InterpolationManager {
 
     List<BooleanFormula> f = formulas.getFormulas();
 
+    if (pmgr == null) {
+      // portfolio member, the main solver analyzes the feasible counterexample again
+      return CounterexampleTraceInfo.feasible(
+          f, ImmutableList.<ValueAssignment>of(), ImmutableMap.<Integer, Boolean>of());
+    }
+
     if (!formulas.hasBranchingFormula() || bfmgr.isTrue(branchingFormula)) {
       return CounterexampleTraceInfo.feasible(
           f, pProver.getModelAssignments(), ImmutableMap.<Integer, Boolean>of());
@@ -0,0 +1,110 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.interpolation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/** Tests for the selection of the result of the interpolation portfolio. */
+public class InterpolationManagerTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  /** Released at the end of each test such that blocked tasks terminate. */
+  private final CountDownLatch blocker = new CountDownLatch(1);
+
+  @After
+  public void shutdown() {
+    blocker.countDown();
+    executor.shutdownNow();
+  }
+
+  private Callable<String> blocking() {
+    return () -> {
+      blocker.await();
+      return "blocked";
+    };
+  }
+
+  private static Callable<String> failing() {
+    return () -> {
+      throw new IllegalStateException("failing member");
+    };
+  }
+
+  @Test
+  public void firstSuccessfulResultWins() throws Exception {
+    Optional<Pair<Integer, String>> result =
+        InterpolationManager.race(
+            executor,
+            ImmutableList.of(blocking(), failing(), () -> "result", failing()),
+            TimeSpan.empty(),
+            logger);
+    assertThat(result).isEqualTo(Optional.of(Pair.of(2, "result")));
+  }
+
+  @Test
+  public void emptyResultWins() throws Exception {
+    // a member that finds a feasible counterexample returns an empty optional
+    Optional<Pair<Integer, Optional<String>>> result =
+        InterpolationManager.race(
+            executor,
+            ImmutableList.<Callable<Optional<String>>>of(
+                () -> {
+                  blocker.await();
+                  return Optional.of("interpolants");
+                },
+                Optional::empty),
+            TimeSpan.empty(),
+            logger);
+    assertThat(result).isEqualTo(Optional.of(Pair.of(1, Optional.<String>empty())));
+  }
+
+  @Test
+  public void allMembersFail() throws Exception {
+    Optional<Pair<Integer, String>> result =
+        InterpolationManager.race(
+            executor, ImmutableList.of(failing(), failing()), TimeSpan.empty(), logger);
+    assertThat(result).isEqualTo(Optional.empty());
+  }
+
+  @Test(expected = TimeoutException.class)
+  public void timeLimit() throws Exception {
+    InterpolationManager.race(
+        executor, ImmutableList.of(blocking(), failing()), TimeSpan.ofMillis(100), logger);
+  }
+}
@@ -25,12 +25,21 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import java.io.PrintStream;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import org.sosy_lab.common.time.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
@@ -41,91 +50,197 @@ import org.sosy_lab.cpachecker.exceptions.UnrecognizedCCodeException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCFAEdgeException;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing.PointerTargetSet;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 /**
  * Implementation of {@link PathFormulaManager} that delegates to another
  * instance but caches results of some methods.
+ *
+ * The caches are thread-safe and can be bounded in size.
+ * Results for pairs of arguments are stored in a small inner map
+ * for each first argument, such that lookups do not need to allocate a key.
+ * Each inner map is counted (and weighed) with the number of its results,
+ * but evicted as a whole.
  */
+@Options(prefix = "cpa.predicate.pathFormulaCache")
 public class CachingPathFormulaManager implements PathFormulaManager {
 
-  public final Timer pathFormulaComputationTimer = new Timer();
-  public int pathFormulaCacheHits = 0;
+  public enum EvictionStrategy {
+    /** evict the least-recently used entries first */
+    LRU,
+    /** like LRU, but each entry is weighted by the length of its path formula */
+    FORMULA_SIZE,
+  }
 
-  public final PathFormulaManager delegate;
+  @Option(
+    secure = true,
+    description =
+        "maximal size of each of the caches for path formulas, 0 for unbounded caches "
+            + "(with eviction=FORMULA_SIZE this is the sum of the lengths of the cached formulas)"
+  )
+  private long maxSize = 0;
 
-  private final Map<Pair<CFAEdge, PathFormula>, Pair<PathFormula, ErrorConditions>> andFormulaWithConditionsCache
-            = new HashMap<>();
-  private final Map<Pair<CFAEdge, PathFormula>, PathFormula> andFormulaCache
-            = new HashMap<>();
+  @Option(secure = true, description = "which entries to evict if a cache for path formulas is full")
+  private EvictionStrategy eviction = EvictionStrategy.LRU;
 
-  private final Map<Pair<PathFormula, PathFormula>, PathFormula> orFormulaCache
-            = new HashMap<>();
+  @Option(
+    secure = true,
+    description = "expected number of threads that use the caches for path formulas concurrently"
+  )
+  private int concurrencyLevel = 4;
 
-  private final Map<PathFormula, PathFormula> emptyFormulaCache
-            = new HashMap<>();
+  private final ThreadSafeTimerContainer pathFormulaComputationTimer =
+      new ThreadSafeTimerContainer("Time for path formula computation");
+  private final ThreadLocal<TimerWrapper> computationTimer =
+      ThreadLocal.withInitial(pathFormulaComputationTimer::getNewTimer);
+
+  private final LongAdder pathFormulaCacheHits = new LongAdder();
+  private final LongAdder pathFormulaCacheMisses = new LongAdder();
+
+  public final PathFormulaManager delegate;
+
+  private final Cache<PathFormula, Map<CFAEdge, Pair<PathFormula, ErrorConditions>>>
+      andFormulaWithConditionsCache;
+  private final Cache<PathFormula, Map<CFAEdge, PathFormula>> andFormulaCache;
+  private final Cache<PathFormula, Map<PathFormula, PathFormula>> orFormulaCache;
+  private final Cache<PathFormula, PathFormula> emptyFormulaCache;
 
   private final PathFormula emptyFormula;
 
-  public CachingPathFormulaManager(PathFormulaManager pDelegate) {
+  public CachingPathFormulaManager(PathFormulaManager pDelegate, Configuration pConfig)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    if (maxSize < 0) {
+      throw new InvalidConfigurationException(
+          "Size of path-formula cache needs to be non-negative, but is " + maxSize);
+    }
+    if (concurrencyLevel < 1) {
+      throw new InvalidConfigurationException(
+          "Concurrency level of path-formula cache needs to be positive, but is "
+              + concurrencyLevel);
+    }
     delegate = pDelegate;
     emptyFormula = delegate.makeEmptyPathFormula();
+    andFormulaWithConditionsCache = newCache(Map::size);
+    andFormulaCache = newCache(Map::size);
+    orFormulaCache = newCache(Map::size);
+    emptyFormulaCache = newCache(value -> 1);
   }
 
-  @Override
-  public Pair<PathFormula, ErrorConditions> makeAndWithErrorConditions(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
+  /**
+   * Create a cache according to the configuration.
+   *
+   * @param pNumberOfResults the number of results that are stored in a value of the cache
+   */
+  private <V> Cache<PathFormula, V> newCache(ToIntFunction<V> pNumberOfResults) {
+    CacheBuilder<Object, Object> builder =
+        CacheBuilder.newBuilder().concurrencyLevel(concurrencyLevel).recordStats();
+    if (maxSize > 0) {
+      Weigher<PathFormula, V> weigher;
+      switch (eviction) {
+        case LRU:
+          weigher = (key, value) -> pNumberOfResults.applyAsInt(value);
+          break;
+        case FORMULA_SIZE:
+          weigher = (key, value) -> pNumberOfResults.applyAsInt(value) * (key.getLength() + 1);
+          break;
+        default:
+          throw new AssertionError("Unhandled eviction strategy " + eviction);
+      }
+      return builder.maximumWeight(maxSize).weigher(weigher).build();
+    }
+    return builder.build();
+  }
 
-    final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    Pair<PathFormula, ErrorConditions> result = andFormulaWithConditionsCache.get(formulaCacheKey);
-    if (result == null) {
-      pathFormulaComputationTimer.start();
-      // compute new pathFormula with the operation on the edge
-      result = delegate.makeAndWithErrorConditions(pOldFormula, pEdge);
-      pathFormulaComputationTimer.stop();
-      andFormulaWithConditionsCache.put(formulaCacheKey, result);
+  /** Look up the cached result for a pair of arguments. */
+  private static @Nullable <K, V> V getCached(
+      Cache<PathFormula, Map<K, V>> pCache, PathFormula pKey1, K pKey2) {
+    Map<K, V> results = pCache.getIfPresent(pKey1);
+    return results == null ? null : results.get(pKey2);
+  }
+
+  /**
+   * Store the result for a pair of arguments. The inner map is replaced in the cache, such that
+   * its weight is updated.
+   */
+  private static <K, V> void putCached(
+      Cache<PathFormula, Map<K, V>> pCache, PathFormula pKey1, K pKey2, V pResult) {
+    pCache
+        .asMap()
+        .compute(
+            pKey1,
+            (key, results) -> {
+              if (results == null) {
+                results = new ConcurrentHashMap<>(4);
+              }
+              results.put(pKey2, pResult);
+              return results;
+            });
+  }
 
+  private <T> T countLookup(T pCachedResult) {
+    if (pCachedResult == null) {
+      pathFormulaCacheMisses.increment();
     } else {
-      pathFormulaCacheHits++;
+      pathFormulaCacheHits.increment();
+    }
+    return pCachedResult;
+  }
+
+  /** Returns the number of results that were returned from the caches. */
+  public long getCacheHits() {
+    return pathFormulaCacheHits.sum();
+  }
+
+  @Override
+  public Pair<PathFormula, ErrorConditions> makeAndWithErrorConditions(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
+    Pair<PathFormula, ErrorConditions> result =
+        countLookup(getCached(andFormulaWithConditionsCache, pOldFormula, pEdge));
+    if (result == null) {
+      TimerWrapper timer = computationTimer.get();
+      timer.start();
+      try {
+        // compute new pathFormula with the operation on the edge
+        result = delegate.makeAndWithErrorConditions(pOldFormula, pEdge);
+      } finally {
+        timer.stop();
+      }
+      putCached(andFormulaWithConditionsCache, pOldFormula, pEdge, result);
     }
     return result;
   }
 
   @Override
   public PathFormula makeAnd(PathFormula pOldFormula, CFAEdge pEdge) throws CPATransferException, InterruptedException {
-    final Pair<CFAEdge, PathFormula> formulaCacheKey = Pair.of(pEdge, pOldFormula);
-    PathFormula result = andFormulaCache.get(formulaCacheKey);
+    PathFormula result = countLookup(getCached(andFormulaCache, pOldFormula, pEdge));
     if (result == null) {
+      TimerWrapper timer = computationTimer.get();
+      timer.start();
       try {
-      pathFormulaComputationTimer.start();
-      // compute new pathFormula with the operation on the edge
-      result = delegate.makeAnd(pOldFormula, pEdge);
-      andFormulaCache.put(formulaCacheKey, result);
+        // compute new pathFormula with the operation on the edge
+        result = delegate.makeAnd(pOldFormula, pEdge);
       } finally {
-        pathFormulaComputationTimer.stop();
+        timer.stop();
       }
-
-    } else {
-      pathFormulaCacheHits++;
+      putCached(andFormulaCache, pOldFormula, pEdge, result);
     }
     return result;
   }
 
   @Override
   public PathFormula makeOr(PathFormula pF1, PathFormula pF2) throws InterruptedException {
-    final Pair<PathFormula, PathFormula> formulaCacheKey = Pair.of(pF1, pF2);
-
-    PathFormula result = orFormulaCache.get(formulaCacheKey);
+    PathFormula result = getCached(orFormulaCache, pF1, pF2);
     if (result == null) {
       // try again with other order
-      result = orFormulaCache.get(Pair.of(pF2, pF1));
+      result = getCached(orFormulaCache, pF2, pF1);
     }
 
-    if (result == null) {
+    if (countLookup(result) == null) {
       result = delegate.makeOr(pF1, pF2);
-      orFormulaCache.put(formulaCacheKey, result);
-    } else {
-      pathFormulaCacheHits++;
+      putCached(orFormulaCache, pF1, pF2, result);
     }
     return result;
   }
@@ -137,12 +252,10 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public PathFormula makeEmptyPathFormula(PathFormula pOldFormula) {
-    PathFormula result = emptyFormulaCache.get(pOldFormula);
+    PathFormula result = countLookup(emptyFormulaCache.getIfPresent(pOldFormula));
     if (result == null) {
       result = delegate.makeEmptyPathFormula(pOldFormula);
       emptyFormulaCache.put(pOldFormula, result);
-    } else {
-      pathFormulaCacheHits++;
     }
     return result;
   }
@@ -206,9 +319,16 @@ public class CachingPathFormulaManager implements PathFormulaManager {
 
   @Override
   public void printStatistics(PrintStream out) {
-    int pathFormulaCacheHits = this.pathFormulaCacheHits;
-    int totalPathFormulaComputations = this.pathFormulaComputationTimer.getNumberOfIntervals() + pathFormulaCacheHits;
+    long pathFormulaCacheHits = this.pathFormulaCacheHits.sum();
+    long totalPathFormulaComputations = pathFormulaCacheHits + pathFormulaCacheMisses.sum();
+    long evictions =
+        andFormulaWithConditionsCache.stats().evictionCount()
+            + andFormulaCache.stats().evictionCount()
+            + orFormulaCache.stats().evictionCount()
+            + emptyFormulaCache.stats().evictionCount();
     out.println("Number of path formula cache hits:   " + pathFormulaCacheHits + " (" + toPercent(pathFormulaCacheHits, totalPathFormulaComputations) + ")");
+    out.println("Number of path formula cache misses: " + pathFormulaCacheMisses.sum());
+    out.println("Number of path formula cache evictions: " + evictions);
     out.println();
 
     out.println("Inside post operator:                  ");
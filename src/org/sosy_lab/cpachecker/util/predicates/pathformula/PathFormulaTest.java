@@ -152,6 +152,22 @@ public class PathFormulaTest {
     assertThat(builder.getFreshIndex("c")).isEqualTo(16);
   }
 
+  @Test
+  public void testSSAInterning() {
+    SSAMap ssa1 =
+        builder.setIndex("a", CNumericTypes.INT, 1).setIndex("b", CNumericTypes.INT, 2).build();
+    SSAMap ssa2 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("b", CNumericTypes.INT, 2)
+            .setIndex("a", CNumericTypes.INT, 1)
+            .build();
+
+    assertThat(ssa2).isSameAs(ssa1);
+    assertThat(ssa1.withDefault(1)).isNotEqualTo(ssa1);
+    assertThat(ssa1.withDefault(1)).isSameAs(ssa2.withDefault(1));
+  }
+
   @Test
   public void testSSAExceptionMonotone() {
     builder.setIndex("a", CNumericTypes.INT, 2);
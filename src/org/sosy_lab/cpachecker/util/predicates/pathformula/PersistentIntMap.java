@@ -0,0 +1,343 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A persistent map from non-negative int keys to int values, implemented as a path-copying trie
+ * with 32-way bitmap-compressed nodes. Neither keys nor values are boxed, and updates copy only the
+ * (small) nodes on the path to the changed key.
+ *
+ * <p>The trie is meant for dense keys, e.g., variable ids that are assigned consecutively: its
+ * height only depends on the largest key in the map.
+ */
+@Immutable
+final class PersistentIntMap {
+
+  /** Callback for {@link PersistentIntMap#forEach(EntryVisitor)}. */
+  interface EntryVisitor {
+    void visit(int key, int value);
+  }
+
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final PersistentIntMap EMPTY = new PersistentIntMap(null, 0, 0);
+
+  /** The root node, an {@link InnerNode} if shift is positive, a {@link LeafNode} otherwise. */
+  private final @Nullable Object root;
+
+  /** The number of key bits below the root level. */
+  private final int shift;
+
+  private final int size;
+
+  private PersistentIntMap(@Nullable Object pRoot, int pShift, int pSize) {
+    root = pRoot;
+    shift = pShift;
+    size = pSize;
+  }
+
+  static PersistentIntMap of() {
+    return EMPTY;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  boolean containsKey(int key) {
+    return getLeaf(key) != null;
+  }
+
+  /**
+   * Returns the value for the given key, or the given default value if the key is not in the map.
+   */
+  int get(int key, int defaultValue) {
+    LeafNode leaf = getLeaf(key);
+    if (leaf == null) {
+      return defaultValue;
+    }
+    return leaf.values[leaf.indexOf(bit(key, 0))];
+  }
+
+  /** Returns the leaf that contains the given key, or null if the key is not in the map. */
+  private @Nullable LeafNode getLeaf(int key) {
+    if (root == null || key < 0 || (key >>> shift) >= WIDTH) {
+      return null;
+    }
+    Object node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      InnerNode inner = (InnerNode) node;
+      int bit = bit(key, level);
+      if ((inner.bitmap & bit) == 0) {
+        return null;
+      }
+      node = inner.children[inner.indexOf(bit)];
+    }
+    LeafNode leaf = (LeafNode) node;
+    return (leaf.bitmap & bit(key, 0)) == 0 ? null : leaf;
+  }
+
+  /**
+   * Returns a map that additionally maps the given key to the given value. If the key is already
+   * mapped to this value, the current instance is returned.
+   */
+  PersistentIntMap put(int key, int value) {
+    checkArgument(key >= 0, "Keys need to be non-negative: %s", key);
+    Object newRoot = root;
+    int newShift = shift;
+    if (newRoot == null) {
+      newShift = 0;
+      while ((key >>> newShift) >= WIDTH) {
+        newShift += BITS;
+      }
+    } else {
+      while ((key >>> newShift) >= WIDTH) {
+        // the old root becomes the first child of a new root
+        newRoot = new InnerNode(1, new Object[] {newRoot});
+        newShift += BITS;
+      }
+    }
+
+    boolean[] added = new boolean[1];
+    Object result = put(newRoot, newShift, key, value, added);
+    if (result == root) {
+      return this;
+    }
+    return new PersistentIntMap(result, newShift, added[0] ? size + 1 : size);
+  }
+
+  private static Object put(
+      @Nullable Object node, int level, int key, int value, boolean[] added) {
+    int bit = bit(key, level);
+
+    if (level == 0) {
+      LeafNode leaf = (LeafNode) node;
+      if (leaf == null) {
+        added[0] = true;
+        return new LeafNode(bit, new int[] {value});
+      }
+      int index = leaf.indexOf(bit);
+      if ((leaf.bitmap & bit) != 0) {
+        if (leaf.values[index] == value) {
+          return leaf;
+        }
+        int[] values = leaf.values.clone();
+        values[index] = value;
+        return new LeafNode(leaf.bitmap, values);
+      }
+      added[0] = true;
+      int[] values = new int[leaf.values.length + 1];
+      System.arraycopy(leaf.values, 0, values, 0, index);
+      values[index] = value;
+      System.arraycopy(leaf.values, index, values, index + 1, leaf.values.length - index);
+      return new LeafNode(leaf.bitmap | bit, values);
+    }
+
+    InnerNode inner = (InnerNode) node;
+    if (inner == null) {
+      return new InnerNode(bit, new Object[] {put(null, level - BITS, key, value, added)});
+    }
+    int index = inner.indexOf(bit);
+    if ((inner.bitmap & bit) != 0) {
+      Object child = inner.children[index];
+      Object newChild = put(child, level - BITS, key, value, added);
+      if (newChild == child) {
+        return inner;
+      }
+      Object[] children = inner.children.clone();
+      children[index] = newChild;
+      return new InnerNode(inner.bitmap, children);
+    }
+    Object[] children = new Object[inner.children.length + 1];
+    System.arraycopy(inner.children, 0, children, 0, index);
+    children[index] = put(null, level - BITS, key, value, added);
+    System.arraycopy(inner.children, index, children, index + 1, inner.children.length - index);
+    return new InnerNode(inner.bitmap | bit, children);
+  }
+
+  /**
+   * Returns a map without the given key. If the key is not in the map, the current instance is
+   * returned.
+   */
+  PersistentIntMap remove(int key) {
+    if (!containsKey(key)) {
+      return this;
+    }
+    if (size == 1) {
+      return EMPTY;
+    }
+    return new PersistentIntMap(remove(root, shift, key), shift, size - 1);
+  }
+
+  /** Removes a key that is known to be in the subtree, returns null if the subtree gets empty. */
+  private static @Nullable Object remove(Object node, int level, int key) {
+    int bit = bit(key, level);
+
+    if (level == 0) {
+      LeafNode leaf = (LeafNode) node;
+      if (leaf.values.length == 1) {
+        return null;
+      }
+      int index = leaf.indexOf(bit);
+      int[] values = new int[leaf.values.length - 1];
+      System.arraycopy(leaf.values, 0, values, 0, index);
+      System.arraycopy(leaf.values, index + 1, values, index, values.length - index);
+      return new LeafNode(leaf.bitmap & ~bit, values);
+    }
+
+    InnerNode inner = (InnerNode) node;
+    int index = inner.indexOf(bit);
+    Object newChild = remove(inner.children[index], level - BITS, key);
+    if (newChild != null) {
+      Object[] children = inner.children.clone();
+      children[index] = newChild;
+      return new InnerNode(inner.bitmap, children);
+    }
+    if (inner.children.length == 1) {
+      return null;
+    }
+    Object[] children = new Object[inner.children.length - 1];
+    System.arraycopy(inner.children, 0, children, 0, index);
+    System.arraycopy(inner.children, index + 1, children, index, children.length - index);
+    return new InnerNode(inner.bitmap & ~bit, children);
+  }
+
+  /** Visits all entries of the map in ascending order of their keys. */
+  void forEach(EntryVisitor visitor) {
+    if (root != null) {
+      forEach(root, shift, 0, visitor);
+    }
+  }
+
+  private static void forEach(Object node, int level, int prefix, EntryVisitor visitor) {
+    if (level == 0) {
+      LeafNode leaf = (LeafNode) node;
+      int bitmap = leaf.bitmap;
+      for (int i = 0; bitmap != 0; i++) {
+        int position = Integer.numberOfTrailingZeros(bitmap);
+        visitor.visit(prefix | position, leaf.values[i]);
+        bitmap &= bitmap - 1;
+      }
+      return;
+    }
+    InnerNode inner = (InnerNode) node;
+    int bitmap = inner.bitmap;
+    for (int i = 0; bitmap != 0; i++) {
+      int position = Integer.numberOfTrailingZeros(bitmap);
+      forEach(inner.children[i], level - BITS, prefix | (position << level), visitor);
+      bitmap &= bitmap - 1;
+    }
+  }
+
+  private static int bit(int key, int level) {
+    return 1 << ((key >>> level) & MASK);
+  }
+
+  @Override
+  public int hashCode() {
+    int[] hashCode = new int[1];
+    forEach((key, value) -> hashCode[0] += key ^ value);
+    return hashCode[0];
+  }
+
+  @Override
+  public boolean equals(Object pObj) {
+    if (this == pObj) {
+      return true;
+    }
+    if (!(pObj instanceof PersistentIntMap)) {
+      return false;
+    }
+    PersistentIntMap other = (PersistentIntMap) pObj;
+    if (size != other.size) {
+      return false;
+    }
+    if (root == other.root) {
+      return true;
+    }
+    boolean[] equal = {true};
+    forEach(
+        (key, value) -> {
+          // ~value is never equal to value, so it signals a missing key
+          if (equal[0] && other.get(key, ~value) != value) {
+            equal[0] = false;
+          }
+        });
+    return equal[0];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    forEach(
+        (key, value) -> {
+          if (sb.length() > 1) {
+            sb.append(", ");
+          }
+          sb.append(key).append('=').append(value);
+        });
+    return sb.append('}').toString();
+  }
+
+  private static final class InnerNode {
+
+    private final int bitmap;
+    private final Object[] children;
+
+    private InnerNode(int pBitmap, Object[] pChildren) {
+      bitmap = pBitmap;
+      children = pChildren;
+    }
+
+    private int indexOf(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+
+  private static final class LeafNode {
+
+    private final int bitmap;
+    private final int[] values;
+
+    private LeafNode(int pBitmap, int[] pValues) {
+      bitmap = pBitmap;
+      values = pValues;
+    }
+
+    private int indexOf(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+  }
+}
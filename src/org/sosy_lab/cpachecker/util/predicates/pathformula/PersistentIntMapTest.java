@@ -0,0 +1,98 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class PersistentIntMapTest {
+
+  @Test
+  public void testEmpty() {
+    PersistentIntMap map = PersistentIntMap.of();
+    assertThat(map.isEmpty()).isTrue();
+    assertThat(map.containsKey(0)).isFalse();
+    assertThat(map.get(0, -1)).isEqualTo(-1);
+    assertThat(map.remove(0)).isSameAs(map);
+  }
+
+  @Test
+  public void testPersistence() {
+    PersistentIntMap map1 = PersistentIntMap.of().put(3, 1);
+    PersistentIntMap map2 = map1.put(3, 2).put(5000, 7);
+
+    assertThat(map1.get(3, -1)).isEqualTo(1);
+    assertThat(map1.containsKey(5000)).isFalse();
+    assertThat(map2.get(3, -1)).isEqualTo(2);
+    assertThat(map2.get(5000, -1)).isEqualTo(7);
+    assertThat(map2.size()).isEqualTo(2);
+
+    assertThat(map2.put(5000, 7)).isSameAs(map2);
+    assertThat(map2.remove(5000).remove(3)).isEqualTo(PersistentIntMap.of());
+  }
+
+  @Test
+  public void testAgainstTreeMap() {
+    Random random = new Random(0);
+    TreeMap<Integer, Integer> expected = new TreeMap<>();
+    PersistentIntMap map = PersistentIntMap.of();
+
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(i % 2 == 0 ? 100 : Integer.MAX_VALUE);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.remove(key);
+      } else {
+        expected.put(key, i);
+        map = map.put(key, i);
+      }
+      assertThat(map.size()).isEqualTo(expected.size());
+    }
+
+    List<Integer> keys = new ArrayList<>();
+    final PersistentIntMap finalMap = map;
+    map.forEach(
+        (key, value) -> {
+          keys.add(key);
+          assertThat(value).isEqualTo(expected.get(key));
+          assertThat(finalMap.get(key, -1)).isEqualTo(value);
+        });
+    assertThat(keys).containsExactlyElementsIn(expected.keySet()).inOrder();
+  }
+
+  @Test
+  public void testEquals() {
+    PersistentIntMap map1 = PersistentIntMap.of().put(1, 1).put(40, 2).put(1 << 20, 3);
+    PersistentIntMap map2 = PersistentIntMap.of().put(1 << 20, 3).put(40, 2).put(1, 1);
+
+    assertThat(map1).isEqualTo(map2);
+    assertThat(map1.hashCode()).isEqualTo(map2.hashCode());
+    assertThat(map1.put(40, 4)).isNotEqualTo(map2);
+  }
+}
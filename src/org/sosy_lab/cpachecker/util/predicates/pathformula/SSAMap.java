@@ -25,9 +25,9 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-import com.google.common.base.Equivalence;
-import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import org.sosy_lab.common.collect.Collections3;
 import org.sosy_lab.common.collect.MapsDifference;
@@ -43,15 +43,36 @@ import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Maps a variable name to its latest "SSA index", that should be used when
  * referring to that variable.
+ *
+ * Instances are hash-consed: all SSAMaps are created through a weak interner,
+ * so equal maps are usually identical and most equality checks
+ * (e.g., for cache keys with PathFormulas) end with a reference comparison.
+ *
+ * Internally, each variable name is mapped to a unique int id
+ * (assigned consecutively when a variable is added to an SSAMap for the first time,
+ * see {@link VariableIds} for the lifetime of this mapping),
+ * and the indices are stored in a persistent int-to-int trie keyed by these ids.
+ * Thus lookups and updates neither box indices nor compare strings.
+ * The name-keyed map of types serves as the sorted view of the variables,
+ * such that iteration orders (and thus the created formulas) are the same
+ * as with a map keyed by variable names.
  */
 public class SSAMap implements Serializable {
 
@@ -60,8 +81,62 @@ public class SSAMap implements Serializable {
   // Default value for the default value
   private static final int DEFAULT_DEFAULT_IDX = -1;
 
+  // Marker for variables that are not in the map, indices are always positive
+  private static final int NO_INDEX = Integer.MIN_VALUE;
+
   private final int defaultValue;
 
+  private static final Interner<SSAMap> INTERNER = Interners.newWeakInterner();
+
+  /**
+   * The ids of the variables that were added to SSAMaps.
+   *
+   * <p>All SSAMaps that exist at the same time share one registry: it is created together with
+   * its empty SSAMap, and every SSAMap that is derived from it references it. The registry grows
+   * with every new variable name, but once no SSAMap references it anymore (e.g., after an
+   * analysis has finished), it is garbage collected and the next call to {@link #emptySSAMap()}
+   * starts a new one. Thus SSAMaps of different registries never exist at the same time.
+   */
+  private static final class VariableIds {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final SSAMap emptySSAMap;
+
+    private VariableIds() {
+      emptySSAMap =
+          new SSAMap(
+              this,
+              PersistentIntMap.of(),
+              new FreshValueProvider(),
+              0,
+              PathCopyingPersistentTreeMap.of(),
+              DEFAULT_DEFAULT_IDX);
+    }
+
+    /**
+     * Returns the id of the given variable, or -1 if the variable was never added to an SSAMap
+     * (and thus is not contained in any SSAMap).
+     */
+    private int get(String variable) {
+      Integer id = ids.get(variable);
+      return id == null ? -1 : id;
+    }
+
+    private int getOrCreate(String variable) {
+      Integer id = ids.get(variable);
+      if (id == null) {
+        id = ids.computeIfAbsent(variable, v -> nextId.getAndIncrement());
+      }
+      return id;
+    }
+  }
+
+  // The registry of variable ids that is currently in use.
+  // Only replaced (while holding the class lock) after it was garbage collected.
+  private static volatile WeakReference<VariableIds> currentVariableIds =
+      new WeakReference<>(null);
+
   private static MergeConflictHandler<String, CType> TYPE_CONFLICT_CHECKER =
       new MergeConflictHandler<String, CType>() {
         @Override
@@ -102,18 +177,18 @@ public class SSAMap implements Serializable {
   public static class SSAMapBuilder {
 
     private SSAMap ssa;
-    private PersistentSortedMap<String, Integer> vars; // Do not update without updating varsHashCode!
+    private PersistentIntMap indices; // Do not update without updating varsHashCode!
     private FreshValueProvider freshValueProvider;
     private PersistentSortedMap<String, CType> varTypes;
 
-    // Instead of computing vars.hashCode(),
+    // Instead of computing the hashCode of the name-to-index mapping,
     // we calculate the hashCode ourselves incrementally
     // (this is possible because a Map's hashCode is clearly defined).
     private int varsHashCode;
 
     private SSAMapBuilder(SSAMap ssa) {
       this.ssa = ssa;
-      this.vars = ssa.vars;
+      this.indices = ssa.indices;
       this.freshValueProvider = ssa.freshValueProvider;
 
       this.varTypes = ssa.varTypes;
@@ -121,12 +196,11 @@ public class SSAMap implements Serializable {
     }
 
     public int getIndex(String variable) {
-      return SSAMap.getIndex(variable, vars, ssa.defaultValue);
+      return ssa.getIndex(variable, indices);
     }
 
     public int getFreshIndex(String variable) {
-      return freshValueProvider.getFreshValue(variable,
-          SSAMap.getIndex(variable, vars, ssa.defaultValue));
+      return freshValueProvider.getFreshValue(variable, ssa.getIndex(variable, indices));
     }
 
     public CType getType(String name) {
@@ -136,7 +210,8 @@ public class SSAMap implements Serializable {
     @SuppressWarnings("CheckReturnValue")
     public SSAMapBuilder setIndex(String name, CType type, int idx) {
       Preconditions.checkArgument(idx > 0, "Indices need to be positive for this SSAMap implementation:", name, type, idx);
-      int oldIdx = getIndex(name);
+      int id = ssa.variableIds.getOrCreate(name);
+      int oldIdx = indices.get(id, ssa.defaultValue);
       Preconditions.checkArgument(idx >= oldIdx, "SSAMap updates need to be strictly monotone:", name, type, idx);
 
       type = type.getCanonicalType();
@@ -148,7 +223,7 @@ public class SSAMap implements Serializable {
       }
 
       if (idx > oldIdx || idx == ssa.defaultValue) {
-        vars = vars.putAndCopy(name, idx);
+        indices = indices.put(id, idx);
         if (oldIdx != ssa.defaultValue) {
           varsHashCode -= mapEntryHashCode(name, oldIdx);
         }
@@ -165,7 +240,7 @@ public class SSAMap implements Serializable {
     public SSAMapBuilder deleteVariable(String variable) {
       int index = getIndex(variable);
       if (index != ssa.defaultValue) {
-        vars = vars.removeAndCopy(variable);
+        indices = indices.remove(ssa.variableIds.get(variable));
         varsHashCode -= mapEntryHashCode(variable, index);
 
         varTypes = varTypes.removeAndCopy(variable);
@@ -186,38 +261,64 @@ public class SSAMap implements Serializable {
      * Returns an immutable SSAMap with all the changes made to the builder.
      */
     public SSAMap build() {
-      if (vars == ssa.vars && freshValueProvider == ssa.freshValueProvider) {
+      if (indices == ssa.indices && freshValueProvider == ssa.freshValueProvider) {
         return ssa;
       }
 
-      ssa = new SSAMap(vars, freshValueProvider, varsHashCode, varTypes, ssa.defaultValue);
+      ssa =
+          INTERNER.intern(
+              new SSAMap(
+                  ssa.variableIds,
+                  indices,
+                  freshValueProvider,
+                  varsHashCode,
+                  varTypes,
+                  ssa.defaultValue));
       return ssa;
     }
-
-    /**
-     * Not-null safe copy of {@link SimpleImmutableEntry#hashCode()}
-     * for Object-to-int maps.
-     */
-    private static int mapEntryHashCode(Object key, int value) {
-      return key.hashCode() ^ value;
-    }
   }
 
-  private static final SSAMap EMPTY_SSA_MAP = new SSAMap(
-      PathCopyingPersistentTreeMap.of(),
-      new FreshValueProvider(),
-      0,
-      PathCopyingPersistentTreeMap.of());
+  /**
+   * Not-null safe copy of {@link SimpleImmutableEntry#hashCode()}
+   * for Object-to-int maps.
+   */
+  private static int mapEntryHashCode(Object key, int value) {
+    return key.hashCode() ^ value;
+  }
 
   /**
    * Returns an empty immutable SSAMap.
    */
   public static SSAMap emptySSAMap() {
-    return EMPTY_SSA_MAP;
+    VariableIds variableIds = currentVariableIds.get();
+    if (variableIds == null) {
+      variableIds = createVariableIds();
+    }
+    return variableIds.emptySSAMap;
+  }
+
+  private static synchronized VariableIds createVariableIds() {
+    VariableIds variableIds = currentVariableIds.get();
+    if (variableIds == null) {
+      // no SSAMap of the previous registry is reachable anymore
+      variableIds = new VariableIds();
+      currentVariableIds = new WeakReference<>(variableIds);
+    }
+    return variableIds;
   }
 
   public SSAMap withDefault(final int pDefaultValue) {
-    return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue);
+    if (pDefaultValue == defaultValue) {
+      return this;
+    }
+    return INTERNER.intern(
+        new SSAMap(
+            this.variableIds,
+            this.indices,
+            this.freshValueProvider,
+            this.varsHashCode,
+            this.varTypes,
+            pDefaultValue));
   }
 
   /**
@@ -236,23 +337,10 @@ public class SSAMap implements Serializable {
     // probably never be the case on a merge.
 
     checkArgument(s1.defaultValue == s2.defaultValue);
-    PersistentSortedMap<String, Integer> vars;
-    FreshValueProvider freshValueProvider;
-    int defaultIndex;
-    if (s1.vars == s2.vars && s1.freshValueProvider == s2.freshValueProvider) {
+    assert s1.variableIds == s2.variableIds;
+    if (s1.indices == s2.indices && s1.freshValueProvider == s2.freshValueProvider) {
       // both are absolutely identical
       return s1;
-
-    } else {
-      vars =
-          PersistentSortedMaps.merge(
-              s1.vars,
-              s2.vars,
-              Equivalence.equals(),
-              PersistentSortedMaps.getMaximumMergeConflictHandler(),
-              collectDifferences);
-      freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
-      defaultIndex = s1.defaultValue;
     }
 
     PersistentSortedMap<String, CType> varTypes =
@@ -263,40 +351,73 @@ public class SSAMap implements Serializable {
             TYPE_CONFLICT_CHECKER,
             MapsDifference.ignoreMapsDifference());
 
-    return new SSAMap(vars, freshValueProvider, 0, varTypes, defaultIndex);
+    PersistentIntMap indices = s1.indices;
+    int varsHashCode = s1.varsHashCode;
+    if (s1.indices != s2.indices) {
+      // Both maps contain exactly the variables in their varTypes,
+      // so we visit all variables of both maps in the order of their names.
+      for (String name : varTypes.keySet()) {
+        int id = s1.variableIds.get(name);
+        int index1 = s1.indices.get(id, NO_INDEX);
+        int index2 = s2.indices.get(id, NO_INDEX);
+        if (index1 == index2) {
+          continue;
+        }
+
+        if (index1 == NO_INDEX) {
+          collectDifferences.rightValueOnly(name, index2);
+          indices = indices.put(id, index2);
+          varsHashCode += mapEntryHashCode(name, index2);
+        } else if (index2 == NO_INDEX) {
+          collectDifferences.leftValueOnly(name, index1);
+        } else {
+          collectDifferences.differingValues(name, index1, index2);
+          if (index2 > index1) {
+            indices = indices.put(id, index2);
+            varsHashCode += mapEntryHashCode(name, index2) - mapEntryHashCode(name, index1);
+          }
+        }
+      }
+    }
+    FreshValueProvider freshValueProvider = s1.freshValueProvider.merge(s2.freshValueProvider);
+
+    return INTERNER.intern(
+        new SSAMap(
+            s1.variableIds, indices, freshValueProvider, varsHashCode, varTypes, s1.defaultValue));
   }
 
-  private final PersistentSortedMap<String, Integer> vars;
+  private final VariableIds variableIds;
+  private final PersistentIntMap indices;
   private final FreshValueProvider freshValueProvider;
   private final PersistentSortedMap<String, CType> varTypes;
 
   // Cache hashCode of potentially big map
   private final int varsHashCode;
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
+  private SSAMap(VariableIds variableIds,
+                 PersistentIntMap indices,
                  FreshValueProvider freshValueProvider,
                  int varsHashCode,
                  PersistentSortedMap<String, CType> varTypes,
                  int defaultSSAIdx) {
-    this.vars = vars;
+    this.variableIds = variableIds;
+    this.indices = indices;
     this.freshValueProvider = freshValueProvider;
     this.varTypes = varTypes;
-
-    if (varsHashCode == 0) {
-      this.varsHashCode = vars.hashCode();
-    } else {
-      this.varsHashCode = varsHashCode;
-      assert varsHashCode == vars.hashCode();
-    }
-
+    this.varsHashCode = varsHashCode;
     defaultValue = defaultSSAIdx;
+
+    assert varTypes.size() == indices.size();
+    assert varsHashCode == computeVarsHashCode();
   }
 
-  private SSAMap(PersistentSortedMap<String, Integer> vars,
-                 FreshValueProvider freshValueProvider,
-                 int varsHashCode,
-                 PersistentSortedMap<String, CType> varTypes) {
-    this(vars, freshValueProvider, varsHashCode, varTypes, DEFAULT_DEFAULT_IDX);
+  /** Computes the hashCode that a name-to-index map with the contents of this map would have. */
+  private int computeVarsHashCode() {
+    int hashCode = 0;
+    for (String name : varTypes.keySet()) {
+      hashCode += mapEntryHashCode(name, indices.get(variableIds.get(name), NO_INDEX));
+    }
+    return hashCode;
   }
 
   /**
@@ -306,12 +427,8 @@ public class SSAMap implements Serializable {
     return new SSAMapBuilder(this);
   }
 
-  private static int getIndex(String variable, Map<String, Integer> vars, int defaultValue) {
-    Integer value = vars.get(variable);
-    if (value == null) {
-      return defaultValue;
-    }
-    return value;
+  private int getIndex(String variable, PersistentIntMap pIndices) {
+    return pIndices.get(variableIds.get(variable), defaultValue);
   }
 
   /**
@@ -319,11 +436,11 @@ public class SSAMap implements Serializable {
    * or the [defaultValue].
    */
   public int getIndex(String variable) {
-    return getIndex(variable, vars, defaultValue);
+    return getIndex(variable, indices);
   }
 
   public boolean containsVariable(String variable) {
-    return vars.containsKey(variable);
+    return indices.containsKey(variableIds.get(variable));
   }
 
   public CType getType(String name) {
@@ -331,14 +448,19 @@ public class SSAMap implements Serializable {
   }
 
   public SortedSet<String> allVariables() {
-    return vars.keySet();
+    return varTypes.keySet();
   }
 
-  private static final Joiner joiner = Joiner.on(" ");
-
   @Override
   public String toString() {
-    return joiner.join(vars.entrySet());
+    StringBuilder sb = new StringBuilder();
+    for (String name : varTypes.keySet()) {
+      if (sb.length() > 0) {
+        sb.append(' ');
+      }
+      sb.append(name).append('=').append(getIndex(name));
+    }
+    return sb.toString();
   }
 
   @Override
@@ -355,9 +477,58 @@ public class SSAMap implements Serializable {
     } else {
       SSAMap other = (SSAMap)obj;
       // Do a few cheap checks before the expensive ones.
+      // The default value and the types need to be compared as well,
+      // because the interner must not replace a map by one that differs in them.
       return varsHashCode == other.varsHashCode
-          && vars.equals(other.vars)
-          && freshValueProvider.equals(other.freshValueProvider);
+          && defaultValue == other.defaultValue
+          && indices.equals(other.indices)
+          && freshValueProvider.equals(other.freshValueProvider)
+          && varTypes.equals(other.varTypes);
+    }
+  }
+
+  // The variable ids are only valid within one registry,
+  // so we serialize the indices keyed by variable names.
+  private Object writeReplace() {
+    return new SerializationProxy(this);
+  }
+
+  /**
+   * javadoc to remove unused parameter warning
+   * @param in the input stream
+   */
+  private void readObject(ObjectInputStream in) throws IOException {
+    throw new InvalidObjectException("Proxy required");
+  }
+
+  private static class SerializationProxy implements Serializable {
+
+    private static final long serialVersionUID = -3496384474283117627L;
+    private final HashMap<String, Integer> vars = new HashMap<>();
+    private final FreshValueProvider freshValueProvider;
+    private final PersistentSortedMap<String, CType> varTypes;
+    private final int defaultValue;
+
+    private SerializationProxy(SSAMap ssa) {
+      for (String name : ssa.varTypes.keySet()) {
+        vars.put(name, ssa.getIndex(name));
+      }
+      freshValueProvider = ssa.freshValueProvider;
+      varTypes = ssa.varTypes;
+      defaultValue = ssa.defaultValue;
+    }
+
+    private Object readResolve() {
+      VariableIds variableIds = emptySSAMap().variableIds;
+      PersistentIntMap indices = PersistentIntMap.of();
+      int varsHashCode = 0;
+      for (Map.Entry<String, Integer> entry : vars.entrySet()) {
+        indices = indices.put(variableIds.getOrCreate(entry.getKey()), entry.getValue());
+        varsHashCode += mapEntryHashCode(entry.getKey(), entry.getValue());
+      }
+      return INTERNER.intern(
+          new SSAMap(
+              variableIds, indices, freshValueProvider, varsHashCode, varTypes, defaultValue));
     }
   }
 }
@@ -25,6 +25,8 @@ package org.sosy_lab.cpachecker.util.predicates.pathformula.pointeraliasing;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import java.io.IOException;
@@ -141,16 +143,42 @@ public final class PointerTargetSet implements Serializable {
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-    result = prime * result + bases.hashCode();
-    result = prime * result + fields.hashCode();
-    result = prime * result + deferredAllocations.hashCode();
-    result = prime * result + highestAllocatedAddresses.hashCode();
-    result = prime * result + Integer.hashCode(allocationCount);
+    int result = hashCode;
+    if (result == 0) {
+      final int prime = 31;
+      result = 1;
+      result = prime * result + basesHashCode;
+      result = prime * result + fieldsHashCode;
+      result = prime * result + deferredAllocations.hashCode();
+      result = prime * result + highestAllocatedAddresses.hashCode();
+      result = prime * result + Integer.hashCode(allocationCount);
+      hashCode = result;
+    }
     return result;
   }
 
+  /** Returns the hash code of a map entry as defined by {@link Map.Entry#hashCode()}. */
+  static int entryHashCode(final Object pKey, final Object pValue) {
+    return pKey.hashCode() ^ pValue.hashCode();
+  }
+
+  /** Returns the hash code of a map, i.e., the sum of {@link #entryHashCode} of all entries. */
+  private static int mapHashCode(final Map<?, ?> pMap) {
+    int result = 0;
+    for (Map.Entry<?, ?> entry : pMap.entrySet()) {
+      result += entryHashCode(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  int getBasesHashCode() {
+    return basesHashCode;
+  }
+
+  int getFieldsHashCode() {
+    return fieldsHashCode;
+  }
+
   @Override
   public boolean equals(final Object obj) {
     if (this == obj) {
@@ -161,7 +189,8 @@ public final class PointerTargetSet implements Serializable {
       PointerTargetSet other = (PointerTargetSet) obj;
       // No need to check for equality of targets
       // because if bases and fields are equal, targets is equal, too.
-      return bases.equals(other.bases)
+      return hashCode() == other.hashCode()
+          && bases.equals(other.bases)
           && fields.equals(other.fields)
           && deferredAllocations.equals(other.deferredAllocations)
           && highestAllocatedAddresses.equals(other.getHighestAllocatedAddresses())
@@ -169,9 +198,59 @@ public final class PointerTargetSet implements Serializable {
     }
   }
 
-  PointerTargetSet(
+  /**
+   * Returns a PointerTargetSet with the given contents. Instances are hash-consed, so the returned
+   * instance is identical to all other live instances that are equal to it.
+   */
+  static PointerTargetSet of(
+      final PersistentSortedMap<String, CType> bases,
+      final PersistentSortedMap<CompositeField, Boolean> fields,
+      final PersistentList<Pair<String, DeferredAllocation>> deferredAllocations,
+      final PersistentSortedMap<String, PersistentList<PointerTarget>> targets,
+      final PersistentList<Formula> pHighestAllocatedAddresess,
+      final int pAllocationCount) {
+    return of(
+        bases,
+        mapHashCode(bases),
+        fields,
+        mapHashCode(fields),
+        deferredAllocations,
+        targets,
+        pHighestAllocatedAddresess,
+        pAllocationCount);
+  }
+
+  /**
+   * Like {@link #of(PersistentSortedMap, PersistentSortedMap, PersistentList,
+   * PersistentSortedMap, PersistentList, int)}, but with the hash codes of the maps of bases and
+   * fields already known (e.g., because the builder updates them incrementally).
+   */
+  static PointerTargetSet of(
       final PersistentSortedMap<String, CType> bases,
+      final int pBasesHashCode,
       final PersistentSortedMap<CompositeField, Boolean> fields,
+      final int pFieldsHashCode,
+      final PersistentList<Pair<String, DeferredAllocation>> deferredAllocations,
+      final PersistentSortedMap<String, PersistentList<PointerTarget>> targets,
+      final PersistentList<Formula> pHighestAllocatedAddresess,
+      final int pAllocationCount) {
+    return INTERNER.intern(
+        new PointerTargetSet(
+            bases,
+            pBasesHashCode,
+            fields,
+            pFieldsHashCode,
+            deferredAllocations,
+            targets,
+            pHighestAllocatedAddresess,
+            pAllocationCount));
+  }
+
+  private PointerTargetSet(
+      final PersistentSortedMap<String, CType> bases,
+      final int pBasesHashCode,
+      final PersistentSortedMap<CompositeField, Boolean> fields,
+      final int pFieldsHashCode,
       final PersistentList<Pair<String, DeferredAllocation>> deferredAllocations,
       final PersistentSortedMap<String, PersistentList<PointerTarget>> targets,
       final PersistentList<Formula> pHighestAllocatedAddresess,
@@ -184,6 +263,8 @@ public final class PointerTargetSet implements Serializable {
     this.targets = targets;
     highestAllocatedAddresses = pHighestAllocatedAddresess;
     allocationCount = pAllocationCount;
+    basesHashCode = pBasesHashCode;
+    fieldsHashCode = pFieldsHashCode;
 
     if (isEmpty()) {
       // Inside isEmpty(), we do not check the following the targets field.
@@ -230,8 +311,12 @@ public final class PointerTargetSet implements Serializable {
     return allocationCount;
   }
 
+  // Weak interner for hash-consing all instances (cf. SSAMap),
+  // needs to be initialized before EMPTY_INSTANCE.
+  private static final Interner<PointerTargetSet> INTERNER = Interners.newWeakInterner();
+
   private static final PointerTargetSet EMPTY_INSTANCE =
-      new PointerTargetSet(
+      PointerTargetSet.of(
           PathCopyingPersistentTreeMap.<String, CType>of(),
           PathCopyingPersistentTreeMap.<CompositeField, Boolean>of(),
           PersistentLinkedList.<Pair<String, DeferredAllocation>>of(),
@@ -267,6 +352,14 @@ public final class PointerTargetSet implements Serializable {
 
   private final int allocationCount;
 
+  // Hash codes of the potentially big maps of bases and fields (cf. mapHashCode()),
+  // the builder updates them incrementally, such that interning does not iterate over the maps.
+  private final int basesHashCode;
+  private final int fieldsHashCode;
+
+  // Computed lazily from the above and the (usually short) lists, 0 if not yet computed.
+  private transient int hashCode = 0;
+
   private static final String BASE_PREFIX = "__ADDRESS_OF_";
 
   private static final long serialVersionUID = 2102505458322248624L;
@@ -316,7 +409,7 @@ public final class PointerTargetSet implements Serializable {
               Lists.<String, Formula>transform(
                   highestAllocatedAddresses, mgr::parseArbitraryFormula));
 
-      return new PointerTargetSet(
+      return PointerTargetSet.of(
           bases,
           fields,
           PersistentLinkedList.copyOf(deferredAllocations),
@@ -144,6 +144,13 @@ public interface PointerTargetSetBuilder {
     private PersistentList<Formula> highestAllocatedAddresses;
     private int allocationCount;
 
+    // The hash codes of bases and fields, updated together with them (cf. PointerTargetSet).
+    private int basesHashCode;
+    private int fieldsHashCode;
+
+    // The set this builder was created from, returned by build() if nothing was changed.
+    private final PointerTargetSet originalSet;
+
     // Used in addEssentialFields()
     private final Predicate<Pair<CCompositeType, String>> isNewFieldPredicate =
       new Predicate<Pair<CCompositeType, String>> () {
@@ -200,6 +207,9 @@ public interface PointerTargetSetBuilder {
       targets = pointerTargetSet.getTargets();
       highestAllocatedAddresses = pointerTargetSet.getHighestAllocatedAddresses();
       allocationCount = pointerTargetSet.getAllocationCount();
+      basesHashCode = pointerTargetSet.getBasesHashCode();
+      fieldsHashCode = pointerTargetSet.getFieldsHashCode();
+      originalSet = pointerTargetSet;
       formulaManager = pFormulaManager;
       typeHandler = pTypeHandler;
       ptsMgr = pPtsMgr;
@@ -238,7 +248,7 @@ public interface PointerTargetSetBuilder {
 
       // If type is incomplete, we can use a dummy size here because it is only used for the fake base.
       int size = type.isIncomplete() ? 0 : typeHandler.getSizeof(type);
-      bases = bases.putAndCopy(name, PointerTargetSetManager.getFakeBaseType(size)); // To prevent adding spurious targets when merging
+      putBase(name, PointerTargetSetManager.getFakeBaseType(size)); // To prevent adding spurious targets when merging
 
       makeNextBaseAddressInequality(name, type, sizeExp, constraints);
     }
@@ -265,7 +275,7 @@ public interface PointerTargetSetBuilder {
         addTargets(name, type);
       }
 
-      bases = bases.putAndCopy(name, type);
+      putBase(name, type);
     }
 
     /**
@@ -286,11 +296,27 @@ public interface PointerTargetSetBuilder {
       }
 
       addTargets(name, type);
-      bases = bases.putAndCopy(name, type);
+      putBase(name, type);
 
       makeNextBaseAddressInequality(name, type, size, constraints);
     }
 
+    private void putBase(final String name, final CType type) {
+      final CType oldType = bases.get(name);
+      if (oldType != null) {
+        basesHashCode -= PointerTargetSet.entryHashCode(name, oldType);
+      }
+      bases = bases.putAndCopy(name, type);
+      basesHashCode += PointerTargetSet.entryHashCode(name, type);
+    }
+
+    private void putField(final CompositeField field) {
+      if (!fields.containsKey(field)) {
+        fields = fields.putAndCopy(field, true);
+        fieldsHashCode += PointerTargetSet.entryHashCode(field, true);
+      }
+    }
+
     /**
      * Create the constraints for inequality between existing bases and a new base
      * (to prevent overlapping), and store the new base as highest allocated address
@@ -448,7 +474,7 @@ public interface PointerTargetSetBuilder {
       for (final PersistentSortedMap.Entry<String, CType> baseEntry : bases.entrySet()) {
         addTargets(baseEntry.getKey(), baseEntry.getValue(), 0, 0, type, fieldName);
       }
-      fields = fields.putAndCopy(field, true);
+      putField(field);
 
       return oldTargets != targets;
     }
@@ -464,7 +490,10 @@ public interface PointerTargetSetBuilder {
     private void shallowRemoveField(final CCompositeType composite, final String fieldName) {
       final String type = CTypeUtils.typeToString(composite);
       final CompositeField field = CompositeField.of(type, fieldName);
-      fields = fields.removeAndCopy(field);
+      if (fields.containsKey(field)) {
+        fields = fields.removeAndCopy(field);
+        fieldsHashCode -= PointerTargetSet.entryHashCode(field, true);
+      }
     }
 
     /**
@@ -779,14 +808,23 @@ public interface PointerTargetSetBuilder {
      */
     @Override
     public PointerTargetSet build() {
-      PointerTargetSet result =
-          new PointerTargetSet(
-              bases, fields, deferredAllocations, targets, highestAllocatedAddresses, allocationCount);
-      if (result.isEmpty()) {
-        return PointerTargetSet.emptyPointerTargetSet();
-      } else {
-        return result;
+      if (bases == originalSet.getBases()
+          && fields == originalSet.getFields()
+          && deferredAllocations == originalSet.getDeferredAllocations()
+          && targets == originalSet.getTargets()
+          && highestAllocatedAddresses == originalSet.getHighestAllocatedAddresses()
+          && allocationCount == originalSet.getAllocationCount()) {
+        return originalSet;
       }
+      return PointerTargetSet.of(
+          bases,
+          basesHashCode,
+          fields,
+          fieldsHashCode,
+          deferredAllocations,
+          targets,
+          highestAllocatedAddresses,
+          allocationCount);
     }
 
     /** Returns a fresh ID that can be used as identifier for a heap allocation. */
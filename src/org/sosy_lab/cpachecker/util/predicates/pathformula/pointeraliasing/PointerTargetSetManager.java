@@ -355,7 +355,7 @@ class PointerTargetSetManager {
     int allocationCount = Math.max(pts1.getAllocationCount(), pts2.getAllocationCount());
 
     PointerTargetSet resultPTS =
-        new PointerTargetSet(
+        PointerTargetSet.of(
             mergedBases,
             mergedFields,
             mergedDeferredAllocations,